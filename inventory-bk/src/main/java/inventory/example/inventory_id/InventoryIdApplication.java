@@ -5,8 +5,10 @@ import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 @OpenAPIDefinition(
@@ -17,11 +19,23 @@ import org.springframework.web.client.RestTemplate;
   )
 )
 @SpringBootApplication
+// キャッシュは無効。有効にすると、OutboxServiceがキャッシュの削除もアウトボックスに記録する
 // @EnableCaching
+@EnableScheduling
 public class InventoryIdApplication {
 
+  // 起動の処理を記録する件数の上限(超えた分は記録しない)
+  static final int STARTUP_STEP_CAPACITY = 4096;
+
   public static void main(String[] args) {
-    SpringApplication.run(InventoryIdApplication.class, args);
+    SpringApplication application = new SpringApplication(
+      InventoryIdApplication.class
+    );
+    // 起動の各処理の所要時間を記録し、起動完了時にStartupConfigで出力する
+    application.setApplicationStartup(
+      new BufferingApplicationStartup(STARTUP_STEP_CAPACITY)
+    );
+    application.run(args);
   }
 
   @Bean
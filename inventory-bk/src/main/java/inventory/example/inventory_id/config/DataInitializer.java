@@ -2,8 +2,15 @@ package inventory.example.inventory_id.config;
 
 import inventory.example.inventory_id.model.Category;
 import inventory.example.inventory_id.repository.CategoryRepository;
+import inventory.example.inventory_id.repository.ItemRecordRepository;
+import inventory.example.inventory_id.service.RollupService;
+import inventory.example.inventory_id.service.SystemCategoryRegistry;
+import inventory.example.inventory_id.service.UserVersionService;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
@@ -15,12 +22,32 @@ public class DataInitializer implements CommandLineRunner {
   @Autowired
   private CategoryRepository categoryRepository;
 
+  @Autowired
+  private ItemRecordRepository itemRecordRepository;
+
+  @Autowired
+  private UserVersionService userVersionService;
+
+  @Autowired
+  private RollupService rollupService;
+
+  @Autowired
+  private SystemCategoryRegistry systemCategoryRegistry;
+
   @Value("${system.userid}")
   private String systemUserId;
 
   @Override
   public void run(String... args) {
     addDefaultCategories();
+    // 追加したデフォルトカテゴリを含めてメモリ上の一覧を読み込む
+    systemCategoryRegistry.refresh();
+    // 残り数量カラム追加前の入庫レコードに値を設定する
+    itemRecordRepository.backfillRemainingQuantity();
+    // カテゴリカラム追加前の入出庫レコードに値を設定する
+    itemRecordRepository.backfillCategoryId();
+    // 集計テーブル追加前の入出庫レコードから集計を作成する
+    rollupService.backfillIfEmpty();
   }
 
   private void addDefaultCategories() {
@@ -31,16 +58,22 @@ public class DataInitializer implements CommandLineRunner {
       "衣類",
       "家具"
     );
+    // 登録済みのカテゴリを1回のクエリで確認し、不足分のみまとめて保存する
+    Set<String> existingNames = new HashSet<>(
+      categoryRepository.findExistingNames(systemUserId, categoryNames)
+    );
+    List<Category> missing = new ArrayList<>();
     for (String name : categoryNames) {
-      boolean exists = categoryRepository.existsByUserIdAndName(
-        systemUserId,
-        name
-      );
-      if (!exists) {
+      if (!existingNames.contains(name)) {
         Category category = new Category(name);
         category.setUserId(systemUserId);
-        categoryRepository.save(category);
+        missing.add(category);
       }
     }
+    if (!missing.isEmpty()) {
+      categoryRepository.saveAll(missing);
+      // デフォルトカテゴリは全ユーザーの一覧に含まれるため、全体のETagを無効化する
+      userVersionService.bumpGlobal();
+    }
   }
 }
@@ -7,8 +7,9 @@ import io.github.cdimascio.dotenv.Dotenv;
 
 @Configuration
 public class DotenvConfig {
+  // コンテナでは.envを含めず、環境変数から読み込む(未定義の値は環境変数を参照する)
   @Bean
   public Dotenv dotenv() {
-    return Dotenv.configure().filename(".env").load();
+    return Dotenv.configure().filename(".env").ignoreIfMissing().load();
   }
 }
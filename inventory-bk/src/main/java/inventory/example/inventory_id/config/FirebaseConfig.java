@@ -1,33 +1,65 @@
 package inventory.example.inventory_id.config;
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import javax.annotation.PostConstruct;
 import java.io.FileInputStream;
-import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Configuration
+// local-authプロファイルではFirebaseに接続しない
+@Profile("!local-auth")
 public class FirebaseConfig {
   private static final Logger logger = LoggerFactory.getLogger(FirebaseConfig.class);
 
+  @Value("${firebase.credentials-path:./src/main/resources/firebase-service-account.json}")
+  private String credentialsPath;
+
+  // 認証情報の読み込みとSDKの初期化は起動を待たせずに別スレッドで行い、
+  // Firebaseを使う処理はawaitInitialized()で完了を待つ
+  private final CompletableFuture<Void> initialized = new CompletableFuture<>();
+
   @PostConstruct
-  public void init() throws IOException {
-    if (FirebaseApp.getApps().isEmpty()) {
-      try {
-        FileInputStream serviceAccount = new FileInputStream("./src/main/resources/firebase-service-account.json");
-        FirebaseOptions options = FirebaseOptions.builder()
-            .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-            .build();
+  public void init() {
+    Thread thread = new Thread(this::initializeApp, "firebase-init");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Firebaseの初期化の完了を待つ(初期化に失敗した場合も待機を終える)
+   */
+  public void awaitInitialized() {
+    initialized.join();
+  }
+
+  private void initializeApp() {
+    try {
+      if (FirebaseApp.getApps().isEmpty()) {
+        FileInputStream serviceAccount = new FileInputStream(credentialsPath);
+        GoogleCredentials credentials = GoogleCredentials.fromStream(serviceAccount);
+        FirebaseOptions.Builder builder = FirebaseOptions.builder()
+            .setCredentials(credentials);
+        // IDトークンの検証対象(aud)を起動時の公開鍵の事前取得でも参照できるようにする
+        if (credentials instanceof ServiceAccountCredentials serviceAccountCredentials) {
+          builder.setProjectId(serviceAccountCredentials.getProjectId());
+        }
+        FirebaseOptions options = builder.build();
 
         FirebaseApp.initializeApp(options);
-      } catch (Exception e) {
-        logger.error("Firebase initialization error: {}", e.getMessage(), e);
       }
+    } catch (Exception e) {
+      logger.error("Firebase initialization error: {}", e.getMessage(), e);
+    } finally {
+      initialized.complete(null);
     }
   }
 }
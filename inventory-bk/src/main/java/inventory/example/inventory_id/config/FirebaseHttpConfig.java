@@ -0,0 +1,37 @@
+package inventory.example.inventory_id.config;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Firebase Auth REST API(identitytoolkit)の呼び出しに共有するHTTPクライアントの設定です。
+ * リクエストごとにクライアントを作成すると毎回接続とTLSハンドシェイクが発生するため、
+ * 接続を保持(keep-alive)して再利用するクライアントを1つだけ作成します。
+ */
+@Configuration
+public class FirebaseHttpConfig {
+
+  @Value("${firebase.http.connect-timeout:2s}")
+  private Duration connectTimeout;
+
+  @Value("${firebase.http.read-timeout:5s}")
+  private Duration readTimeout;
+
+  @Bean
+  public RestClient firebaseRestClient(RestClient.Builder builder) {
+    // JDKのHttpClientは接続をプールし、HTTP/2が使える場合は1つの接続で多重化する
+    HttpClient httpClient = HttpClient.newBuilder()
+      .connectTimeout(connectTimeout)
+      .followRedirects(HttpClient.Redirect.NEVER)
+      .build();
+    JdkClientHttpRequestFactory requestFactory =
+      new JdkClientHttpRequestFactory(httpClient);
+    requestFactory.setReadTimeout(readTimeout);
+    return builder.requestFactory(requestFactory).build();
+  }
+}
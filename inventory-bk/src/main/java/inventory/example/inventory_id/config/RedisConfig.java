@@ -1,15 +1,22 @@
 package inventory.example.inventory_id.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.event.InventoryEventBus;
+import inventory.example.inventory_id.util.CircuitBreaker;
+import inventory.example.inventory_id.util.ResilientCacheManager;
 import java.time.Duration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -20,6 +27,22 @@ public class RedisConfig {
   @Value("${spring.cache.redis.time-to-live:5m}")
   private Duration cacheTimeToLive;
 
+  /**
+   * Redisの呼び出しを保護するサーキットブレーカー(セッション・キャッシュで共有)
+   * Redisの障害時はタイムアウトを待たずに、ローカルのセッションやDBを使う
+   */
+  @Bean
+  public CircuitBreaker redisCircuitBreaker(
+    @Value(
+      "${inventory.redis.circuit-breaker.failure-threshold:5}"
+    ) int failureThreshold,
+    @Value(
+      "${inventory.redis.circuit-breaker.open-duration:5s}"
+    ) Duration openDuration
+  ) {
+    return new CircuitBreaker("Redis", failureThreshold, openDuration);
+  }
+
   @Bean
   public RedisTemplate<String, Object> redisTemplate(
     RedisConnectionFactory factory
@@ -42,7 +65,10 @@ public class RedisConfig {
   }
 
   @Bean
-  public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+  public CacheManager cacheManager(
+    RedisConnectionFactory connectionFactory,
+    CircuitBreaker redisCircuitBreaker
+  ) {
     ObjectMapper objectMapper = new ObjectMapper();
     objectMapper.findAndRegisterModules();
 
@@ -59,8 +85,33 @@ public class RedisConfig {
         .entryTtl(cacheTimeToLive)
         .disableCachingNullValues();
 
-    return RedisCacheManager.builder(connectionFactory)
+    // キャッシュ全体の削除(clear)はKEYSではなくSCANでキーを探す(Redisを長時間止めないため)
+    RedisCacheManager redisCacheManager = RedisCacheManager.builder(
+      RedisCacheWriter.nonLockingRedisCacheWriter(
+        connectionFactory,
+        BatchStrategies.scan(1000)
+      )
+    )
       .cacheDefaults(config)
       .build();
+    redisCacheManager.afterPropertiesSet();
+    // Redisが利用できない場合はキャッシュを使わずにDBから取得する
+    return new ResilientCacheManager(redisCacheManager, redisCircuitBreaker);
+  }
+
+  @Bean
+  public RedisMessageListenerContainer inventoryEventListenerContainer(
+    RedisConnectionFactory connectionFactory,
+    InventoryEventBus inventoryEventBus
+  ) {
+    // 他ノードを含む全ノードで発行された在庫イベントを購読する
+    RedisMessageListenerContainer container =
+      new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(
+      (message, pattern) -> inventoryEventBus.receive(message.getBody()),
+      new ChannelTopic(InventoryEventBus.CHANNEL)
+    );
+    return container;
   }
 }
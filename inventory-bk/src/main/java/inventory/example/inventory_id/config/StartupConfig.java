@@ -0,0 +1,96 @@
+package inventory.example.inventory_id.config;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * 起動時間の短縮のための設定です。
+ * prodプロファイルではBeanを初回の利用時に作成するため(spring.main.lazy-initialization)、
+ * 利用されなくても動作する必要のあるBean(定期処理・イベントの受信)は起動時に作成します。
+ * また、起動完了時に時間のかかった起動の処理を出力します。
+ */
+@Configuration
+public class StartupConfig {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    StartupConfig.class
+  );
+
+  @Value("${inventory.startup.timeline.top-steps:10}")
+  private int topSteps;
+
+  /**
+   * 定期処理(@Scheduled)・イベントの受信(@EventListener)を持つBeanは遅延させない
+   * (他のBeanから参照されない場合、作成されずに処理が行われなくなるため)
+   */
+  @Bean
+  static LazyInitializationExcludeFilter backgroundTaskBeans() {
+    return (beanName, beanDefinition, beanType) ->
+      beanType != null && hasBackgroundTasks(beanType);
+  }
+
+  static boolean hasBackgroundTasks(Class<?> beanType) {
+    return !MethodIntrospector.selectMethods(
+      beanType,
+      (MethodIntrospector.MetadataLookup<Boolean>) method ->
+        AnnotatedElementUtils.hasAnnotation(method, Scheduled.class) ||
+          AnnotatedElementUtils.hasAnnotation(method, EventListener.class)
+          ? Boolean.TRUE
+          : null
+    ).isEmpty();
+  }
+
+  /**
+   * 起動の処理のうち時間のかかったものを出力する
+   * (InventoryIdApplication.mainで起動の記録を有効にした場合のみ)
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void reportStartupTimeline(ApplicationReadyEvent event) {
+    ApplicationStartup startup =
+      event.getApplicationContext().getApplicationStartup();
+    if (!(startup instanceof BufferingApplicationStartup buffering)) {
+      return;
+    }
+    // 記録はこの出力にのみ使うため、取り出してメモリを解放する
+    List<TimelineEvent> slowest = buffering
+      .drainBufferedTimeline()
+      .getEvents()
+      .stream()
+      .sorted(Comparator.comparing(TimelineEvent::getDuration).reversed())
+      .limit(topSteps)
+      .toList();
+    Duration timeTaken = event.getTimeTaken();
+    logger.info(
+      "起動が完了しました: {}ms (時間のかかった処理 上位{}件)",
+      timeTaken != null ? timeTaken.toMillis() : -1,
+      slowest.size()
+    );
+    for (TimelineEvent step : slowest) {
+      logger.info(
+        "  {}ms {} {}",
+        step.getDuration().toMillis(),
+        step.getStartupStep().getName(),
+        StreamSupport.stream(step.getStartupStep().getTags().spliterator(), false)
+          .map(tag -> tag.getKey() + "=" + tag.getValue())
+          .collect(Collectors.joining(", "))
+      );
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package inventory.example.inventory_id.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.handler.AuthenticationFilter;
+import inventory.example.inventory_id.handler.ConditionalGetInterceptor;
+import inventory.example.inventory_id.service.LoopbackTokenService;
+import inventory.example.inventory_id.service.StatelessSessionService;
+import inventory.example.inventory_id.service.TokenCacheService;
+import inventory.example.inventory_id.service.UserVersionService;
+import java.time.Clock;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+  private final UserVersionService userVersionService;
+
+  // 在庫切れまでの日数を含むアイテム一覧のETagを変える間隔
+  private final Duration forecastEtagInterval;
+
+  public WebConfig(
+    UserVersionService userVersionService,
+    @Value(
+      "${inventory.conditional-get.forecast-interval:1h}"
+    ) Duration forecastEtagInterval
+  ) {
+    this.userVersionService = userVersionService;
+    this.forecastEtagInterval = forecastEtagInterval;
+  }
+
+  // リクエストごとに一度だけユーザーを認証し、未認証のリクエストはコントローラーへ進めない
+  @Bean
+  public FilterRegistrationBean<AuthenticationFilter> authenticationFilter(
+    TokenCacheService tokenCacheService,
+    StatelessSessionService statelessSessionService,
+    LoopbackTokenService loopbackTokenService,
+    ObjectMapper objectMapper
+  ) {
+    FilterRegistrationBean<AuthenticationFilter> registration =
+      new FilterRegistrationBean<>(
+        new AuthenticationFilter(
+          tokenCacheService,
+          statelessSessionService,
+          loopbackTokenService,
+          objectMapper
+        )
+      );
+    registration.addUrlPatterns("/*");
+    return registration;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    // 条件付きGET(ETag)の対象となる一覧・詳細取得API
+    // 買い物リスト(/api/item/buy-soon)は読み込み時の日時で消費量を減衰させて判定するため対象外
+    registry
+      .addInterceptor(new ConditionalGetInterceptor(userVersionService))
+      .addPathPatterns(
+        "/api/item/low-stock",
+        "/api/item/*/records",
+        "/api/category",
+        "/api/category/items",
+        "/api/item-record",
+        "/api/item-record/history"
+      );
+    // アイテム一覧は在庫切れまでの日数が時間の経過で変わるため、一定間隔でETagを変える
+    registry
+      .addInterceptor(
+        new ConditionalGetInterceptor(
+          userVersionService,
+          forecastEtagInterval,
+          Clock.systemUTC()
+        )
+      )
+      .addPathPatterns("/api/item");
+  }
+}
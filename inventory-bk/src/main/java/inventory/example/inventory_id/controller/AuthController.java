@@ -5,6 +5,7 @@ import inventory.example.inventory_id.exception.AuthenticationException;
 import inventory.example.inventory_id.request.EmailAuthRequest;
 import inventory.example.inventory_id.response.FirebaseSignUpResponse;
 import inventory.example.inventory_id.service.FirebaseAuthService;
+import inventory.example.inventory_id.service.StatelessSessionService;
 import inventory.example.inventory_id.service.TokenCacheService;
 import inventory.example.inventory_id.validategroup.RegisterGroup;
 import io.swagger.v3.oas.annotations.Operation;
@@ -31,6 +32,7 @@ public class AuthController extends BaseController {
 
   private final FirebaseAuthService firebaseAuthService;
   private final TokenCacheService tokenCacheService;
+  private final StatelessSessionService statelessSessionService;
 
   private static final String SIGNUP_SUCCEEDED_EXAMPLE =
     "{ \"message\": \"ユーザー登録が完了しました\" }";
@@ -49,10 +51,12 @@ public class AuthController extends BaseController {
 
   public AuthController(
     FirebaseAuthService firebaseAuthService,
-    TokenCacheService tokenCacheService
+    TokenCacheService tokenCacheService,
+    StatelessSessionService statelessSessionService
   ) {
     this.firebaseAuthService = firebaseAuthService;
     this.tokenCacheService = tokenCacheService;
+    this.statelessSessionService = statelessSessionService;
   }
 
   @PostMapping("/signUp")
@@ -95,9 +99,7 @@ public class AuthController extends BaseController {
       String idToken = firebaseResponse.getIdToken();
 
       String userId = firebaseAuthService.verifyToken(idToken);
-      tokenCacheService.cacheUser(idToken, userId);
-
-      setCookie(response, idToken);
+      startSession(response, idToken, userId);
       return response(
         HttpStatus.OK,
         AuthMessage.REGISTER_SUCCEEDED_MSG.getMessage()
@@ -137,7 +139,11 @@ public class AuthController extends BaseController {
       String token = getTokenFromRequest();
 
       if (token != null) {
-        tokenCacheService.removeUserCache(token);
+        if (statelessSessionService.isEnabled()) {
+          statelessSessionService.revoke(token);
+        } else {
+          tokenCacheService.removeUserCache(token);
+        }
       }
 
       clearCookie(response);
@@ -209,9 +215,7 @@ public class AuthController extends BaseController {
       String idToken = firebaseResponse.getIdToken();
 
       String userId = firebaseAuthService.verifyToken(idToken);
-      tokenCacheService.cacheUser(idToken, userId);
-
-      setCookie(response, idToken);
+      startSession(response, idToken, userId);
       return response(
         HttpStatus.OK,
         AuthMessage.REGISTER_SUCCEEDED_MSG.getMessage()
@@ -279,9 +283,7 @@ public class AuthController extends BaseController {
       String idToken = firebaseResponse.getIdToken();
 
       String userId = firebaseAuthService.verifyToken(idToken);
-      tokenCacheService.cacheUser(idToken, userId);
-
-      setCookie(response, idToken);
+      startSession(response, idToken, userId);
       return response(
         HttpStatus.OK,
         AuthMessage.SIGNIN_SUCCEEDED_MSG.getMessage()
@@ -295,4 +297,21 @@ public class AuthController extends BaseController {
       );
     }
   }
+
+  /**
+   * セッションを開始し、Cookieを設定する
+   * ステートレスなセッションの場合はセッションCookieを、それ以外はIDトークンを保存する
+   */
+  private void startSession(
+    HttpServletResponse response,
+    String idToken,
+    String userId
+  ) throws Exception {
+    if (statelessSessionService.isEnabled()) {
+      setCookie(response, statelessSessionService.createSessionCookie(idToken));
+      return;
+    }
+    tokenCacheService.cacheUser(idToken, userId);
+    setCookie(response, idToken);
+  }
 }
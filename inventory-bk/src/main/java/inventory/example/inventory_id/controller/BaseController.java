@@ -1,9 +1,6 @@
 package inventory.example.inventory_id.controller;
 
-import inventory.example.inventory_id.enums.AuthMessage;
-import inventory.example.inventory_id.exception.AuthenticationException;
-import inventory.example.inventory_id.service.FirebaseAuthService;
-import inventory.example.inventory_id.service.TokenCacheService;
+import inventory.example.inventory_id.handler.AuthenticationFilter;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -16,16 +13,11 @@ import org.springframework.stereotype.Component;
 @Component
 public abstract class BaseController {
 
-  @Autowired
-  FirebaseAuthService firebaseAuthService;
-
-  @Autowired
-  TokenCacheService tokenCacheService;
-
   @Autowired
   protected HttpServletRequest request;
 
-  private String tokenKey = "firebase-token";
+  // 認証フィルターで解決済みのユーザーIDを保持するリクエスト属性
+  public static final String USER_ID_ATTRIBUTE = "inventory.userId";
 
   protected <T> ResponseEntity<T> response(HttpStatus status) {
     return ResponseEntity.status(status).build();
@@ -41,45 +33,34 @@ public abstract class BaseController {
     return ResponseEntity.status(status).body(data);
   }
 
-  protected String fetchUserIdFromToken() throws AuthenticationException {
-    String token = getTokenFromRequest();
-    if (token == null) {
-      throw new AuthenticationException(
-        AuthMessage.AUTHTOKEN_NOT_FOUND.getMessage()
-      );
+  /**
+   * 認証フィルター({@link AuthenticationFilter})で解決済みのユーザーIDを取得する
+   * 未認証のリクエストはフィルターで拒否されるため、コントローラーでは認証エラーを扱わない
+   */
+  protected String fetchUserIdFromToken() {
+    Object resolvedUserId = request.getAttribute(USER_ID_ATTRIBUTE);
+    if (resolvedUserId instanceof String userId) {
+      return userId;
     }
-
-    // RedisキャッシュからユーザーIDを取得
-    String cachedUserId = tokenCacheService.getUserIdFromCache(token);
-    if (cachedUserId == null) {
-      throw new AuthenticationException(AuthMessage.IDLE_TIMEOUT.getMessage());
-    }
-
-    // セッションのタイムアウトを更新
-    tokenCacheService.refreshUserCache(token);
-    return cachedUserId;
+    // 認証が不要なパスのコントローラーからは呼び出さない
+    throw new IllegalStateException(
+      "認証フィルターでユーザーが解決されていません: " + request.getRequestURI()
+    );
   }
 
   protected String getTokenFromRequest() {
-    if (request.getCookies() != null) {
-      for (Cookie cookie : request.getCookies()) {
-        if (tokenKey.equals(cookie.getName())) {
-          return cookie.getValue();
-        }
-      }
-    }
-    return null;
+    return AuthenticationFilter.tokenFrom(request);
   }
 
   protected void setCookie(HttpServletResponse response, String tokenValue) {
-    Cookie cookie = new Cookie(tokenKey, tokenValue);
+    Cookie cookie = new Cookie(AuthenticationFilter.TOKEN_KEY, tokenValue);
     cookie.setPath("/");
     cookie.setHttpOnly(true);
     response.addCookie(cookie);
   }
 
   protected void clearCookie(HttpServletResponse response) {
-    Cookie cookie = new Cookie(tokenKey, null);
+    Cookie cookie = new Cookie(AuthenticationFilter.TOKEN_KEY, null);
     cookie.setPath("/");
     cookie.setHttpOnly(true);
     cookie.setMaxAge(0);
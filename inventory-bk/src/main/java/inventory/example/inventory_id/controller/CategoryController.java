@@ -2,7 +2,6 @@ package inventory.example.inventory_id.controller;
 
 import inventory.example.inventory_id.dto.CategoryDto;
 import inventory.example.inventory_id.dto.ItemDto;
-import inventory.example.inventory_id.exception.AuthenticationException;
 import inventory.example.inventory_id.request.CategoryRequest;
 import inventory.example.inventory_id.response.PageResponse;
 import inventory.example.inventory_id.service.CategoryService;
@@ -110,13 +109,13 @@ public class CategoryController extends BaseController {
       );
 
       return response(HttpStatus.OK, pageResp);
+    } catch (IllegalArgumentException e) {
+      return response(HttpStatus.BAD_REQUEST, e.getMessage());
     } catch (ResponseStatusException e) {
       return response(
         HttpStatus.valueOf(e.getStatusCode().value()),
         e.getReason()
       );
-    } catch (AuthenticationException e) {
-      return response(HttpStatus.UNAUTHORIZED, e.getMessage());
     } catch (Exception e) {
       return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
     }
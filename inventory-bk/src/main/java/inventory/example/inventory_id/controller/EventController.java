@@ -0,0 +1,58 @@
+package inventory.example.inventory_id.controller;
+
+import inventory.example.inventory_id.service.InventoryStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+@Tag(
+  name = "イベント",
+  description = "在庫の変更をServer-Sent Eventsでリアルタイムに配信するAPIです。"
+)
+public class EventController extends BaseController {
+
+  private final InventoryStreamService inventoryStreamService;
+
+  public EventController(InventoryStreamService inventoryStreamService) {
+    this.inventoryStreamService = inventoryStreamService;
+  }
+
+  @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @Operation(
+    summary = "在庫イベントの購読",
+    description = "ログインユーザーの在庫変更をSSEで配信します。\n\n- ITEM_CREATED: アイテムの作成\n- ITEM_UPDATED: アイテムの更新、在庫数・金額の変更\n- ITEM_DELETED: アイテムの削除\n- RECORD_CREATED: 入出庫レコードの作成\n- RECORD_DELETED: 入出庫レコードの削除\n\n接続維持のため定期的にコメント行が送信されます。"
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(
+        responseCode = "200",
+        description = "購読開始",
+        content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)
+      ),
+      @ApiResponse(responseCode = "401", description = "未認証の時のレスポンス"),
+      @ApiResponse(
+        responseCode = "500",
+        description = "サーバーエラーが発生時のレスポンス"
+      ),
+    }
+  )
+  public ResponseEntity<SseEmitter> subscribe() {
+    try {
+      String userId = fetchUserIdFromToken();
+      return response(HttpStatus.OK, inventoryStreamService.subscribe(userId));
+    } catch (Exception e) {
+      return response(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+}
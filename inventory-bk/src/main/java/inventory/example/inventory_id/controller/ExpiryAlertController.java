@@ -0,0 +1,129 @@
+package inventory.example.inventory_id.controller;
+
+import inventory.example.inventory_id.dto.ExpiryAlertDto;
+import inventory.example.inventory_id.request.ExpiryHorizonRequest;
+import inventory.example.inventory_id.service.ExpiryAlertService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/expiry-alerts")
+@Tag(
+  name = "有効期限アラート",
+  description = "有効期限が近づいている、または期限切れの在庫(入庫ロット)を確認するAPIです。"
+)
+public class ExpiryAlertController extends BaseController {
+
+  private final ExpiryAlertService expiryAlertService;
+
+  public ExpiryAlertController(ExpiryAlertService expiryAlertService) {
+    this.expiryAlertService = expiryAlertService;
+  }
+
+  @GetMapping
+  @Operation(
+    summary = "有効期限アラートの取得",
+    description = "残り数量がある入庫ロットのうち、設定した日数以内に有効期限を迎えるもの、および期限切れのものを有効期限の昇順で返します。"
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(
+        responseCode = "200",
+        description = "取得成功時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          array = @ArraySchema(
+            schema = @Schema(implementation = ExpiryAlertDto.class)
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "サーバーエラーが発生時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"サーバーエラーが発生しました\" }"
+          )
+        )
+      ),
+    }
+  )
+  public ResponseEntity<Object> getAlerts() {
+    try {
+      String userId = fetchUserIdFromToken();
+      List<ExpiryAlertDto> alerts = expiryAlertService.getAlerts(userId);
+      return response(HttpStatus.OK, alerts);
+    } catch (Exception e) {
+      return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
+  @PutMapping("/horizon")
+  @Operation(
+    summary = "有効期限アラートの対象日数の更新",
+    description = "今日から何日以内に有効期限を迎えるロットをアラートの対象とするかを設定します。初期値は7日です。"
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(
+        responseCode = "200",
+        description = "更新成功時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"アラートの対象日数を更新しました\" }"
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "400",
+        description = "インプットが不正な時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"error\": \"日数は90以下で入力してください\" }"
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "サーバーエラーが発生時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"サーバーエラーが発生しました\" }"
+          )
+        )
+      ),
+    }
+  )
+  public ResponseEntity<Object> updateHorizon(
+    @RequestBody @Valid ExpiryHorizonRequest horizonRequest
+  ) {
+    try {
+      String userId = fetchUserIdFromToken();
+      expiryAlertService.updateHorizonDays(userId, horizonRequest.getDays());
+      return response(HttpStatus.OK, "アラートの対象日数を更新しました");
+    } catch (IllegalArgumentException e) {
+      return response(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+}
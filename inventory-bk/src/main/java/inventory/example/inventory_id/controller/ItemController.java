@@ -2,9 +2,11 @@ package inventory.example.inventory_id.controller;
 
 import inventory.example.inventory_id.dto.ItemDto;
 import inventory.example.inventory_id.dto.ItemRecordDto;
-import inventory.example.inventory_id.exception.AuthenticationException;
+import inventory.example.inventory_id.dto.LowStockAlertDto;
+import inventory.example.inventory_id.dto.StockoutForecastDto;
 import inventory.example.inventory_id.request.ItemRequest;
 import inventory.example.inventory_id.response.PageResponse;
+import inventory.example.inventory_id.service.ConsumptionForecastService;
 import inventory.example.inventory_id.service.ItemRecordService;
 import inventory.example.inventory_id.service.ItemService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -56,6 +58,9 @@ public class ItemController extends BaseController {
   @Autowired
   private ItemRecordService itemRecordService;
 
+  @Autowired
+  private ConsumptionForecastService consumptionForecastService;
+
   @PostMapping
   @Operation(
     summary = "アイテムの作成",
@@ -222,8 +227,6 @@ public class ItemController extends BaseController {
       return response(HttpStatus.OK, res);
     } catch (IllegalArgumentException e) {
       return response(HttpStatus.BAD_REQUEST, e.getMessage());
-    } catch (AuthenticationException e) {
-      return response(HttpStatus.UNAUTHORIZED, e.getMessage());
     } catch (Exception e) {
       return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
     }
@@ -391,8 +394,99 @@ public class ItemController extends BaseController {
         HttpStatus.valueOf(e.getStatusCode().value()),
         e.getReason()
       );
-    } catch (AuthenticationException e) {
-      return response(HttpStatus.UNAUTHORIZED, e.getMessage());
+    } catch (Exception e) {
+      return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
+  @GetMapping("/low-stock")
+  @Operation(
+    summary = "在庫不足アイテムの取得",
+    description = "在庫数が発注点を下回っているアイテムを返します。在庫が回復すると自動的に対象外になります。"
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(
+        responseCode = "200",
+        description = "取得成功時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          array = @ArraySchema(
+            schema = @Schema(implementation = LowStockAlertDto.class)
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "サーバーエラーが発生時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"サーバーエラーが発生しました\" }"
+          )
+        )
+      ),
+    }
+  )
+  public ResponseEntity<Object> getLowStockItems() {
+    try {
+      String userId = fetchUserIdFromToken();
+      List<LowStockAlertDto> items = itemService.getLowStockItems(userId);
+      return response(HttpStatus.OK, items);
+    } catch (Exception e) {
+      return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
+  @GetMapping("/buy-soon")
+  @Operation(
+    summary = "まもなく在庫切れになるアイテムの取得",
+    description = "出庫実績から見積もった消費量をもとに、対象日数内に在庫切れが見込まれるアイテムを在庫切れが近い順に返します。"
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(
+        responseCode = "200",
+        description = "取得成功時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          array = @ArraySchema(
+            schema = @Schema(implementation = StockoutForecastDto.class)
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "400",
+        description = "対象日数が範囲外の場合のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"対象日数は1から90日の範囲で指定してください\" }"
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "サーバーエラーが発生時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"サーバーエラーが発生しました\" }"
+          )
+        )
+      ),
+    }
+  )
+  public ResponseEntity<Object> getBuySoonItems(
+    @RequestParam(value = "horizon_days", required = false) Integer horizonDays
+  ) {
+    try {
+      String userId = fetchUserIdFromToken();
+      List<StockoutForecastDto> items =
+        consumptionForecastService.getBuySoonItems(userId, horizonDays);
+      return response(HttpStatus.OK, items);
+    } catch (IllegalArgumentException e) {
+      return response(HttpStatus.BAD_REQUEST, e.getMessage());
     } catch (Exception e) {
       return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
     }
@@ -1,10 +1,12 @@
 package inventory.example.inventory_id.controller;
 
+import inventory.example.inventory_id.dto.IdempotentResponse;
 import inventory.example.inventory_id.dto.ItemRecordDto;
-import inventory.example.inventory_id.exception.AuthenticationException;
 import inventory.example.inventory_id.request.ItemRecordRequest;
+import inventory.example.inventory_id.service.IdempotencyService;
 import inventory.example.inventory_id.service.ItemRecordService;
 import jakarta.validation.Valid;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.springframework.http.HttpStatus;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -23,25 +26,54 @@ import org.springframework.web.server.ResponseStatusException;
 public class ItemRecordController extends BaseController {
 
   private final ItemRecordService itemRecordService;
+  private final IdempotencyService idempotencyService;
 
-  public ItemRecordController(ItemRecordService itemRecordService) {
+  public ItemRecordController(
+    ItemRecordService itemRecordService,
+    IdempotencyService idempotencyService
+  ) {
     this.itemRecordService = itemRecordService;
+    this.idempotencyService = idempotencyService;
   }
 
   private final String ITEM_RECORD_DELETED = "入出庫履歴を削除しました";
+  private final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
 
   // TODO: 履歴の作成仕様はプレゼンテーション以降に修正する可能性がある、要確認。
   @PostMapping
   public ResponseEntity<Object> createItemRecord(
-    @RequestBody @Valid ItemRecordRequest request
+    @RequestBody @Valid ItemRecordRequest request,
+    @RequestHeader(
+      value = "Idempotency-Key",
+      required = false
+    ) String idempotencyKey
   ) {
     try {
       String userId = fetchUserIdFromToken();
-      String returnMessage = itemRecordService.createItemRecord(
+      if (idempotencyKey == null) {
+        String returnMessage = itemRecordService.createItemRecord(
+          userId,
+          request
+        );
+        return response(HttpStatus.CREATED, returnMessage);
+      }
+
+      // タイムアウト後の再送で履歴が重複しないよう、同じキーの結果を返す
+      IdempotentResponse result = idempotencyService.execute(
         userId,
-        request
+        idempotencyKey,
+        request,
+        () -> createRecord(userId, request)
+      );
+      ResponseEntity.BodyBuilder builder = ResponseEntity.status(
+        result.getStatus()
+      );
+      if (result.isReplayed()) {
+        builder.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+      }
+      return builder.body(
+        Collections.singletonMap("message", result.getMessage())
       );
-      return response(HttpStatus.CREATED, returnMessage);
     } catch (ResponseStatusException e) {
       return response(
         HttpStatus.valueOf(e.getStatusCode().value()),
@@ -54,6 +86,33 @@ public class ItemRecordController extends BaseController {
     }
   }
 
+  /**
+   * Idempotency-Keyに対して保存する結果を作成する
+   * 入力内容によるエラーは再送しても同じ結果になるため、結果として保存する
+   */
+  private IdempotentResponse createRecord(
+    String userId,
+    ItemRecordRequest request
+  ) {
+    try {
+      String returnMessage = itemRecordService.createItemRecord(
+        userId,
+        request
+      );
+      return new IdempotentResponse(
+        HttpStatus.CREATED.value(),
+        returnMessage
+      );
+    } catch (ResponseStatusException e) {
+      return new IdempotentResponse(e.getStatusCode().value(), e.getReason());
+    } catch (IllegalArgumentException e) {
+      return new IdempotentResponse(
+        HttpStatus.BAD_REQUEST.value(),
+        e.getMessage()
+      );
+    }
+  }
+
   // TODO: 履歴作成の仕様変更による修正する必要がある、要確認。
   @DeleteMapping
   public ResponseEntity<Object> deleteItemRecord(
@@ -95,8 +154,6 @@ public class ItemRecordController extends BaseController {
         HttpStatus.valueOf(e.getStatusCode().value()),
         e.getReason()
       );
-    } catch (AuthenticationException e) {
-      return response(HttpStatus.UNAUTHORIZED, e.getMessage());
     } catch (Exception e) {
       return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
     }
@@ -110,8 +167,6 @@ public class ItemRecordController extends BaseController {
         userId
       );
       return response(HttpStatus.OK, itemRecords);
-    } catch (AuthenticationException e) {
-      return response(HttpStatus.UNAUTHORIZED, e.getMessage());
     } catch (Exception e) {
       return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
     }
@@ -0,0 +1,67 @@
+package inventory.example.inventory_id.controller;
+
+import inventory.example.inventory_id.request.FirebaseSignUpRequest;
+import inventory.example.inventory_id.service.LocalIdentityProvider;
+import java.util.Map;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 負荷試験用のidentitytoolkit互換API(local-authプロファイルでのみ有効)。
+ * firebase.signUpBaseUrl・firebase.signInBaseUrlをこのAPIに向けることで、
+ * 共有のHTTPクライアントを含めた認証の経路を外部に接続せずに実行できます。
+ */
+@RestController
+@Profile("local-auth")
+@RequestMapping("/local-auth/v1")
+public class LocalIdentityToolkitController {
+
+  private final LocalIdentityProvider localIdentityProvider;
+
+  public LocalIdentityToolkitController(
+    LocalIdentityProvider localIdentityProvider
+  ) {
+    this.localIdentityProvider = localIdentityProvider;
+  }
+
+  @PostMapping("/accounts:signUp")
+  public ResponseEntity<Object> signUp(
+    @RequestBody FirebaseSignUpRequest request
+  ) {
+    try {
+      return ResponseEntity.ok(
+        localIdentityProvider.signUp(request.getEmail(), request.getPassword())
+      );
+    } catch (IllegalArgumentException e) {
+      return error(e.getMessage());
+    }
+  }
+
+  @PostMapping("/accounts:signInWithPassword")
+  public ResponseEntity<Object> signIn(
+    @RequestBody FirebaseSignUpRequest request
+  ) {
+    try {
+      return ResponseEntity.ok(
+        localIdentityProvider.signIn(request.getEmail(), request.getPassword())
+      );
+    } catch (IllegalArgumentException e) {
+      return error(e.getMessage());
+    }
+  }
+
+  // identitytoolkitと同じ形式のエラー
+  private ResponseEntity<Object> error(String message) {
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+      Map.of(
+        "error",
+        Map.of("code", HttpStatus.BAD_REQUEST.value(), "message", message)
+      )
+    );
+  }
+}
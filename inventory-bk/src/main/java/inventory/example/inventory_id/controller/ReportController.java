@@ -0,0 +1,167 @@
+package inventory.example.inventory_id.controller;
+
+import inventory.example.inventory_id.dto.ConsumptionRollupDto;
+import inventory.example.inventory_id.service.RollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/report")
+@Tag(
+  name = "レポート",
+  description = "入出庫の集計レポートAPIです。日別・月別の集計テーブルから返すため、期間が長くても入出庫レコードは走査しません。"
+)
+public class ReportController extends BaseController {
+
+  private final RollupService rollupService;
+
+  public ReportController(RollupService rollupService) {
+    this.rollupService = rollupService;
+  }
+
+  @GetMapping("/items/{item_id}/daily")
+  @Operation(
+    summary = "アイテムの日別入出庫集計",
+    description = "指定のアイテムの日ごとの入庫・出庫の数量と金額を返します。\n\n- fromを省略した場合は30日前から\n- toを省略した場合は今日まで\n- 入出庫がない日は含まれません"
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(
+        responseCode = "200",
+        description = "取得成功時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          array = @ArraySchema(
+            schema = @Schema(implementation = ConsumptionRollupDto.class)
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "400",
+        description = "期間が不正な時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"開始日は終了日以前の日付を指定してください\" }"
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "サーバーエラーが発生時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"サーバーエラーが発生しました\" }"
+          )
+        )
+      ),
+    }
+  )
+  public ResponseEntity<Object> getItemDaily(
+    @PathVariable("item_id") UUID itemId,
+    @RequestParam(value = "from", required = false) @DateTimeFormat(
+      iso = DateTimeFormat.ISO.DATE
+    ) LocalDate from,
+    @RequestParam(value = "to", required = false) @DateTimeFormat(
+      iso = DateTimeFormat.ISO.DATE
+    ) LocalDate to
+  ) {
+    try {
+      String userId = fetchUserIdFromToken();
+      LocalDate until = to != null ? to : LocalDate.now();
+      List<ConsumptionRollupDto> rollups = rollupService.getItemDailyRollups(
+        userId,
+        itemId,
+        from != null ? from : until.minusDays(30),
+        until
+      );
+      return response(HttpStatus.OK, rollups);
+    } catch (IllegalArgumentException e) {
+      return response(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+
+  @GetMapping("/categories/monthly")
+  @Operation(
+    summary = "カテゴリの月別入出庫集計",
+    description = "カテゴリごと・月ごとの入庫・出庫の数量と金額を返します。\n\n- fromを省略した場合は12ヶ月前の月から\n- toを省略した場合は今月まで\n- periodには月初日が入ります"
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(
+        responseCode = "200",
+        description = "取得成功時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          array = @ArraySchema(
+            schema = @Schema(implementation = ConsumptionRollupDto.class)
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "400",
+        description = "期間が不正な時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"開始日は終了日以前の日付を指定してください\" }"
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "サーバーエラーが発生時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"サーバーエラーが発生しました\" }"
+          )
+        )
+      ),
+    }
+  )
+  public ResponseEntity<Object> getCategoryMonthly(
+    @RequestParam(value = "from", required = false) @DateTimeFormat(
+      iso = DateTimeFormat.ISO.DATE
+    ) LocalDate from,
+    @RequestParam(value = "to", required = false) @DateTimeFormat(
+      iso = DateTimeFormat.ISO.DATE
+    ) LocalDate to
+  ) {
+    try {
+      String userId = fetchUserIdFromToken();
+      LocalDate until = to != null ? to : LocalDate.now();
+      List<ConsumptionRollupDto> rollups =
+        rollupService.getCategoryMonthlyRollups(
+          userId,
+          from != null ? from : until.minusMonths(12),
+          until
+        );
+      return response(HttpStatus.OK, rollups);
+    } catch (IllegalArgumentException e) {
+      return response(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+}
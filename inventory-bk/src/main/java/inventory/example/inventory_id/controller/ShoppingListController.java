@@ -0,0 +1,68 @@
+package inventory.example.inventory_id.controller;
+
+import inventory.example.inventory_id.response.ShoppingListResponse;
+import inventory.example.inventory_id.service.ShoppingListService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/shopping-list")
+@Tag(
+  name = "買い物リスト",
+  description = "在庫不足・有効期限・在庫切れ予測をまとめた買い物リストを取得するAPIです。"
+)
+public class ShoppingListController extends BaseController {
+
+  private final ShoppingListService shoppingListService;
+
+  public ShoppingListController(ShoppingListService shoppingListService) {
+    this.shoppingListService = shoppingListService;
+  }
+
+  @GetMapping
+  @Operation(
+    summary = "買い物リストの取得",
+    description = "在庫不足のアイテム、期限切れ・期限が近いロットのあるアイテム、まもなく在庫切れが見込まれるアイテムをカテゴリ別に急ぎの順で返します。"
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(
+        responseCode = "200",
+        description = "取得成功時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          schema = @Schema(implementation = ShoppingListResponse.class)
+        )
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "サーバーエラーが発生時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"サーバーエラーが発生しました\" }"
+          )
+        )
+      ),
+    }
+  )
+  public ResponseEntity<Object> getShoppingList() {
+    try {
+      String userId = fetchUserIdFromToken();
+      ShoppingListResponse list = shoppingListService.getShoppingList(userId);
+      return response(HttpStatus.OK, list);
+    } catch (Exception e) {
+      return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package inventory.example.inventory_id.controller;
+
+import inventory.example.inventory_id.response.SyncResponse;
+import inventory.example.inventory_id.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/sync")
+@Tag(
+  name = "同期",
+  description = "クライアント向けの差分同期APIです。前回の同期以降に作成・更新・削除されたカテゴリ、アイテム、入出庫レコードのみを返します。"
+)
+public class SyncController extends BaseController {
+
+  private final SyncService syncService;
+
+  public SyncController(SyncService syncService) {
+    this.syncService = syncService;
+  }
+
+  @GetMapping
+  @Operation(
+    summary = "差分同期",
+    description = "sinceに前回のレスポンスのwatermarkを指定すると、それ以降の変更のみを返します。\n\n- sinceを省略した場合は全件を返します\n- 削除されたデータはdeletedにIDのみ返します\n- 次回の同期には返却されたwatermarkを使用してください"
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(
+        responseCode = "200",
+        description = "同期成功時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          schema = @Schema(implementation = SyncResponse.class)
+        )
+      ),
+      @ApiResponse(
+        responseCode = "400",
+        description = "同期トークンが不正な時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"同期トークンが不正です\" }"
+          )
+        )
+      ),
+      @ApiResponse(
+        responseCode = "500",
+        description = "サーバーエラーが発生時のレスポンス",
+        content = @Content(
+          mediaType = "application/json",
+          examples = @ExampleObject(
+            value = "{ \"message\": \"サーバーエラーが発生しました\" }"
+          )
+        )
+      ),
+    }
+  )
+  public ResponseEntity<Object> sync(
+    @RequestParam(value = "since", required = false) String since
+  ) {
+    try {
+      String userId = fetchUserIdFromToken();
+      SyncResponse changes = syncService.getChanges(userId, since);
+      return response(HttpStatus.OK, changes);
+    } catch (IllegalArgumentException e) {
+      return response(HttpStatus.BAD_REQUEST, e.getMessage());
+    } catch (Exception e) {
+      return response(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+  }
+}
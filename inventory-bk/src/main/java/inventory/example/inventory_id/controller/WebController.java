@@ -1,10 +1,11 @@
 package inventory.example.inventory_id.controller;
 
 import inventory.example.inventory_id.dto.CategoryDto;
+import inventory.example.inventory_id.dto.ExpiryAlertDto;
 import inventory.example.inventory_id.dto.ItemDto;
 import inventory.example.inventory_id.dto.ItemRecordDto;
+import inventory.example.inventory_id.dto.LowStockAlertDto;
 import inventory.example.inventory_id.enums.TransactionType;
-import inventory.example.inventory_id.exception.AuthenticationException;
 import inventory.example.inventory_id.model.Category;
 import inventory.example.inventory_id.model.Item;
 import inventory.example.inventory_id.repository.CategoryRepository;
@@ -14,8 +15,10 @@ import inventory.example.inventory_id.request.ItemRecordRequest;
 import inventory.example.inventory_id.request.ItemRequest;
 import inventory.example.inventory_id.response.PageResponse;
 import inventory.example.inventory_id.service.CategoryService;
+import inventory.example.inventory_id.service.ExpiryAlertService;
 import inventory.example.inventory_id.service.ItemRecordService;
 import inventory.example.inventory_id.service.ItemService;
+import inventory.example.inventory_id.service.LoopbackTokenService;
 import inventory.example.inventory_id.util.TimeUtils;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,7 +33,6 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -74,14 +76,17 @@ public class WebController extends BaseController {
   @Autowired
   private ItemRecordService itemRecordService;
 
-  private String apiUrl = "http://localhost:8080/api/";
+  @Autowired
+  private ExpiryAlertService expiryAlertService;
 
-  @Value("${system.userid}")
-  private String systemUserId;
+  private String apiUrl = "http://localhost:8080/api/";
 
   @Autowired
   private RestTemplate restTemplate;
 
+  @Autowired
+  private LoopbackTokenService loopbackTokenService;
+
   private static final Logger log = LoggerFactory.getLogger(
     WebController.class
   );
@@ -96,69 +101,84 @@ public class WebController extends BaseController {
 
   @GetMapping("/")
   public String dashboard(Model model) {
+    String userId = fetchUserIdFromToken();
+
+    // データをサービスから取得
     try {
-      String userId = fetchUserIdFromToken();
+      // カテゴリーを全て取得
+      List<CategoryDto> categories = categoryService.getAllCategories(userId);
+      model.addAttribute("totalCategories", categories.size());
 
-      // データをサービスから取得
-      try {
-        // カテゴリーを全て取得
-        List<CategoryDto> categories = categoryService.getAllCategories(userId);
-        model.addAttribute("totalCategories", categories.size());
-
-        Page<ItemDto> items = itemService.getItems(
-          Pageable.unpaged(),
-          userId,
-          null
-        );
-        int totalItems = items.getContent().size();
+      Page<ItemDto> items = itemService.getItems(
+        Pageable.unpaged(),
+        userId,
+        null
+      );
+      int totalItems = items.getContent().size();
 
-        List<StockAlert> lowStockAlerts = new ArrayList<>(
-          List.of(
-            new StockAlert("衣類", "パジャマ", "在庫が閾値を下回っています"),
-            new StockAlert("食べ物", "牛肉", "有効期限が近づいています")
+      List<LowStockAlertDto> lowStockItems = itemService.getLowStockItems(
+        userId
+      );
+      List<StockAlert> lowStockAlerts = new ArrayList<>();
+      for (LowStockAlertDto lowStockItem : lowStockItems) {
+        lowStockAlerts.add(
+          new StockAlert(
+            lowStockItem.getCategoryName(),
+            lowStockItem.getItemName(),
+            "在庫が閾値を下回っています"
+          )
+        );
+      }
+      for (ExpiryAlertDto alert : expiryAlertService.getAlerts(userId)) {
+        lowStockAlerts.add(
+          new StockAlert(
+            alert.getCategoryName(),
+            alert.getItemName(),
+            alert.getDaysUntilExpiration() < 0
+              ? "有効期限が切れています"
+              : "有効期限が近づいています"
           )
         );
-        model.addAttribute("totalItems", totalItems);
-        model.addAttribute("lowStockItems", lowStockAlerts.size());
+      }
+      model.addAttribute("totalItems", totalItems);
+      // 件数は一覧に表示するアラート(在庫不足と有効期限)と合わせる
+      model.addAttribute("lowStockItems", lowStockAlerts.size());
 
-        // 最近のアクティビティを取得
-        try {
-          List<ItemRecordDto> allRecords = itemRecordService.getUserItemRecords(
-            userId
-          );
+      // 最近のアクティビティを取得
+      try {
+        List<ItemRecordDto> allRecords = itemRecordService.getUserItemRecords(
+          userId
+        );
 
-          // 最近5件を抽出
-          List<DashboardActivity> recentActivities = new ArrayList<>();
-          int count = 0;
-          for (ItemRecordDto record : allRecords) {
-            if (count >= 5) break;
-
-            recentActivities.add(
-              new DashboardActivity(
-                record.getCategoryName(),
-                record.getItemName(),
-                record.getTransactionType(),
-                record.getQuantity(),
-                record.getCreatedAt()
-              )
-            );
-            count++;
-          }
-          model.addAttribute("recentActivities", recentActivities);
-          model.addAttribute("monthlyTransactions", allRecords.size());
-        } catch (Exception e) {
-          System.err.println("Error getting records: " + e.getMessage());
-          model.addAttribute("recentActivities", new ArrayList<>());
-          model.addAttribute("monthlyTransactions", 0);
+        // 最近5件を抽出
+        List<DashboardActivity> recentActivities = new ArrayList<>();
+        int count = 0;
+        for (ItemRecordDto record : allRecords) {
+          if (count >= 5) break;
+
+          recentActivities.add(
+            new DashboardActivity(
+              record.getCategoryName(),
+              record.getItemName(),
+              record.getTransactionType(),
+              record.getQuantity(),
+              record.getCreatedAt()
+            )
+          );
+          count++;
         }
-
-        model.addAttribute("lowStockAlerts", lowStockAlerts);
+        model.addAttribute("recentActivities", recentActivities);
+        model.addAttribute("monthlyTransactions", allRecords.size());
       } catch (Exception e) {
-        System.err.println("Error getting dashboard data: " + e.getMessage());
-        return "redirect:/server-error";
+        System.err.println("Error getting records: " + e.getMessage());
+        model.addAttribute("recentActivities", new ArrayList<>());
+        model.addAttribute("monthlyTransactions", 0);
       }
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
+
+      model.addAttribute("lowStockAlerts", lowStockAlerts);
+    } catch (Exception e) {
+      System.err.println("Error getting dashboard data: " + e.getMessage());
+      return "redirect:/server-error";
     }
 
     return "dashboard";
@@ -220,8 +240,6 @@ public class WebController extends BaseController {
       model.addAttribute("selectedCategory", category);
 
       return "items/list";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -278,8 +296,6 @@ public class WebController extends BaseController {
         model.addAttribute("recentRecords", new ArrayList<ItemRecordDto>());
       }
       return "items/detail";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -301,15 +317,17 @@ public class WebController extends BaseController {
       model.addAttribute("item", item);
       model.addAttribute(
         "itemRequest",
-        new ItemRequest(item.getName(), item.getCategory().getName())
+        new ItemRequest(
+          item.getName(),
+          item.getCategory().getName(),
+          item.getReorderThreshold()
+        )
       );
       model.addAttribute(
         "categories",
         categoryService.getAllCategories(userId)
       );
       return "items/form";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -344,8 +362,6 @@ public class WebController extends BaseController {
 
       redirectAttributes.addFlashAttribute("message", message);
       return "redirect:/items/new";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -383,8 +399,6 @@ public class WebController extends BaseController {
       }
       redirectAttributes.addFlashAttribute("message", message);
       return "redirect:/items/" + id + "/edit";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -409,8 +423,6 @@ public class WebController extends BaseController {
         "アイテムの削除に失敗しました: " + e.getReason()
       );
       return "redirect:/items";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       redirectAttributes.addFlashAttribute("error", e.getMessage());
       return "redirect:/items";
@@ -450,8 +462,6 @@ public class WebController extends BaseController {
       }
       redirectAttributes.addFlashAttribute("message", message);
       return "redirect:/categories/new";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -492,8 +502,6 @@ public class WebController extends BaseController {
       }
       redirectAttributes.addFlashAttribute("message", message);
       return "redirect:/categories/" + id + "/edit";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -547,8 +555,6 @@ public class WebController extends BaseController {
         categories.stream().filter(c -> c.getItemCount() == 0).count()
       );
       return "categories/list";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -573,8 +579,6 @@ public class WebController extends BaseController {
         "カテゴリーの削除に失敗しました: " + e.getReason()
       );
       return "redirect:/categories";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       redirectAttributes.addFlashAttribute("error", e.getMessage());
       return "redirect:/categories";
@@ -587,8 +591,6 @@ public class WebController extends BaseController {
       fetchUserIdFromToken();
       model.addAttribute("categoryRequest", new CategoryRequest());
       return "categories/form";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -598,8 +600,9 @@ public class WebController extends BaseController {
   public String editCategory(@PathVariable String id, Model model) {
     try {
       String userId = fetchUserIdFromToken();
+      // デフォルトカテゴリは編集できないため、ユーザーのカテゴリのみ対象とする
       Optional<Category> categoryOpt = categoryRepository.findUserCategory(
-        List.of(userId, systemUserId),
+        userId,
         UUID.fromString(id)
       );
       if (categoryOpt.isPresent()) {
@@ -612,8 +615,6 @@ public class WebController extends BaseController {
       } else {
         return "redirect:/categories";
       }
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -677,8 +678,6 @@ public class WebController extends BaseController {
       model.addAttribute("sortField", sort);
       model.addAttribute("sortOrder", order);
       return "records/list";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       return "redirect:/server-error";
     }
@@ -739,8 +738,6 @@ public class WebController extends BaseController {
         "レコードの削除に失敗しました: " + e.getReason()
       );
       return "redirect:/records";
-    } catch (AuthenticationException e) {
-      return "redirect:/login";
     } catch (Exception e) {
       redirectAttributes.addFlashAttribute("error", e.getMessage());
       return "redirect:/records";
@@ -853,6 +850,14 @@ public class WebController extends BaseController {
     if (cookieHeader != null && !cookieHeader.isEmpty()) {
       headers.add("Cookie", cookieHeader);
     }
+    // 認証済みのユーザーIDを引き継ぎ、APIでセッションを再度確認しないようにする
+    Object userId = request.getAttribute(USER_ID_ATTRIBUTE);
+    if (userId instanceof String) {
+      headers.add(
+        LoopbackTokenService.HEADER,
+        loopbackTokenService.issue((String) userId)
+      );
+    }
     return headers;
   }
 }
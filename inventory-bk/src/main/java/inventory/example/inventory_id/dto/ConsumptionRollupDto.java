@@ -0,0 +1,37 @@
+package inventory.example.inventory_id.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConsumptionRollupDto {
+
+  @Schema(description = "アイテムIDまたはカテゴリID")
+  private UUID targetId;
+
+  @JsonFormat(pattern = "yyyy-MM-dd")
+  @Schema(
+    example = "2025-01-01",
+    description = "集計期間(日別は日付、月別は月初日)"
+  )
+  private LocalDate period;
+
+  @Schema(example = "10", description = "入庫数量")
+  private int inQuantity;
+
+  @Schema(example = "5000", description = "入庫金額")
+  private long inAmount;
+
+  @Schema(example = "4", description = "出庫数量")
+  private int outQuantity;
+
+  @Schema(example = "2000", description = "出庫金額")
+  private long outAmount;
+}
@@ -0,0 +1,31 @@
+package inventory.example.inventory_id.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 有効期限アラートの対象となる入庫レコード(ロット)
+ * エンティティを読み込まず、アラートに必要な列のみをクエリで直接生成する
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExpiringLotDto {
+
+  private Long recordId;
+
+  private String userId;
+
+  private UUID itemId;
+
+  private String itemName;
+
+  private String categoryName;
+
+  private Integer remainingQuantity;
+
+  private LocalDate expirationDate;
+}
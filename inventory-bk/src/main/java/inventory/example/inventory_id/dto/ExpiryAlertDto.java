@@ -0,0 +1,36 @@
+package inventory.example.inventory_id.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExpiryAlertDto {
+
+  @Schema(example = "1", description = "入庫レコードID")
+  private Long recordId;
+
+  private UUID itemId;
+
+  @Schema(example = "牛肉", description = "アイテム名")
+  private String itemName;
+
+  @Schema(example = "食べ物", description = "カテゴリ名")
+  private String categoryName;
+
+  @Schema(example = "3", description = "残り数量")
+  private int remainingQuantity;
+
+  @JsonFormat(pattern = "yyyy-MM-dd")
+  @Schema(example = "2025-01-01", description = "有効期限")
+  private LocalDate expirationDate;
+
+  @Schema(example = "2", description = "有効期限までの日数(期限切れの場合は負の数)")
+  private long daysUntilExpiration;
+}
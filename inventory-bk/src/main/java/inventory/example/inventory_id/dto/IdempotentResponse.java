@@ -0,0 +1,27 @@
+package inventory.example.inventory_id.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Idempotency-Keyに対して保存する書き込みの結果。
+ * 同じキーで再送された場合は、保存した結果をそのまま返す。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotentResponse {
+
+  private int status;
+  private String message;
+
+  // 保存した結果を返した場合はtrue(保存しない)
+  @JsonIgnore
+  private boolean replayed;
+
+  public IdempotentResponse(int status, String message) {
+    this(status, message, false);
+  }
+}
@@ -27,4 +27,21 @@ public class ItemDto {
   private int totalPrice;
 
   private LocalDateTime updatedAt;
+
+  @Schema(
+    example = "4.5",
+    description = "在庫切れまでの見積もり日数(消費実績がない場合はnull)"
+  )
+  private Double daysUntilStockout;
+
+  public ItemDto(
+    UUID id,
+    String name,
+    String categoryName,
+    int totalQuantity,
+    int totalPrice,
+    LocalDateTime updatedAt
+  ) {
+    this(id, name, categoryName, totalQuantity, totalPrice, updatedAt, null);
+  }
 }
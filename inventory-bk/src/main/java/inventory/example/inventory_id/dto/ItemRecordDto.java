@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import inventory.example.inventory_id.enums.TransactionType;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -25,4 +26,29 @@ public class ItemRecordDto {
 
   @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
   private LocalDateTime createdAt;
+
+  private UUID itemId;
+
+  public ItemRecordDto(
+    Long id,
+    String itemName,
+    String categoryName,
+    int quantity,
+    int price,
+    TransactionType transactionType,
+    LocalDate expirationDate,
+    LocalDateTime createdAt
+  ) {
+    this(
+      id,
+      itemName,
+      categoryName,
+      quantity,
+      price,
+      transactionType,
+      expirationDate,
+      createdAt,
+      null
+    );
+  }
 }
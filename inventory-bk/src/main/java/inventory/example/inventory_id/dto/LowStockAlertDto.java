@@ -0,0 +1,38 @@
+package inventory.example.inventory_id.dto;
+
+import inventory.example.inventory_id.model.Item;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LowStockAlertDto {
+
+  private UUID itemId;
+
+  @Schema(example = "パジャマ", description = "アイテム名")
+  private String itemName;
+
+  @Schema(example = "衣類", description = "カテゴリ名")
+  private String categoryName;
+
+  @Schema(example = "1", description = "在庫総数量")
+  private int totalQuantity;
+
+  @Schema(example = "3", description = "発注点")
+  private int reorderThreshold;
+
+  public static LowStockAlertDto of(Item item) {
+    return new LowStockAlertDto(
+      item.getId(),
+      item.getName(),
+      item.getCategoryName(),
+      item.getTotalQuantity(),
+      item.getReorderThreshold()
+    );
+  }
+}
@@ -0,0 +1,51 @@
+package inventory.example.inventory_id.dto;
+
+import inventory.example.inventory_id.model.Item;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockoutForecastDto {
+
+  private UUID itemId;
+
+  @Schema(example = "牛乳", description = "アイテム名")
+  private String itemName;
+
+  @Schema(example = "食べ物", description = "カテゴリ名")
+  private String categoryName;
+
+  @Schema(example = "2", description = "在庫総数量")
+  private int totalQuantity;
+
+  @Schema(example = "0.8", description = "1日あたりの消費量(指数加重平均)")
+  private double consumptionRate;
+
+  @Schema(example = "2.5", description = "在庫切れまでの見積もり日数")
+  private Double daysUntilStockout;
+
+  /**
+   * @param at 見積もりの基準日時
+   * @param timeConstantDays 消費量の減衰の時定数(日)
+   */
+  public static StockoutForecastDto of(
+    Item item,
+    LocalDateTime at,
+    double timeConstantDays
+  ) {
+    return new StockoutForecastDto(
+      item.getId(),
+      item.getName(),
+      item.getCategoryName(),
+      item.getTotalQuantity(),
+      Math.round(item.consumptionRateAt(at, timeConstantDays) * 100) / 100.0,
+      item.estimateDaysUntilStockout(at, timeConstantDays)
+    );
+  }
+}
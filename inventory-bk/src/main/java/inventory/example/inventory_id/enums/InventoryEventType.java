@@ -0,0 +1,41 @@
+package inventory.example.inventory_id.enums;
+
+/**
+ * リアルタイム配信(SSE)するイベントの種類を表すEnum。
+ */
+public enum InventoryEventType {
+  /**
+   * アイテムの作成
+   */
+  ITEM_CREATED,
+
+  /**
+   * アイテムの更新、在庫集計の変更
+   */
+  ITEM_UPDATED,
+
+  /**
+   * アイテムの削除
+   */
+  ITEM_DELETED,
+
+  /**
+   * 入出庫レコードの作成
+   */
+  RECORD_CREATED,
+
+  /**
+   * 入出庫レコードの削除
+   */
+  RECORD_DELETED,
+
+  /**
+   * 有効期限が近づいている、または期限切れのロットの通知
+   */
+  EXPIRY_ALERT,
+
+  /**
+   * 在庫数が発注点を下回ったアイテムの通知
+   */
+  LOW_STOCK_ALERT,
+}
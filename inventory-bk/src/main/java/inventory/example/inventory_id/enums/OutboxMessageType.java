@@ -0,0 +1,16 @@
+package inventory.example.inventory_id.enums;
+
+/**
+ * アウトボックスに記録する処理の種類を表すEnum。
+ */
+public enum OutboxMessageType {
+  /**
+   * キャッシュの削除(キーが未指定の場合はキャッシュ全体)
+   */
+  CACHE_EVICT,
+
+  /**
+   * 在庫イベントの配信
+   */
+  INVENTORY_EVENT,
+}
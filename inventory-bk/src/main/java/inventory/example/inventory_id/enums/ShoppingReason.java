@@ -0,0 +1,26 @@
+package inventory.example.inventory_id.enums;
+
+/**
+ * 買い物リストにアイテムを載せた理由を表すEnum。
+ */
+public enum ShoppingReason {
+  /**
+   * 在庫数が発注点を下回っている
+   */
+  LOW_STOCK,
+
+  /**
+   * 有効期限が切れたロットがある
+   */
+  EXPIRED,
+
+  /**
+   * 有効期限が近いロットがある
+   */
+  EXPIRING,
+
+  /**
+   * 消費量から対象日数内の在庫切れが見込まれる
+   */
+  STOCKOUT_SOON,
+}
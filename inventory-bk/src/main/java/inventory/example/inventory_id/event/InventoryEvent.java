@@ -0,0 +1,26 @@
+package inventory.example.inventory_id.event;
+
+import inventory.example.inventory_id.enums.InventoryEventType;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ユーザーの在庫データに発生した変更を表すイベント。
+ * Redis pub/subでノード間に配信されるため、JSONに変換できる値のみを持つ。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryEvent {
+
+  private String userId;
+  private InventoryEventType type;
+  private Object data;
+  private LocalDateTime occurredAt;
+
+  public InventoryEvent(String userId, InventoryEventType type, Object data) {
+    this(userId, type, data, LocalDateTime.now());
+  }
+}
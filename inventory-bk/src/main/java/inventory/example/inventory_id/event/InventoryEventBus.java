@@ -0,0 +1,78 @@
+package inventory.example.inventory_id.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 在庫イベントのプロセス内イベントバス。
+ * 書き込み処理から発行されたイベントをRedis pub/subで全ノードに配信し、
+ * 各ノードで受信したイベントをApplicationEventとして購読者に渡す。
+ */
+@Component
+public class InventoryEventBus {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    InventoryEventBus.class
+  );
+
+  public static final String CHANNEL = "inventory_events";
+
+  private final StringRedisTemplate redisTemplate;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final ObjectMapper objectMapper;
+
+  public InventoryEventBus(
+    StringRedisTemplate redisTemplate,
+    ApplicationEventPublisher applicationEventPublisher,
+    ObjectMapper objectMapper
+  ) {
+    this.redisTemplate = redisTemplate;
+    this.applicationEventPublisher = applicationEventPublisher;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * イベントを全ノードに配信する。
+   * Redisに送信できない場合は、少なくとも自ノードの購読者には届くようにローカルで配信する。
+   *
+   * @param event 在庫イベント
+   */
+  public void publish(InventoryEvent event) {
+    try {
+      redisTemplate.convertAndSend(
+        CHANNEL,
+        objectMapper.writeValueAsString(event)
+      );
+    } catch (Exception e) {
+      logger.warn("イベント配信エラー: {}", e.getMessage());
+      dispatch(event);
+    }
+  }
+
+  /**
+   * Redisから受信したメッセージを自ノードの購読者に配信する
+   *
+   * @param body 受信したメッセージ
+   */
+  public void receive(byte[] body) {
+    try {
+      dispatch(
+        objectMapper.readValue(
+          new String(body, StandardCharsets.UTF_8),
+          InventoryEvent.class
+        )
+      );
+    } catch (Exception e) {
+      logger.warn("イベント受信エラー: {}", e.getMessage());
+    }
+  }
+
+  void dispatch(InventoryEvent event) {
+    applicationEventPublisher.publishEvent(event);
+  }
+}
@@ -0,0 +1,152 @@
+package inventory.example.inventory_id.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.controller.BaseController;
+import inventory.example.inventory_id.enums.AuthMessage;
+import inventory.example.inventory_id.service.LoopbackTokenService;
+import inventory.example.inventory_id.service.StatelessSessionService;
+import inventory.example.inventory_id.service.TokenCacheService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * リクエストごとに一度だけユーザーを認証するフィルター。
+ * 解決したユーザーIDはリクエスト属性に保存し、コントローラー・インターセプターはそれを使う。
+ * 未認証のリクエストは、APIの場合は401を、画面の場合はログイン画面へのリダイレクトを返し、
+ * コントローラーへは進めない。
+ */
+public class AuthenticationFilter extends OncePerRequestFilter {
+
+  // 認証トークン(またはセッションCookie)を保持するCookie名
+  public static final String TOKEN_KEY = "firebase-token";
+
+  // 認証が不要なパス(認証API・静的ファイル・H2コンソール・APIドキュメント)
+  private static final List<String> PUBLIC_PATHS = List.of(
+    "/api/auth/**",
+    "/local-auth/**",
+    "/login",
+    "/logout",
+    "/error",
+    "/favicon.ico",
+    "/css/**",
+    "/js/**",
+    "/h2-console/**",
+    "/swagger-ui/**",
+    "/swagger-ui.html",
+    "/v3/api-docs/**"
+  );
+
+  private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+  private final TokenCacheService tokenCacheService;
+  private final StatelessSessionService statelessSessionService;
+  private final LoopbackTokenService loopbackTokenService;
+  private final ObjectMapper objectMapper;
+
+  public AuthenticationFilter(
+    TokenCacheService tokenCacheService,
+    StatelessSessionService statelessSessionService,
+    LoopbackTokenService loopbackTokenService,
+    ObjectMapper objectMapper
+  ) {
+    this.tokenCacheService = tokenCacheService;
+    this.statelessSessionService = statelessSessionService;
+    this.loopbackTokenService = loopbackTokenService;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+      return true;
+    }
+    String path = pathOf(request);
+    return PUBLIC_PATHS.stream().anyMatch(pattern ->
+      pathMatcher.match(pattern, path)
+    );
+  }
+
+  @Override
+  protected void doFilterInternal(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    FilterChain filterChain
+  ) throws ServletException, IOException {
+    // 画面からの呼び出しは、画面のリクエストで認証済みのユーザーIDを引き継ぐ
+    String userId = loopbackTokenService.verify(
+      request.getHeader(LoopbackTokenService.HEADER)
+    );
+    if (userId == null) {
+      String token = tokenFrom(request);
+      if (token == null) {
+        reject(request, response, AuthMessage.AUTHTOKEN_NOT_FOUND);
+        return;
+      }
+      userId = resolveUserId(token);
+      if (userId == null) {
+        reject(request, response, AuthMessage.IDLE_TIMEOUT);
+        return;
+      }
+    }
+    request.setAttribute(BaseController.USER_ID_ATTRIBUTE, userId);
+    filterChain.doFilter(request, response);
+  }
+
+  private String resolveUserId(String token) {
+    if (statelessSessionService.isEnabled()) {
+      // セッションCookieを検証する(Redisを参照しない)
+      return statelessSessionService.getUserId(token);
+    }
+    // 取得とセッションのタイムアウトの延長を1回の呼び出しで行う
+    return tokenCacheService.getUserIdAndRefresh(token);
+  }
+
+  private void reject(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    AuthMessage message
+  ) throws IOException {
+    if (!pathOf(request).startsWith("/api/")) {
+      response.sendRedirect(request.getContextPath() + "/login");
+      return;
+    }
+    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    objectMapper.writeValue(
+      response.getWriter(),
+      Collections.singletonMap("message", message.getMessage())
+    );
+  }
+
+  private static String pathOf(HttpServletRequest request) {
+    return request.getRequestURI().substring(request.getContextPath().length());
+  }
+
+  /**
+   * リクエストのCookieから認証トークンを取得する
+   *
+   * @return Cookieがない場合はnull
+   */
+  public static String tokenFrom(HttpServletRequest request) {
+    if (request.getCookies() != null) {
+      for (Cookie cookie : request.getCookies()) {
+        if (TOKEN_KEY.equals(cookie.getName())) {
+          return cookie.getValue();
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,102 @@
+package inventory.example.inventory_id.handler;
+
+import inventory.example.inventory_id.controller.BaseController;
+import inventory.example.inventory_id.service.UserVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.Clock;
+import java.time.Duration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 一覧・詳細取得APIの条件付きGETを処理するインターセプター。
+ * ユーザーのデータバージョンからETagを生成し、If-None-Matchが一致する場合は
+ * コントローラー・DBアクセスを行わずに304を返す。
+ * ユーザーは{@link AuthenticationFilter}で解決済みのものを使う。
+ * 書き込みがなくても時間の経過で変わる値(在庫切れまでの日数など)を含むAPIは、
+ * 期間を指定して、期間が変わるとETagも変わるようにする。
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+  private final UserVersionService userVersionService;
+
+  // ETagに含める期間の長さ(nullの場合は時間の経過でETagを変えない)
+  private final Duration timeBucket;
+  private final Clock clock;
+
+  public ConditionalGetInterceptor(UserVersionService userVersionService) {
+    this(userVersionService, null, Clock.systemUTC());
+  }
+
+  public ConditionalGetInterceptor(
+    UserVersionService userVersionService,
+    Duration timeBucket,
+    Clock clock
+  ) {
+    this.userVersionService = userVersionService;
+    this.timeBucket = timeBucket;
+    this.clock = clock;
+  }
+
+  @Override
+  public boolean preHandle(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    Object handler
+  ) {
+    if (!HttpMethod.GET.matches(request.getMethod())) {
+      return true;
+    }
+    Object resolvedUserId = request.getAttribute(
+      BaseController.USER_ID_ATTRIBUTE
+    );
+    if (!(resolvedUserId instanceof String userId)) {
+      return true;
+    }
+
+    String version = userVersionService.getVersion(userId);
+    if (version == null) {
+      return true;
+    }
+    // バージョン取得後の書き込みは次回のバージョンに反映されるため、
+    // レスポンス生成前にETagを確定しても古いデータが304で返ることはない
+    String etag = buildEtag(version, request);
+    response.setHeader(HttpHeaders.ETAG, etag);
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+    if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return false;
+    }
+    return true;
+  }
+
+  private String buildEtag(String version, HttpServletRequest request) {
+    String resource = request.getQueryString() != null
+      ? request.getRequestURI() + "?" + request.getQueryString()
+      : request.getRequestURI();
+    String tag = version + "-" + Integer.toHexString(resource.hashCode());
+    if (timeBucket != null) {
+      tag += "-" + clock.millis() / timeBucket.toMillis();
+    }
+    return "\"" + tag + "\"";
+  }
+
+  private boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
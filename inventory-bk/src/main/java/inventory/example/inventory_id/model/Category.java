@@ -1,11 +1,13 @@
 package inventory.example.inventory_id.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
@@ -15,11 +17,25 @@ import java.util.List;
 import java.util.UUID;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @Entity
 @NoArgsConstructor
-@Table(name = "category")
+// ほぼ全リクエストで参照されるため2次キャッシュに保持する。
+// アイテム一覧(items)は所有側がItemのため更新を検知できず、キャッシュしない
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
+@Table(
+  name = "category",
+  indexes = {
+    @Index(
+      name = "idx_category_user_updated_at",
+      columnList = "user_id, updated_at"
+    ),
+  }
+)
 public class Category {
 
   @Id
@@ -0,0 +1,44 @@
+package inventory.example.inventory_id.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ユーザー・カテゴリ・月ごとの入出庫数量と金額の集計。
+ * rollupMonthには月初日を保持する。
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(
+  name = "category_monthly_rollup",
+  uniqueConstraints = {
+    @UniqueConstraint(
+      name = "uk_category_monthly_rollup",
+      columnNames = { "user_id", "category_id", "rollup_month" }
+    ),
+  }
+)
+public class CategoryMonthlyRollup {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private String userId;
+  private UUID categoryId;
+  private LocalDate rollupMonth;
+
+  private int inQuantity;
+  private long inAmount;
+  private int outQuantity;
+  private long outAmount;
+}
@@ -2,15 +2,19 @@ package inventory.example.inventory_id.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import lombok.Data;
@@ -20,7 +24,13 @@ import lombok.ToString;
 @Entity
 @Data
 @NoArgsConstructor
-@Table(name = "item")
+@Table(
+  name = "item",
+  indexes = {
+    @Index(name = "idx_item_user_updated_at", columnList = "user_id, updated_at"),
+    @Index(name = "idx_item_user_low_stock", columnList = "user_id, low_stock"),
+  }
+)
 @ToString(exclude = "category")
 public class Item {
 
@@ -31,7 +41,9 @@ public class Item {
   private String name;
   private String userId;
 
-  @ManyToOne
+  // カテゴリは2次キャッシュから解決されるため遅延読み込みにする。
+  // 一覧ではJOIN FETCHまたはエンティティグラフで同時に取得する
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "category_id")
   @JsonIgnore
   private Category category;
@@ -42,12 +54,105 @@ public class Item {
   private int totalQuantity = 0;
   private int totalPrice = 0;
 
+  // 発注点。在庫数がこの値を下回ると在庫不足とする(nullの場合は判定しない)
+  private Integer reorderThreshold;
+
+  // 在庫不足フラグ。在庫数または発注点の変更時に更新する
+  @Column(columnDefinition = "boolean default false")
+  private boolean lowStock = false;
+
+  // 指数加重した1日あたりの消費量。出庫のたびに更新する(出庫がない場合はnull)
+  private Double consumptionRate;
+
+  // 消費量を最後に更新した日時
+  private LocalDateTime lastConsumedAt;
+
   @PrePersist
   @PreUpdate
   public void updateTimestamp() {
     this.updatedAt = LocalDateTime.now();
   }
 
+  /**
+   * 在庫数と発注点から在庫不足フラグを更新する
+   *
+   * @return 新たに在庫不足になった場合はtrue
+   */
+  public boolean updateLowStock() {
+    boolean wasLowStock = lowStock;
+    lowStock = reorderThreshold != null && totalQuantity < reorderThreshold;
+    return lowStock && !wasLowStock;
+  }
+
+  /**
+   * 出庫を消費量に反映する
+   * 経過時間に応じて過去の消費量を減衰させてから今回の出庫数を加えるため、
+   * 履歴を再集計せずに定数時間で更新できる
+   *
+   * @param quantity 出庫数
+   * @param consumedAt 出庫日時
+   * @param timeConstantDays 減衰の時定数(日)。大きいほど過去の消費を長く考慮する
+   */
+  public void recordConsumption(
+    int quantity,
+    LocalDateTime consumedAt,
+    double timeConstantDays
+  ) {
+    double decayedRate = consumptionRate != null && lastConsumedAt != null
+      ? consumptionRate * decay(consumedAt, timeConstantDays)
+      : 0;
+    consumptionRate = decayedRate + quantity / timeConstantDays;
+    if (lastConsumedAt == null || consumedAt.isAfter(lastConsumedAt)) {
+      lastConsumedAt = consumedAt;
+    }
+  }
+
+  /**
+   * 指定日時の消費量を求める
+   * 最後の出庫からの経過時間に応じて減衰させるため、出庫が途絶えると0に近づく
+   *
+   * @param at 基準日時
+   * @param timeConstantDays 減衰の時定数(日)
+   * @return 1日あたりの消費量。消費実績がない場合はnull
+   */
+  public Double consumptionRateAt(LocalDateTime at, double timeConstantDays) {
+    if (consumptionRate == null || lastConsumedAt == null) {
+      return consumptionRate;
+    }
+    return consumptionRate * decay(at, timeConstantDays);
+  }
+
+  /**
+   * 現在の在庫数と指定日時の消費量から在庫切れまでの日数を見積もる
+   *
+   * @param at 基準日時
+   * @param timeConstantDays 減衰の時定数(日)
+   * @return 在庫切れまでの日数(小数第1位まで)。消費実績がない場合はnull
+   */
+  public Double estimateDaysUntilStockout(
+    LocalDateTime at,
+    double timeConstantDays
+  ) {
+    Double rate = consumptionRateAt(at, timeConstantDays);
+    if (rate == null || rate <= 0) {
+      return null;
+    }
+    if (totalQuantity <= 0) {
+      return 0.0;
+    }
+    return Math.round((totalQuantity / rate) * 10) / 10.0;
+  }
+
+  // 最後の出庫から指定日時までの減衰率(指定日時が前回より古い場合は経過時間0として扱う)
+  private double decay(LocalDateTime at, double timeConstantDays) {
+    double elapsedDays = Math.max(
+      0,
+      Duration.between(lastConsumedAt, at).toMillis()
+    ) /
+    (double) Duration.ofDays(1).toMillis();
+    return Math.exp(-elapsedDays / timeConstantDays);
+  }
+
   @JsonProperty("categoryName")
   public String getCategoryName() {
     return category != null ? category.getName() : null;
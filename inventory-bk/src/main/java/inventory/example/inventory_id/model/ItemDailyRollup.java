@@ -0,0 +1,44 @@
+package inventory.example.inventory_id.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ユーザー・アイテム・日ごとの入出庫数量と金額の集計。
+ * 入出庫レコードの作成・削除時に差分で更新する。
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(
+  name = "item_daily_rollup",
+  uniqueConstraints = {
+    @UniqueConstraint(
+      name = "uk_item_daily_rollup",
+      columnNames = { "user_id", "item_id", "rollup_date" }
+    ),
+  }
+)
+public class ItemDailyRollup {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private String userId;
+  private UUID itemId;
+  private LocalDate rollupDate;
+
+  private int inQuantity;
+  private long inAmount;
+  private int outQuantity;
+  private long outAmount;
+}
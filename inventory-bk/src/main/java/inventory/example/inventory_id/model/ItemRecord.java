@@ -3,6 +3,7 @@ package inventory.example.inventory_id.model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 import org.hibernate.annotations.CreationTimestamp;
 
@@ -12,15 +13,20 @@ import com.google.firebase.database.annotations.NotNull;
 
 import inventory.example.inventory_id.enums.TransactionType;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
@@ -30,7 +36,23 @@ import lombok.ToString;
 @Entity
 @Data
 @NoArgsConstructor
-@Table(name = "item_record")
+@Table(
+  name = "item_record",
+  indexes = {
+    @Index(
+      name = "idx_item_record_user_updated_at",
+      columnList = "user_id, updated_at"
+    ),
+    @Index(
+      name = "idx_item_record_expiration_date",
+      columnList = "expiration_date"
+    ),
+    @Index(
+      name = "idx_item_record_user_expiration_date",
+      columnList = "user_id, expiration_date"
+    ),
+  }
+)
 @ToString
 public class ItemRecord {
 
@@ -38,11 +60,18 @@ public class ItemRecord {
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
-  @ManyToOne
+  // 参照時はJOIN FETCHで取得する。レコードのみを使う集計では読み込まない
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "item_id", nullable = false)
   @JsonIgnore
+  @ToString.Exclude
   private Item item;
 
+  // 作成時のアイテムのカテゴリ(カテゴリ別集計の反映先。作成後のカテゴリ変更には追従しない)
+  @Column(name = "category_id")
+  @JsonIgnore
+  private UUID categoryId;
+
   @NotNull
   private String userId;
 
@@ -57,15 +86,21 @@ public class ItemRecord {
   @CreationTimestamp
   private LocalDateTime createdAt;
 
+  private LocalDateTime updatedAt;
+
   private LocalDate expirationDate;
 
+  // 入庫レコードのうち、まだ出庫されていない数量(出庫レコードはnull)
+  private Integer remainingQuantity;
+
   @Enumerated(EnumType.STRING)
   @NotNull
   private TransactionType transactionType;
 
-  @ManyToOne(cascade = CascadeType.PERSIST)
+  @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
   @JoinColumn(name = "item_record_id")
   @JsonIgnore
+  @ToString.Exclude
   private ItemRecord sourceRecord;
 
   @OneToMany(
@@ -74,8 +109,15 @@ public class ItemRecord {
     orphanRemoval = true
   )
   @JsonIgnore
+  @ToString.Exclude
   private List<ItemRecord> childRecords;
 
+  @PrePersist
+  @PreUpdate
+  public void updateTimestamp() {
+    this.updatedAt = LocalDateTime.now();
+  }
+
   @JsonProperty("itemName")
   public String getItemName() {
     return item.getName();
@@ -92,12 +134,18 @@ public class ItemRecord {
     ItemRecord sourceRecord
   ) {
     this.item = item;
+    this.categoryId = item != null && item.getCategory() != null
+      ? item.getCategory().getId()
+      : null;
     this.userId = userId;
     this.quantity = quantity;
     this.price = price;
     this.expirationDate = expirationDate;
     this.transactionType = transactionType;
     this.sourceRecord = sourceRecord;
+    this.remainingQuantity = transactionType == TransactionType.IN
+      ? quantity
+      : null;
   }
 
   /**
@@ -0,0 +1,89 @@
+package inventory.example.inventory_id.model;
+
+import inventory.example.inventory_id.enums.OutboxMessageType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * 書き込みと同じトランザクションで記録する、コミット後に行う処理(アウトボックス)。
+ * キャッシュの削除やイベントの配信はリレーがユーザーごとに記録順に実行し、実行後に処理済みにする。
+ * 実行に一定回数失敗したメッセージは実行を諦め(deadAt)、以降のメッセージを止めない。
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(
+  name = "outbox_message",
+  indexes = {
+    @Index(
+      name = "idx_outbox_message_processed_at",
+      columnList = "processed_at, id"
+    ),
+    @Index(
+      name = "idx_outbox_message_user_processed_at",
+      columnList = "user_id, processed_at, id"
+    ),
+  }
+)
+public class OutboxMessage {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private OutboxMessageType type;
+
+  private String userId;
+
+  // キャッシュの削除の対象
+  private String cacheName;
+  private String cacheKey;
+
+  // 在庫イベント(JSON)
+  @Column(columnDefinition = "TEXT")
+  private String payload;
+
+  @CreationTimestamp
+  private LocalDateTime createdAt;
+
+  private LocalDateTime processedAt;
+
+  private int attempts;
+
+  // 実行を諦めた日時(再実行の対象外)
+  private LocalDateTime deadAt;
+
+  public static OutboxMessage cacheEvict(
+    String userId,
+    String cacheName,
+    String cacheKey
+  ) {
+    OutboxMessage message = new OutboxMessage();
+    message.type = OutboxMessageType.CACHE_EVICT;
+    message.userId = userId;
+    message.cacheName = cacheName;
+    message.cacheKey = cacheKey;
+    return message;
+  }
+
+  public static OutboxMessage inventoryEvent(String userId, String payload) {
+    OutboxMessage message = new OutboxMessage();
+    message.type = OutboxMessageType.INVENTORY_EVENT;
+    message.userId = userId;
+    message.payload = payload;
+    return message;
+  }
+}
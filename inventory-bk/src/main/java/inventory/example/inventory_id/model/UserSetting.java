@@ -0,0 +1,36 @@
+package inventory.example.inventory_id.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "user_setting")
+public class UserSetting {
+
+  @Id
+  private String userId;
+
+  // 有効期限アラートの対象とする日数(今日から何日以内に期限を迎えるロットを通知するか)
+  private int expiryHorizonDays;
+
+  private LocalDateTime updatedAt;
+
+  @PrePersist
+  @PreUpdate
+  public void updateTimestamp() {
+    this.updatedAt = LocalDateTime.now();
+  }
+
+  public UserSetting(String userId, int expiryHorizonDays) {
+    this.userId = userId;
+    this.expiryHorizonDays = expiryHorizonDays;
+  }
+}
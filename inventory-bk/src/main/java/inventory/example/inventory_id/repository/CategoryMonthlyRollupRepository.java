@@ -0,0 +1,116 @@
+package inventory.example.inventory_id.repository;
+
+import inventory.example.inventory_id.model.CategoryMonthlyRollup;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CategoryMonthlyRollupRepository
+  extends JpaRepository<CategoryMonthlyRollup, Long> {
+  /**
+   * 既存の集計行に差分を加算する
+   * 集計行が存在しない場合は0を返す
+   */
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @QueryHints(
+    @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_monthly_rollup")
+  )
+  @Query(
+    value = """
+    UPDATE
+      category_monthly_rollup
+    SET
+      in_quantity = in_quantity + :inQuantity,
+      in_amount = in_amount + :inAmount,
+      out_quantity = out_quantity + :outQuantity,
+      out_amount = out_amount + :outAmount
+    WHERE
+      user_id = :userId
+      AND category_id = :categoryId
+      AND rollup_month = :rollupMonth
+    """,
+    nativeQuery = true
+  )
+  int addToRollup(
+    @Param("userId") String userId,
+    @Param("categoryId") UUID categoryId,
+    @Param("rollupMonth") LocalDate rollupMonth,
+    @Param("inQuantity") int inQuantity,
+    @Param("inAmount") long inAmount,
+    @Param("outQuantity") int outQuantity,
+    @Param("outAmount") long outAmount
+  );
+
+  /**
+   * 削除されていない入出庫レコードから、レコード作成時のカテゴリ別に集計を作り直す
+   * カテゴリが未設定のレコードはアイテムの現在のカテゴリに集計する
+   */
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @QueryHints(
+    @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_monthly_rollup")
+  )
+  @Query(
+    value = """
+    INSERT INTO category_monthly_rollup (
+      user_id, category_id, rollup_month, in_quantity, in_amount, out_quantity, out_amount
+    )
+    SELECT
+      ir.user_id,
+      COALESCE(ir.category_id, i.category_id),
+      CAST(DATE_TRUNC('MONTH', ir.created_at) AS DATE),
+      SUM(CASE WHEN ir.transaction_type = 'IN' THEN ir.quantity ELSE 0 END),
+      SUM(CASE WHEN ir.transaction_type = 'IN' THEN CAST(ir.quantity AS BIGINT) * ir.price ELSE 0 END),
+      SUM(CASE WHEN ir.transaction_type = 'OUT' THEN ir.quantity ELSE 0 END),
+      SUM(CASE WHEN ir.transaction_type = 'OUT' THEN CAST(ir.quantity AS BIGINT) * ir.price ELSE 0 END)
+    FROM
+      item_record ir
+    JOIN
+      item i
+        ON i.id = ir.item_id
+    WHERE
+      ir.deleted_flag = FALSE
+    GROUP BY
+      ir.user_id,
+      COALESCE(ir.category_id, i.category_id),
+      CAST(DATE_TRUNC('MONTH', ir.created_at) AS DATE)
+    """,
+    nativeQuery = true
+  )
+  int backfillFromItemRecords();
+
+  /**
+   * ユーザーのカテゴリ別月次集計を期間指定で取得
+   * 月の昇順でソート
+   */
+  @Query(
+    value = """
+    SELECT
+      *
+    FROM
+      category_monthly_rollup
+    WHERE
+      user_id = :userId
+      AND rollup_month BETWEEN :from AND :to
+    ORDER BY
+      rollup_month ASC
+    """,
+    nativeQuery = true
+  )
+  List<CategoryMonthlyRollup> findUserRollups(
+    @Param("userId") String userId,
+    @Param("from") LocalDate from,
+    @Param("to") LocalDate to
+  );
+}
@@ -1,12 +1,18 @@
 package inventory.example.inventory_id.repository;
 
 import inventory.example.inventory_id.model.Category;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -14,38 +20,79 @@ public interface CategoryRepository
   extends JpaRepository<Category, UUID>, JpaSpecificationExecutor<Category> {
   boolean existsByUserIdAndName(String userId, String name);
 
+  /**
+   * 指定した名前のうち、登録済みのカテゴリ名を取得(削除済みを含む)
+   * 起動時のデフォルトカテゴリの確認を1回のクエリで行う
+   */
   @Query(
-    value = """
-    SELECT *
-    FROM category
-    WHERE user_id IN (:userIds)
-    AND deleted_flag = FALSE
-    """,
-    nativeQuery = true
+    """
+    SELECT c.name
+    FROM Category c
+    WHERE c.userId = :userId
+    AND c.name IN :names
+    """
   )
-  List<Category> findNotDeleted(List<String> userIds);
+  List<String> findExistingNames(
+    @Param("userId") String userId,
+    @Param("names") Collection<String> names
+  );
 
+  // 以下のカテゴリ検索はクエリキャッシュを使用する。
+  // categoryテーブルへの書き込み時にHibernateが結果を無効化するため、
+  // キャッシュを使うクエリはネイティブクエリではなくJPQLで記述する。
+  // デフォルトカテゴリはSystemCategoryRegistryから取得するため、user_idのみで絞り込む
   @Query(
-    value = """
-    SELECT *
-    FROM category
-    WHERE user_id IN (:userIds)
-    AND id = :id
-    AND deleted_flag = FALSE
-    """,
-    nativeQuery = true
+    """
+    SELECT c
+    FROM Category c
+    WHERE c.userId = :userId
+    AND c.deletedFlag = FALSE
+    """
+  )
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  List<Category> findNotDeleted(String userId);
+
+  @Query(
+    """
+    SELECT c
+    FROM Category c
+    WHERE c.userId = :userId
+    AND c.id = :id
+    AND c.deletedFlag = FALSE
+    """
+  )
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  Optional<Category> findUserCategory(String userId, UUID id);
+
+  @Query(
+    """
+    SELECT c
+    FROM Category c
+    WHERE c.userId = :userId
+    AND c.name = :name
+    AND c.deletedFlag = FALSE
+    """
   )
-  Optional<Category> findUserCategory(List<String> userIds, UUID id);
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  List<Category> findActiveCateByName(String userId, String name);
 
+  /**
+   * 同期用: 指定期間内に作成・更新・削除されたカテゴリを取得
+   * 削除済みのカテゴリも含めて返す(トゥームストーン用)
+   */
   @Query(
     value = """
     SELECT *
     FROM category
-    WHERE user_id IN (:userIds)
-    AND name = :name
-    AND deleted_flag = FALSE
+    WHERE user_id = :userId
+    AND updated_at > :since
+    AND updated_at <= :until
     """,
     nativeQuery = true
   )
-  List<Category> findActiveCateByName(List<String> userIds, String name);
+  List<Category> findChangedBetween(
+    String userId,
+    LocalDateTime since,
+    LocalDateTime until
+  );
 }
@@ -0,0 +1,114 @@
+package inventory.example.inventory_id.repository;
+
+import inventory.example.inventory_id.model.ItemDailyRollup;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ItemDailyRollupRepository
+  extends JpaRepository<ItemDailyRollup, Long> {
+  /**
+   * 既存の集計行に差分を加算する
+   * 集計行が存在しない場合は0を返す
+   */
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @QueryHints(
+    @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_daily_rollup")
+  )
+  @Query(
+    value = """
+    UPDATE
+      item_daily_rollup
+    SET
+      in_quantity = in_quantity + :inQuantity,
+      in_amount = in_amount + :inAmount,
+      out_quantity = out_quantity + :outQuantity,
+      out_amount = out_amount + :outAmount
+    WHERE
+      user_id = :userId
+      AND item_id = :itemId
+      AND rollup_date = :rollupDate
+    """,
+    nativeQuery = true
+  )
+  int addToRollup(
+    @Param("userId") String userId,
+    @Param("itemId") UUID itemId,
+    @Param("rollupDate") LocalDate rollupDate,
+    @Param("inQuantity") int inQuantity,
+    @Param("inAmount") long inAmount,
+    @Param("outQuantity") int outQuantity,
+    @Param("outAmount") long outAmount
+  );
+
+  /**
+   * 削除されていない入出庫レコードから集計を作り直す
+   */
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @QueryHints(
+    @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_daily_rollup")
+  )
+  @Query(
+    value = """
+    INSERT INTO item_daily_rollup (
+      user_id, item_id, rollup_date, in_quantity, in_amount, out_quantity, out_amount
+    )
+    SELECT
+      ir.user_id,
+      ir.item_id,
+      CAST(ir.created_at AS DATE),
+      SUM(CASE WHEN ir.transaction_type = 'IN' THEN ir.quantity ELSE 0 END),
+      SUM(CASE WHEN ir.transaction_type = 'IN' THEN CAST(ir.quantity AS BIGINT) * ir.price ELSE 0 END),
+      SUM(CASE WHEN ir.transaction_type = 'OUT' THEN ir.quantity ELSE 0 END),
+      SUM(CASE WHEN ir.transaction_type = 'OUT' THEN CAST(ir.quantity AS BIGINT) * ir.price ELSE 0 END)
+    FROM
+      item_record ir
+    WHERE
+      ir.deleted_flag = FALSE
+    GROUP BY
+      ir.user_id,
+      ir.item_id,
+      CAST(ir.created_at AS DATE)
+    """,
+    nativeQuery = true
+  )
+  int backfillFromItemRecords();
+
+  /**
+   * アイテムの日別集計を期間指定で取得
+   * 日付の昇順でソート
+   */
+  @Query(
+    value = """
+    SELECT
+      *
+    FROM
+      item_daily_rollup
+    WHERE
+      user_id = :userId
+      AND item_id = :itemId
+      AND rollup_date BETWEEN :from AND :to
+    ORDER BY
+      rollup_date ASC
+    """,
+    nativeQuery = true
+  )
+  List<ItemDailyRollup> findItemRollups(
+    @Param("userId") String userId,
+    @Param("itemId") UUID itemId,
+    @Param("from") LocalDate from,
+    @Param("to") LocalDate to
+  );
+}
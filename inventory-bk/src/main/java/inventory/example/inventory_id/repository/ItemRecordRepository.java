@@ -1,13 +1,23 @@
 package inventory.example.inventory_id.repository;
 
+import inventory.example.inventory_id.dto.ExpiringLotDto;
+import inventory.example.inventory_id.dto.ItemRecordDto;
 import inventory.example.inventory_id.model.ItemRecord;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface ItemRecordRepository extends JpaRepository<ItemRecord, Long> {
@@ -98,23 +108,20 @@ public interface ItemRecordRepository extends JpaRepository<ItemRecord, Long> {
   );
 
   /**
-   * ユーザーIDで全レコードを取得
+   * ユーザーIDで全レコードを、アイテムとカテゴリと合わせて取得
    * 履歴がない時は空リストで返す
    * createdAtの降順でソート
    */
   @Query(
-    value = """
-    SELECT
-      *
-    FROM
-      item_record
-    WHERE
-      user_id = :userId
-      AND deleted_flag = FALSE
-    ORDER BY
-      created_at DESC
-    """,
-    nativeQuery = true
+    """
+    SELECT r
+    FROM ItemRecord r
+    JOIN FETCH r.item i
+    LEFT JOIN FETCH i.category
+    WHERE r.userId = :userId
+    AND r.deletedFlag = FALSE
+    ORDER BY r.createdAt DESC, r.id DESC
+    """
   )
   List<ItemRecord> findUserItemRecords(@Param("userId") String userId);
 
@@ -142,4 +149,278 @@ public interface ItemRecordRepository extends JpaRepository<ItemRecord, Long> {
     @Param("itemId") UUID itemId,
     @Param("userId") String userId
   );
+
+  // 以下の参照用クエリはエンティティを読み込まず、アイテム名とカテゴリ名を結合してDTOを直接生成する。
+  // 関連(item, category, sourceRecord)の追加のSELECTや変更検知の対象にならない
+  String RECORD_DTO_SELECT = """
+    SELECT new inventory.example.inventory_id.dto.ItemRecordDto(
+      r.id,
+      i.name,
+      c.name,
+      r.quantity,
+      r.price,
+      r.transactionType,
+      r.expirationDate,
+      r.createdAt,
+      i.id
+    )
+    FROM ItemRecord r
+    JOIN r.item i
+    LEFT JOIN i.category c
+    """;
+
+  /**
+   * ユーザーIDとレコードIDで履歴を取得(参照用)
+   */
+  @Query(
+    RECORD_DTO_SELECT +
+    """
+    WHERE r.id = :id
+    AND r.userId = :userId
+    AND r.deletedFlag = FALSE
+    """
+  )
+  Optional<ItemRecordDto> findRecordDtoByIdAndUserId(
+    @Param("id") Long id,
+    @Param("userId") String userId
+  );
+
+  /**
+   * ユーザーIDで全履歴を取得(参照用)
+   * createdAtの降順でソート
+   */
+  @Query(
+    RECORD_DTO_SELECT +
+    """
+    WHERE r.userId = :userId
+    AND r.deletedFlag = FALSE
+    ORDER BY r.createdAt DESC, r.id DESC
+    """
+  )
+  List<ItemRecordDto> findUserItemRecordDtos(@Param("userId") String userId);
+
+  /**
+   * アイテムIDとユーザーIDで全履歴を取得(参照用)
+   * createdAtの降順でソート
+   */
+  @Query(
+    RECORD_DTO_SELECT +
+    """
+    WHERE i.id = :itemId
+    AND r.userId = :userId
+    AND r.deletedFlag = FALSE
+    ORDER BY r.createdAt DESC, r.id DESC
+    """
+  )
+  List<ItemRecordDto> findRecordDtosByItemIdAndUserId(
+    @Param("itemId") UUID itemId,
+    @Param("userId") String userId
+  );
+
+  /**
+   * 同期用: 指定期間内に作成・更新・削除されたレコードを、アイテムとカテゴリと合わせて取得
+   * 削除済みのレコードも含めて返す(トゥームストーン用)
+   */
+  @Query(
+    """
+    SELECT r
+    FROM ItemRecord r
+    JOIN FETCH r.item i
+    LEFT JOIN FETCH i.category
+    WHERE r.userId = :userId
+    AND r.updatedAt > :since
+    AND r.updatedAt <= :until
+    """
+  )
+  List<ItemRecord> findChangedBetween(
+    @Param("userId") String userId,
+    @Param("since") LocalDateTime since,
+    @Param("until") LocalDateTime until
+  );
+
+  // 有効期限アラート用のクエリはエンティティを読み込まず、アラートに必要な列のみでDTOを直接生成する
+  String EXPIRING_LOT_SELECT = """
+    SELECT new inventory.example.inventory_id.dto.ExpiringLotDto(
+      r.id,
+      r.userId,
+      i.id,
+      i.name,
+      c.name,
+      r.remainingQuantity,
+      r.expirationDate
+    )
+    FROM ItemRecord r
+    JOIN r.item i
+    LEFT JOIN i.category c
+    """;
+
+  /**
+   * 残り数量がある入庫レコード(ロット)を全ユーザー分、(有効期限, ID)の順に
+   * 指定の位置の続きから取得する(キーセットページング)
+   * 先頭から読み飛ばさないため、ページの位置によらずexpiration_dateのインデックスで範囲のみを読み込む
+   *
+   * @param afterDate 前のページの最後のロットの有効期限(最初のページは期間の開始日)
+   * @param afterId   前のページの最後のロットのID(最初のページはLong.MIN_VALUE)
+   * @param to        期間の終了日
+   */
+  @Query(
+    EXPIRING_LOT_SELECT +
+    """
+    WHERE r.expirationDate >= :afterDate
+    AND r.expirationDate <= :to
+    AND (r.expirationDate > :afterDate OR r.id > :afterId)
+    AND r.transactionType = inventory.example.inventory_id.enums.TransactionType.IN
+    AND r.deletedFlag = FALSE
+    AND r.remainingQuantity > 0
+    ORDER BY r.expirationDate ASC, r.id ASC
+    """
+  )
+  List<ExpiringLotDto> findOpenLotsExpiringAfter(
+    @Param("afterDate") LocalDate afterDate,
+    @Param("afterId") Long afterId,
+    @Param("to") LocalDate to,
+    Pageable pageable
+  );
+
+  /**
+   * 有効期限が指定期間内で、残り数量があるユーザーの入庫レコード(ロット)を取得
+   * 有効期限の昇順でソート
+   */
+  @Query(
+    EXPIRING_LOT_SELECT +
+    """
+    WHERE r.userId = :userId
+    AND r.expirationDate BETWEEN :from AND :to
+    AND r.transactionType = inventory.example.inventory_id.enums.TransactionType.IN
+    AND r.deletedFlag = FALSE
+    AND r.remainingQuantity > 0
+    ORDER BY r.expirationDate ASC, r.id ASC
+    """
+  )
+  List<ExpiringLotDto> findUserOpenLotsExpiringBetween(
+    @Param("userId") String userId,
+    @Param("from") LocalDate from,
+    @Param("to") LocalDate to
+  );
+
+  /**
+   * 入庫レコードの残り数量を加減算する
+   * 出庫時は負の数、出庫レコード削除時は正の数を指定
+   * ネイティブクエリの更新は対象テーブルを指定しないと2次キャッシュ全体が破棄されるため、
+   * 更新系のネイティブクエリには対象テーブルをヒントで指定する
+   */
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @QueryHints(
+    @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_record")
+  )
+  @Query(
+    value = """
+    UPDATE
+      item_record
+    SET
+      remaining_quantity = remaining_quantity + :delta
+    WHERE
+      id = :recordId
+      AND transaction_type = 'IN'
+    """,
+    nativeQuery = true
+  )
+  int adjustRemainingQuantity(
+    @Param("recordId") Long recordId,
+    @Param("delta") int delta
+  );
+
+  /**
+   * 残り数量が出庫数以上の場合のみ、入庫レコードの残り数量を減らす
+   * 確認と更新を1つの文で行うため、同じロットへの同時出庫でも残り数量が負にならない
+   * 更新件数が0の場合はロットが存在しないか在庫不足
+   */
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @QueryHints(
+    @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_record")
+  )
+  @Query(
+    value = """
+    UPDATE
+      item_record
+    SET
+      remaining_quantity = remaining_quantity - :quantity
+    WHERE
+      id = :recordId
+      AND transaction_type = 'IN'
+      AND deleted_flag = FALSE
+      AND remaining_quantity >= :quantity
+    """,
+    nativeQuery = true
+  )
+  int withdrawFromLot(
+    @Param("recordId") Long recordId,
+    @Param("quantity") int quantity
+  );
+
+  /**
+   * 残り数量が未設定の入庫レコードに、出庫済み数量から計算した値を設定する
+   * 残り数量カラム追加前に作成されたレコード用
+   */
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @QueryHints(
+    @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_record")
+  )
+  @Query(
+    value = """
+    UPDATE
+      item_record ir
+    SET
+      remaining_quantity = ir.quantity - COALESCE(
+        (
+          SELECT
+            SUM(out_ir.quantity)
+          FROM
+            item_record out_ir
+          WHERE
+            out_ir.item_record_id = ir.id
+            AND out_ir.transaction_type = 'OUT'
+            AND out_ir.deleted_flag = FALSE
+        ),
+        0
+      )
+    WHERE
+      ir.transaction_type = 'IN'
+      AND ir.remaining_quantity IS NULL
+    """,
+    nativeQuery = true
+  )
+  int backfillRemainingQuantity();
+
+  /**
+   * カテゴリが未設定のレコードに、アイテムの現在のカテゴリを設定する
+   * カテゴリカラム追加前に作成されたレコード用
+   */
+  @Modifying(flushAutomatically = true)
+  @Transactional
+  @QueryHints(
+    @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_record")
+  )
+  @Query(
+    value = """
+    UPDATE
+      item_record ir
+    SET
+      category_id = (
+        SELECT
+          i.category_id
+        FROM
+          item i
+        WHERE
+          i.id = ir.item_id
+      )
+    WHERE
+      ir.category_id IS NULL
+    """,
+    nativeQuery = true
+  )
+  int backfillCategoryId();
 }
@@ -1,12 +1,14 @@
 package inventory.example.inventory_id.repository;
 
 import inventory.example.inventory_id.model.Item;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -100,4 +102,134 @@ public interface ItemRepository
     Specification<Item> spec,
     Pageable pageable
   );
+
+  /**
+   * アイテム一覧はカテゴリ名を表示するため、カテゴリを同時に取得する
+   */
+  @Override
+  @EntityGraph(attributePaths = "category")
+  Page<Item> findAll(Specification<Item> spec, Pageable pageable);
+
+  @Query(
+    """
+    SELECT i
+    FROM Item i
+    LEFT JOIN FETCH i.category
+    WHERE i.userId = :userId
+    AND i.deletedFlag = FALSE
+    """
+  )
+  List<Item> findActiveByUserId(@Param("userId") String userId);
+
+  /**
+   * 同期用: 指定期間内に作成・更新・削除されたアイテムを取得
+   * 削除済みのアイテムも含めて返す(トゥームストーン用)
+   */
+  @Query(
+    """
+    SELECT i
+    FROM Item i
+    LEFT JOIN FETCH i.category
+    WHERE i.userId = :userId
+    AND i.updatedAt > :since
+    AND i.updatedAt <= :until
+    """
+  )
+  List<Item> findChangedBetween(
+    @Param("userId") String userId,
+    @Param("since") LocalDateTime since,
+    @Param("until") LocalDateTime until
+  );
+
+  /**
+   * 在庫不足フラグが立っているユーザーのアイテムを取得
+   * (user_id, low_stock)のインデックスで在庫不足のアイテムのみを読み込む
+   */
+  @Query(
+    """
+    SELECT i
+    FROM Item i
+    LEFT JOIN FETCH i.category
+    WHERE i.userId = :userId
+    AND i.lowStock = TRUE
+    AND i.deletedFlag = FALSE
+    ORDER BY i.name ASC
+    """
+  )
+  List<Item> findLowStockByUserId(@Param("userId") String userId);
+
+  /**
+   * 対象日数内に在庫切れが見込まれるアイテムを在庫切れが近い順に取得
+   * アイテムに保持している消費量を最後の出庫から基準日時までの経過時間で減衰させて使い、
+   * 入出庫履歴は参照しない(Item.consumptionRateAtと同じ計算)
+   */
+  @Query(
+    value = """
+    SELECT *
+    FROM item
+    WHERE user_id = :userId
+    AND deleted_flag = FALSE
+    AND consumption_rate > 0
+    AND total_quantity < consumption_rate * EXP(
+      -GREATEST(DATEDIFF('SECOND', COALESCE(last_consumed_at, :now), :now), 0)
+      / (86400.0 * :timeConstantDays)
+    ) * :horizonDays
+    ORDER BY total_quantity / (consumption_rate * EXP(
+      -GREATEST(DATEDIFF('SECOND', COALESCE(last_consumed_at, :now), :now), 0)
+      / (86400.0 * :timeConstantDays)
+    )) ASC, name ASC
+    LIMIT :limit
+    """,
+    nativeQuery = true
+  )
+  List<Item> findBuySoonByUserId(
+    @Param("userId") String userId,
+    @Param("horizonDays") double horizonDays,
+    @Param("now") LocalDateTime now,
+    @Param("timeConstantDays") double timeConstantDays,
+    @Param("limit") int limit
+  );
+
+  /**
+   * ユーザーのカテゴリごとのアクティブなアイテム数
+   */
+  interface CategoryItemCount {
+    UUID getCategoryId();
+
+    long getItemCount();
+  }
+
+  /**
+   * ユーザーのアクティブなアイテム数をカテゴリごとに集計
+   * デフォルトカテゴリの他ユーザーのアイテムは読み込まない
+   */
+  @Query(
+    """
+    SELECT i.category.id AS categoryId, COUNT(i) AS itemCount
+    FROM Item i
+    WHERE i.userId = :userId
+    AND i.deletedFlag = FALSE
+    GROUP BY i.category.id
+    """
+  )
+  List<CategoryItemCount> countActiveByCategory(@Param("userId") String userId);
+
+  /**
+   * カテゴリ内のユーザーのアクティブなアイテムを更新日時の降順で取得
+   */
+  @Query(
+    value = """
+    SELECT *
+    FROM item
+    WHERE user_id = :userId
+    AND category_id = :categoryId
+    AND deleted_flag = FALSE
+    ORDER BY updated_at DESC
+    """,
+    nativeQuery = true
+  )
+  List<Item> findActiveByCategoryId(
+    @Param("userId") String userId,
+    @Param("categoryId") UUID categoryId
+  );
 }
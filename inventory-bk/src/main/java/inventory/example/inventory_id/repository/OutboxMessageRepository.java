@@ -0,0 +1,112 @@
+package inventory.example.inventory_id.repository;
+
+import inventory.example.inventory_id.model.OutboxMessage;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OutboxMessageRepository
+  extends JpaRepository<OutboxMessage, Long> {
+  /**
+   * 指定日時以前に記録された未処理のメッセージを記録順に取得
+   * 実行を諦めたメッセージは取得しない
+   */
+  @Query(
+    """
+    SELECT m
+    FROM OutboxMessage m
+    WHERE m.processedAt IS NULL
+    AND m.deadAt IS NULL
+    AND m.createdAt <= :before
+    ORDER BY m.id
+    """
+  )
+  List<OutboxMessage> findPending(
+    @Param("before") LocalDateTime before,
+    Pageable pageable
+  );
+
+  /**
+   * 最も古い未処理のメッセージの記録日時を取得(未処理がない場合はnull)
+   */
+  @Query(
+    """
+    SELECT MIN(m.createdAt)
+    FROM OutboxMessage m
+    WHERE m.processedAt IS NULL
+    AND m.deadAt IS NULL
+    """
+  )
+  LocalDateTime findOldestPendingCreatedAt();
+
+  long countByProcessedAtIsNullAndDeadAtIsNull();
+
+  /**
+   * ユーザーの指定したメッセージより前に記録された未処理のメッセージがあるか
+   */
+  boolean existsByUserIdAndIdLessThanAndProcessedAtIsNullAndDeadAtIsNull(
+    String userId,
+    Long id
+  );
+
+  @Modifying
+  @Transactional
+  @Query(
+    """
+    UPDATE OutboxMessage m
+    SET m.processedAt = :processedAt
+    WHERE m.id IN :ids
+    AND m.processedAt IS NULL
+    """
+  )
+  int markProcessed(
+    @Param("ids") List<Long> ids,
+    @Param("processedAt") LocalDateTime processedAt
+  );
+
+  @Modifying
+  @Transactional
+  @Query(
+    """
+    UPDATE OutboxMessage m
+    SET m.attempts = m.attempts + 1
+    WHERE m.id = :id
+    """
+  )
+  int incrementAttempts(@Param("id") Long id);
+
+  /**
+   * 実行を諦めたメッセージとして記録し、再実行の対象から外す
+   */
+  @Modifying
+  @Transactional
+  @Query(
+    """
+    UPDATE OutboxMessage m
+    SET m.deadAt = :deadAt
+    WHERE m.id = :id
+    AND m.processedAt IS NULL
+    """
+  )
+  int markDead(@Param("id") Long id, @Param("deadAt") LocalDateTime deadAt);
+
+  /**
+   * 指定日時より前に処理済みになったメッセージを削除
+   */
+  @Modifying
+  @Transactional
+  @Query(
+    """
+    DELETE FROM OutboxMessage m
+    WHERE m.processedAt < :before
+    """
+  )
+  int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
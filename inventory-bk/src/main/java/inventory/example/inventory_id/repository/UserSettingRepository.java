@@ -0,0 +1,9 @@
+package inventory.example.inventory_id.repository;
+
+import inventory.example.inventory_id.model.UserSetting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserSettingRepository
+  extends JpaRepository<UserSetting, String> {}
@@ -0,0 +1,21 @@
+package inventory.example.inventory_id.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExpiryHorizonRequest {
+
+  @NotNull(message = "日数は必須です")
+  @Min(value = 1, message = "日数は1以上で入力してください")
+  @Max(value = 90, message = "日数は90以下で入力してください")
+  @Schema(example = "7", description = "有効期限アラートの対象日数")
+  private Integer days;
+}
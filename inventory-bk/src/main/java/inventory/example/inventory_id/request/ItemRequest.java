@@ -3,6 +3,7 @@ package inventory.example.inventory_id.request;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -24,4 +25,15 @@ public class ItemRequest {
   @Size(max = 50, message = "カテゴリ名は50文字以内で入力してください")
   @Schema(example = "文房具", description = "カテゴリ名")
   private String categoryName;
+
+  @PositiveOrZero(message = "発注点は0以上で入力してください")
+  @Schema(
+    example = "5",
+    description = "発注点。在庫数がこの値を下回ると在庫不足アラートになります(任意)。更新時に省略した場合は変更せず、0の場合はアラートになりません"
+  )
+  private Integer reorderThreshold;
+
+  public ItemRequest(String name, String categoryName) {
+    this(name, categoryName, null);
+  }
 }
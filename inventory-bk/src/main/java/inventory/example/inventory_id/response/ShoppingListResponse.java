@@ -0,0 +1,57 @@
+package inventory.example.inventory_id.response;
+
+import inventory.example.inventory_id.enums.ShoppingReason;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ShoppingListResponse {
+
+  private LocalDateTime generatedAt;
+
+  // 最も急ぎのアイテムが早い順のカテゴリ
+  private List<CategoryGroup> categories = new ArrayList<>();
+
+  @Data
+  @NoArgsConstructor
+  public static class CategoryGroup {
+
+    @Schema(example = "食べ物", description = "カテゴリ名")
+    private String categoryName;
+
+    // 急ぎの順のアイテム
+    private List<Entry> items = new ArrayList<>();
+  }
+
+  @Data
+  @NoArgsConstructor
+  public static class Entry {
+
+    private UUID itemId;
+
+    @Schema(example = "牛乳", description = "アイテム名")
+    private String itemName;
+
+    @Schema(example = "1", description = "在庫総数量")
+    private int totalQuantity;
+
+    @Schema(example = "3", description = "購入を勧める数量")
+    private int suggestedQuantity;
+
+    @Schema(
+      example = "0",
+      description = "必要になるまでの日数(在庫不足・期限切れの場合は0)"
+    )
+    private double daysUntilNeeded;
+
+    private Set<ShoppingReason> reasons = EnumSet.noneOf(ShoppingReason.class);
+  }
+}
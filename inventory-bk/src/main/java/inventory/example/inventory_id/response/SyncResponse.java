@@ -0,0 +1,37 @@
+package inventory.example.inventory_id.response;
+
+import inventory.example.inventory_id.dto.CategoryDto;
+import inventory.example.inventory_id.dto.ItemDto;
+import inventory.example.inventory_id.dto.ItemRecordDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class SyncResponse {
+
+  // 次回の同期リクエストで送信する不透明トークン
+  private String watermark;
+
+  // sinceなしで全件を返した場合はtrue
+  private boolean fullSync;
+
+  private List<CategoryDto> categories = new ArrayList<>();
+  private List<ItemDto> items = new ArrayList<>();
+  private List<ItemRecordDto> records = new ArrayList<>();
+
+  // 前回の同期以降に削除されたデータのID
+  private Tombstones deleted = new Tombstones();
+
+  @Data
+  @NoArgsConstructor
+  public static class Tombstones {
+
+    private List<UUID> categories = new ArrayList<>();
+    private List<UUID> items = new ArrayList<>();
+    private List<Long> records = new ArrayList<>();
+  }
+}
@@ -5,26 +5,27 @@ import inventory.example.inventory_id.dto.ItemDto;
 import inventory.example.inventory_id.model.Category;
 import inventory.example.inventory_id.model.Item;
 import inventory.example.inventory_id.repository.CategoryRepository;
+import inventory.example.inventory_id.repository.ItemRepository;
+import inventory.example.inventory_id.repository.ItemRepository.CategoryItemCount;
 import inventory.example.inventory_id.request.CategoryRequest;
-import inventory.example.inventory_id.spec.CategorySpecs;
-import inventory.example.inventory_id.spec.ItemSpecs;
+import inventory.example.inventory_id.service.SystemCategoryRegistry.SystemCategory;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -33,101 +34,77 @@ public class CategoryService {
   @Autowired
   private CategoryRepository categoryRepository;
 
-  @Value("${system.userid}")
-  private String systemUserId;
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private SystemCategoryRegistry systemCategoryRegistry;
+
+  @Autowired
+  private UserVersionService userVersionService;
 
   private String categoryNotFoundMsg = "カテゴリーが見つかりません";
 
+  // 一覧の並び替えに指定できる項目
+  private static final Map<String, Comparator<CategoryDto>> sortableFields =
+    Map.of(
+      "name",
+      Comparator.comparing(
+        CategoryDto::getName,
+        Comparator.nullsLast(Comparator.naturalOrder())
+      ),
+      "updatedAt",
+      Comparator.comparing(
+        CategoryDto::getUpdatedAt,
+        Comparator.nullsLast(Comparator.naturalOrder())
+      ),
+      "itemCount",
+      Comparator.comparingInt(CategoryDto::getItemCount)
+    );
+
   @Cacheable(
     value = "categories",
     key = "#userId + ':' + #pageable.pageNumber + ':' + #pageable.pageSize + ':' + #pageable.sort.toString()"
   )
+  @Transactional(readOnly = true)
   public Page<CategoryDto> getAllCategories(Pageable pageable, String userId) {
-    Specification<Category> spec = Specification.unrestricted();
-    spec = spec
-      .and(CategorySpecs.belongsToUser(List.of(userId, systemUserId)))
-      .and(CategorySpecs.isNotDeleted());
-    // ユーザとデフォルトのカテゴリを取得
-
-    Page<Category> categories = categoryRepository.findAll(spec, pageable);
-
-    return categories.map(category ->
-      new CategoryDto(
-        category.getId(),
-        category.getName(),
-        (int) category
-          .getItems()
-          .stream()
-          .filter(
-            item -> !item.isDeletedFlag() && item.getUserId().equals(userId)
-          )
-          .count(),
-        category.getUpdatedAt()
-      )
+    // ユーザのカテゴリは最大50件のため、デフォルトカテゴリと合わせてメモリ上で並び替える
+    List<CategoryDto> categories = findCategoryDtos(userId);
+    categories.sort(comparatorOf(pageable.getSort()));
+    if (pageable.isUnpaged()) {
+      return new PageImpl<>(categories);
+    }
+    int from = (int) Math.min(pageable.getOffset(), categories.size());
+    int to = Math.min(from + pageable.getPageSize(), categories.size());
+    return new PageImpl<>(
+      new ArrayList<>(categories.subList(from, to)),
+      pageable,
+      categories.size()
     );
-    // List<CategoryDto> dtoList = categories
-    //   .getContent()
-    //   .stream()
-    //   .sorted(Comparator.comparing(Category::getName))
-    //   .map(category ->
-    //     new CategoryDto(
-    //       category.getId(),
-    //       category.getName(),
-    //       (int) category.getItems().stream().count(),
-    //       category.getUpdatedAt()
-    //     )
-    //   )
-    //   .toList();
-    // return new PageImpl<>(dtoList, pageable, categories.getTotalElements());
   }
 
+  @Transactional(readOnly = true)
   public List<CategoryDto> getAllCategories(String userId) {
-    List<Category> categories = categoryRepository.findNotDeleted(
-      List.of(userId, systemUserId)
-    );
-    return categories
-      .stream()
-      .sorted(Comparator.comparing(Category::getName))
-      .map(category ->
-        new CategoryDto(
-          category.getId(),
-          category.getName(),
-          (int) category
-            .getItems()
-            .stream()
-            .filter(
-              item -> !item.isDeletedFlag() && item.getUserId().equals(userId)
-            )
-            .count(),
-          category.getUpdatedAt()
-        )
-      )
-      .toList();
+    List<CategoryDto> categories = findCategoryDtos(userId);
+    categories.sort(sortableFields.get("name"));
+    return categories;
   }
 
   @Cacheable(value = "categoryItems", key = "#userId + ':' + #categoryId")
+  @Transactional(readOnly = true)
   public List<ItemDto> getCategoryItems(String userId, UUID categoryId) {
-    List<Category> categories = categoryRepository.findNotDeleted(
-      List.of(userId, systemUserId)
-    );
-    // ユーザのカテゴリを取得
-    Optional<Category> categoryOpt = categories
-      .stream()
-      .filter(category -> category.getId().equals(categoryId))
-      .findFirst();
-
-    if (categoryOpt.isEmpty()) {
+    boolean exists =
+      systemCategoryRegistry.contains(categoryId) ||
+      categoryRepository.findUserCategory(userId, categoryId).isPresent();
+    if (!exists) {
       return List.of();
     }
 
-    Category category = categoryOpt.get();
     // ユーザのアイテムを更新日時の降順で取得
-    List<Item> sortedUserItems = category
-      .getItems()
-      .stream()
-      .filter(item -> item.getUserId().equals(userId) && !item.isDeletedFlag())
-      .sorted(Comparator.comparing(Item::getUpdatedAt).reversed())
-      .toList();
+    List<Item> sortedUserItems = itemRepository.findActiveByCategoryId(
+      userId,
+      categoryId
+    );
     // アイテムDTOのリストを作成
     List<ItemDto> itemDtos = sortedUserItems
       .stream()
@@ -147,18 +124,12 @@ public class CategoryService {
   }
 
   @CacheEvict(value = "categories", key = "#userId", allEntries = true)
+  @Transactional
   public Category createCategory(
     CategoryRequest categoryRequest,
     String userId
   ) {
-    List<Category> categoryList = categoryRepository.findNotDeleted(
-      List.of(userId, systemUserId)
-    );
-
-    List<Category> userCategories = categoryList
-      .stream()
-      .filter(category -> category.getUserId().equals(userId))
-      .toList();
+    List<Category> userCategories = categoryRepository.findNotDeleted(userId);
 
     // ユーザカテゴリーの上限は50件まで
     if (userCategories.size() >= 50) {
@@ -167,10 +138,13 @@ public class CategoryService {
         "登録できるカテゴリの上限に達しています"
       );
     }
-    boolean isNameExist = categoryList
-      .stream()
-      .anyMatch(category -> category.getName().equals(categoryRequest.getName())
-      );
+    boolean isNameExist =
+      systemCategoryRegistry.findByName(categoryRequest.getName()).isPresent() ||
+      userCategories
+        .stream()
+        .anyMatch(category ->
+          category.getName().equals(categoryRequest.getName())
+        );
     if (isNameExist) {
       throw new ResponseStatusException(
         HttpStatus.CONFLICT,
@@ -180,32 +154,36 @@ public class CategoryService {
 
     Category category = new Category(categoryRequest.getName());
     category.setUserId(userId);
-    return categoryRepository.save(category);
+    Category saved = categoryRepository.save(category);
+    userVersionService.bump(userId);
+    return saved;
   }
 
   @CacheEvict(value = "categories", key = "#userId", allEntries = true)
+  @Transactional
   public Category updateCategory(
     UUID categoryId,
     CategoryRequest categoryRequest,
     String userId
   ) {
+    if (systemCategoryRegistry.contains(categoryId)) {
+      throw new IllegalArgumentException("デフォルトカテゴリは編集できません");
+    }
     Optional<Category> categoryOpt = categoryRepository.findUserCategory(
-      List.of(userId, systemUserId),
+      userId,
       categoryId
     );
     if (!categoryOpt.isPresent()) {
       throw new IllegalArgumentException(categoryNotFoundMsg);
     }
     Category category = categoryOpt.get();
-    if (!category.getUserId().equals(userId)) {
-      throw new IllegalArgumentException("デフォルトカテゴリは編集できません");
-    }
-    List<Category> exsitCategory = categoryRepository.findActiveCateByName(
-      List.of(userId, systemUserId),
-      categoryRequest.getName()
-    );
+    boolean isNameExist =
+      systemCategoryRegistry.findByName(categoryRequest.getName()).isPresent() ||
+      !categoryRepository
+        .findActiveCateByName(userId, categoryRequest.getName())
+        .isEmpty();
 
-    if (!exsitCategory.isEmpty()) {
+    if (isNameExist) {
       throw new ResponseStatusException(
         HttpStatus.CONFLICT,
         "カテゴリー名はすでに存在します"
@@ -213,14 +191,18 @@ public class CategoryService {
     }
 
     category.setName(categoryRequest.getName());
-    return categoryRepository.save(category);
+    Category saved = categoryRepository.save(category);
+    userVersionService.bump(userId);
+    return saved;
   }
 
   @CacheEvict(value = "categories", key = "#userId", allEntries = true)
+  @Transactional
   public void deleteCategory(UUID id, String userId) {
-    List<Category> categoryList = categoryRepository.findNotDeleted(
-      List.of(userId, systemUserId)
-    );
+    if (systemCategoryRegistry.contains(id)) {
+      throw new IllegalArgumentException("デフォルトカテゴリは削除できません");
+    }
+    List<Category> categoryList = categoryRepository.findNotDeleted(userId);
     if (categoryList.isEmpty()) {
       throw new ResponseStatusException(
         HttpStatus.NOT_FOUND,
@@ -235,9 +217,6 @@ public class CategoryService {
         new ResponseStatusException(HttpStatus.NOT_FOUND, categoryNotFoundMsg)
       );
 
-    if (!category.getUserId().equals(userId)) {
-      throw new IllegalArgumentException("デフォルトカテゴリは削除できません");
-    }
     if (
       category.getItems().isEmpty() ||
       category.getItems().stream().allMatch(item -> item.isDeletedFlag())
@@ -245,10 +224,67 @@ public class CategoryService {
       // アイテムが存在しない場合のみ削除フラグを立てる
       category.setDeletedFlag(true);
       categoryRepository.save(category);
+      userVersionService.bump(userId);
     } else {
       throw new IllegalArgumentException(
         "アイテムが存在するため削除できません"
       );
     }
   }
+
+  /**
+   * ユーザのカテゴリとデフォルトカテゴリを、ユーザのアイテム数と合わせて取得
+   */
+  private List<CategoryDto> findCategoryDtos(String userId) {
+    Map<UUID, Long> itemCounts = itemRepository
+      .countActiveByCategory(userId)
+      .stream()
+      .collect(
+        Collectors.toMap(
+          CategoryItemCount::getCategoryId,
+          CategoryItemCount::getItemCount
+        )
+      );
+    List<CategoryDto> categories = new ArrayList<>();
+    for (Category category : categoryRepository.findNotDeleted(userId)) {
+      categories.add(
+        new CategoryDto(
+          category.getId(),
+          category.getName(),
+          itemCounts.getOrDefault(category.getId(), 0L).intValue(),
+          category.getUpdatedAt()
+        )
+      );
+    }
+    for (SystemCategory category : systemCategoryRegistry.getAll()) {
+      categories.add(
+        new CategoryDto(
+          category.getId(),
+          category.getName(),
+          itemCounts.getOrDefault(category.getId(), 0L).intValue(),
+          category.getUpdatedAt()
+        )
+      );
+    }
+    return categories;
+  }
+
+  private Comparator<CategoryDto> comparatorOf(Sort sort) {
+    Comparator<CategoryDto> comparator = null;
+    for (Sort.Order order : sort) {
+      Comparator<CategoryDto> field = sortableFields.get(order.getProperty());
+      if (field == null) {
+        throw new IllegalArgumentException(
+          "並び替えに指定できない項目です: " + order.getProperty()
+        );
+      }
+      if (order.isDescending()) {
+        field = field.reversed();
+      }
+      comparator = comparator == null ? field : comparator.thenComparing(field);
+    }
+    // 同じ値の場合は名前順にする
+    Comparator<CategoryDto> byName = sortableFields.get("name");
+    return comparator == null ? byName : comparator.thenComparing(byName);
+  }
 }
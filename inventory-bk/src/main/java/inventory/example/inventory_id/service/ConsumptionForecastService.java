@@ -0,0 +1,99 @@
+package inventory.example.inventory_id.service;
+
+import inventory.example.inventory_id.dto.StockoutForecastDto;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.repository.ItemRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * アイテムごとの消費量から在庫切れを予測するサービスクラスです。
+ * 消費量は出庫のたびにアイテムへ指数加重で反映し、
+ * 読み取り時は最後の出庫からの経過時間で減衰させた値で在庫切れまでの日数を見積もります
+ * (出庫が途絶えたアイテムを在庫切れ間近と判定し続けないため)。
+ */
+@Service
+public class ConsumptionForecastService {
+
+  private final ItemRepository itemRepository;
+
+  // 消費量の減衰の時定数(日)
+  @Value("${inventory.forecast.time-constant-days:14}")
+  private double timeConstantDays;
+
+  @Value("${inventory.forecast.default-horizon-days:7}")
+  private int defaultHorizonDays;
+
+  @Value("${inventory.forecast.max-horizon-days:90}")
+  private int maxHorizonDays;
+
+  @Value("${inventory.forecast.buy-soon-limit:20}")
+  private int buySoonLimit;
+
+  public ConsumptionForecastService(ItemRepository itemRepository) {
+    this.itemRepository = itemRepository;
+  }
+
+  public int getDefaultHorizonDays() {
+    return defaultHorizonDays;
+  }
+
+  /**
+   * 出庫をアイテムの消費量に反映する
+   * アイテムの保存は呼び出し元の在庫集計と合わせて行う
+   *
+   * @param item 出庫したアイテム
+   * @param quantity 出庫数
+   * @param consumedAt 出庫日時(nullの場合は現在日時)
+   */
+  public void recordConsumption(
+    Item item,
+    int quantity,
+    LocalDateTime consumedAt
+  ) {
+    item.recordConsumption(
+      quantity,
+      consumedAt != null ? consumedAt : LocalDateTime.now(),
+      timeConstantDays
+    );
+  }
+
+  /**
+   * 現在の消費量からアイテムの在庫切れまでの日数を見積もる
+   *
+   * @return 在庫切れまでの日数(小数第1位まで)。消費実績がない場合はnull
+   */
+  public Double estimateDaysUntilStockout(Item item) {
+    return item.estimateDaysUntilStockout(
+      LocalDateTime.now(),
+      timeConstantDays
+    );
+  }
+
+  /**
+   * 対象日数内に在庫切れが見込まれるアイテムを在庫切れが近い順に取得
+   *
+   * @param userId ユーザーID
+   * @param horizonDays 対象日数(nullの場合は既定値)
+   * @return 在庫切れまでの日数の昇順のアイテム
+   */
+  public List<StockoutForecastDto> getBuySoonItems(
+    String userId,
+    Integer horizonDays
+  ) {
+    int days = horizonDays != null ? horizonDays : defaultHorizonDays;
+    if (days < 1 || days > maxHorizonDays) {
+      throw new IllegalArgumentException(
+        "対象日数は1から%d日の範囲で指定してください".formatted(maxHorizonDays)
+      );
+    }
+    LocalDateTime now = LocalDateTime.now();
+    return itemRepository
+      .findBuySoonByUserId(userId, days, now, timeConstantDays, buySoonLimit)
+      .stream()
+      .map(item -> StockoutForecastDto.of(item, now, timeConstantDays))
+      .toList();
+  }
+}
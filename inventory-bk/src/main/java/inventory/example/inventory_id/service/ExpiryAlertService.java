@@ -0,0 +1,334 @@
+package inventory.example.inventory_id.service;
+
+import inventory.example.inventory_id.dto.ExpiringLotDto;
+import inventory.example.inventory_id.dto.ExpiryAlertDto;
+import inventory.example.inventory_id.enums.InventoryEventType;
+import inventory.example.inventory_id.event.InventoryEvent;
+import inventory.example.inventory_id.event.InventoryEventBus;
+import inventory.example.inventory_id.model.UserSetting;
+import inventory.example.inventory_id.repository.ItemRecordRepository;
+import inventory.example.inventory_id.repository.UserSettingRepository;
+import inventory.example.inventory_id.util.ExpiringLruCache;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 有効期限アラートを管理するサービスクラスです。
+ * 残り数量のある入庫レコード(ロット)を有効期限のインデックスで範囲検索し、
+ * ユーザーごとの対象日数内に期限を迎えるロットをアラートとして返します。
+ */
+@Service
+public class ExpiryAlertService {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    ExpiryAlertService.class
+  );
+
+  // 複数ノードから同じアラートが通知されないよう、通知済みのロットを記録する
+  private static final String NOTIFIED_PREFIX = "expiry_alerted:";
+
+  private final ItemRecordRepository itemRecordRepository;
+  private final UserSettingRepository userSettingRepository;
+  private final InventoryEventBus inventoryEventBus;
+  private final StringRedisTemplate redisTemplate;
+
+  // ユーザーごとのアラートのキャッシュ。スケジューラーと書き込み時のイベントで更新する
+  // 定期スキャンでは作り直したキャッシュに参照ごと差し替え、空の状態を見せない
+  private volatile ExpiringLruCache<String, UserAlerts> alertsByUser;
+
+  // アラートを作り直すたびに進めるバージョン
+  private final AtomicLong alertVersions = new AtomicLong();
+
+  // 定期スキャン中に破棄されたユーザー(差し替え後のキャッシュからも破棄する)
+  private final Set<String> invalidatedDuringScan =
+    ConcurrentHashMap.newKeySet();
+  private volatile boolean scanning = false;
+
+  @Value("${inventory.expiry.cache.max-entries:10000}")
+  private int cacheMaxEntries = 10000;
+
+  // 日付の経過で期限までの日数が変わるため、定期スキャンの間隔に合わせる
+  @Value("${inventory.expiry.cache.ttl:1h}")
+  private Duration cacheTtl = Duration.ofHours(1);
+
+  @Value("${inventory.expiry.default-horizon-days:7}")
+  private int defaultHorizonDays;
+
+  @Value("${inventory.expiry.max-horizon-days:90}")
+  private int maxHorizonDays;
+
+  // 期限切れのロットを何日前まで通知対象とするか
+  @Value("${inventory.expiry.expired-lookback-days:30}")
+  private int expiredLookbackDays;
+
+  // 定期スキャンで1回に読み込むロットの件数
+  @Value("${inventory.expiry.scan-page-size:1000}")
+  private int scanPageSize = 1000;
+
+  public ExpiryAlertService(
+    ItemRecordRepository itemRecordRepository,
+    UserSettingRepository userSettingRepository,
+    InventoryEventBus inventoryEventBus,
+    StringRedisTemplate redisTemplate
+  ) {
+    this.itemRecordRepository = itemRecordRepository;
+    this.userSettingRepository = userSettingRepository;
+    this.inventoryEventBus = inventoryEventBus;
+    this.redisTemplate = redisTemplate;
+  }
+
+  /**
+   * ユーザーの有効期限アラートと、その内容のバージョン
+   * バージョンはアラートを作り直すたびに変わるため、アラートから作る結果のキャッシュに使う
+   */
+  public record UserAlerts(List<ExpiryAlertDto> alerts, long version) {}
+
+  /**
+   * ユーザーの有効期限アラートを取得する
+   *
+   * @param userId ユーザーID
+   * @return 有効期限の昇順のアラート
+   */
+  public List<ExpiryAlertDto> getAlerts(String userId) {
+    return getUserAlerts(userId).alerts();
+  }
+
+  /**
+   * ユーザーの有効期限アラートをバージョンとともに取得する
+   *
+   * @param userId ユーザーID
+   */
+  public UserAlerts getUserAlerts(String userId) {
+    return cache().getOrLoad(userId, this::loadUserAlerts);
+  }
+
+  public int getHorizonDays(String userId) {
+    return userSettingRepository
+      .findById(userId)
+      .map(UserSetting::getExpiryHorizonDays)
+      .orElse(defaultHorizonDays);
+  }
+
+  /**
+   * ユーザーの有効期限アラートの対象日数を更新する
+   *
+   * @param userId ユーザーID
+   * @param days   対象日数
+   */
+  public void updateHorizonDays(String userId, int days) {
+    if (days < 1 || days > maxHorizonDays) {
+      throw new IllegalArgumentException(
+        "日数は1以上%d以下で入力してください".formatted(maxHorizonDays)
+      );
+    }
+    UserSetting setting = userSettingRepository
+      .findById(userId)
+      .orElseGet(() -> new UserSetting(userId, defaultHorizonDays));
+    setting.setExpiryHorizonDays(days);
+    userSettingRepository.save(setting);
+    invalidate(userId);
+  }
+
+  /**
+   * 入出庫・アイテムの変更時にユーザーのキャッシュを破棄する
+   */
+  @EventListener
+  public void onInventoryEvent(InventoryEvent event) {
+    if (event.getType() != InventoryEventType.EXPIRY_ALERT) {
+      invalidate(event.getUserId());
+    }
+  }
+
+  /**
+   * 全ユーザーの有効期限アラートを更新し、新たに対象となったロットを通知する。
+   * 最大対象日数までの範囲のみをページ単位で読み込み、ユーザーごとの対象日数で絞り込む。
+   */
+  @Scheduled(cron = "${inventory.expiry.scan-cron:0 0 * * * *}")
+  public synchronized void scan() {
+    invalidatedDuringScan.clear();
+    scanning = true;
+    try {
+      scanLots();
+    } finally {
+      scanning = false;
+    }
+  }
+
+  private void scanLots() {
+    LocalDate today = LocalDate.now();
+    LocalDate to = today.plusDays(maxHorizonDays);
+    Map<String, Integer> horizons = new HashMap<>();
+    Map<String, List<ExpiryAlertDto>> alertsByUserId = new HashMap<>();
+
+    // 全期間のロットを一度に読み込まず、前のページの最後の(有効期限, ID)の続きから読み込む
+    LocalDate afterDate = today.minusDays(expiredLookbackDays);
+    long afterId = Long.MIN_VALUE;
+    while (true) {
+      List<ExpiringLotDto> page = itemRecordRepository.findOpenLotsExpiringAfter(
+        afterDate,
+        afterId,
+        to,
+        PageRequest.of(0, scanPageSize)
+      );
+      addAlerts(page, today, horizons, alertsByUserId);
+      if (page.size() < scanPageSize) {
+        break;
+      }
+      ExpiringLotDto last = page.get(page.size() - 1);
+      afterDate = last.getExpirationDate();
+      afterId = last.getRecordId();
+    }
+
+    Map<String, UserAlerts> refreshed = new HashMap<>();
+    alertsByUserId.forEach((userId, alerts) ->
+      refreshed.put(
+        userId,
+        new UserAlerts(List.copyOf(alerts), alertVersions.incrementAndGet())
+      )
+    );
+
+    ExpiringLruCache<String, UserAlerts> swapped = newCache();
+    refreshed.forEach(swapped::put);
+    alertsByUser = swapped;
+    // スキャン中に変更されたユーザーは、変更前のデータで作った可能性があるため破棄する
+    invalidatedDuringScan.forEach(swapped::invalidate);
+
+    refreshed.forEach((userId, userAlerts) -> {
+      for (ExpiryAlertDto alert : userAlerts.alerts()) {
+        if (markNotified(alert)) {
+          inventoryEventBus.publish(
+            new InventoryEvent(userId, InventoryEventType.EXPIRY_ALERT, alert)
+          );
+        }
+      }
+    });
+  }
+
+  /**
+   * 1ページ分のロットを、ユーザーごとの対象日数で絞り込んでアラートに追加する
+   * 対象日数はページに初めて現れたユーザーの分のみを読み込む
+   */
+  private void addAlerts(
+    List<ExpiringLotDto> lots,
+    LocalDate today,
+    Map<String, Integer> horizons,
+    Map<String, List<ExpiryAlertDto>> alertsByUserId
+  ) {
+    Map<String, List<ExpiringLotDto>> lotsByUser = lots
+      .stream()
+      .collect(Collectors.groupingBy(ExpiringLotDto::getUserId));
+
+    Set<String> newUserIds = lotsByUser
+      .keySet()
+      .stream()
+      .filter(userId -> !horizons.containsKey(userId))
+      .collect(Collectors.toSet());
+    if (!newUserIds.isEmpty()) {
+      userSettingRepository
+        .findAllById(newUserIds)
+        .forEach(setting ->
+          horizons.put(setting.getUserId(), setting.getExpiryHorizonDays())
+        );
+      newUserIds.forEach(userId ->
+        horizons.putIfAbsent(userId, defaultHorizonDays)
+      );
+    }
+
+    lotsByUser.forEach((userId, userLots) -> {
+      LocalDate until = today.plusDays(horizons.get(userId));
+      // 対象日数内のロットがないユーザーも、空のアラートとしてキャッシュする
+      List<ExpiryAlertDto> alerts = alertsByUserId.computeIfAbsent(
+        userId,
+        key -> new ArrayList<>()
+      );
+      for (ExpiringLotDto lot : userLots) {
+        if (!lot.getExpirationDate().isAfter(until)) {
+          alerts.add(toDto(lot, today));
+        }
+      }
+    });
+  }
+
+  private void invalidate(String userId) {
+    if (scanning) {
+      invalidatedDuringScan.add(userId);
+    }
+    cache().invalidate(userId);
+  }
+
+  private ExpiringLruCache<String, UserAlerts> cache() {
+    ExpiringLruCache<String, UserAlerts> cache = alertsByUser;
+    if (cache != null) {
+      return cache;
+    }
+    synchronized (invalidatedDuringScan) {
+      if (alertsByUser == null) {
+        alertsByUser = newCache();
+      }
+      return alertsByUser;
+    }
+  }
+
+  private ExpiringLruCache<String, UserAlerts> newCache() {
+    return new ExpiringLruCache<>(cacheMaxEntries, cacheTtl);
+  }
+
+  private UserAlerts loadUserAlerts(String userId) {
+    LocalDate today = LocalDate.now();
+    List<ExpiryAlertDto> alerts = new ArrayList<>();
+    for (ExpiringLotDto lot : itemRecordRepository.findUserOpenLotsExpiringBetween(
+      userId,
+      today.minusDays(expiredLookbackDays),
+      today.plusDays(getHorizonDays(userId))
+    )) {
+      alerts.add(toDto(lot, today));
+    }
+    return new UserAlerts(alerts, alertVersions.incrementAndGet());
+  }
+
+  private boolean markNotified(ExpiryAlertDto alert) {
+    try {
+      Boolean first = redisTemplate
+        .opsForValue()
+        .setIfAbsent(
+          NOTIFIED_PREFIX + alert.getRecordId() + ":" + alert.getExpirationDate(),
+          "1",
+          Duration.ofDays(maxHorizonDays + expiredLookbackDays)
+        );
+      return Boolean.TRUE.equals(first);
+    } catch (Exception e) {
+      // Redisに接続できない場合は重複を許容して通知する
+      logger.warn("アラート通知状態の記録エラー: {}", e.getMessage());
+      return true;
+    }
+  }
+
+  private ExpiryAlertDto toDto(ExpiringLotDto lot, LocalDate today) {
+    return new ExpiryAlertDto(
+      lot.getRecordId(),
+      lot.getItemId(),
+      lot.getItemName(),
+      lot.getCategoryName(),
+      lot.getRemainingQuantity(),
+      lot.getExpirationDate(),
+      ChronoUnit.DAYS.between(today, lot.getExpirationDate())
+    );
+  }
+}
@@ -1,23 +1,90 @@
 package inventory.example.inventory_id.service;
 
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.AuthErrorCode;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.FirebaseToken;
 import com.google.firebase.auth.SessionCookieOptions;
+import inventory.example.inventory_id.config.FirebaseConfig;
 import inventory.example.inventory_id.enums.AuthMessage;
 import inventory.example.inventory_id.exception.AuthenticationException;
 import inventory.example.inventory_id.request.FirebaseSignUpRequest;
 import inventory.example.inventory_id.response.FirebaseSignUpResponse;
+import inventory.example.inventory_id.util.CircuitBreaker;
+import inventory.example.inventory_id.util.VerifiedTokenCache;
 import io.github.cdimascio.dotenv.Dotenv;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 
 @Service
 public class FirebaseAuthService {
 
+  private static final Logger logger = LoggerFactory.getLogger(
+    FirebaseAuthService.class
+  );
+
   private final Dotenv dotenv;
 
+  // Firebaseの初期化は起動時に別スレッドで行うため、SDKの利用前に完了を待つ
+  // (local-authプロファイルでは存在しない)
+  @Autowired(required = false)
+  private FirebaseConfig firebaseConfig;
+
+  // 接続を再利用する共有のクライアント
+  private final RestClient restClient;
+
+  // identitytoolkitへの同時リクエスト数の上限(バースト時に接続が溢れないようにする)
+  private final Semaphore requestPermits;
+
+  @Value("${firebase.http.acquire-timeout:2s}")
+  private Duration acquireTimeout;
+
+  // 失敗した呼び出しの試行回数と、再実行までの待ち時間の基準値
+  @Value("${firebase.http.max-attempts:3}")
+  private int maxAttempts;
+
+  @Value("${firebase.http.retry-backoff:100ms}")
+  private Duration retryBackoff;
+
+  // identitytoolkitの障害時に呼び出しを止める失敗回数と停止時間(0以下の場合は止めない)
+  @Value("${firebase.circuit-breaker.failure-threshold:5}")
+  private int breakerFailureThreshold;
+
+  @Value("${firebase.circuit-breaker.open-duration:10s}")
+  private Duration breakerOpenDuration;
+
+  private volatile CircuitBreaker circuitBreaker;
+
+  // 検証済みのIDトークン(有効期限まで保持)
+  private final VerifiedTokenCache verifiedTokens;
+
+  // ステートレスなセッションで発行するセッションCookieの有効期限(最大14日)
+  @Value("${auth.session.stateless.max-age:7d}")
+  private Duration sessionCookieMaxAge;
+
+  @Value("${firebase.prewarm-public-keys:true}")
+  private boolean prewarmPublicKeys;
+
   @Value("${firebase.signUpBaseUrl}")
   private String signUpBaseUrl;
 
@@ -28,30 +95,144 @@ public class FirebaseAuthService {
 
   private String FIREBASE_API_KEY = "FIREBASE_API_KEY";
 
-  public FirebaseAuthService(Dotenv dotenv) {
+  public FirebaseAuthService(
+    Dotenv dotenv,
+    RestClient firebaseRestClient,
+    @Value(
+      "${firebase.verified-token-cache.max-entries:10000}"
+    ) int maxVerifiedTokens,
+    @Value(
+      "${firebase.http.max-concurrent-requests:32}"
+    ) int maxConcurrentRequests
+  ) {
     this.dotenv = dotenv;
+    this.restClient = firebaseRestClient;
+    this.verifiedTokens = new VerifiedTokenCache(maxVerifiedTokens);
+    this.requestPermits = new Semaphore(maxConcurrentRequests, true);
   }
 
   public String getApiKey() {
     return dotenv.get(FIREBASE_API_KEY);
   }
 
+  /**
+   * IDトークンを検証し、ユーザーIDを返す
+   * 検証済みのトークンは有効期限までキャッシュし、署名の検証を省略する
+   *
+   * @param idToken IDトークン
+   * @return ユーザーID
+   */
   public String verifyToken(String idToken) throws FirebaseAuthException {
-    FirebaseToken token = FirebaseAuth.getInstance().verifyIdToken(idToken);
-    return token.getUid();
+    String cachedUserId = verifiedTokens.get(idToken);
+    if (cachedUserId != null) {
+      return cachedUserId;
+    }
+    VerifiedIdToken token = verifyIdToken(idToken);
+    if (token.expiresAt() != null) {
+      verifiedTokens.put(idToken, token.userId(), token.expiresAt());
+    }
+    return token.userId();
+  }
+
+  /**
+   * 署名を検証したIDトークンのユーザーIDと有効期限
+   */
+  public record VerifiedIdToken(String userId, Instant expiresAt) {}
+
+  protected VerifiedIdToken verifyIdToken(String idToken)
+    throws FirebaseAuthException {
+    FirebaseToken token = verifyWithFirebase(idToken);
+    Object exp = token.getClaims().get("exp");
+    return new VerifiedIdToken(
+      token.getUid(),
+      exp instanceof Number expSeconds
+        ? Instant.ofEpochSecond(expSeconds.longValue())
+        : null
+    );
+  }
+
+  protected FirebaseToken verifyWithFirebase(String idToken)
+    throws FirebaseAuthException {
+    return firebaseAuth().verifyIdToken(idToken);
+  }
+
+  /**
+   * 起動時にGoogleの公開鍵を取得し、最初のサインインで鍵の取得を待たないようにする
+   * SDKは鍵の取得処理を公開していないため、署名のないトークンを検証して取得させる
+   * (クレームの確認後に鍵を取得し、署名の検証で失敗する)
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void prewarmPublicKeys() {
+    if (!prewarmPublicKeys) {
+      return;
+    }
+    Thread thread = new Thread(this::loadPublicKeys, "firebase-key-prewarm");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void loadPublicKeys() {
+    try {
+      awaitFirebase();
+      String projectId = FirebaseApp.getInstance().getOptions().getProjectId();
+      if (projectId == null) {
+        return;
+      }
+      if (fetchPublicKeys(projectId)) {
+        logger.info("Firebaseの公開鍵を取得しました");
+      }
+    } catch (Exception e) {
+      logger.warn("Firebaseの公開鍵の事前取得エラー: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * 署名のないトークンを検証し、SDKに公開鍵を取得させる
+   *
+   * @return 公開鍵を取得できた場合はtrue
+   */
+  boolean fetchPublicKeys(String projectId) {
+    try {
+      verifyWithFirebase(unsignedProbeToken(projectId));
+      return true;
+    } catch (FirebaseAuthException e) {
+      // 署名がないため、鍵を取得できた場合も検証は失敗する
+      // 鍵の取得に失敗した場合のみCERTIFICATE_FETCH_FAILEDとなる
+      if (e.getAuthErrorCode() == AuthErrorCode.CERTIFICATE_FETCH_FAILED) {
+        logger.warn("Firebaseの公開鍵の事前取得エラー: {}", e.getMessage());
+        return false;
+      }
+      return true;
+    }
+  }
+
+  private static String unsignedProbeToken(String projectId) {
+    long now = Instant.now().getEpochSecond();
+    String header = """
+      {"alg":"RS256","kid":"prewarm","typ":"JWT"}""";
+    String payload = """
+      {"aud":"%s","iss":"https://securetoken.google.com/%s","sub":"prewarm",\
+      "iat":%d,"auth_time":%d,"exp":%d}""".formatted(
+        projectId,
+        projectId,
+        now,
+        now,
+        now + 300
+      );
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    return (
+      encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) +
+      "." +
+      encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) +
+      "." +
+      encoder.encodeToString("prewarm".getBytes(StandardCharsets.UTF_8))
+    );
   }
 
   public FirebaseSignUpResponse anonymouslySignUp() {
     FirebaseSignUpRequest requestBody = new FirebaseSignUpRequest();
     try {
-      return RestClient.create(signUpBaseUrl)
-        .post()
-        .uri(uriBuilder ->
-          uriBuilder.queryParam(API_KEY_PARAM, getApiKey()).build()
-        )
-        .body(requestBody)
-        .retrieve()
-        .body(FirebaseSignUpResponse.class);
+      return post(signUpBaseUrl, requestBody, false);
     } catch (Exception e) {
       throw new AuthenticationException(
         AuthMessage.REGISTER_ERROR_MSG.getMessage()
@@ -65,14 +246,7 @@ public class FirebaseAuthService {
       password
     );
     try {
-      return RestClient.create(signUpBaseUrl)
-        .post()
-        .uri(uriBuilder ->
-          uriBuilder.queryParam(API_KEY_PARAM, getApiKey()).build()
-        )
-        .body(requestBody)
-        .retrieve()
-        .body(FirebaseSignUpResponse.class);
+      return post(signUpBaseUrl, requestBody, false);
     } catch (Exception e) {
       throw new AuthenticationException(
         AuthMessage.REGISTER_ERROR_MSG.getMessage()
@@ -86,14 +260,7 @@ public class FirebaseAuthService {
       password
     );
     try {
-      return RestClient.create(signInBaseUrl)
-        .post()
-        .uri(uriBuilder ->
-          uriBuilder.queryParam(API_KEY_PARAM, getApiKey()).build()
-        )
-        .body(requestBody)
-        .retrieve()
-        .body(FirebaseSignUpResponse.class);
+      return post(signInBaseUrl, requestBody, true);
     } catch (Exception e) {
       throw new AuthenticationException(
         AuthMessage.SIGNIN_FAILED_MSG.getMessage()
@@ -101,12 +268,168 @@ public class FirebaseAuthService {
     }
   }
 
+  /**
+   * identitytoolkitのAPIを呼び出す
+   * 同時リクエスト数を制限し、一時的な失敗は待ち時間を置いて再実行する
+   *
+   * @param baseUrl    APIのURL
+   * @param body       リクエストの内容
+   * @param idempotent 再実行しても結果が変わらない呼び出しの場合はtrue
+   *                   (falseの場合は、リクエストが届いていないことが明らかな失敗のみ再実行する)
+   */
+  private FirebaseSignUpResponse post(
+    String baseUrl,
+    FirebaseSignUpRequest body,
+    boolean idempotent
+  ) throws InterruptedException {
+    if (
+      !requestPermits.tryAcquire(
+        acquireTimeout.toMillis(),
+        TimeUnit.MILLISECONDS
+      )
+    ) {
+      throw new IllegalStateException(
+        "認証サーバーへのリクエストが混雑しています"
+      );
+    }
+    CircuitBreaker breaker = circuitBreaker();
+    if (!breaker.tryAcquirePermission()) {
+      requestPermits.release();
+      throw new IllegalStateException("認証サーバーが一時的に利用できません");
+    }
+    // 認証サーバーが応答した場合はtrue(認証情報の誤りなどのエラーは障害として数えない)
+    boolean responded = false;
+    try {
+      for (int attempt = 1;; attempt++) {
+        try {
+          FirebaseSignUpResponse response = restClient
+            .post()
+            .uri(baseUrl, uriBuilder ->
+              uriBuilder.queryParam(API_KEY_PARAM, getApiKey()).build()
+            )
+            .body(body)
+            .retrieve()
+            .body(FirebaseSignUpResponse.class);
+          responded = true;
+          return response;
+        } catch (RestClientException e) {
+          if (attempt >= maxAttempts || !isRetryable(e, idempotent)) {
+            responded = !isServerFailure(e);
+            throw e;
+          }
+          logger.warn(
+            "認証サーバーの呼び出しに失敗したため再実行します: {}",
+            e.getMessage()
+          );
+          waitBeforeRetry(attempt);
+        }
+      }
+    } finally {
+      if (responded) {
+        breaker.onSuccess();
+      } else {
+        breaker.onFailure();
+      }
+      requestPermits.release();
+    }
+  }
+
+  private boolean isRetryable(RestClientException e, boolean idempotent) {
+    if (e instanceof HttpStatusCodeException statusException) {
+      int status = statusException.getStatusCode().value();
+      // 429と503はリクエストを処理していないため、登録でも再実行できる
+      if (
+        status == HttpStatus.TOO_MANY_REQUESTS.value() ||
+        status == HttpStatus.SERVICE_UNAVAILABLE.value()
+      ) {
+        return true;
+      }
+      return idempotent && statusException.getStatusCode().is5xxServerError();
+    }
+    if (e instanceof ResourceAccessException) {
+      // 接続できなかった場合はリクエストが届いていない
+      return (
+        idempotent ||
+        e.getCause() instanceof ConnectException ||
+        e.getCause() instanceof HttpConnectTimeoutException
+      );
+    }
+    return false;
+  }
+
+  private boolean isServerFailure(RestClientException e) {
+    if (e instanceof HttpStatusCodeException statusException) {
+      return (
+        statusException.getStatusCode().is5xxServerError() ||
+        statusException.getStatusCode().value() ==
+        HttpStatus.TOO_MANY_REQUESTS.value()
+      );
+    }
+    return e instanceof ResourceAccessException;
+  }
+
+  private CircuitBreaker circuitBreaker() {
+    CircuitBreaker breaker = circuitBreaker;
+    if (breaker == null) {
+      synchronized (this) {
+        if (circuitBreaker == null) {
+          circuitBreaker = new CircuitBreaker(
+            "Firebase Auth",
+            breakerOpenDuration == null ? 0 : breakerFailureThreshold,
+            breakerOpenDuration
+          );
+        }
+        breaker = circuitBreaker;
+      }
+    }
+    return breaker;
+  }
+
+  private void waitBeforeRetry(int attempt) throws InterruptedException {
+    long maxMillis = retryBackoff.toMillis() * (1L << (attempt - 1));
+    if (maxMillis <= 0) {
+      return;
+    }
+    Thread.sleep(
+      ThreadLocalRandom.current().nextLong(maxMillis / 2, maxMillis + 1)
+    );
+  }
+
   public String createSessionCookie(String idToken) throws Exception {
-    long expiresIn = 7 * 24 * 60 * 60 * 1000;
     SessionCookieOptions options = SessionCookieOptions.builder()
-      .setExpiresIn(expiresIn)
+      .setExpiresIn(sessionCookieMaxAge.toMillis())
       .build();
     // Create session cookie
-    return FirebaseAuth.getInstance().createSessionCookie(idToken, options);
+    return firebaseAuth().createSessionCookie(idToken, options);
+  }
+
+  /**
+   * セッションCookieの署名と有効期限を検証する
+   * 公開鍵はSDKがキャッシュするため、鍵の取得以外で外部に接続しない(失効の確認は行わない)
+   *
+   * @param sessionCookie セッションCookie
+   * @return ユーザーIDと有効期限
+   */
+  public VerifiedIdToken verifySessionCookie(String sessionCookie)
+    throws FirebaseAuthException {
+    FirebaseToken token = firebaseAuth().verifySessionCookie(sessionCookie);
+    Object exp = token.getClaims().get("exp");
+    return new VerifiedIdToken(
+      token.getUid(),
+      exp instanceof Number expSeconds
+        ? Instant.ofEpochSecond(expSeconds.longValue())
+        : null
+    );
+  }
+
+  private FirebaseAuth firebaseAuth() {
+    awaitFirebase();
+    return FirebaseAuth.getInstance();
+  }
+
+  private void awaitFirebase() {
+    if (firebaseConfig != null) {
+      firebaseConfig.awaitInitialized();
+    }
   }
 }
@@ -0,0 +1,348 @@
+package inventory.example.inventory_id.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.dto.IdempotentResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Idempotency-Keyによる書き込みの重複防止を行うサービスクラスです。
+ * 最初の書き込みの結果をメモリ(件数上限・有効期限付き)とRedisに保存し、
+ * 同じキーで再送された場合はDBにアクセスせず保存した結果を返します。
+ * 同じキーの書き込みが並行した場合は、最初の書き込みの完了を待って結果を返します。
+ */
+@Service
+public class IdempotencyService {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    IdempotencyService.class
+  );
+
+  private static final String RESULT_PREFIX = "idempotency:";
+  private static final String LOCK_PREFIX = "idempotency_lock:";
+  private static final int MAX_KEY_LENGTH = 255;
+  private static final long REDIS_POLL_MILLIS = 50;
+
+  // 処理中の印は、付けた書き込みの値と一致する場合のみ削除する
+  // (有効期限が切れた後に他の書き込みが付けた印を削除しないため)
+  private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+    """
+    if redis.call('GET', KEYS[1]) == ARGV[1] then
+      return redis.call('DEL', KEYS[1])
+    end
+    return 0
+    """,
+    Long.class
+  );
+
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+
+  // このノードで処理中の書き込み。結果が保存できなかった場合はnullで完了する
+  private final Map<String, CompletableFuture<StoredResult>> inFlight =
+    new ConcurrentHashMap<>();
+
+  private final Map<String, LocalEntry> localResults;
+
+  @Value("${inventory.idempotency.ttl:24h}")
+  private Duration ttl;
+
+  // 他ノードで処理中のキーを待つ時間と、処理中の印の有効期限
+  @Value("${inventory.idempotency.wait-timeout:10s}")
+  private Duration waitTimeout;
+
+  @Value("${inventory.idempotency.in-flight-ttl:30s}")
+  private Duration inFlightTtl;
+
+  public IdempotencyService(
+    StringRedisTemplate redisTemplate,
+    ObjectMapper objectMapper,
+    @Value("${inventory.idempotency.local-max-entries:10000}") int maxEntries
+  ) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    // 参照順で古いものから削除する
+    this.localResults = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Redisに保存する書き込みの結果
+   */
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  static class StoredResult {
+
+    // 同じキーで別の内容を送信していないか確認するためのリクエストのハッシュ
+    private String fingerprint;
+    private int status;
+    private String message;
+  }
+
+  private static final class LocalEntry {
+
+    final StoredResult result;
+    final long expiresAt;
+
+    LocalEntry(StoredResult result, long expiresAt) {
+      this.result = result;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /**
+   * Idempotency-Keyに対する書き込みを1回だけ実行する
+   *
+   * @param userId         ユーザーID
+   * @param idempotencyKey Idempotency-Keyヘッダーの値
+   * @param request        リクエストの内容(同じキーで異なる内容が送信されたことの検出に使う)
+   * @param action         書き込み処理
+   * @return 書き込みの結果(保存した結果を返した場合はreplayedがtrue)
+   */
+  public IdempotentResponse execute(
+    String userId,
+    String idempotencyKey,
+    Object request,
+    Supplier<IdempotentResponse> action
+  ) {
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new IllegalArgumentException(
+        "Idempotency-Keyは1文字以上255文字以内で指定してください。"
+      );
+    }
+    String key = userId + ":" + idempotencyKey;
+    String fingerprint = fingerprint(request);
+
+    while (true) {
+      StoredResult stored = getLocal(key);
+      if (stored != null) {
+        return replay(stored, fingerprint);
+      }
+
+      CompletableFuture<StoredResult> owned = new CompletableFuture<>();
+      CompletableFuture<StoredResult> running = inFlight.putIfAbsent(
+        key,
+        owned
+      );
+      if (running != null) {
+        // 同じキーの書き込みがこのノードで処理中の場合は完了を待つ
+        stored = await(running);
+        if (stored != null) {
+          return replay(stored, fingerprint);
+        }
+        // 最初の書き込みの結果が保存されなかった場合は、改めて実行する
+        continue;
+      }
+
+      // 待っている書き込みには保存した結果を渡す(保存しなかった場合はnull)
+      StoredResult result = null;
+      try {
+        result = getRemote(key);
+        if (result != null) {
+          putLocal(key, result);
+          return replay(result, fingerprint);
+        }
+        String lockToken = lockRemote(key);
+        if (lockToken == null) {
+          // 他ノードで処理中の場合は、結果が保存されるまで待つ
+          result = awaitRemote(key);
+          if (result == null) {
+            throw new ResponseStatusException(
+              HttpStatus.CONFLICT,
+              "同じリクエストを処理中です。しばらくしてからもう一度お試しください。"
+            );
+          }
+          putLocal(key, result);
+          return replay(result, fingerprint);
+        }
+        try {
+          IdempotentResponse response = action.get();
+          if (isStorable(response.getStatus())) {
+            result = new StoredResult(
+              fingerprint,
+              response.getStatus(),
+              response.getMessage()
+            );
+            putLocal(key, result);
+            putRemote(key, result);
+          }
+          return response;
+        } finally {
+          unlockRemote(key, lockToken);
+        }
+      } finally {
+        inFlight.remove(key, owned);
+        owned.complete(result);
+      }
+    }
+  }
+
+  /**
+   * 再送しても結果が変わらない応答のみ保存する
+   * サーバーエラーや競合(409)は再送時に改めて実行する
+   */
+  private boolean isStorable(int status) {
+    return status < 500 && status != HttpStatus.CONFLICT.value();
+  }
+
+  private IdempotentResponse replay(StoredResult stored, String fingerprint) {
+    if (!stored.getFingerprint().equals(fingerprint)) {
+      throw new ResponseStatusException(
+        HttpStatus.UNPROCESSABLE_ENTITY,
+        "同じIdempotency-Keyが異なるリクエストに使用されています。"
+      );
+    }
+    return new IdempotentResponse(stored.getStatus(), stored.getMessage(), true);
+  }
+
+  private StoredResult await(CompletableFuture<StoredResult> running) {
+    try {
+      return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new ResponseStatusException(
+        HttpStatus.CONFLICT,
+        "同じリクエストを処理中です。しばらくしてからもう一度お試しください。"
+      );
+    } catch (ExecutionException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ResponseStatusException(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        "処理が中断されました。"
+      );
+    }
+  }
+
+  private StoredResult getLocal(String key) {
+    synchronized (localResults) {
+      LocalEntry entry = localResults.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.expiresAt < System.currentTimeMillis()) {
+        localResults.remove(key);
+        return null;
+      }
+      return entry.result;
+    }
+  }
+
+  private void putLocal(String key, StoredResult result) {
+    synchronized (localResults) {
+      localResults.put(
+        key,
+        new LocalEntry(result, System.currentTimeMillis() + ttl.toMillis())
+      );
+    }
+  }
+
+  private StoredResult getRemote(String key) {
+    try {
+      String value = redisTemplate.opsForValue().get(RESULT_PREFIX + key);
+      return value == null
+        ? null
+        : objectMapper.readValue(value, StoredResult.class);
+    } catch (Exception e) {
+      logger.warn("Idempotency-Keyの結果の取得エラー: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private void putRemote(String key, StoredResult result) {
+    try {
+      redisTemplate
+        .opsForValue()
+        .set(RESULT_PREFIX + key, objectMapper.writeValueAsString(result), ttl);
+    } catch (Exception e) {
+      logger.warn("Idempotency-Keyの結果の保存エラー: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * この書き込みに固有の値で処理中の印を付ける
+   * Redisに接続できない場合は、このノード内の重複防止のみ行う
+   *
+   * @return 印の値。他の書き込みが処理中の場合はnull
+   */
+  private String lockRemote(String key) {
+    String token = UUID.randomUUID().toString();
+    try {
+      Boolean locked = redisTemplate
+        .opsForValue()
+        .setIfAbsent(LOCK_PREFIX + key, token, inFlightTtl);
+      return Boolean.FALSE.equals(locked) ? null : token;
+    } catch (Exception e) {
+      logger.warn("Idempotency-Keyの処理中の印の設定エラー: {}", e.getMessage());
+      return token;
+    }
+  }
+
+  private void unlockRemote(String key, String token) {
+    try {
+      redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_PREFIX + key), token);
+    } catch (Exception e) {
+      logger.warn("Idempotency-Keyの処理中の印の削除エラー: {}", e.getMessage());
+    }
+  }
+
+  private StoredResult awaitRemote(String key) {
+    long deadline = System.currentTimeMillis() + waitTimeout.toMillis();
+    while (System.currentTimeMillis() < deadline) {
+      try {
+        Thread.sleep(REDIS_POLL_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      StoredResult stored = getRemote(key);
+      if (stored != null) {
+        return stored;
+      }
+    }
+    return null;
+  }
+
+  private String fingerprint(Object request) {
+    try {
+      byte[] json = objectMapper
+        .writeValueAsString(request)
+        .getBytes(StandardCharsets.UTF_8);
+      return HexFormat.of().formatHex(
+        MessageDigest.getInstance("SHA-256").digest(json)
+      );
+    } catch (NoSuchAlgorithmException | java.io.IOException e) {
+      throw new IllegalStateException("リクエストのハッシュを計算できません", e);
+    }
+  }
+}
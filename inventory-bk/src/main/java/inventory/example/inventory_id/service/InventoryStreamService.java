@@ -0,0 +1,261 @@
+package inventory.example.inventory_id.service;
+
+import inventory.example.inventory_id.event.InventoryEvent;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+/**
+ * ユーザーごとのSSE接続を管理し、在庫イベントを配信するサービスクラスです。
+ * SseEmitterは非同期リクエストとして保持されるため、待機中の接続はスレッドを占有しません。
+ * イベントは接続ごとの上限付きのキューに積み、送信用のスレッドで送信します。
+ * 受信の遅いクライアントへの書き込みで、イベントを発行したスレッド(Redisの購読スレッドなど)を止めません。
+ */
+@Service
+public class InventoryStreamService {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    InventoryStreamService.class
+  );
+
+  private final Map<String, Queue<Subscriber>> emitters =
+    new ConcurrentHashMap<>();
+
+  // 送信用のスレッド。初回の利用時に作成する
+  private volatile ThreadPoolExecutor sender;
+
+  @Value("${inventory.events.timeout:30m}")
+  private Duration timeout;
+
+  // 1ユーザーあたりの最大接続数。超えた場合は古い接続から閉じる
+  @Value("${inventory.events.max-connections-per-user:5}")
+  private int maxConnectionsPerUser;
+
+  // 1接続あたりの送信待ちのイベントの上限。超えた接続は受信が遅いとみなして閉じる
+  @Value("${inventory.events.max-pending-per-connection:100}")
+  private int maxPendingPerConnection = 100;
+
+  @Value("${inventory.events.sender-threads:4}")
+  private int senderThreads = 4;
+
+  // 送信用のスレッドの実行待ちの上限。接続ごとに実行待ちは1つまでのため、最大接続数に合わせる
+  @Value("${inventory.events.sender-queue-capacity:20000}")
+  private int senderQueueCapacity = 20000;
+
+  /**
+   * 接続と送信待ちのイベント
+   * 同じ接続への送信は、順序を保つため一度に1つのスレッドのみが行う
+   */
+  private static final class Subscriber {
+
+    private final String userId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEventBuilder> pending;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    private Subscriber(String userId, SseEmitter emitter, int capacity) {
+      this.userId = userId;
+      this.emitter = emitter;
+      this.pending = new ArrayBlockingQueue<>(capacity);
+    }
+  }
+
+  @PreDestroy
+  void stopSender() {
+    if (sender != null) {
+      sender.shutdownNow();
+    }
+  }
+
+  /**
+   * ユーザーのイベントストリームを開始する
+   *
+   * @param userId ユーザーID
+   * @return SSE接続
+   */
+  public SseEmitter subscribe(String userId) {
+    SseEmitter emitter = new SseEmitter(timeout.toMillis());
+    Subscriber subscriber = new Subscriber(
+      userId,
+      emitter,
+      maxPendingPerConnection
+    );
+    Queue<Subscriber> userEmitters = emitters.computeIfAbsent(userId, key ->
+      new ConcurrentLinkedQueue<>()
+    );
+    userEmitters.add(subscriber);
+    while (userEmitters.size() > maxConnectionsPerUser) {
+      Subscriber oldest = userEmitters.poll();
+      if (oldest != null) {
+        close(oldest);
+      }
+    }
+
+    emitter.onCompletion(() -> remove(subscriber));
+    emitter.onTimeout(() -> remove(subscriber));
+    emitter.onError(e -> remove(subscriber));
+
+    enqueue(subscriber, SseEmitter.event().name("connected").data(userId));
+    return emitter;
+  }
+
+  /**
+   * 在庫イベントを該当ユーザーの全接続の送信待ちに追加する
+   * 送信は送信用のスレッドで行うため、待機せずに戻る
+   *
+   * @param event 在庫イベント
+   */
+  @EventListener
+  public void onInventoryEvent(InventoryEvent event) {
+    Queue<Subscriber> userEmitters = emitters.get(event.getUserId());
+    if (userEmitters == null) {
+      return;
+    }
+    for (Subscriber subscriber : userEmitters) {
+      enqueue(
+        subscriber,
+        SseEmitter.event().name(event.getType().name()).data(event)
+      );
+    }
+  }
+
+  /**
+   * プロキシやロードバランサーにアイドル接続を切断されないよう、定期的にコメントを送信する
+   */
+  @Scheduled(fixedDelayString = "${inventory.events.heartbeat:25s}")
+  public void heartbeat() {
+    emitters.forEach((userId, userEmitters) -> {
+      for (Subscriber subscriber : userEmitters) {
+        enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+      }
+    });
+  }
+
+  public int getSubscriberCount() {
+    return emitters.values().stream().mapToInt(Queue::size).sum();
+  }
+
+  private void enqueue(Subscriber subscriber, SseEventBuilder event) {
+    if (subscriber.closed) {
+      return;
+    }
+    if (!subscriber.pending.offer(event)) {
+      // 再接続したクライアントは最新の状態を取得し直すため、遅れたイベントは破棄する
+      logger.debug(
+        "送信待ちのイベントが上限に達したため接続を閉じます: userId={}",
+        subscriber.userId
+      );
+      close(subscriber);
+      return;
+    }
+    schedule(subscriber);
+  }
+
+  private void schedule(Subscriber subscriber) {
+    if (!subscriber.scheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      sender().execute(() -> drain(subscriber));
+    } catch (RejectedExecutionException e) {
+      // 送信待ちはキューに残し、次のイベントかハートビートで送信する
+      subscriber.scheduled.set(false);
+      if (subscriber.closed) {
+        subscriber.emitter.complete();
+      }
+    }
+  }
+
+  private void drain(Subscriber subscriber) {
+    try {
+      SseEventBuilder event;
+      while (
+        !subscriber.closed && (event = subscriber.pending.poll()) != null
+      ) {
+        try {
+          subscriber.emitter.send(event);
+        } catch (Exception e) {
+          logger.debug("イベント送信エラー: {}", e.getMessage());
+          subscriber.closed = true;
+          remove(subscriber);
+        }
+      }
+      if (subscriber.closed) {
+        subscriber.pending.clear();
+        // 送信中の書き込みと競合しないよう、接続の終了も送信用のスレッドで行う
+        subscriber.emitter.complete();
+        return;
+      }
+    } finally {
+      subscriber.scheduled.set(false);
+    }
+    // 送信の終了と同時に追加されたイベントや、閉じられた接続を取り残さない
+    if (subscriber.closed || !subscriber.pending.isEmpty()) {
+      schedule(subscriber);
+    }
+  }
+
+  /**
+   * 接続を配信の対象から外し、送信用のスレッドで閉じる
+   * 送信中の接続は、その送信が終わった後に閉じる
+   */
+  private void close(Subscriber subscriber) {
+    subscriber.closed = true;
+    remove(subscriber);
+    schedule(subscriber);
+  }
+
+  private void remove(Subscriber subscriber) {
+    emitters.computeIfPresent(subscriber.userId, (key, userEmitters) -> {
+      userEmitters.remove(subscriber);
+      return userEmitters.isEmpty() ? null : userEmitters;
+    });
+  }
+
+  private ThreadPoolExecutor sender() {
+    ThreadPoolExecutor executor = sender;
+    if (executor != null) {
+      return executor;
+    }
+    synchronized (emitters) {
+      if (sender == null) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = new ThreadPoolExecutor(
+          senderThreads,
+          senderThreads,
+          0,
+          TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(senderQueueCapacity),
+          runnable -> {
+            Thread thread = new Thread(
+              runnable,
+              "sse-sender-" + threadNumber.incrementAndGet()
+            );
+            thread.setDaemon(true);
+            return thread;
+          }
+        );
+      }
+      return sender;
+    }
+  }
+}
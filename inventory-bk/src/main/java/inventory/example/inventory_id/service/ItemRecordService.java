@@ -1,85 +1,200 @@
 package inventory.example.inventory_id.service;
 
+import inventory.example.inventory_id.dto.ItemDto;
 import inventory.example.inventory_id.dto.ItemRecordDto;
+import inventory.example.inventory_id.dto.LowStockAlertDto;
+import inventory.example.inventory_id.enums.InventoryEventType;
 import inventory.example.inventory_id.enums.TransactionType;
+import inventory.example.inventory_id.event.InventoryEvent;
 import inventory.example.inventory_id.model.Item;
 import inventory.example.inventory_id.model.ItemRecord;
 import inventory.example.inventory_id.repository.ItemRecordRepository;
 import inventory.example.inventory_id.repository.ItemRepository;
 import inventory.example.inventory_id.request.ItemRecordRequest;
+import inventory.example.inventory_id.util.GroupCommitter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import org.springframework.cache.annotation.CacheEvict;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class ItemRecordService {
 
+  private static final Logger logger = LoggerFactory.getLogger(
+    ItemRecordService.class
+  );
+
   private final ItemRecordRepository itemRecordRepository;
   private final ItemRepository itemRepository;
+  private final UserVersionService userVersionService;
+  private final OutboxService outboxService;
+  private final RollupService rollupService;
+  private final ConsumptionForecastService consumptionForecastService;
+  private final ItemWriteLocks itemWriteLocks;
+  private final TransactionTemplate transaction;
   private static String itemNotFoundMsg = "アイテムが見つかりません";
   private static String itemRecordNotFoundMsg =
     "指定のレコードが存在しません。";
+  private static String insufficientStockMsg = "在庫数が不足しています。";
+
+  // 同じロットへの同時出庫などでロックを取得できなかった場合の再実行回数と待ち時間
+  @Value("${inventory.records.max-attempts:3}")
+  private int maxAttempts;
+
+  @Value("${inventory.records.retry-backoff:20ms}")
+  private Duration retryBackoff;
+
+  // 並行する入出庫の登録をまとめて1回のトランザクションで書き込む(グループコミット)
+  @Value("${inventory.records.group-commit.enabled:false}")
+  private boolean groupCommitEnabled;
+
+  @Value("${inventory.records.group-commit.max-batch-size:32}")
+  private int groupCommitMaxBatchSize;
+
+  @Value("${inventory.records.group-commit.max-delay:2ms}")
+  private Duration groupCommitMaxDelay;
+
+  // まとめた書き込みの完了を待つ時間(ロックの待ち時間と書き込みに十分な長さにする)
+  @Value("${inventory.records.group-commit.await-timeout:10s}")
+  private Duration groupCommitAwaitTimeout = Duration.ofSeconds(10);
+
+  private GroupCommitter<PendingRecord, String> groupCommitter;
 
   public ItemRecordService(
     ItemRecordRepository itemRecordRepository,
-    ItemRepository itemRepository
+    ItemRepository itemRepository,
+    UserVersionService userVersionService,
+    OutboxService outboxService,
+    RollupService rollupService,
+    ConsumptionForecastService consumptionForecastService,
+    ItemWriteLocks itemWriteLocks,
+    PlatformTransactionManager transactionManager
   ) {
     this.itemRecordRepository = itemRecordRepository;
     this.itemRepository = itemRepository;
+    this.userVersionService = userVersionService;
+    this.outboxService = outboxService;
+    this.rollupService = rollupService;
+    this.consumptionForecastService = consumptionForecastService;
+    this.itemWriteLocks = itemWriteLocks;
+    this.transaction = new TransactionTemplate(transactionManager);
   }
 
-  @Caching(
-    evict = {
-      @CacheEvict(
-        //getUserItemRecordsのキャッシュ削除
-        value = "itemRecord",
-        key = "#userId"
-      ),
-      @CacheEvict(
-        //getAllRecordsByItemのキャッシュ削除
-        value = "itemRecord",
-        key = "#userId + ':' + #request.getItemId()"
-      ),
-      @CacheEvict(value = "items", allEntries = true),
+  @PostConstruct
+  void startGroupCommit() {
+    if (groupCommitEnabled) {
+      groupCommitter = new GroupCommitter<>(
+        "item-record-group-commit",
+        groupCommitMaxBatchSize,
+        groupCommitMaxDelay,
+        this::writeBatch
+      );
     }
-  )
+  }
+
+  @PreDestroy
+  void stopGroupCommit() {
+    if (groupCommitter != null) {
+      groupCommitter.shutdown();
+    }
+  }
+
   public String createItemRecord(String userId, ItemRecordRequest request) {
+    if (groupCommitter != null) {
+      return awaitGroupCommit(new PendingRecord(userId, request));
+    }
+    return createItemRecordWithRetry(userId, request);
+  }
+
+  private String createItemRecordWithRetry(
+    String userId,
+    ItemRecordRequest request
+  ) {
+    for (int attempt = 1;; attempt++) {
+      try {
+        // 集計テーブルの更新をレコードの作成と同じトランザクションで行う
+        return transaction.execute(status ->
+          createItemRecordInTransaction(userId, request)
+        );
+      } catch (ConcurrencyFailureException e) {
+        if (attempt >= maxAttempts) {
+          logger.warn(
+            "入出庫の登録が競合により失敗しました: {}回試行, {}",
+            attempt,
+            e.getMessage()
+          );
+          throw new ResponseStatusException(
+            HttpStatus.CONFLICT,
+            "他の操作と競合したため登録できませんでした。もう一度お試しください。"
+          );
+        }
+        waitBeforeRetry(attempt);
+      }
+    }
+  }
+
+  private String createItemRecordInTransaction(
+    String userId,
+    ItemRecordRequest request
+  ) {
+    // 同じアイテムの在庫集計を並行して更新しないよう、書き込み前にロックを取得する
+    itemWriteLocks.lockUntilCompletion(request.getItemId());
+    // 入力の確認はすべて書き込みの前に行う(グループコミットで、エラーのレコードは何も書き込まずに除くため)
     Item item = itemRepository
       .getActiveItemWithId(List.of(userId), request.getItemId())
       .orElseThrow(() -> new IllegalArgumentException(itemNotFoundMsg));
 
+    // 出庫元のロット(出庫の場合のみ)
+    ItemRecord sourceRecord = null;
     if (request.getTransactionType() == TransactionType.OUT) {
       // itemRecordIdとitemIdの組み合わせが正しいかチェック
-      ItemRecord itemRecord = itemRecordRepository
+      sourceRecord = itemRecordRepository
         .getRecordByUserIdAndId(userId, request.getItemRecordId())
         .orElseThrow(() -> new IllegalArgumentException(itemRecordNotFoundMsg));
-      if (!itemRecord.getItem().getId().equals(request.getItemId())) {
+      if (!sourceRecord.getItem().getId().equals(request.getItemId())) {
         throw new ResponseStatusException(
           HttpStatus.CONFLICT,
           "指定のアイテムIDとレコードIDが一致しません。"
         );
       }
-      // 出庫の場合、在庫数をチェック
-      Integer currentQuantity = itemRecordRepository.getInrecordRemainQuantity(
-        request.getItemRecordId()
+      // 残り数量が出庫数以上の場合のみロットの残り数量を減らす。
+      // 確認と更新を1つのUPDATEで行うため、同時に出庫しても残り数量が負にならない
+      int withdrawn = itemRecordRepository.withdrawFromLot(
+        request.getItemRecordId(),
+        request.getQuantity()
       );
-      if (currentQuantity == null) {
-        throw new ResponseStatusException(
-          HttpStatus.NOT_FOUND,
-          itemRecordNotFoundMsg
+      if (withdrawn == 0) {
+        Integer currentQuantity = itemRecordRepository.getInrecordRemainQuantity(
+          request.getItemRecordId()
         );
-      }
-      // 在庫数が足りない場合はエラー
-      if (currentQuantity < request.getQuantity()) {
+        if (currentQuantity == null) {
+          throw new ResponseStatusException(
+            HttpStatus.NOT_FOUND,
+            itemRecordNotFoundMsg
+          );
+        }
         throw new ResponseStatusException(
           HttpStatus.BAD_REQUEST,
-          "在庫数が不足しています。"
+          insufficientStockMsg
         );
       }
     }
@@ -102,20 +217,17 @@ public class ItemRecordService {
         transactionType
       );
       itemRecordRepository.save(itemRecord);
+      rollupService.apply(itemRecord, 1);
 
       updateItemSummary(userId, item);
+      userVersionService.bump(userId);
+      evictRecordCaches(userId, item.getId());
+      publishRecordCreated(userId, itemRecord);
 
       return """
       %sが入庫しました\
       """.formatted(item.getName());
     }
-    // ソースレコードを取得（出庫の場合のみ）
-    ItemRecord sourceRecord = null;
-    if (request.getItemRecordId() != null) {
-      sourceRecord = itemRecordRepository
-        .getRecordByUserIdAndId(userId, request.getItemRecordId())
-        .orElseThrow(() -> new IllegalArgumentException(itemRecordNotFoundMsg));
-    }
     itemRecord = new ItemRecord(
       item,
       userId,
@@ -126,26 +238,152 @@ public class ItemRecordService {
       sourceRecord
     );
     itemRecordRepository.save(itemRecord);
+    rollupService.apply(itemRecord, 1);
+    // 消費量を更新する(アイテムは在庫集計と合わせて保存する)
+    consumptionForecastService.recordConsumption(
+      item,
+      request.getQuantity(),
+      itemRecord.getCreatedAt()
+    );
 
     updateItemSummary(userId, item);
+    userVersionService.bump(userId);
+    evictRecordCaches(userId, item.getId());
+    publishRecordCreated(userId, itemRecord);
 
     return """
     %sが出庫しました\
     """.formatted(item.getName());
   }
 
-  @Caching(
-    evict = {
-      @CacheEvict(value = "itemRecord", allEntries = true),
-      @CacheEvict(value = "items", allEntries = true),
+  /**
+   * グループコミットのキューに追加し、まとめた書き込みの完了を待つ
+   * まとめた書き込みが失敗した場合は、このスレッドで1件ずつ書き込み直す
+   */
+  private String awaitGroupCommit(PendingRecord pending) {
+    try {
+      return groupCommitter
+        .submit(pending)
+        .get(groupCommitAwaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof ReplayIndividually) {
+        return createItemRecordWithRetry(pending.userId, pending.request);
+      }
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      // 書き込みは後で完了する場合があるため、結果は不明として返す
+      logger.warn(
+        "入出庫のまとめた登録の完了を待てませんでした: {}ms",
+        groupCommitAwaitTimeout.toMillis()
+      );
+      throw new ResponseStatusException(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        "処理がタイムアウトしました。登録済みか確認してからもう一度お試しください。"
+      );
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ResponseStatusException(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        "処理が中断されました。"
+      );
+    }
+  }
+
+  /**
+   * まとめた書き込みが失敗したため、呼び出し元のスレッドで1件ずつ書き込み直すことを示す
+   * (再実行の待機で、まとめた書き込みを行う1つのスレッドを止めないため)
+   */
+  private static final class ReplayIndividually extends RuntimeException {
+
+    ReplayIndividually(Throwable cause) {
+      super(cause);
     }
-  )
+  }
+
+  /**
+   * まとめた入出庫の登録を1回のトランザクションで書き込む
+   * 入力エラーのレコードは書き込み前に検出されるため、そのレコードのみエラーを返す。
+   * トランザクション全体が失敗した場合は、それぞれの呼び出し元で1件ずつ書き込み直す
+   */
+  private void writeBatch(
+    List<GroupCommitter.Entry<PendingRecord, String>> batch
+  ) {
+    Map<GroupCommitter.Entry<PendingRecord, String>, String> results =
+      new HashMap<>();
+    Map<
+      GroupCommitter.Entry<PendingRecord, String>,
+      RuntimeException
+    > rejected = new HashMap<>();
+    try {
+      transaction.executeWithoutResult(status -> {
+        // 複数アイテムのロックを持つのはこのスレッドのみのため、書き込み前にまとめて取得する
+        batch
+          .stream()
+          .map(entry -> entry.getRequest().request.getItemId())
+          .distinct()
+          .forEach(itemWriteLocks::lockUntilCompletion);
+        for (GroupCommitter.Entry<PendingRecord, String> entry : batch) {
+          PendingRecord pending = entry.getRequest();
+          try {
+            results.put(
+              entry,
+              createItemRecordInTransaction(pending.userId, pending.request)
+            );
+          } catch (ResponseStatusException | IllegalArgumentException e) {
+            rejected.put(entry, e);
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      logger.warn(
+        "入出庫のまとめた登録に失敗したため1件ずつ登録します: {}件, {}",
+        batch.size(),
+        e.getMessage()
+      );
+      ReplayIndividually replay = new ReplayIndividually(e);
+      batch.forEach(entry -> entry.fail(replay));
+      return;
+    }
+    results.forEach(GroupCommitter.Entry::complete);
+    rejected.forEach(GroupCommitter.Entry::fail);
+  }
+
+  /**
+   * 再実行の前に、試行回数に応じてランダムな時間待機する
+   * 同時に失敗したリクエストが同じタイミングで再実行されないようにする
+   */
+  private void waitBeforeRetry(int attempt) {
+    long maxMillis = retryBackoff.toMillis() * attempt;
+    if (maxMillis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(
+        ThreadLocalRandom.current().nextLong(maxMillis / 2, maxMillis + 1)
+      );
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ResponseStatusException(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        "処理が中断されました。"
+      );
+    }
+  }
+
+  @Transactional
   public List<Long> deleteItemRecord(Long id, String userId) {
     ItemRecord itemRecord = itemRecordRepository
       .findByIdAndUserId(id, userId)
       .orElseThrow(() -> new IllegalArgumentException(itemRecordNotFoundMsg));
+    itemWriteLocks.lockUntilCompletion(itemRecord.getItem().getId());
+    outboxService.evictAll(userId, "itemRecord");
+    outboxService.evictAll(userId, "items");
     itemRecord.setDeletedFlag(true);
     itemRecordRepository.save(itemRecord);
+    rollupService.apply(itemRecord, -1);
 
     List<Long> deletedIds = new ArrayList<>(List.of(id));
 
@@ -161,92 +399,57 @@ public class ItemRecordService {
           outRecord.setDeletedFlag(true);
           deletedIds.add(outRecord.getId());
           itemRecordRepository.save(outRecord);
+          rollupService.apply(outRecord, -1);
         }
       }
+    } else if (itemRecord.getSourceRecord() != null) {
+      // 出庫レコード削除時は、出庫元ロットの残り数量を戻す
+      itemRecordRepository.adjustRemainingQuantity(
+        itemRecord.getSourceRecord().getId(),
+        itemRecord.getQuantity()
+      );
     }
 
     Item item = itemRecord.getItem();
 
     updateItemSummary(userId, item);
+    userVersionService.bump(userId);
+    outboxService.publish(
+      new InventoryEvent(userId, InventoryEventType.RECORD_DELETED, deletedIds)
+    );
+    publishItemUpdated(userId, item);
 
     return deletedIds;
   }
 
   @Cacheable(value = "itemRecord", key = "#userId + ':' + #id")
+  @Transactional(readOnly = true)
   public ItemRecordDto getItemRecord(Long id, String userId) {
     return itemRecordRepository
-      .findByIdAndUserId(id, userId)
-      .stream()
-      .map(record ->
-        new ItemRecordDto(
-          record.getId(),
-          record.getItem().getName(),
-          record.getItem().getCategory().getName(),
-          record.getQuantity(),
-          record.getPrice(),
-          record.getTransactionType(),
-          record.getExpirationDate() != null
-            ? record.getExpirationDate()
-            : null,
-          record.getCreatedAt()
-        )
-      )
-      .findFirst()
+      .findRecordDtoByIdAndUserId(id, userId)
       .orElseThrow(() ->
         new ResponseStatusException(HttpStatus.NOT_FOUND, itemRecordNotFoundMsg)
       );
   }
 
   @Cacheable(value = "itemRecord", key = "#userId")
+  @Transactional(readOnly = true)
   public List<ItemRecordDto> getUserItemRecords(String userId) {
-    List<ItemRecord> itemRecords = itemRecordRepository.findUserItemRecords(
-      userId
-    );
-    return itemRecords
-      .stream()
-      .map(record ->
-        new ItemRecordDto(
-          record.getId(),
-          record.getItem().getName(),
-          record.getItem().getCategoryName(),
-          record.getQuantity(),
-          record.getPrice(),
-          record.getTransactionType(),
-          record.getExpirationDate() != null
-            ? record.getExpirationDate()
-            : null,
-          record.getCreatedAt()
-        )
-      )
-      .toList();
+    return itemRecordRepository.findUserItemRecordDtos(userId);
   }
 
   @Cacheable(value = "itemRecord", key = "#userId + ':' + #itemId")
+  @Transactional(readOnly = true)
   public List<ItemRecordDto> getAllRecordsByItem(String userId, UUID itemId) {
     Item item = itemRepository
       .getActiveItemWithId(List.of(userId), itemId)
       .orElseThrow(() ->
         new ResponseStatusException(HttpStatus.NOT_FOUND, itemNotFoundMsg)
       );
-    List<ItemRecord> itemRecords =
-      itemRecordRepository.getRecordsByItemIdAndUserId(item.getId(), userId);
-    return itemRecords
-      .stream()
-      .map(record ->
-        new ItemRecordDto(
-          record.getId(),
-          record.getItem().getName(),
-          record.getItem().getCategoryName(),
-          record.getQuantity(),
-          record.getPrice(),
-          record.getTransactionType(),
-          record.getExpirationDate() != null
-            ? record.getExpirationDate()
-            : null,
-          record.getCreatedAt()
-        )
-      )
-      .toList();
+    return itemRecordRepository.findRecordDtosByItemIdAndUserId(
+      item.getId(),
+      userId
+    );
   }
 
   /**
@@ -259,8 +462,23 @@ public class ItemRecordService {
     int price;
   }
 
+  /**
+   * グループコミットのキューに追加した入出庫の登録
+   */
+  static class PendingRecord {
+
+    final String userId;
+    final ItemRecordRequest request;
+
+    PendingRecord(String userId, ItemRecordRequest request) {
+      this.userId = userId;
+      this.request = request;
+    }
+  }
+
   /**
    * 指定ユーザー・アイテムの全レコードから在庫数・在庫金額を集計し、アイテム情報を更新します。
+   * 呼び出し元のトランザクションで{@link ItemWriteLocks}のロックを取得しておく必要があります。
    *
    * @param userId ユーザーID
    * @param item 集計対象のアイテム
@@ -292,6 +510,67 @@ public class ItemRecordService {
 
     item.setTotalQuantity(itemSummary.quantity);
     item.setTotalPrice(itemSummary.price);
+    // 在庫数の変更時に発注点との比較を行い、回復した場合はフラグを解除する
+    boolean becameLowStock = item.updateLowStock();
     itemRepository.save(item);
+
+    if (becameLowStock) {
+      outboxService.publish(
+        new InventoryEvent(
+          userId,
+          InventoryEventType.LOW_STOCK_ALERT,
+          LowStockAlertDto.of(item)
+        )
+      );
+    }
+  }
+
+  // キャッシュはコミット後に削除する(ロールバックした場合は削除しない)
+  private void evictRecordCaches(String userId, UUID itemId) {
+    //getUserItemRecordsのキャッシュ削除
+    outboxService.evict(userId, "itemRecord", userId);
+    //getAllRecordsByItemのキャッシュ削除
+    outboxService.evict(userId, "itemRecord", userId + ":" + itemId);
+    outboxService.evictAll(userId, "items");
+  }
+
+  private void publishRecordCreated(String userId, ItemRecord record) {
+    Item item = record.getItem();
+    outboxService.publish(
+      new InventoryEvent(
+        userId,
+        InventoryEventType.RECORD_CREATED,
+        new ItemRecordDto(
+          record.getId(),
+          item.getName(),
+          item.getCategoryName(),
+          record.getQuantity(),
+          record.getPrice(),
+          record.getTransactionType(),
+          record.getExpirationDate(),
+          record.getCreatedAt(),
+          item.getId()
+        )
+      )
+    );
+    publishItemUpdated(userId, item);
+  }
+
+  private void publishItemUpdated(String userId, Item item) {
+    outboxService.publish(
+      new InventoryEvent(
+        userId,
+        InventoryEventType.ITEM_UPDATED,
+        new ItemDto(
+          item.getId(),
+          item.getName(),
+          item.getCategoryName(),
+          item.getTotalQuantity(),
+          item.getTotalPrice(),
+          item.getUpdatedAt(),
+          consumptionForecastService.estimateDaysUntilStockout(item)
+        )
+      )
+    );
   }
 }
@@ -1,11 +1,15 @@
 package inventory.example.inventory_id.service;
 
 import inventory.example.inventory_id.dto.ItemDto;
+import inventory.example.inventory_id.dto.LowStockAlertDto;
+import inventory.example.inventory_id.enums.InventoryEventType;
+import inventory.example.inventory_id.event.InventoryEvent;
 import inventory.example.inventory_id.model.Category;
 import inventory.example.inventory_id.model.Item;
 import inventory.example.inventory_id.repository.CategoryRepository;
 import inventory.example.inventory_id.repository.ItemRepository;
 import inventory.example.inventory_id.request.ItemRequest;
+import inventory.example.inventory_id.service.SystemCategoryRegistry.SystemCategory;
 import inventory.example.inventory_id.spec.ItemSpecs;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
@@ -15,15 +19,13 @@ import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -37,44 +39,38 @@ public class ItemService {
   @Autowired
   private CategoryRepository categoryRepository;
 
-  @Value("${system.userid}")
-  private String systemUserId;
+  @Autowired
+  private UserVersionService userVersionService;
+
+  @Autowired
+  private OutboxService outboxService;
+
+  @Autowired
+  private SystemCategoryRegistry systemCategoryRegistry;
+
+  @Autowired
+  private ItemWriteLocks itemWriteLocks;
+
+  @Autowired
+  private ConsumptionForecastService consumptionForecastService;
 
   private String categoryNotFoundMsg = "カテゴリーが見つかりません";
 
   private String itemsNotFoundMsg = "アイテムが見つかりません";
 
-  @Caching(
-    evict = {
-      @CacheEvict(
-        value = "items",
-        key = "#userId + ':' + #itemRequest.categoryName"
-      ),
-      @CacheEvict(value = "categories", allEntries = true),
-    }
-  )
+  @Transactional
   public void createItem(String userId, ItemRequest itemRequest) {
-    List<Category> categoryList = categoryRepository.findActiveCateByName(
-      List.of(userId, systemUserId),
-      itemRequest.getCategoryName()
-    );
-
-    if (categoryList.isEmpty()) {
-      throw new IllegalArgumentException(categoryNotFoundMsg);
-    }
-    Category cate = categoryList.get(0);
+    Category cate = findActiveCategory(userId, itemRequest.getCategoryName())
+      .orElseThrow(() -> new IllegalArgumentException(categoryNotFoundMsg));
 
     // 同じ名前のアイテムが存在し、削除されていない場合はエラーを投げる
-    cate
-      .getItems()
-      .stream()
-      .filter(
-        i ->
-          i.getName().equals(itemRequest.getName()) &&
-          !i.isDeletedFlag() &&
-          i.getUserId().equals(userId)
+    // (デフォルトカテゴリの他ユーザーのアイテムは読み込まない)
+    itemRepository
+      .getActiveWithSameNameAndCategory(
+        List.of(userId),
+        itemRequest.getName(),
+        cate.getId()
       )
-      .findAny()
       .ifPresent(i -> {
         throw new ResponseStatusException(
           HttpStatus.CONFLICT,
@@ -86,11 +82,24 @@ public class ItemService {
       });
 
     Item item = new Item(itemRequest.getName(), userId, cate, false);
-    cate.getItems().add(item);
-    categoryRepository.save(cate);
+    item.setReorderThreshold(itemRequest.getReorderThreshold());
+    item.updateLowStock();
+    itemRepository.save(item);
+    userVersionService.bump(userId);
+    outboxService.publish(
+      itemEvent(userId, InventoryEventType.ITEM_CREATED, item, cate)
+    );
+    // キャッシュはコミット後に削除する
+    outboxService.evict(
+      userId,
+      "items",
+      userId + ":" + itemRequest.getCategoryName()
+    );
+    outboxService.evictAll(userId, "categories");
   }
 
   @Cacheable(value = "items", key = "#userId + ':' + #categoryName")
+  @Transactional(readOnly = true)
   public Page<ItemDto> getItems(
     Pageable pageable,
     String userId,
@@ -119,34 +128,47 @@ public class ItemService {
         item.getCategory().getName(),
         item.getTotalQuantity(),
         item.getTotalPrice(),
-        item.getUpdatedAt()
+        item.getUpdatedAt(),
+        consumptionForecastService.estimateDaysUntilStockout(item)
       )
     );
   }
 
-  @CacheEvict(value = "items", allEntries = true)
+  /**
+   * 在庫数が発注点を下回っているアイテムを取得
+   * 在庫不足フラグのインデックスを使用し、全アイテムの走査はしない
+   */
+  @Transactional(readOnly = true)
+  public List<LowStockAlertDto> getLowStockItems(String userId) {
+    return itemRepository
+      .findLowStockByUserId(userId)
+      .stream()
+      .map(LowStockAlertDto::of)
+      .toList();
+  }
+
+  @Transactional
   public void updateItem(String userId, UUID itemId, ItemRequest itemRequest) {
+    // 在庫集計と同じ行を更新するため、入出庫の登録と直列化する
+    itemWriteLocks.lockUntilCompletion(itemId);
+    outboxService.evictAll(userId, "items");
     // 編集するアイテムを取得
     Item item = itemRepository
-      .getActiveItemWithId(List.of(userId, systemUserId), itemId)
+      .getActiveItemWithId(List.of(userId), itemId)
       .orElseThrow(() ->
         new ResponseStatusException(HttpStatus.NOT_FOUND, itemsNotFoundMsg)
       );
 
     // リクエストのカテゴリー名からカテゴリーを取得
-    Category category = categoryRepository
-      .findActiveCateByName(
-        List.of(userId, systemUserId),
-        itemRequest.getCategoryName()
-      )
-      .stream()
-      .findFirst()
-      .orElseThrow(() -> new IllegalArgumentException(categoryNotFoundMsg));
+    Category category = findActiveCategory(
+      userId,
+      itemRequest.getCategoryName()
+    ).orElseThrow(() -> new IllegalArgumentException(categoryNotFoundMsg));
 
     // 同じ名前のアイテムが存在し、削除されていない場合はエラーを投げる
     Optional<Item> sameNameItem =
       itemRepository.getActiveWithSameNameAndCategory(
-        List.of(userId, systemUserId),
+        List.of(userId),
         itemRequest.getName(),
         category.getId()
       );
@@ -162,14 +184,34 @@ public class ItemService {
     // アイテムの名前とカテゴリーを更新して保存
     item.setName(itemRequest.getName());
     item.setCategory(category);
+    // 発注点を指定しない更新(名前・カテゴリのみの変更)では、設定済みの発注点を残す
+    if (itemRequest.getReorderThreshold() != null) {
+      item.setReorderThreshold(itemRequest.getReorderThreshold());
+    }
+    boolean becameLowStock = item.updateLowStock();
     itemRepository.save(item);
+    userVersionService.bump(userId);
+    if (becameLowStock) {
+      outboxService.publish(
+        new InventoryEvent(
+          userId,
+          InventoryEventType.LOW_STOCK_ALERT,
+          LowStockAlertDto.of(item)
+        )
+      );
+    }
+    outboxService.publish(
+      itemEvent(userId, InventoryEventType.ITEM_UPDATED, item, category)
+    );
   }
 
-  @CacheEvict(value = "items", allEntries = true)
+  @Transactional
   public void deleteItem(String userId, UUID itemId) {
+    itemWriteLocks.lockUntilCompletion(itemId);
+    outboxService.evictAll(userId, "items");
     // 自分とデフォルトのカテゴリーアイテムを取得
     Optional<Item> itemsOpt = itemRepository.getActiveItemWithId(
-      List.of(userId, systemUserId),
+      List.of(userId),
       itemId
     );
 
@@ -180,5 +222,44 @@ public class ItemService {
     Item item = itemsOpt.get();
     item.setDeletedFlag(true);
     itemRepository.save(item);
+    userVersionService.bump(userId);
+    outboxService.publish(
+      new InventoryEvent(userId, InventoryEventType.ITEM_DELETED, item.getId())
+    );
+  }
+
+  private InventoryEvent itemEvent(
+    String userId,
+    InventoryEventType type,
+    Item item,
+    Category category
+  ) {
+    return new InventoryEvent(
+      userId,
+      type,
+      new ItemDto(
+        item.getId(),
+        item.getName(),
+        category.getName(),
+        item.getTotalQuantity(),
+        item.getTotalPrice(),
+        item.getUpdatedAt(),
+        consumptionForecastService.estimateDaysUntilStockout(item)
+      )
+    );
+  }
+
+  /**
+   * カテゴリー名からデフォルトカテゴリまたはユーザのカテゴリを取得
+   * デフォルトカテゴリはメモリ上の一覧でIDを特定し、エンティティは2次キャッシュから取得する
+   */
+  private Optional<Category> findActiveCategory(String userId, String name) {
+    Optional<SystemCategory> systemCategory = systemCategoryRegistry.findByName(
+      name
+    );
+    if (systemCategory.isPresent()) {
+      return categoryRepository.findById(systemCategory.get().getId());
+    }
+    return categoryRepository.findActiveCateByName(userId, name).stream().findFirst();
   }
 }
@@ -0,0 +1,88 @@
+package inventory.example.inventory_id.service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * アイテムごとの在庫集計の更新を直列化するロックです。
+ * 在庫集計は全レコードを読み込んでから合計を書き込むため、
+ * 同じアイテムへの更新が並行すると古い合計で上書きされます。
+ * アイテムIDのハッシュで選んだロックをトランザクションの完了まで保持し、
+ * 同じアイテムへの更新のみを直列化します(別のアイテムは並行して更新できます)。
+ * ロックはこのノード内でのみ有効です。
+ */
+@Service
+public class ItemWriteLocks {
+
+  private final ReentrantLock[] stripes;
+  private final Duration timeout;
+
+  public ItemWriteLocks(
+    @Value("${inventory.records.lock-stripes:256}") int stripeCount,
+    @Value("${inventory.records.lock-timeout:5s}") Duration timeout
+  ) {
+    // インデックスをビット演算で求めるため2のべき乗に切り上げる
+    int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+    this.stripes = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    this.timeout = timeout;
+  }
+
+  /**
+   * 指定のアイテムに対応するロックを返す
+   * 異なるアイテムが同じロックを共有する場合がある
+   */
+  public Lock lockFor(UUID itemId) {
+    int hash = itemId.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+  }
+
+  /**
+   * 指定のアイテムのロックを取得し、現在のトランザクションの完了(コミットまたはロールバック)時に解放する
+   * 他のトランザクションとのデッドロックを避けるため、トランザクション内で書き込みを行う前に呼び出す
+   *
+   * @param itemId アイテムID
+   * @throws CannotAcquireLockException 待ち時間内にロックを取得できなかった場合
+   */
+  public void lockUntilCompletion(UUID itemId) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException(
+        "アイテムのロックはトランザクション内で取得してください。"
+      );
+    }
+    Lock lock = lockFor(itemId);
+    boolean acquired;
+    try {
+      acquired = lock.tryLock(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CannotAcquireLockException(
+        "アイテムのロック待ちが中断されました: " + itemId,
+        e
+      );
+    }
+    if (!acquired) {
+      throw new CannotAcquireLockException(
+        "アイテムのロックを取得できませんでした: " + itemId
+      );
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          lock.unlock();
+        }
+      }
+    );
+  }
+}
@@ -0,0 +1,62 @@
+package inventory.example.inventory_id.service;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+/**
+ * local-authプロファイルで{@link FirebaseAuthService}の代わりに使うサービスクラスです。
+ * 登録・サインインはアプリケーション内のidentitytoolkit互換APIを共有のクライアントで呼び出し、
+ * IDトークンの検証は{@link LocalIdentityProvider}で行います(検証済みトークンのキャッシュは共通)。
+ */
+@Service
+@Primary
+@Profile("local-auth")
+public class LocalFirebaseAuthService extends FirebaseAuthService {
+
+  private final LocalIdentityProvider localIdentityProvider;
+
+  public LocalFirebaseAuthService(
+    Dotenv dotenv,
+    RestClient firebaseRestClient,
+    @Value(
+      "${firebase.verified-token-cache.max-entries:10000}"
+    ) int maxVerifiedTokens,
+    @Value(
+      "${firebase.http.max-concurrent-requests:32}"
+    ) int maxConcurrentRequests,
+    LocalIdentityProvider localIdentityProvider
+  ) {
+    super(
+      dotenv,
+      firebaseRestClient,
+      maxVerifiedTokens,
+      maxConcurrentRequests
+    );
+    this.localIdentityProvider = localIdentityProvider;
+  }
+
+  @Override
+  protected VerifiedIdToken verifyIdToken(String idToken) {
+    return localIdentityProvider.verify(idToken);
+  }
+
+  // ローカルではIDトークンをそのままセッションCookieとして使う
+  @Override
+  public String createSessionCookie(String idToken) {
+    return idToken;
+  }
+
+  @Override
+  public VerifiedIdToken verifySessionCookie(String sessionCookie) {
+    return localIdentityProvider.verify(sessionCookie);
+  }
+
+  @Override
+  public void prewarmPublicKeys() {
+    // 公開鍵は起動時に生成済みのため取得しない
+  }
+}
@@ -0,0 +1,220 @@
+package inventory.example.inventory_id.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.enums.AuthMessage;
+import inventory.example.inventory_id.exception.AuthenticationException;
+import inventory.example.inventory_id.response.FirebaseSignUpResponse;
+import inventory.example.inventory_id.service.FirebaseAuthService.VerifiedIdToken;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * 負荷試験用に、Firebase Authの代わりにアプリケーション内でユーザーの登録・サインインと
+ * IDトークンの発行・検証を行うクラスです(local-authプロファイルでのみ有効)。
+ * IDトークンは起動時に生成したRSA鍵でRS256の署名を付けたJWTで、検証では署名と有効期限を確認します。
+ * 実際の認証サーバーに近い応答時間になるよう、各処理に遅延を入れられます。
+ */
+@Component
+@Profile("local-auth")
+public class LocalIdentityProvider {
+
+  static final String ISSUER = "https://securetoken.google.com/local-auth";
+  private static final String KEY_ID = "local-auth";
+
+  private final ObjectMapper objectMapper;
+  private final Clock clock;
+  private final KeyPair keyPair;
+  private final Map<String, LocalUser> usersByEmail = new ConcurrentHashMap<>();
+
+  @Value("${local-auth.token-ttl:1h}")
+  private Duration tokenTtl;
+
+  // 登録・サインイン(identitytoolkitの呼び出し)とIDトークンの検証の遅延
+  @Value("${local-auth.latency.sign-in:80ms}")
+  private Duration signInLatency;
+
+  @Value("${local-auth.latency.verify:2ms}")
+  private Duration verifyLatency;
+
+  // 遅延のばらつき(0.2の場合は±20%)
+  @Value("${local-auth.latency.jitter:0.2}")
+  private double latencyJitter;
+
+  @Autowired
+  public LocalIdentityProvider(ObjectMapper objectMapper) {
+    this(objectMapper, Clock.systemUTC());
+  }
+
+  LocalIdentityProvider(ObjectMapper objectMapper, Clock clock) {
+    this.objectMapper = objectMapper;
+    this.clock = clock;
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+      generator.initialize(2048);
+      this.keyPair = generator.generateKeyPair();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("署名用の鍵を生成できません", e);
+    }
+  }
+
+  private record LocalUser(String userId, String email, byte[] passwordHash) {}
+
+  /**
+   * ユーザーを登録し、IDトークンを発行する
+   *
+   * @param email    メールアドレス(匿名の場合はnull)
+   * @param password パスワード
+   */
+  public FirebaseSignUpResponse signUp(String email, String password) {
+    simulateLatency(signInLatency);
+    String userId = UUID.randomUUID().toString().replace("-", "");
+    if (email != null) {
+      LocalUser user = new LocalUser(userId, email, hash(password));
+      if (usersByEmail.putIfAbsent(email, user) != null) {
+        throw new IllegalArgumentException("EMAIL_EXISTS");
+      }
+    }
+    return tokenResponse(userId, email, false);
+  }
+
+  /**
+   * メールアドレスとパスワードでサインインし、IDトークンを発行する
+   */
+  public FirebaseSignUpResponse signIn(String email, String password) {
+    simulateLatency(signInLatency);
+    LocalUser user = email == null ? null : usersByEmail.get(email);
+    if (
+      user == null ||
+      !MessageDigest.isEqual(user.passwordHash(), hash(password))
+    ) {
+      throw new IllegalArgumentException("INVALID_LOGIN_CREDENTIALS");
+    }
+    return tokenResponse(user.userId(), email, true);
+  }
+
+  /**
+   * IDトークンの署名と有効期限を検証する
+   *
+   * @param idToken IDトークン
+   * @return ユーザーIDと有効期限
+   */
+  public VerifiedIdToken verify(String idToken) {
+    simulateLatency(verifyLatency);
+    try {
+      String[] parts = idToken.split("\\.");
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("JWTの形式ではありません");
+      }
+      Signature signature = Signature.getInstance("SHA256withRSA");
+      signature.initVerify(keyPair.getPublic());
+      signature.update(
+        (parts[0] + "." + parts[1]).getBytes(StandardCharsets.UTF_8)
+      );
+      if (!signature.verify(Base64.getUrlDecoder().decode(parts[2]))) {
+        throw new IllegalArgumentException("署名が正しくありません");
+      }
+      JsonNode claims = objectMapper.readTree(
+        Base64.getUrlDecoder().decode(parts[1])
+      );
+      Instant expiresAt = Instant.ofEpochSecond(claims.path("exp").asLong());
+      if (
+        !ISSUER.equals(claims.path("iss").asText()) ||
+        !clock.instant().isBefore(expiresAt)
+      ) {
+        throw new IllegalArgumentException("有効期限切れのトークンです");
+      }
+      return new VerifiedIdToken(claims.path("sub").asText(), expiresAt);
+    } catch (Exception e) {
+      throw new AuthenticationException(
+        AuthMessage.SIGNIN_FAILED_MSG.getMessage()
+      );
+    }
+  }
+
+  private FirebaseSignUpResponse tokenResponse(
+    String userId,
+    String email,
+    boolean registered
+  ) {
+    return new FirebaseSignUpResponse(
+      issueToken(userId, email),
+      email,
+      UUID.randomUUID().toString(),
+      String.valueOf(tokenTtl.toSeconds()),
+      userId,
+      registered
+    );
+  }
+
+  String issueToken(String userId, String email) {
+    Instant now = clock.instant();
+    Map<String, Object> header = new LinkedHashMap<>();
+    header.put("alg", "RS256");
+    header.put("kid", KEY_ID);
+    header.put("typ", "JWT");
+    Map<String, Object> claims = new LinkedHashMap<>();
+    claims.put("iss", ISSUER);
+    claims.put("aud", KEY_ID);
+    claims.put("sub", userId);
+    claims.put("iat", now.getEpochSecond());
+    claims.put("exp", now.plus(tokenTtl).getEpochSecond());
+    if (email != null) {
+      claims.put("email", email);
+    }
+    try {
+      Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+      String content =
+        encoder.encodeToString(objectMapper.writeValueAsBytes(header)) +
+        "." +
+        encoder.encodeToString(objectMapper.writeValueAsBytes(claims));
+      Signature signature = Signature.getInstance("SHA256withRSA");
+      signature.initSign(keyPair.getPrivate());
+      signature.update(content.getBytes(StandardCharsets.UTF_8));
+      return content + "." + encoder.encodeToString(signature.sign());
+    } catch (Exception e) {
+      throw new IllegalStateException("IDトークンを発行できません", e);
+    }
+  }
+
+  private static byte[] hash(String password) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(
+        String.valueOf(password).getBytes(StandardCharsets.UTF_8)
+      );
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("パスワードのハッシュを計算できません", e);
+    }
+  }
+
+  private void simulateLatency(Duration latency) {
+    if (latency == null || latency.isZero() || latency.isNegative()) {
+      return;
+    }
+    double factor =
+      1 + latencyJitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+    long nanos = (long) (latency.toNanos() * Math.max(0, factor));
+    try {
+      Thread.sleep(Duration.ofNanos(nanos));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package inventory.example.inventory_id.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 画面(WebController)から自身のAPIを呼び出す際に、認証済みのユーザーIDを引き継ぐための
+ * 短い有効期限の署名付きトークンを発行・検証するサービスクラスです。
+ * 署名の鍵は起動時に生成し、プロセスの外には出しません。
+ * APIへのリクエストでセッションを再度確認しない(Redisを参照しない)ために使います。
+ */
+@Service
+public class LoopbackTokenService {
+
+  public static final String HEADER = "X-Loopback-User";
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private final Clock clock;
+  private final SecretKeySpec key;
+
+  @Value("${auth.loopback.ttl:30s}")
+  private Duration ttl;
+
+  @Autowired
+  public LoopbackTokenService() {
+    this(Clock.systemUTC());
+  }
+
+  LoopbackTokenService(Clock clock) {
+    this.clock = clock;
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    this.key = new SecretKeySpec(secret, ALGORITHM);
+  }
+
+  /**
+   * ユーザーIDを引き継ぐトークンを発行する
+   *
+   * @param userId 認証済みのユーザーID
+   * @return 「ユーザーID.有効期限.署名」の形式のトークン
+   */
+  public String issue(String userId) {
+    String payload =
+      Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(userId.getBytes(StandardCharsets.UTF_8)) +
+      "." +
+      clock.instant().plus(ttl).toEpochMilli();
+    return payload + "." + sign(payload);
+  }
+
+  /**
+   * トークンを検証する
+   *
+   * @param token トークン
+   * @return 有効なトークンの場合はユーザーID、それ以外はnull
+   */
+  public String verify(String token) {
+    if (token == null) {
+      return null;
+    }
+    int separator = token.lastIndexOf('.');
+    if (separator <= 0) {
+      return null;
+    }
+    String payload = token.substring(0, separator);
+    byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+    byte[] actual = token
+      .substring(separator + 1)
+      .getBytes(StandardCharsets.US_ASCII);
+    if (!MessageDigest.isEqual(expected, actual)) {
+      return null;
+    }
+    String[] parts = payload.split("\\.");
+    try {
+      if (
+        parts.length != 2 ||
+        clock.millis() >= Long.parseLong(parts[1])
+      ) {
+        return null;
+      }
+      return new String(
+        Base64.getUrlDecoder().decode(parts[0]),
+        StandardCharsets.UTF_8
+      );
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private String sign(String payload) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("トークンに署名できません", e);
+    }
+  }
+}
@@ -0,0 +1,325 @@
+package inventory.example.inventory_id.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.event.InventoryEvent;
+import inventory.example.inventory_id.event.InventoryEventBus;
+import inventory.example.inventory_id.model.OutboxMessage;
+import inventory.example.inventory_id.repository.OutboxMessageRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * アウトボックスに記録された処理を実行するサービスクラスです。
+ * コミット後に専用のスレッドへ渡して実行し(コミットしたスレッドの接続・ロックを保持したまま
+ * 実行しないため)、失敗した場合やコミット後に停止した場合は定期実行でまとめて再実行します
+ * (少なくとも1回実行されるため、処理は冪等にします)。
+ * 実行順はユーザーごとの記録順です。コミット直後の実行は、同じユーザーの先行する未処理の
+ * メッセージがない場合のみ行います。一定回数失敗したメッセージは実行を諦め、以降を止めません。
+ */
+@Service
+public class OutboxRelay {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    OutboxRelay.class
+  );
+
+  private final OutboxMessageRepository outboxMessageRepository;
+  private final CacheManager cacheManager;
+  private final InventoryEventBus inventoryEventBus;
+  private final ObjectMapper objectMapper;
+
+  // コミット直後の実行を記録順に行う専用のスレッド。初回の利用時に作成する
+  private volatile ThreadPoolExecutor dispatcher;
+
+  // 定期実行が重ならないようにする
+  private final ReentrantLock draining = new ReentrantLock();
+
+  private final AtomicLong deliveredCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+  private final AtomicLong deadCount = new AtomicLong();
+  private volatile Duration lag = Duration.ZERO;
+
+  @Value("${inventory.outbox.batch-size:100}")
+  private int batchSize;
+
+  // コミット直後の実行と重複しないよう、記録から一定時間経過したものを定期実行の対象にする
+  @Value("${inventory.outbox.min-age:2s}")
+  private Duration minAge;
+
+  @Value("${inventory.outbox.lag-warn-threshold:30s}")
+  private Duration lagWarnThreshold;
+
+  @Value("${inventory.outbox.retention:1d}")
+  private Duration retention;
+
+  // この回数失敗したメッセージは実行を諦める
+  @Value("${inventory.outbox.max-attempts:5}")
+  private int maxAttempts = 5;
+
+  // コミット直後の実行を待つメッセージ(トランザクション単位)の上限。超えた分は定期実行に任せる
+  @Value("${inventory.outbox.dispatch-queue-capacity:1000}")
+  private int dispatchQueueCapacity = 1000;
+
+  public OutboxRelay(
+    OutboxMessageRepository outboxMessageRepository,
+    CacheManager cacheManager,
+    InventoryEventBus inventoryEventBus,
+    ObjectMapper objectMapper
+  ) {
+    this.outboxMessageRepository = outboxMessageRepository;
+    this.cacheManager = cacheManager;
+    this.inventoryEventBus = inventoryEventBus;
+    this.objectMapper = objectMapper;
+  }
+
+  @PreDestroy
+  void stopDispatcher() {
+    if (dispatcher != null) {
+      dispatcher.shutdown();
+    }
+  }
+
+  /**
+   * コミットされたトランザクションで記録したメッセージを専用のスレッドで実行する
+   * コミット後の処理から呼び出すため、待機せずに戻る
+   * (実行待ちが上限を超えた場合は定期実行に任せる)
+   *
+   * @param messages 記録順のメッセージ
+   */
+  public void dispatchCommitted(List<OutboxMessage> messages) {
+    try {
+      dispatcher().execute(() -> deliverCommitted(messages));
+    } catch (RejectedExecutionException e) {
+      logger.debug(
+        "アウトボックスの実行待ちが上限に達したため定期実行に任せます: {}件",
+        messages.size()
+      );
+    }
+  }
+
+  /**
+   * コミットされたトランザクションで記録したメッセージを実行する
+   * 同じユーザーの先行する未処理のメッセージがある場合は、記録順を保つため定期実行に任せる
+   * 書き込みは既に確定しているため、失敗しても例外は投げず定期実行に任せる
+   *
+   * @param messages 記録順のメッセージ
+   */
+  void deliverCommitted(List<OutboxMessage> messages) {
+    try {
+      Map<String, List<OutboxMessage>> byUser = new LinkedHashMap<>();
+      for (OutboxMessage message : messages) {
+        byUser
+          .computeIfAbsent(message.getUserId(), userId -> new ArrayList<>())
+          .add(message);
+      }
+      byUser.forEach((userId, userMessages) -> {
+        if (
+          outboxMessageRepository.existsByUserIdAndIdLessThanAndProcessedAtIsNullAndDeadAtIsNull(
+            userId,
+            userMessages.get(0).getId()
+          )
+        ) {
+          return;
+        }
+        deliverInOrder(userMessages);
+      });
+    } catch (Exception e) {
+      logger.warn("アウトボックスの実行エラー: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * 未処理のメッセージをバッチ単位で実行する
+   * 実行に失敗した場合は記録順を保つため、同じユーザーの以降のメッセージは次回に実行する
+   */
+  @Scheduled(fixedDelayString = "${inventory.outbox.poll-interval:1s}")
+  public void drain() {
+    if (!draining.tryLock()) {
+      return;
+    }
+    try {
+      updateLag();
+      while (true) {
+        List<OutboxMessage> batch = outboxMessageRepository.findPending(
+          LocalDateTime.now().minus(minAge),
+          PageRequest.of(0, batchSize)
+        );
+        int delivered = deliverInOrder(batch);
+        if (delivered < batch.size() || batch.size() < batchSize) {
+          break;
+        }
+      }
+    } finally {
+      draining.unlock();
+    }
+  }
+
+  /**
+   * 保持期間を過ぎた処理済みのメッセージを削除する
+   */
+  @Scheduled(fixedDelayString = "${inventory.outbox.purge-interval:1h}")
+  public void purgeProcessed() {
+    int deleted = outboxMessageRepository.deleteProcessedBefore(
+      LocalDateTime.now().minus(retention)
+    );
+    if (deleted > 0) {
+      logger.info("処理済みのアウトボックスを削除しました: {}件", deleted);
+    }
+  }
+
+  /**
+   * 最も古い未処理のメッセージの経過時間(未処理がない場合は0)
+   */
+  public Duration getLag() {
+    return lag;
+  }
+
+  public long getDeliveredCount() {
+    return deliveredCount.get();
+  }
+
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  public long getDeadCount() {
+    return deadCount.get();
+  }
+
+  /**
+   * メッセージをユーザーごとに記録順に実行し、実行できたものを処理済みにする
+   * 失敗したユーザーの以降のメッセージは次回に実行し、他のユーザーのメッセージは続けて実行する
+   *
+   * @return 実行できた件数
+   */
+  private int deliverInOrder(List<OutboxMessage> messages) {
+    List<Long> delivered = new ArrayList<>();
+    Set<String> failedUsers = new HashSet<>();
+    try {
+      for (OutboxMessage message : messages) {
+        if (failedUsers.contains(message.getUserId())) {
+          continue;
+        }
+        try {
+          deliver(message);
+        } catch (Exception e) {
+          failedUsers.add(message.getUserId());
+          recordFailure(message, e);
+          continue;
+        }
+        delivered.add(message.getId());
+      }
+    } finally {
+      if (!delivered.isEmpty()) {
+        outboxMessageRepository.markProcessed(delivered, LocalDateTime.now());
+        deliveredCount.addAndGet(delivered.size());
+      }
+    }
+    return delivered.size();
+  }
+
+  private void recordFailure(OutboxMessage message, Exception e) {
+    failedCount.incrementAndGet();
+    outboxMessageRepository.incrementAttempts(message.getId());
+    int attempts = message.getAttempts() + 1;
+    if (attempts < maxAttempts) {
+      logger.warn(
+        "アウトボックスの実行に失敗しました: id={}, type={}, {}回目, {}",
+        message.getId(),
+        message.getType(),
+        attempts,
+        e.getMessage()
+      );
+      return;
+    }
+    // 実行できないメッセージで同じユーザーの以降のメッセージが止まり続けないよう、実行を諦める
+    outboxMessageRepository.markDead(message.getId(), LocalDateTime.now());
+    deadCount.incrementAndGet();
+    logger.error(
+      "アウトボックスの実行を諦めました: id={}, type={}, userId={}, {}回失敗, {}",
+      message.getId(),
+      message.getType(),
+      message.getUserId(),
+      attempts,
+      e.getMessage()
+    );
+  }
+
+  private ThreadPoolExecutor dispatcher() {
+    ThreadPoolExecutor executor = dispatcher;
+    if (executor != null) {
+      return executor;
+    }
+    synchronized (this) {
+      if (dispatcher == null) {
+        dispatcher = new ThreadPoolExecutor(
+          1,
+          1,
+          0,
+          TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(dispatchQueueCapacity),
+          runnable -> {
+            Thread thread = new Thread(runnable, "outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+          }
+        );
+      }
+      return dispatcher;
+    }
+  }
+
+  private void deliver(OutboxMessage message) throws Exception {
+    switch (message.getType()) {
+      case CACHE_EVICT -> {
+        Cache cache = cacheManager.getCache(message.getCacheName());
+        if (cache == null) {
+          return;
+        }
+        if (message.getCacheKey() == null) {
+          cache.clear();
+        } else {
+          cache.evict(message.getCacheKey());
+        }
+      }
+      case INVENTORY_EVENT -> inventoryEventBus.publish(
+        objectMapper.readValue(message.getPayload(), InventoryEvent.class)
+      );
+    }
+  }
+
+  private void updateLag() {
+    LocalDateTime oldest = outboxMessageRepository.findOldestPendingCreatedAt();
+    lag = oldest == null
+      ? Duration.ZERO
+      : Duration.between(oldest, LocalDateTime.now());
+    if (lag.compareTo(lagWarnThreshold) > 0) {
+      logger.warn(
+        "アウトボックスの遅延: {}秒, 未処理{}件",
+        lag.toSeconds(),
+        outboxMessageRepository.countByProcessedAtIsNullAndDeadAtIsNull()
+      );
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package inventory.example.inventory_id.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.event.InventoryEvent;
+import inventory.example.inventory_id.model.OutboxMessage;
+import inventory.example.inventory_id.repository.OutboxMessageRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.interceptor.CacheInterceptor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * コミット後に行う処理(キャッシュの削除・イベントの配信)をアウトボックスに記録するサービスクラスです。
+ * 書き込みと同じトランザクションで記録するため、ロールバックした変更の処理は行われず、
+ * コミット後に停止した場合もリレーの定期実行で処理されます。
+ * キャッシュの削除は、キャッシュが有効(@EnableCaching)な場合のみ記録します
+ * (無効な場合はキャッシュに書き込まれないため、削除しても何も起きない)。
+ */
+@Service
+public class OutboxService {
+
+  private final OutboxMessageRepository outboxMessageRepository;
+  private final OutboxRelay outboxRelay;
+  private final ObjectMapper objectMapper;
+  private final boolean cachingEnabled;
+
+  public OutboxService(
+    OutboxMessageRepository outboxMessageRepository,
+    OutboxRelay outboxRelay,
+    ObjectMapper objectMapper,
+    ObjectProvider<CacheInterceptor> cacheInterceptor
+  ) {
+    this.outboxMessageRepository = outboxMessageRepository;
+    this.outboxRelay = outboxRelay;
+    this.objectMapper = objectMapper;
+    // @EnableCaching を有効にした場合のみキャッシュのインターセプターが登録される
+    this.cachingEnabled = cacheInterceptor.getIfAvailable() != null;
+  }
+
+  /**
+   * コミット後に在庫イベントを配信する
+   *
+   * @param event 在庫イベント
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void publish(InventoryEvent event) {
+    String payload;
+    try {
+      payload = objectMapper.writeValueAsString(event);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("イベントを変換できません", e);
+    }
+    enqueue(OutboxMessage.inventoryEvent(event.getUserId(), payload));
+  }
+
+  /**
+   * コミット後にキャッシュのエントリを削除する
+   *
+   * @param userId    ユーザーID
+   * @param cacheName キャッシュ名
+   * @param key       キャッシュのキー
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void evict(String userId, String cacheName, String key) {
+    if (!cachingEnabled) {
+      return;
+    }
+    enqueue(OutboxMessage.cacheEvict(userId, cacheName, key));
+  }
+
+  /**
+   * コミット後にキャッシュのエントリをすべて削除する
+   *
+   * @param userId    ユーザーID
+   * @param cacheName キャッシュ名
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void evictAll(String userId, String cacheName) {
+    if (!cachingEnabled) {
+      return;
+    }
+    enqueue(OutboxMessage.cacheEvict(userId, cacheName, null));
+  }
+
+  private void enqueue(OutboxMessage message) {
+    outboxMessageRepository.save(message);
+    messagesInTransaction().add(message);
+  }
+
+  /**
+   * 現在のトランザクションで記録したメッセージ
+   * 初回の記録時に、コミット後に実行する処理を登録する
+   */
+  @SuppressWarnings("unchecked")
+  private List<OutboxMessage> messagesInTransaction() {
+    List<OutboxMessage> messages =
+      (List<OutboxMessage>) TransactionSynchronizationManager.getResource(this);
+    if (messages != null) {
+      return messages;
+    }
+    List<OutboxMessage> created = new ArrayList<>();
+    TransactionSynchronizationManager.bindResource(this, created);
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          outboxRelay.dispatchCommitted(created);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+          TransactionSynchronizationManager.unbindResourceIfPossible(
+            OutboxService.this
+          );
+        }
+      }
+    );
+    return created;
+  }
+}
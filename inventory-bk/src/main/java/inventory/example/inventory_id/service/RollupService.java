@@ -0,0 +1,241 @@
+package inventory.example.inventory_id.service;
+
+import inventory.example.inventory_id.dto.ConsumptionRollupDto;
+import inventory.example.inventory_id.enums.TransactionType;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.model.ItemRecord;
+import inventory.example.inventory_id.repository.CategoryMonthlyRollupRepository;
+import inventory.example.inventory_id.repository.ItemDailyRollupRepository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 入出庫の集計テーブル(アイテム日別・カテゴリ月別)を管理するサービスクラスです。
+ * 入出庫レコードの作成・削除時に差分を加算し、レポートは集計テーブルのみを参照します。
+ */
+@Service
+public class RollupService {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    RollupService.class
+  );
+
+  private final ItemDailyRollupRepository itemDailyRollupRepository;
+  private final CategoryMonthlyRollupRepository categoryMonthlyRollupRepository;
+
+  // 集計行の作成はJPAを介さずに行う
+  // (JPAのクエリで一意制約違反になると、呼び出し元のトランザクションがロールバック扱いになるため)
+  private final JdbcTemplate jdbcTemplate;
+
+  private static final String INSERT_EMPTY_ITEM_DAILY_ROLLUP = """
+    INSERT INTO item_daily_rollup (
+      user_id, item_id, rollup_date, in_quantity, in_amount, out_quantity, out_amount
+    )
+    VALUES (?, ?, ?, 0, 0, 0, 0)
+    """;
+
+  private static final String INSERT_EMPTY_CATEGORY_MONTHLY_ROLLUP = """
+    INSERT INTO category_monthly_rollup (
+      user_id, category_id, rollup_month, in_quantity, in_amount, out_quantity, out_amount
+    )
+    VALUES (?, ?, ?, 0, 0, 0, 0)
+    """;
+
+  public RollupService(
+    ItemDailyRollupRepository itemDailyRollupRepository,
+    CategoryMonthlyRollupRepository categoryMonthlyRollupRepository,
+    JdbcTemplate jdbcTemplate
+  ) {
+    this.itemDailyRollupRepository = itemDailyRollupRepository;
+    this.categoryMonthlyRollupRepository = categoryMonthlyRollupRepository;
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * 入出庫レコードの数量・金額を集計に反映する
+   * 呼び出し元のトランザクション内で加算するため、レコードの作成・削除と同時に確定する
+   *
+   * @param record 入出庫レコード
+   * @param sign   作成時は1、削除時は-1
+   */
+  public void apply(ItemRecord record, int sign) {
+    int quantity = sign * record.getQuantity();
+    long amount = (long) quantity * record.getPrice();
+    boolean isIn = record.getTransactionType() == TransactionType.IN;
+    int inQuantity = isIn ? quantity : 0;
+    long inAmount = isIn ? amount : 0;
+    int outQuantity = isIn ? 0 : quantity;
+    long outAmount = isIn ? 0 : amount;
+
+    // 作成日で集計するため、削除時も作成時と同じ日・月から差し引く
+    LocalDate day = record.getCreatedAt() != null
+      ? record.getCreatedAt().toLocalDate()
+      : LocalDate.now();
+    LocalDate month = day.withDayOfMonth(1);
+    Item item = record.getItem();
+    String userId = record.getUserId();
+    UUID itemId = item.getId();
+    // カテゴリ別の集計はレコード作成時のカテゴリに反映する
+    // (作成後にアイテムのカテゴリを変更しても、削除時に別のカテゴリから差し引かないため)
+    UUID categoryId = record.getCategoryId() != null
+      ? record.getCategoryId()
+      : item.getCategory().getId();
+
+    upsert(
+      () ->
+        itemDailyRollupRepository.addToRollup(
+          userId,
+          itemId,
+          day,
+          inQuantity,
+          inAmount,
+          outQuantity,
+          outAmount
+        ),
+      () ->
+        insertEmptyRollup(INSERT_EMPTY_ITEM_DAILY_ROLLUP, userId, itemId, day)
+    );
+    upsert(
+      () ->
+        categoryMonthlyRollupRepository.addToRollup(
+          userId,
+          categoryId,
+          month,
+          inQuantity,
+          inAmount,
+          outQuantity,
+          outAmount
+        ),
+      () ->
+        insertEmptyRollup(
+          INSERT_EMPTY_CATEGORY_MONTHLY_ROLLUP,
+          userId,
+          categoryId,
+          month
+        )
+    );
+  }
+
+  /**
+   * 集計テーブルが空の場合に、入出庫レコードから集計を作成する
+   */
+  @Transactional
+  public void backfillIfEmpty() {
+    if (itemDailyRollupRepository.count() > 0) {
+      return;
+    }
+    categoryMonthlyRollupRepository.deleteAllInBatch();
+    int days = itemDailyRollupRepository.backfillFromItemRecords();
+    int months = categoryMonthlyRollupRepository.backfillFromItemRecords();
+    logger.info("集計テーブルを作成しました: 日別{}件, 月別{}件", days, months);
+  }
+
+  public List<ConsumptionRollupDto> getItemDailyRollups(
+    String userId,
+    UUID itemId,
+    LocalDate from,
+    LocalDate to
+  ) {
+    validatePeriod(from, to);
+    return itemDailyRollupRepository
+      .findItemRollups(userId, itemId, from, to)
+      .stream()
+      .map(rollup ->
+        new ConsumptionRollupDto(
+          rollup.getItemId(),
+          rollup.getRollupDate(),
+          rollup.getInQuantity(),
+          rollup.getInAmount(),
+          rollup.getOutQuantity(),
+          rollup.getOutAmount()
+        )
+      )
+      .toList();
+  }
+
+  public List<ConsumptionRollupDto> getCategoryMonthlyRollups(
+    String userId,
+    LocalDate from,
+    LocalDate to
+  ) {
+    validatePeriod(from, to);
+    return categoryMonthlyRollupRepository
+      .findUserRollups(userId, from.withDayOfMonth(1), to)
+      .stream()
+      .map(rollup ->
+        new ConsumptionRollupDto(
+          rollup.getCategoryId(),
+          rollup.getRollupMonth(),
+          rollup.getInQuantity(),
+          rollup.getInAmount(),
+          rollup.getOutQuantity(),
+          rollup.getOutAmount()
+        )
+      )
+      .toList();
+  }
+
+  private void validatePeriod(LocalDate from, LocalDate to) {
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException(
+        "開始日は終了日以前の日付を指定してください"
+      );
+    }
+  }
+
+  private void upsert(IntSupplier update, Runnable insertEmpty) {
+    if (update.getAsInt() > 0) {
+      return;
+    }
+    // 0件の集計行を作成してから加算する
+    insertEmpty.run();
+    update.getAsInt();
+  }
+
+  /**
+   * 集計行を数量・金額0で作成する
+   * 呼び出し元のトランザクション(同じ接続)内で作成し、同時に同じ集計行が作成された場合は
+   * セーブポイントまで戻して作成済みの行を使う
+   */
+  private void insertEmptyRollup(
+    String sql,
+    String userId,
+    UUID keyId,
+    LocalDate period
+  ) {
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      Savepoint savepoint = connection.setSavepoint();
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        statement.setString(1, userId);
+        statement.setObject(2, keyId);
+        statement.setObject(3, period);
+        statement.executeUpdate();
+      } catch (SQLException e) {
+        if (!isUniqueViolation(e)) {
+          throw e;
+        }
+        logger.debug("集計行は作成済みです: {}", e.getMessage());
+        connection.rollback(savepoint);
+        return null;
+      }
+      connection.releaseSavepoint(savepoint);
+      return null;
+    });
+  }
+
+  // SQLSTATE 23505: 一意制約違反
+  private boolean isUniqueViolation(SQLException e) {
+    return "23505".equals(e.getSQLState());
+  }
+}
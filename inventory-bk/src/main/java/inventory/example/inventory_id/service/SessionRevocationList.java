@@ -0,0 +1,180 @@
+package inventory.example.inventory_id.service;
+
+import inventory.example.inventory_id.util.BloomFilter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * ステートレスなセッションで、サインアウトなどにより無効にしたセッションCookieを管理するサービスクラスです。
+ * 無効にしたCookieのハッシュを有効期限をスコアとしてRedisのソート済みセットに保存し、
+ * 各ノードは定期的に読み込んだ内容からブルームフィルターを作成します。
+ * リクエストごとの確認はブルームフィルターで行い、含まれる可能性がある場合のみRedisで確認します。
+ */
+@Service
+public class SessionRevocationList {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    SessionRevocationList.class
+  );
+
+  private static final String REVOKED_KEY = "revoked_sessions";
+
+  private final StringRedisTemplate redisTemplate;
+
+  @Value("${auth.session.mode:redis}")
+  private String sessionMode;
+
+  // ブルームフィルターの想定件数と偽陽性の割合(偽陽性の場合はRedisで確認する)
+  @Value("${auth.session.revocation.expected-insertions:100000}")
+  private int expectedInsertions;
+
+  @Value("${auth.session.revocation.false-positive-rate:0.01}")
+  private double falsePositiveRate;
+
+  private volatile BloomFilter filter;
+
+  // Redisから一覧を読み込むまでは、ブルームフィルターを使わずRedisで確認する
+  private volatile boolean loaded = false;
+
+  // このノードで無効にしたCookie(ハッシュと有効期限)。Redisに書き込めなかったものは再度書き込む
+  private final Map<String, Instant> localRevocations =
+    new ConcurrentHashMap<>();
+  private final Set<String> unsynced = ConcurrentHashMap.newKeySet();
+
+  public SessionRevocationList(StringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  /**
+   * セッションCookieを無効にする
+   *
+   * @param token     セッションCookie
+   * @param expiresAt Cookieの有効期限(期限後は一覧から削除する)
+   */
+  public void revoke(String token, Instant expiresAt) {
+    String key = hash(token);
+    // ブルームフィルターの作り直しと重なっても、新しいフィルターに含まれるようにする
+    synchronized (this) {
+      localRevocations.put(key, expiresAt);
+      currentFilter().put(key);
+    }
+    try {
+      redisTemplate
+        .opsForZSet()
+        .add(REVOKED_KEY, key, expiresAt.getEpochSecond());
+    } catch (Exception e) {
+      unsynced.add(key);
+      logger.warn("セッションの無効化の保存エラー: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * セッションCookieが無効にされているかを確認する
+   * Redisで確認できない場合は無効として扱う
+   */
+  public boolean isRevoked(String token) {
+    String key = hash(token);
+    if (loaded && !currentFilter().mightContain(key)) {
+      return false;
+    }
+    if (localRevocations.containsKey(key)) {
+      return true;
+    }
+    try {
+      return redisTemplate.opsForZSet().score(REVOKED_KEY, key) != null;
+    } catch (Exception e) {
+      logger.warn("セッションの無効化の確認エラー: {}", e.getMessage());
+      return true;
+    }
+  }
+
+  /**
+   * Redisから無効にしたCookieの一覧を読み込み、ブルームフィルターを作り直す
+   * 他のノードで無効にしたCookieは、この間隔で反映される
+   */
+  @Scheduled(
+    fixedDelayString = "${auth.session.revocation.refresh-interval:5s}"
+  )
+  public void refresh() {
+    if (!"stateless".equalsIgnoreCase(sessionMode)) {
+      return;
+    }
+    long now = Instant.now().getEpochSecond();
+    localRevocations
+      .entrySet()
+      .removeIf(entry -> entry.getValue().getEpochSecond() <= now);
+    unsynced.retainAll(localRevocations.keySet());
+    try {
+      for (String key : unsynced) {
+        Instant expiresAt = localRevocations.get(key);
+        if (expiresAt != null) {
+          redisTemplate
+            .opsForZSet()
+            .add(REVOKED_KEY, key, expiresAt.getEpochSecond());
+        }
+        unsynced.remove(key);
+      }
+      // 有効期限を過ぎたCookieは使えないため、一覧から削除する
+      redisTemplate.opsForZSet().removeRangeByScore(REVOKED_KEY, 0, now);
+      Set<String> revoked = redisTemplate
+        .opsForZSet()
+        .rangeByScore(REVOKED_KEY, now, Double.POSITIVE_INFINITY);
+      BloomFilter next = newFilter(revoked == null ? 0 : revoked.size());
+      if (revoked != null) {
+        revoked.forEach(next::put);
+      }
+      // 読み込み中に無効にしたCookieを含める
+      synchronized (this) {
+        localRevocations.keySet().forEach(next::put);
+        filter = next;
+      }
+      loaded = true;
+    } catch (Exception e) {
+      logger.warn("セッションの無効化の一覧の読み込みエラー: {}", e.getMessage());
+    }
+  }
+
+  private BloomFilter currentFilter() {
+    BloomFilter current = filter;
+    if (current == null) {
+      synchronized (this) {
+        if (filter == null) {
+          filter = newFilter(0);
+        }
+        current = filter;
+      }
+    }
+    return current;
+  }
+
+  private BloomFilter newFilter(int size) {
+    return new BloomFilter(
+      Math.max(expectedInsertions, size * 2),
+      falsePositiveRate
+    );
+  }
+
+  private static String hash(String token) {
+    try {
+      return HexFormat.of().formatHex(
+        MessageDigest.getInstance("SHA-256").digest(
+          token.getBytes(StandardCharsets.UTF_8)
+        )
+      );
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("トークンのハッシュを計算できません", e);
+    }
+  }
+}
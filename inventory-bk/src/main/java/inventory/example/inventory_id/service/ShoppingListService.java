@@ -0,0 +1,279 @@
+package inventory.example.inventory_id.service;
+
+import inventory.example.inventory_id.dto.ExpiryAlertDto;
+import inventory.example.inventory_id.dto.StockoutForecastDto;
+import inventory.example.inventory_id.enums.ShoppingReason;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.repository.ItemRepository;
+import inventory.example.inventory_id.response.ShoppingListResponse;
+import inventory.example.inventory_id.response.ShoppingListResponse.CategoryGroup;
+import inventory.example.inventory_id.response.ShoppingListResponse.Entry;
+import inventory.example.inventory_id.service.ExpiryAlertService.UserAlerts;
+import inventory.example.inventory_id.util.ExpiringLruCache;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 買い物リストを作成するサービスクラスです。
+ * 在庫不足・有効期限・在庫切れ予測のそれぞれインデックスで絞り込んだ結果を
+ * アイテムごとにまとめ、カテゴリ別に急ぎの順で返します。
+ * 作成したリストはユーザーごとにキャッシュし、ユーザーのデータのバージョン
+ * (アイテム・入出庫レコード等の書き込み時)、有効期限アラートのバージョン、日付の
+ * いずれかが変わった場合に作り直します。在庫切れ予測は時間の経過で変わるため、
+ * キャッシュは有効期限を過ぎた場合も作り直します。
+ */
+@Service
+public class ShoppingListService {
+
+  private final ItemRepository itemRepository;
+  private final ExpiryAlertService expiryAlertService;
+  private final ConsumptionForecastService consumptionForecastService;
+  private final UserVersionService userVersionService;
+
+  // ユーザーごとの作成済みのリスト。件数と有効期限で上限を設ける
+  private volatile ExpiringLruCache<String, CachedList> listsByUser;
+
+  @Value("${inventory.shopping-list.cache.max-entries:10000}")
+  private int cacheMaxEntries = 10000;
+
+  @Value("${inventory.shopping-list.cache.ttl:1h}")
+  private Duration cacheTtl = Duration.ofHours(1);
+
+  /**
+   * キャッシュしたリストと、作成時のバージョン・有効期限アラートのバージョン・日付
+   */
+  record CachedList(
+    String version,
+    long alertVersion,
+    LocalDate date,
+    ShoppingListResponse list
+  ) {}
+
+  public ShoppingListService(
+    ItemRepository itemRepository,
+    ExpiryAlertService expiryAlertService,
+    ConsumptionForecastService consumptionForecastService,
+    UserVersionService userVersionService
+  ) {
+    this.itemRepository = itemRepository;
+    this.expiryAlertService = expiryAlertService;
+    this.consumptionForecastService = consumptionForecastService;
+    this.userVersionService = userVersionService;
+  }
+
+  /**
+   * ユーザーの買い物リストを取得する
+   *
+   * @param userId ユーザーID
+   * @return カテゴリ別の買い物リスト
+   */
+  public ShoppingListResponse getShoppingList(String userId) {
+    String version = userVersionService.getVersion(userId);
+    UserAlerts expiryAlerts = expiryAlertService.getUserAlerts(userId);
+    // 有効期限・在庫切れまでの日数は日付が変わると変わる
+    LocalDate today = LocalDate.now();
+
+    CachedList cached = cache().get(userId);
+    if (
+      version != null &&
+      cached != null &&
+      version.equals(cached.version()) &&
+      cached.alertVersion() == expiryAlerts.version() &&
+      today.equals(cached.date())
+    ) {
+      return cached.list();
+    }
+
+    ShoppingListResponse list = build(userId, expiryAlerts.alerts());
+    if (version != null) {
+      cache().put(
+        userId,
+        new CachedList(version, expiryAlerts.version(), today, list)
+      );
+    } else {
+      // バージョンが取得できない場合は古いリストを返さないようキャッシュしない
+      cache().invalidate(userId);
+    }
+    return list;
+  }
+
+  private ExpiringLruCache<String, CachedList> cache() {
+    ExpiringLruCache<String, CachedList> cache = listsByUser;
+    if (cache != null) {
+      return cache;
+    }
+    synchronized (this) {
+      if (listsByUser == null) {
+        listsByUser = new ExpiringLruCache<>(cacheMaxEntries, cacheTtl);
+      }
+      return listsByUser;
+    }
+  }
+
+  private ShoppingListResponse build(
+    String userId,
+    List<ExpiryAlertDto> expiryAlerts
+  ) {
+    Map<UUID, Entry> entries = new HashMap<>();
+    Map<UUID, String> categoryNames = new HashMap<>();
+
+    for (Item item : itemRepository.findLowStockByUserId(userId)) {
+      Entry entry = entryOf(entries, categoryNames, item);
+      merge(
+        entry,
+        ShoppingReason.LOW_STOCK,
+        0,
+        item.getReorderThreshold() - item.getTotalQuantity()
+      );
+    }
+
+    int horizonDays = consumptionForecastService.getDefaultHorizonDays();
+    for (StockoutForecastDto forecast : consumptionForecastService.getBuySoonItems(
+      userId,
+      horizonDays
+    )) {
+      Entry entry = entryOf(
+        entries,
+        categoryNames,
+        forecast.getItemId(),
+        forecast.getItemName(),
+        forecast.getCategoryName(),
+        forecast.getTotalQuantity()
+      );
+      // 対象日数分の消費に足りない数量
+      int shortage =
+        (int) Math.ceil(forecast.getConsumptionRate() * horizonDays) -
+        forecast.getTotalQuantity();
+      merge(
+        entry,
+        ShoppingReason.STOCKOUT_SOON,
+        forecast.getDaysUntilStockout(),
+        shortage
+      );
+    }
+
+    // 有効期限アラートはロット単位のため、アイテムごとに残り数量を合算する
+    Map<UUID, Integer> expiringQuantities = new HashMap<>();
+    Map<UUID, Long> expiringDays = new HashMap<>();
+    for (ExpiryAlertDto alert : expiryAlerts) {
+      expiringQuantities.merge(
+        alert.getItemId(),
+        alert.getRemainingQuantity(),
+        Integer::sum
+      );
+      expiringDays.merge(
+        alert.getItemId(),
+        alert.getDaysUntilExpiration(),
+        Math::min
+      );
+    }
+    List<UUID> missingItemIds = expiringQuantities
+      .keySet()
+      .stream()
+      .filter(itemId -> !entries.containsKey(itemId))
+      .toList();
+    if (!missingItemIds.isEmpty()) {
+      for (Item item : itemRepository.findAllById(missingItemIds)) {
+        if (!item.isDeletedFlag()) {
+          entryOf(entries, categoryNames, item);
+        }
+      }
+    }
+    expiringQuantities.forEach((itemId, quantity) -> {
+      Entry entry = entries.get(itemId);
+      if (entry == null) {
+        return;
+      }
+      long days = expiringDays.get(itemId);
+      merge(
+        entry,
+        days < 0 ? ShoppingReason.EXPIRED : ShoppingReason.EXPIRING,
+        Math.max(0, days),
+        quantity
+      );
+    });
+
+    // 急ぎの順に並べ、最初に現れた順でカテゴリにまとめる
+    Map<String, CategoryGroup> groups = new LinkedHashMap<>();
+    entries
+      .values()
+      .stream()
+      .sorted(
+        Comparator.comparingDouble(Entry::getDaysUntilNeeded).thenComparing(
+          Entry::getItemName
+        )
+      )
+      .forEach(entry -> {
+        String categoryName = categoryNames.get(entry.getItemId());
+        groups
+          .computeIfAbsent(categoryName, name -> {
+            CategoryGroup group = new CategoryGroup();
+            group.setCategoryName(name);
+            return group;
+          })
+          .getItems()
+          .add(entry);
+      });
+
+    ShoppingListResponse response = new ShoppingListResponse();
+    response.setGeneratedAt(LocalDateTime.now());
+    response.getCategories().addAll(groups.values());
+    return response;
+  }
+
+  private Entry entryOf(
+    Map<UUID, Entry> entries,
+    Map<UUID, String> categoryNames,
+    Item item
+  ) {
+    return entryOf(
+      entries,
+      categoryNames,
+      item.getId(),
+      item.getName(),
+      item.getCategoryName(),
+      item.getTotalQuantity()
+    );
+  }
+
+  private Entry entryOf(
+    Map<UUID, Entry> entries,
+    Map<UUID, String> categoryNames,
+    UUID itemId,
+    String itemName,
+    String categoryName,
+    int totalQuantity
+  ) {
+    return entries.computeIfAbsent(itemId, id -> {
+      Entry entry = new Entry();
+      entry.setItemId(id);
+      entry.setItemName(itemName);
+      entry.setTotalQuantity(totalQuantity);
+      entry.setDaysUntilNeeded(Double.MAX_VALUE);
+      categoryNames.put(id, categoryName);
+      return entry;
+    });
+  }
+
+  private void merge(
+    Entry entry,
+    ShoppingReason reason,
+    double daysUntilNeeded,
+    int quantity
+  ) {
+    entry.getReasons().add(reason);
+    entry.setDaysUntilNeeded(Math.min(entry.getDaysUntilNeeded(), daysUntilNeeded));
+    entry.setSuggestedQuantity(
+      Math.max(entry.getSuggestedQuantity(), Math.max(1, quantity))
+    );
+  }
+}
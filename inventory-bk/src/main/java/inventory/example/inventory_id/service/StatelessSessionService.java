@@ -0,0 +1,118 @@
+package inventory.example.inventory_id.service;
+
+import inventory.example.inventory_id.service.FirebaseAuthService.VerifiedIdToken;
+import inventory.example.inventory_id.util.VerifiedTokenCache;
+import java.time.Duration;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * ステートレスなセッション(auth.session.mode=stateless)を扱うサービスクラスです。
+ * firebase-tokenのCookieに署名付きのセッションCookieを保存し、リクエストごとに
+ * キャッシュした公開鍵で検証するため、Redisのセッションキャッシュを使いません。
+ * サインアウトしたCookieは{@link SessionRevocationList}で無効にします。
+ * アイドルタイムアウトはなく、セッションはCookieの有効期限まで有効です。
+ */
+@Service
+public class StatelessSessionService {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    StatelessSessionService.class
+  );
+
+  private static final Duration MAX_SESSION_AGE = Duration.ofDays(14);
+
+  private final FirebaseAuthService firebaseAuthService;
+  private final SessionRevocationList revocations;
+
+  // 検証済みのセッションCookie(有効期限まで保持)
+  private final VerifiedTokenCache verifiedSessions;
+
+  @Value("${auth.session.mode:redis}")
+  private String sessionMode;
+
+  public StatelessSessionService(
+    FirebaseAuthService firebaseAuthService,
+    SessionRevocationList revocations,
+    @Value(
+      "${auth.session.stateless.verified-cache-max-entries:10000}"
+    ) int maxVerifiedSessions
+  ) {
+    this.firebaseAuthService = firebaseAuthService;
+    this.revocations = revocations;
+    this.verifiedSessions = new VerifiedTokenCache(maxVerifiedSessions);
+  }
+
+  public boolean isEnabled() {
+    return "stateless".equalsIgnoreCase(sessionMode);
+  }
+
+  /**
+   * IDトークンからセッションCookieを作成する
+   *
+   * @param idToken 検証済みのIDトークン
+   * @return セッションCookie
+   */
+  public String createSessionCookie(String idToken) throws Exception {
+    return firebaseAuthService.createSessionCookie(idToken);
+  }
+
+  /**
+   * セッションCookieからユーザーIDを取得する
+   *
+   * @param sessionCookie セッションCookie
+   * @return ユーザーID(無効・有効期限切れ・無効化済みの場合はnull)
+   */
+  public String getUserId(String sessionCookie) {
+    if (sessionCookie == null || revocations.isRevoked(sessionCookie)) {
+      return null;
+    }
+    String cachedUserId = verifiedSessions.get(sessionCookie);
+    if (cachedUserId != null) {
+      return cachedUserId;
+    }
+    VerifiedIdToken session = verify(sessionCookie);
+    if (session == null) {
+      return null;
+    }
+    if (session.expiresAt() != null) {
+      verifiedSessions.put(
+        sessionCookie,
+        session.userId(),
+        session.expiresAt()
+      );
+    }
+    return session.userId();
+  }
+
+  /**
+   * セッションCookieを無効にする
+   * 検証できないCookieはそもそも使えないため、何もしない
+   *
+   * @param sessionCookie セッションCookie
+   */
+  public void revoke(String sessionCookie) {
+    VerifiedIdToken session = verify(sessionCookie);
+    verifiedSessions.invalidate(sessionCookie);
+    if (session == null) {
+      return;
+    }
+    // 有効期限が取得できない場合はセッションCookieの最大の有効期限まで保持する
+    Instant expiresAt = session.expiresAt() != null
+      ? session.expiresAt()
+      : Instant.now().plus(MAX_SESSION_AGE);
+    revocations.revoke(sessionCookie, expiresAt);
+  }
+
+  private VerifiedIdToken verify(String sessionCookie) {
+    try {
+      return firebaseAuthService.verifySessionCookie(sessionCookie);
+    } catch (Exception e) {
+      logger.debug("セッションCookieの検証エラー: {}", e.getMessage());
+      return null;
+    }
+  }
+}
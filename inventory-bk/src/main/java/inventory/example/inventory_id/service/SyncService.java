@@ -0,0 +1,256 @@
+package inventory.example.inventory_id.service;
+
+import inventory.example.inventory_id.dto.CategoryDto;
+import inventory.example.inventory_id.dto.ItemDto;
+import inventory.example.inventory_id.dto.ItemRecordDto;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.model.ItemRecord;
+import inventory.example.inventory_id.repository.CategoryRepository;
+import inventory.example.inventory_id.repository.ItemRecordRepository;
+import inventory.example.inventory_id.repository.ItemRepository;
+import inventory.example.inventory_id.response.SyncResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * クライアント向けの差分同期を提供するサービスクラスです。
+ * ウォーターマーク以降に作成・更新・削除されたカテゴリ、アイテム、入出庫レコードのみを返します。
+ */
+@Service
+public class SyncService {
+
+  private static final String WATERMARK_PREFIX = "v1:";
+  private static final String invalidWatermarkMsg = "同期トークンが不正です";
+
+  private final CategoryRepository categoryRepository;
+  private final ItemRepository itemRepository;
+  private final ItemRecordRepository itemRecordRepository;
+  private final SystemCategoryRegistry systemCategoryRegistry;
+  private final ConsumptionForecastService consumptionForecastService;
+
+  // 更新日時はコミット前にアプリケーションで設定されるため、ウォーターマークより前の日時の更新が
+  // 後からコミットされることがある。更新日時の設定からコミットまでは最大でトランザクションの
+  // タイムアウトまで(超えた文は失敗しロールバックされる)のため、その分ウォーターマークを戻す
+  @Value("${spring.transaction.default-timeout:30s}")
+  private Duration transactionTimeout;
+
+  // タイムアウト後のコミット処理や、ノード間の時計のずれを見込んだ余裕
+  @Value("${inventory.sync.overlap-margin:2s}")
+  private Duration overlapMargin;
+
+  public SyncService(
+    CategoryRepository categoryRepository,
+    ItemRepository itemRepository,
+    ItemRecordRepository itemRecordRepository,
+    SystemCategoryRegistry systemCategoryRegistry,
+    ConsumptionForecastService consumptionForecastService
+  ) {
+    this.categoryRepository = categoryRepository;
+    this.itemRepository = itemRepository;
+    this.itemRecordRepository = itemRecordRepository;
+    this.systemCategoryRegistry = systemCategoryRegistry;
+    this.consumptionForecastService = consumptionForecastService;
+  }
+
+  /**
+   * 指定のウォーターマーク以降の変更を取得します。
+   * ウォーターマークがない場合は全件を返します。
+   * 次回用のウォーターマークはコミットが遅れた更新を取りこぼさないよう過去に戻すため、
+   * 直近の変更は次回の同期でも重複して返ります。
+   *
+   * @param userId ユーザーID
+   * @param watermark 前回の同期で返されたトークン
+   * @return 変更データと次回用のウォーターマーク
+   */
+  @Transactional(readOnly = true)
+  public SyncResponse getChanges(String userId, String watermark) {
+    LocalDateTime until = LocalDateTime.now();
+    SyncResponse response = new SyncResponse();
+    response.setWatermark(
+      encodeWatermark(until.minus(transactionTimeout).minus(overlapMargin))
+    );
+
+    if (watermark == null || watermark.isBlank()) {
+      response.setFullSync(true);
+      Map<UUID, Long> itemCounts = countItemsByCategory(userId);
+      systemCategoryRegistry
+        .getAll()
+        .forEach(category ->
+          response
+            .getCategories()
+            .add(toCategoryDto(category, itemCounts))
+        );
+      categoryRepository
+        .findNotDeleted(userId)
+        .forEach(category ->
+          response.getCategories().add(toCategoryDto(category, itemCounts))
+        );
+      itemRepository
+        .findActiveByUserId(userId)
+        .forEach(item -> response.getItems().add(toItemDto(item)));
+      itemRecordRepository
+        .findUserItemRecords(userId)
+        .forEach(record -> response.getRecords().add(toItemRecordDto(record)));
+      return response;
+    }
+
+    LocalDateTime since = decodeWatermark(watermark);
+    SyncResponse.Tombstones deleted = response.getDeleted();
+
+    // デフォルトカテゴリは削除されず、変更はメモリ上の一覧の更新日時で判定する
+    List<SystemCategoryRegistry.SystemCategory> changedSystemCategories =
+      systemCategoryRegistry
+        .getAll()
+        .stream()
+        .filter(category -> isChangedBetween(category, since, until))
+        .toList();
+    List<Category> changedCategories = categoryRepository.findChangedBetween(
+      userId,
+      since,
+      until
+    );
+    if (!changedSystemCategories.isEmpty() || !changedCategories.isEmpty()) {
+      Map<UUID, Long> itemCounts = countItemsByCategory(userId);
+      changedSystemCategories.forEach(category ->
+        response.getCategories().add(toCategoryDto(category, itemCounts))
+      );
+      for (Category category : changedCategories) {
+        if (category.isDeletedFlag()) {
+          deleted.getCategories().add(category.getId());
+        } else {
+          response.getCategories().add(toCategoryDto(category, itemCounts));
+        }
+      }
+    }
+    for (Item item : itemRepository.findChangedBetween(userId, since, until)) {
+      if (item.isDeletedFlag()) {
+        deleted.getItems().add(item.getId());
+      } else {
+        response.getItems().add(toItemDto(item));
+      }
+    }
+    for (ItemRecord record : itemRecordRepository.findChangedBetween(
+      userId,
+      since,
+      until
+    )) {
+      if (record.isDeletedFlag()) {
+        deleted.getRecords().add(record.getId());
+      } else {
+        response.getRecords().add(toItemRecordDto(record));
+      }
+    }
+    return response;
+  }
+
+  String encodeWatermark(LocalDateTime time) {
+    return Base64.getUrlEncoder()
+      .withoutPadding()
+      .encodeToString(
+        (WATERMARK_PREFIX + time).getBytes(StandardCharsets.UTF_8)
+      );
+  }
+
+  LocalDateTime decodeWatermark(String watermark) {
+    try {
+      String decoded = new String(
+        Base64.getUrlDecoder().decode(watermark),
+        StandardCharsets.UTF_8
+      );
+      if (!decoded.startsWith(WATERMARK_PREFIX)) {
+        throw new IllegalArgumentException(invalidWatermarkMsg);
+      }
+      return LocalDateTime.parse(decoded.substring(WATERMARK_PREFIX.length()));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new IllegalArgumentException(invalidWatermarkMsg);
+    }
+  }
+
+  /**
+   * カテゴリごとのユーザーのアイテム数を集計クエリで取得
+   * デフォルトカテゴリの場合も他ユーザーのアイテムを読み込まない
+   */
+  private Map<UUID, Long> countItemsByCategory(String userId) {
+    return itemRepository
+      .countActiveByCategory(userId)
+      .stream()
+      .collect(
+        Collectors.toMap(
+          ItemRepository.CategoryItemCount::getCategoryId,
+          ItemRepository.CategoryItemCount::getItemCount
+        )
+      );
+  }
+
+  private boolean isChangedBetween(
+    SystemCategoryRegistry.SystemCategory category,
+    LocalDateTime since,
+    LocalDateTime until
+  ) {
+    LocalDateTime updatedAt = category.getUpdatedAt();
+    return (
+      updatedAt != null && updatedAt.isAfter(since) && !updatedAt.isAfter(until)
+    );
+  }
+
+  private CategoryDto toCategoryDto(
+    SystemCategoryRegistry.SystemCategory category,
+    Map<UUID, Long> itemCounts
+  ) {
+    return new CategoryDto(
+      category.getId(),
+      category.getName(),
+      itemCounts.getOrDefault(category.getId(), 0L).intValue(),
+      category.getUpdatedAt()
+    );
+  }
+
+  private CategoryDto toCategoryDto(
+    Category category,
+    Map<UUID, Long> itemCounts
+  ) {
+    return new CategoryDto(
+      category.getId(),
+      category.getName(),
+      itemCounts.getOrDefault(category.getId(), 0L).intValue(),
+      category.getUpdatedAt()
+    );
+  }
+
+  private ItemDto toItemDto(Item item) {
+    return new ItemDto(
+      item.getId(),
+      item.getName(),
+      item.getCategoryName(),
+      item.getTotalQuantity(),
+      item.getTotalPrice(),
+      item.getUpdatedAt(),
+      consumptionForecastService.estimateDaysUntilStockout(item)
+    );
+  }
+
+  private ItemRecordDto toItemRecordDto(ItemRecord record) {
+    return new ItemRecordDto(
+      record.getId(),
+      record.getItem().getName(),
+      record.getItem().getCategoryName(),
+      record.getQuantity(),
+      record.getPrice(),
+      record.getTransactionType(),
+      record.getExpirationDate(),
+      record.getCreatedAt(),
+      record.getItem().getId()
+    );
+  }
+}
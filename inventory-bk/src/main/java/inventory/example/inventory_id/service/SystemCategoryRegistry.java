@@ -0,0 +1,169 @@
+package inventory.example.inventory_id.service;
+
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.repository.CategoryRepository;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * システムのデフォルトカテゴリをメモリ上に保持するサービスクラスです。
+ * デフォルトカテゴリは全ユーザー共通でほとんど変更されないため、
+ * 起動時に読み込んだ不変のスナップショットをIDと名前で参照できるようにし、
+ * ユーザーのカテゴリの検索はuser_idのみで絞り込めるようにします。
+ * デフォルトカテゴリを変更した場合は全体バージョンを更新し、
+ * 各ノードが定期的にバージョンを確認してスナップショットを差し替えます。
+ */
+@Service
+public class SystemCategoryRegistry {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    SystemCategoryRegistry.class
+  );
+
+  private final CategoryRepository categoryRepository;
+  private final UserVersionService userVersionService;
+
+  @Value("${system.userid}")
+  private String systemUserId;
+
+  // 読み込み前は空のスナップショット。差し替えのみ行い、中身は変更しない
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+  /**
+   * デフォルトカテゴリ(読み取り専用)
+   */
+  @Getter
+  @AllArgsConstructor
+  public static final class SystemCategory {
+
+    private final UUID id;
+    private final String name;
+    private final LocalDateTime updatedAt;
+  }
+
+  private static final class Snapshot {
+
+    static final Snapshot EMPTY = new Snapshot(List.of(), null, false);
+
+    final List<SystemCategory> categories;
+    final Map<UUID, SystemCategory> byId;
+    final Map<String, SystemCategory> byName;
+    // 読み込み時の全体バージョン
+    final String globalVersion;
+    final boolean loaded;
+
+    Snapshot(
+      List<SystemCategory> categories,
+      String globalVersion,
+      boolean loaded
+    ) {
+      this.categories = List.copyOf(categories);
+      this.byId = categories
+        .stream()
+        .collect(
+          Collectors.toUnmodifiableMap(SystemCategory::getId, Function.identity())
+        );
+      this.byName = categories
+        .stream()
+        .collect(
+          Collectors.toUnmodifiableMap(
+            SystemCategory::getName,
+            Function.identity(),
+            (first, second) -> first
+          )
+        );
+      this.globalVersion = globalVersion;
+      this.loaded = loaded;
+    }
+  }
+
+  public SystemCategoryRegistry(
+    CategoryRepository categoryRepository,
+    UserVersionService userVersionService
+  ) {
+    this.categoryRepository = categoryRepository;
+    this.userVersionService = userVersionService;
+  }
+
+  public String getSystemUserId() {
+    return systemUserId;
+  }
+
+  /**
+   * デフォルトカテゴリを名前の昇順で取得
+   */
+  public List<SystemCategory> getAll() {
+    return current().categories;
+  }
+
+  public Optional<SystemCategory> findById(UUID id) {
+    return Optional.ofNullable(current().byId.get(id));
+  }
+
+  public Optional<SystemCategory> findByName(String name) {
+    return Optional.ofNullable(current().byName.get(name));
+  }
+
+  public boolean contains(UUID id) {
+    return current().byId.containsKey(id);
+  }
+
+  /**
+   * データベースからデフォルトカテゴリを読み込み、スナップショットを差し替える
+   */
+  public synchronized void refresh() {
+    // 読み込み中に変更された場合も次回の確認で再読み込みされるよう、先にバージョンを取得する
+    String globalVersion = userVersionService.getGlobalVersion();
+    List<SystemCategory> categories = categoryRepository
+      .findNotDeleted(systemUserId)
+      .stream()
+      .map(this::toSystemCategory)
+      .sorted(Comparator.comparing(SystemCategory::getName))
+      .toList();
+    snapshot = new Snapshot(categories, globalVersion, true);
+    logger.info("デフォルトカテゴリを読み込みました: {}件", categories.size());
+  }
+
+  /**
+   * 全体バージョンが変わっていればデフォルトカテゴリを再読み込みする
+   */
+  @Scheduled(
+    fixedDelayString = "${inventory.system-categories.refresh-interval:30s}"
+  )
+  public void refreshIfChanged() {
+    String globalVersion = userVersionService.getGlobalVersion();
+    if (globalVersion != null && !globalVersion.equals(snapshot.globalVersion)) {
+      refresh();
+    }
+  }
+
+  private Snapshot current() {
+    Snapshot current = snapshot;
+    if (!current.loaded) {
+      refresh();
+      current = snapshot;
+    }
+    return current;
+  }
+
+  private SystemCategory toSystemCategory(Category category) {
+    return new SystemCategory(
+      category.getId(),
+      category.getName(),
+      category.getUpdatedAt()
+    );
+  }
+}
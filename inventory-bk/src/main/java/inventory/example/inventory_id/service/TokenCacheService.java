@@ -1,13 +1,26 @@
 package inventory.example.inventory_id.service;
 
+import inventory.example.inventory_id.util.CircuitBreaker;
+import inventory.example.inventory_id.util.VerifiedTokenCache;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * ユーザーのセッション(トークンとユーザーID)をRedisで管理するサービスクラスです。
+ * Redisの呼び出しはサーキットブレーカーで保護し、障害時はこのノードで認証済みの
+ * セッションをローカルのコピーから取得します(アイドルタイムアウトはローカルで延長します)。
+ * 障害中のサインアウトでRedisから削除できなかったセッションは、このノードでは無効として扱い、
+ * 削除できるまで定期的に再実行します。
+ */
 @Service
 public class TokenCacheService {
 
@@ -17,26 +30,46 @@ public class TokenCacheService {
   @Autowired
   private RedisTemplate<String, Object> redisTemplate;
 
+  @Autowired
+  private CircuitBreaker redisCircuitBreaker;
+
   private static final String SESSION_PREFIX = "user_session:";
 
   @Value("${spring.cache.redis.time-to-live:5m}")
   private Duration SESSION_TIMEOUT;
 
+  // このノードで認証済みのセッション(Redisの障害時に使う)
+  private final VerifiedTokenCache localSessions;
+
+  // サインアウトしたがRedisから削除できなかったトークン。削除できるまで保持し、再実行する
+  private final Set<String> unsyncedSignOuts = ConcurrentHashMap.newKeySet();
+
+  public TokenCacheService(
+      @Value("${inventory.redis.local-sessions.max-entries:10000}") int maxLocalSessions) {
+    this.localSessions = new VerifiedTokenCache(maxLocalSessions);
+  }
+
   /**
    * 認証成功後にユーザーをキャッシュする
+   * Redisに保存できない場合も、このノードではセッションを使える
    *
    * @param token  認証トークン (JWT/Firebaseトークン)
    * @param userId キャッシュするユーザーID
    */
   public void cacheUser(String token, String userId) {
     String sessionKey = SESSION_PREFIX + token;
-    try {
-      redisTemplate.opsForValue().set(sessionKey, userId, SESSION_TIMEOUT);
-      logger.info("ユーザーIDをRedisにキャッシュしました");
-    } catch (Exception e) {
-      logger.error("Redis キャッシュエラー: {}", e.getMessage(), e);
-      throw e;
-    }
+    unsyncedSignOuts.remove(token);
+    keepLocally(token, userId);
+    redisCircuitBreaker.execute(
+        () -> {
+          redisTemplate.opsForValue().set(sessionKey, userId, SESSION_TIMEOUT);
+          logger.info("ユーザーIDをRedisにキャッシュしました");
+          return null;
+        },
+        () -> {
+          logger.warn("Redisが利用できないため、セッションをローカルに保持します");
+          return null;
+        });
   }
 
   /**
@@ -46,36 +79,105 @@ public class TokenCacheService {
    * @return 見つかった場合はユーザーID、見つからない場合はnull
    */
   public String getUserIdFromCache(String token) {
+    if (unsyncedSignOuts.contains(token)) {
+      return null;
+    }
     String sessionKey = SESSION_PREFIX + token;
-    try {
-      Object userId = redisTemplate.opsForValue().get(sessionKey);
-
-      if (userId != null) {
-        logger.info(
-            "RedisからユーザーIDを取得しました (キャッシュヒット)");
-        return userId.toString();
-      } else {
-        logger.info(
-            "RedisにユーザーIDが見つかりませんでした (キャッシュミス)");
-        return null;
-      }
-    } catch (Exception e) {
-      logger.error("Redis 読み取りエラー: {}", e.getMessage(), e);
-      return null; // Fall back to null if Redis fails
+    return redisCircuitBreaker.execute(
+        () -> {
+          Object userId = redisTemplate.opsForValue().get(sessionKey);
+          if (userId != null) {
+            logger.info(
+                "RedisからユーザーIDを取得しました (キャッシュヒット)");
+            return userId.toString();
+          } else {
+            logger.info(
+                "RedisにユーザーIDが見つかりませんでした (キャッシュミス)");
+            localSessions.invalidate(token);
+            return null;
+          }
+        },
+        () -> localSessions.get(token));
+  }
+
+  /**
+   * キャッシュからユーザーIDを取得し、同時にタイムアウトを延長する
+   * GETEXで取得と延長を1回の呼び出しで行う
+   *
+   * @param token 認証トークン
+   * @return 見つかった場合はユーザーID、見つからない場合はnull
+   */
+  public String getUserIdAndRefresh(String token) {
+    if (unsyncedSignOuts.contains(token)) {
+      return null;
+    }
+    String sessionKey = SESSION_PREFIX + token;
+    String userId = redisCircuitBreaker.execute(
+        () -> {
+          Object cached = redisTemplate
+              .opsForValue()
+              .getAndExpire(sessionKey, SESSION_TIMEOUT);
+          if (cached == null) {
+            // 他のノードでサインアウトしたセッションはローカルでも使わない
+            localSessions.invalidate(token);
+            return null;
+          }
+          return cached.toString();
+        },
+        () -> localSessions.get(token));
+    if (userId != null) {
+      keepLocally(token, userId);
     }
+    return userId;
   }
 
   /**
    * キャッシュからユーザーキャッシュを削除する (サインアウト)
+   * Redisから削除できない場合は、このノードでは無効として扱い、削除を再実行する
    *
    * @param token 認証トークン
    */
   public void removeUserCache(String token) {
-    String sessionKey = SESSION_PREFIX + token;
-    Boolean deleted = redisTemplate.delete(sessionKey);
-    logger.info(
-        "RedisからユーザーIDを削除しました: deleted={}",
-        deleted);
+    // 削除の完了前に他のリクエストがRedisから読み込んだ場合も使わないよう、先に登録する
+    unsyncedSignOuts.add(token);
+    localSessions.invalidate(token);
+    if (deleteFromRedis(token)) {
+      logger.info("RedisからユーザーIDを削除しました");
+    } else {
+      logger.warn("Redisが利用できないため、セッションの削除を後で再実行します");
+    }
+  }
+
+  /**
+   * Redisから削除できなかったサインアウトを再実行する
+   * Redisが利用できない間は、最初の失敗で中断する
+   */
+  @Scheduled(
+      fixedDelayString = "${inventory.redis.sign-out-retry-interval:5s}")
+  public void retryUnsyncedSignOuts() {
+    for (String token : unsyncedSignOuts) {
+      if (!deleteFromRedis(token)) {
+        return;
+      }
+    }
+  }
+
+  int getUnsyncedSignOutCount() {
+    return unsyncedSignOuts.size();
+  }
+
+  // 削除できた場合(既に存在しない場合を含む)は再実行の対象から外す
+  private boolean deleteFromRedis(String token) {
+    boolean deleted = redisCircuitBreaker.execute(
+        () -> {
+          redisTemplate.delete(SESSION_PREFIX + token);
+          return true;
+        },
+        () -> false);
+    if (deleted) {
+      unsyncedSignOuts.remove(token);
+    }
+    return deleted;
   }
 
   /**
@@ -84,8 +186,17 @@ public class TokenCacheService {
    * @param token 認証トークン
    */
   public void refreshUserCache(String token) {
+    if (unsyncedSignOuts.contains(token)) {
+      return;
+    }
     String sessionKey = SESSION_PREFIX + token;
-    Boolean refreshed = redisTemplate.expire(sessionKey, SESSION_TIMEOUT);
+    Boolean refreshed = redisCircuitBreaker.execute(
+        () -> redisTemplate.expire(sessionKey, SESSION_TIMEOUT),
+        () -> false);
+    String userId = localSessions.get(token);
+    if (userId != null) {
+      keepLocally(token, userId);
+    }
     logger.info(
         "ユーザーIDキャッシュタイムアウトを延長しました: refreshed={}",
         refreshed);
@@ -98,7 +209,17 @@ public class TokenCacheService {
    * @return キャッシュが存在する場合true、存在しない場合false
    */
   public boolean isTokenCached(String token) {
+    if (unsyncedSignOuts.contains(token)) {
+      return false;
+    }
     String sessionKey = SESSION_PREFIX + token;
-    return redisTemplate.hasKey(sessionKey);
+    return redisCircuitBreaker.execute(
+        () -> Boolean.TRUE.equals(redisTemplate.hasKey(sessionKey)),
+        () -> localSessions.get(token) != null);
+  }
+
+  // ローカルのコピーはアイドルタイムアウトまで保持する
+  private void keepLocally(String token, String userId) {
+    localSessions.put(token, userId, Instant.now().plus(SESSION_TIMEOUT));
   }
 }
@@ -0,0 +1,170 @@
+package inventory.example.inventory_id.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * ユーザーごとのデータのバージョンを管理するサービスクラスです。
+ * アイテム・カテゴリ・入出庫レコードの書き込み時にバージョンを更新し、
+ * 一覧・詳細取得時のETag生成に利用します。
+ * バージョンはRedisのエポック(初回に生成する乱数)とカウンターから作るため、
+ * Redisのデータが失われてカウンターが0から数え直しになっても、以前のETagとは一致しません。
+ */
+@Service
+public class UserVersionService {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    UserVersionService.class
+  );
+
+  private static final String VERSION_PREFIX = "user_version:";
+  // システムのデフォルトカテゴリなど、全ユーザーに影響するデータのバージョン
+  private static final String GLOBAL_VERSION_KEY = VERSION_PREFIX + "global";
+  // カウンターと同じRedisに保存する乱数。データが失われた場合は別の値で作り直される
+  private static final String EPOCH_KEY = VERSION_PREFIX + "epoch";
+
+  private final StringRedisTemplate redisTemplate;
+
+  // Redis障害でバージョンを更新できなかったユーザー。更新できるまでETagを返さない
+  private final Set<String> pendingBumps = ConcurrentHashMap.newKeySet();
+
+  public UserVersionService(StringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  /**
+   * 現在のバージョンを取得する
+   *
+   * @param userId ユーザーID
+   * @return "エポック.全体バージョン.ユーザーバージョン"形式の文字列、取得できない場合はnull
+   */
+  public String getVersion(String userId) {
+    if (!pendingBumps.isEmpty() && pendingBumps.contains(userId)) {
+      increment(userId);
+      if (pendingBumps.contains(userId)) {
+        return null;
+      }
+    }
+    try {
+      List<String> values = redisTemplate
+        .opsForValue()
+        .multiGet(
+          List.of(EPOCH_KEY, GLOBAL_VERSION_KEY, VERSION_PREFIX + userId)
+        );
+      if (values == null) {
+        return null;
+      }
+      String epoch = values.get(0) != null ? values.get(0) : createEpoch();
+      return (
+        epoch +
+        "." +
+        valueOrZero(values.get(1)) +
+        "." +
+        valueOrZero(values.get(2))
+      );
+    } catch (Exception e) {
+      logger.warn("バージョン取得エラー: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * 全ユーザーに影響するデータのバージョンを取得する
+   *
+   * @return "エポック.全体バージョン"形式の文字列、取得できない場合はnull
+   */
+  public String getGlobalVersion() {
+    try {
+      List<String> values = redisTemplate
+        .opsForValue()
+        .multiGet(List.of(EPOCH_KEY, GLOBAL_VERSION_KEY));
+      if (values == null) {
+        return null;
+      }
+      String epoch = values.get(0) != null ? values.get(0) : createEpoch();
+      return epoch + "." + valueOrZero(values.get(1));
+    } catch (Exception e) {
+      logger.warn("全体バージョン取得エラー: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * ユーザーのデータが変更されたときにバージョンを更新する
+   * トランザクション内で呼び出した場合はコミット後に更新する
+   * (コミット前に更新すると、並行する取得が変更前のデータに新しいETagを付けてしまうため)
+   *
+   * @param userId ユーザーID
+   */
+  public void bump(String userId) {
+    afterCommit(() -> increment(userId));
+  }
+
+  /**
+   * 全ユーザーに影響するデータ(デフォルトカテゴリ等)が変更されたときにバージョンを更新する
+   * トランザクション内で呼び出した場合はコミット後に更新する
+   */
+  public void bumpGlobal() {
+    afterCommit(() -> {
+      try {
+        redisTemplate.opsForValue().increment(GLOBAL_VERSION_KEY);
+      } catch (Exception e) {
+        logger.warn("全体バージョン更新エラー: {}", e.getMessage());
+      }
+    });
+  }
+
+  private void increment(String userId) {
+    try {
+      redisTemplate.opsForValue().increment(VERSION_PREFIX + userId);
+      pendingBumps.remove(userId);
+    } catch (Exception e) {
+      logger.warn("バージョン更新エラー: {}", e.getMessage());
+      pendingBumps.add(userId);
+    }
+  }
+
+  // ロールバックした場合は更新しない
+  private void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      }
+    );
+  }
+
+  /**
+   * エポックを作成する(他のノードが先に作成した場合はその値を使う)
+   */
+  private String createEpoch() {
+    String candidate = UUID.randomUUID().toString().substring(0, 8);
+    Boolean created = redisTemplate
+      .opsForValue()
+      .setIfAbsent(EPOCH_KEY, candidate);
+    if (Boolean.TRUE.equals(created)) {
+      logger.info("バージョンのエポックを作成しました: {}", candidate);
+      return candidate;
+    }
+    String existing = redisTemplate.opsForValue().get(EPOCH_KEY);
+    return existing != null ? existing : candidate;
+  }
+
+  private String valueOrZero(String value) {
+    return value != null ? value : "0";
+  }
+}
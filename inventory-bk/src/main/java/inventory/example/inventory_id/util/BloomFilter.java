@@ -0,0 +1,80 @@
+package inventory.example.inventory_id.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 文字列の集合に含まれるかを少ないメモリで判定するブルームフィルターです。
+ * 含まれない場合は必ずfalseを返し、含まれる場合と一部の含まれない場合(偽陽性)にtrueを返します。
+ * 追加と判定は複数のスレッドから同時に行えます。
+ */
+public class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long numBits;
+  private final int numHashes;
+
+  /**
+   * @param expectedInsertions 追加する件数の想定
+   * @param falsePositiveRate  想定件数を追加した場合の偽陽性の割合
+   */
+  public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+    int n = Math.max(1, expectedInsertions);
+    double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+    double ln2 = Math.log(2);
+    long m = (long) Math.ceil((-n * Math.log(p)) / (ln2 * ln2));
+    int words = (int) Math.min((m + 63) / 64, Integer.MAX_VALUE - 8);
+    this.bits = new AtomicLongArray(Math.max(1, words));
+    this.numBits = (long) bits.length() * 64;
+    this.numHashes = Math.max(
+      1,
+      (int) Math.round(((double) numBits / n) * ln2)
+    );
+  }
+
+  public void put(String value) {
+    long h1 = fnv1a(value);
+    long h2 = mix(h1);
+    for (int i = 0; i < numHashes; i++) {
+      long index = Math.floorMod(h1 + i * h2, numBits);
+      int word = (int) (index >>> 6);
+      long mask = 1L << (index & 63);
+      long current;
+      do {
+        current = bits.get(word);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  public boolean mightContain(String value) {
+    long h1 = fnv1a(value);
+    long h2 = mix(h1);
+    for (int i = 0; i < numHashes; i++) {
+      long index = Math.floorMod(h1 + i * h2, numBits);
+      if ((bits.get((int) (index >>> 6)) & (1L << (index & 63))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long fnv1a(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= (b & 0xff);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  // 2つ目のハッシュ値(0にならないよう奇数にする)
+  private static long mix(long hash) {
+    long z = hash + 0x9e3779b97f4a7c15L;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return (z ^ (z >>> 31)) | 1L;
+  }
+}
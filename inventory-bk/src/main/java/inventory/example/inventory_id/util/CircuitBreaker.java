@@ -0,0 +1,141 @@
+package inventory.example.inventory_id.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 外部の依存先(Redis・Firebase)の障害時に呼び出しを止めるサーキットブレーカーです。
+ * 連続した失敗が閾値に達すると一定時間呼び出しを止め(OPEN)、その間は待たずに代替の処理を行います。
+ * 一定時間の経過後は1件だけ試行し(HALF_OPEN)、成功すれば呼び出しを再開します。
+ * 失敗回数の閾値が0以下の場合は常に呼び出します。
+ */
+public class CircuitBreaker {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    CircuitBreaker.class
+  );
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN,
+  }
+
+  private final String name;
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final Clock clock;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures = 0;
+  private Instant openedAt;
+
+  // HALF_OPENで試行中の呼び出しがあるか
+  private boolean trialInFlight = false;
+
+  public CircuitBreaker(
+    String name,
+    int failureThreshold,
+    Duration openDuration
+  ) {
+    this(name, failureThreshold, openDuration, Clock.systemUTC());
+  }
+
+  public CircuitBreaker(
+    String name,
+    int failureThreshold,
+    Duration openDuration,
+    Clock clock
+  ) {
+    this.name = name;
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.clock = clock;
+  }
+
+  /**
+   * 呼び出してよいかを判定する
+   * trueを返した場合は、結果を{@link #onSuccess()}・{@link #onFailure()}で通知する
+   */
+  public synchronized boolean tryAcquirePermission() {
+    if (failureThreshold <= 0) {
+      return true;
+    }
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        trialInFlight = true;
+        return true;
+      default:
+        if (trialInFlight) {
+          return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+  }
+
+  public synchronized void onSuccess() {
+    if (state != State.CLOSED) {
+      logger.info("{}への呼び出しを再開します", name);
+    }
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    trialInFlight = false;
+  }
+
+  public synchronized void onFailure() {
+    if (failureThreshold <= 0) {
+      return;
+    }
+    trialInFlight = false;
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      if (state != State.OPEN) {
+        logger.warn(
+          "{}への呼び出しが{}回連続で失敗したため、{}秒間停止します",
+          name,
+          consecutiveFailures,
+          openDuration.toSeconds()
+        );
+      }
+      state = State.OPEN;
+      openedAt = clock.instant();
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * 呼び出しを実行し、停止中または失敗した場合は代替の処理の結果を返す
+   *
+   * @param action   依存先の呼び出し
+   * @param fallback 代替の処理
+   */
+  public <T> T execute(Supplier<T> action, Supplier<T> fallback) {
+    if (!tryAcquirePermission()) {
+      return fallback.get();
+    }
+    T result;
+    try {
+      result = action.get();
+    } catch (RuntimeException e) {
+      onFailure();
+      logger.warn("{}の呼び出しエラー: {}", name, e.getMessage());
+      return fallback.get();
+    }
+    onSuccess();
+    return result;
+  }
+}
@@ -0,0 +1,113 @@
+package inventory.example.inventory_id.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 件数の上限と有効期限のあるメモリ上のキャッシュです。
+ * 件数が上限を超えた場合は参照が古いものから削除し、有効期限を過ぎたエントリは返しません。
+ * 読み込み中に削除(invalidate)された場合は、読み込んだ値を保持しません
+ * (削除前のデータを読み込んだ可能性があるため)。
+ */
+public class ExpiringLruCache<K, V> {
+
+  private final int maxEntries;
+  private final Duration ttl;
+  private final Clock clock;
+  private final Map<K, Entry<V>> entries;
+
+  // 削除のたびに進める。読み込みの前後で変わった場合は読み込んだ値を保持しない
+  private long invalidations = 0;
+
+  public ExpiringLruCache(int maxEntries, Duration ttl) {
+    this(maxEntries, ttl, Clock.systemUTC());
+  }
+
+  public ExpiringLruCache(int maxEntries, Duration ttl, Clock clock) {
+    this.maxEntries = maxEntries;
+    this.ttl = ttl;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        return size() > ExpiringLruCache.this.maxEntries;
+      }
+    };
+  }
+
+  private record Entry<V>(V value, Instant expiresAt) {}
+
+  /**
+   * 有効期限内の値を取得する
+   *
+   * @return 保持していない、または有効期限を過ぎた場合はnull
+   */
+  public V get(K key) {
+    synchronized (entries) {
+      Entry<V> entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (!clock.instant().isBefore(entry.expiresAt())) {
+        entries.remove(key);
+        return null;
+      }
+      return entry.value();
+    }
+  }
+
+  /**
+   * 値を取得し、保持していない場合は読み込んで保持する
+   * 読み込みはロックの外で行うため、同じキーを同時に読み込む場合がある
+   *
+   * @param key    キー
+   * @param loader 値の読み込み
+   */
+  public V getOrLoad(K key, Function<K, V> loader) {
+    long stamp;
+    synchronized (entries) {
+      V cached = get(key);
+      if (cached != null) {
+        return cached;
+      }
+      stamp = invalidations;
+    }
+    V loaded = loader.apply(key);
+    synchronized (entries) {
+      if (stamp == invalidations && loaded != null) {
+        putLocked(key, loaded);
+      }
+    }
+    return loaded;
+  }
+
+  public void put(K key, V value) {
+    synchronized (entries) {
+      putLocked(key, value);
+    }
+  }
+
+  public void invalidate(K key) {
+    synchronized (entries) {
+      invalidations++;
+      entries.remove(key);
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private void putLocked(K key, V value) {
+    if (maxEntries <= 0) {
+      return;
+    }
+    entries.put(key, new Entry<>(value, clock.instant().plus(ttl)));
+  }
+}
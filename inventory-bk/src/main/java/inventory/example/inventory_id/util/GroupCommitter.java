@@ -0,0 +1,164 @@
+package inventory.example.inventory_id.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 並行して届いた書き込みを短時間まとめ、1回のトランザクションで書き込むためのキューです。
+ * 最初の書き込みが届いてから最大待ち時間が経過するか、最大件数に達した時点で
+ * まとめた書き込みを専用のスレッドでハンドラーに渡します。
+ * ハンドラーは各書き込みの結果を{@link Entry#complete}または{@link Entry#fail}で返します。
+ *
+ * @param <T> 書き込みの内容
+ * @param <R> 書き込みの結果
+ */
+public class GroupCommitter<T, R> {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    GroupCommitter.class
+  );
+
+  private final BlockingQueue<Entry<T, R>> queue = new LinkedBlockingQueue<>();
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final Consumer<List<Entry<T, R>>> handler;
+  private final Thread worker;
+  private volatile boolean running = true;
+
+  public GroupCommitter(
+    String name,
+    int maxBatchSize,
+    Duration maxDelay,
+    Consumer<List<Entry<T, R>>> handler
+  ) {
+    this.maxBatchSize = Math.max(1, maxBatchSize);
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.handler = handler;
+    this.worker = new Thread(this::run, name);
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   * 書き込みをキューに追加する
+   *
+   * @param request 書き込みの内容
+   * @return まとめた書き込みの完了時に結果を返すFuture
+   */
+  public CompletableFuture<R> submit(T request) {
+    if (!running) {
+      throw new RejectedExecutionException("書き込みキューは停止しています");
+    }
+    Entry<T, R> entry = new Entry<>(request);
+    queue.add(entry);
+    // 追加と停止が重なり、処理されずに残った場合
+    if (!worker.isAlive() && queue.remove(entry)) {
+      entry.fail(new RejectedExecutionException("書き込みキューは停止しています"));
+    }
+    return entry.result;
+  }
+
+  /**
+   * キューを停止する
+   * 停止前に追加された書き込みはすべて処理してから終了する
+   */
+  public void shutdown() {
+    running = false;
+    worker.interrupt();
+    try {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    while (running || !queue.isEmpty()) {
+      List<Entry<T, R>> batch;
+      try {
+        batch = nextBatch();
+      } catch (InterruptedException e) {
+        // 停止時は残りの書き込みを待たずにまとめる
+        batch = new ArrayList<>();
+        queue.drainTo(batch, maxBatchSize);
+      }
+      if (!batch.isEmpty()) {
+        handle(batch);
+      }
+    }
+  }
+
+  private List<Entry<T, R>> nextBatch() throws InterruptedException {
+    List<Entry<T, R>> batch = new ArrayList<>();
+    batch.add(queue.take());
+    long deadline = System.nanoTime() + maxDelayNanos;
+    while (batch.size() < maxBatchSize) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        break;
+      }
+      Entry<T, R> next;
+      try {
+        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        // 停止時はまとめ中の書き込みを失わないよう、残りを待たずに返す
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        break;
+      }
+      if (next == null) {
+        break;
+      }
+      batch.add(next);
+    }
+    return batch;
+  }
+
+  private void handle(List<Entry<T, R>> batch) {
+    try {
+      handler.accept(batch);
+    } catch (RuntimeException e) {
+      logger.warn("まとめた書き込みに失敗しました: {}", e.getMessage());
+      batch.forEach(entry -> entry.fail(e));
+    }
+    for (Entry<T, R> entry : batch) {
+      if (!entry.result.isDone()) {
+        entry.fail(new IllegalStateException("書き込みの結果がありません"));
+      }
+    }
+  }
+
+  /**
+   * まとめた書き込みの1件
+   */
+  public static final class Entry<T, R> {
+
+    private final T request;
+    private final CompletableFuture<R> result = new CompletableFuture<>();
+
+    private Entry(T request) {
+      this.request = request;
+    }
+
+    public T getRequest() {
+      return request;
+    }
+
+    public void complete(R value) {
+      result.complete(value);
+    }
+
+    public void fail(Throwable error) {
+      result.completeExceptionally(error);
+    }
+  }
+}
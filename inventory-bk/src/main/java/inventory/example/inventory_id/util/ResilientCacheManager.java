@@ -0,0 +1,142 @@
+package inventory.example.inventory_id.util;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * キャッシュの呼び出しをサーキットブレーカーで保護するCacheManagerです。
+ * キャッシュが利用できない場合、読み取りはキャッシュミスとして扱い(DBから取得する)、
+ * 書き込みは行いません。削除は失敗を呼び出し元に返し、アウトボックスで再実行させます。
+ */
+public class ResilientCacheManager implements CacheManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    ResilientCacheManager.class
+  );
+
+  private final CacheManager delegate;
+  private final CircuitBreaker circuitBreaker;
+  private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+  public ResilientCacheManager(
+    CacheManager delegate,
+    CircuitBreaker circuitBreaker
+  ) {
+    this.delegate = delegate;
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    Cache cache = caches.get(name);
+    if (cache != null) {
+      return cache;
+    }
+    Cache target = delegate.getCache(name);
+    if (target == null) {
+      return null;
+    }
+    return caches.computeIfAbsent(name, key -> new ResilientCache(target));
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return delegate.getCacheNames();
+  }
+
+  private class ResilientCache implements Cache {
+
+    private final Cache target;
+
+    ResilientCache(Cache target) {
+      this.target = target;
+    }
+
+    @Override
+    public String getName() {
+      return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+      return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+      return circuitBreaker.execute(() -> target.get(key), () -> null);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+      return circuitBreaker.execute(() -> target.get(key, type), () -> null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+      ValueWrapper cached = get(key);
+      if (cached != null) {
+        return (T) cached.get();
+      }
+      T value;
+      try {
+        value = valueLoader.call();
+      } catch (Exception e) {
+        throw new ValueRetrievalException(key, valueLoader, e);
+      }
+      put(key, value);
+      return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+      circuitBreaker.execute(
+        () -> {
+          target.put(key, value);
+          return null;
+        },
+        () -> null
+      );
+    }
+
+    @Override
+    public void evict(Object key) {
+      write(() -> {
+        target.evict(key);
+        return null;
+      });
+    }
+
+    @Override
+    public void clear() {
+      write(() -> {
+        target.clear();
+        return null;
+      });
+    }
+
+    private void write(Supplier<Void> action) {
+      if (!circuitBreaker.tryAcquirePermission()) {
+        throw new IllegalStateException(
+          "キャッシュが利用できないため削除できません: " + getName()
+        );
+      }
+      try {
+        action.get();
+      } catch (RuntimeException e) {
+        circuitBreaker.onFailure();
+        logger.warn("キャッシュの削除エラー: {}", e.getMessage());
+        throw e;
+      }
+      circuitBreaker.onSuccess();
+    }
+  }
+}
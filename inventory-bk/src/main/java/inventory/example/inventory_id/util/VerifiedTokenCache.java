@@ -0,0 +1,107 @@
+package inventory.example.inventory_id.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 検証済みのIDトークンとユーザーIDを保持するキャッシュです。
+ * トークンそのものは保持せず、SHA-256のハッシュをキーにします。
+ * 各エントリはトークンの有効期限(expクレーム)まで有効で、
+ * 件数が上限を超えた場合は参照が古いものから削除します。
+ */
+public class VerifiedTokenCache {
+
+  private final int maxEntries;
+  private final Clock clock;
+  private final Map<String, Entry> entries;
+
+  public VerifiedTokenCache(int maxEntries) {
+    this(maxEntries, Clock.systemUTC());
+  }
+
+  public VerifiedTokenCache(int maxEntries, Clock clock) {
+    this.maxEntries = maxEntries;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > VerifiedTokenCache.this.maxEntries;
+      }
+    };
+  }
+
+  private record Entry(String userId, Instant expiresAt) {}
+
+  /**
+   * 検証済みのトークンのユーザーIDを取得する
+   *
+   * @param token IDトークン
+   * @return 有効期限内の検証済みトークンの場合はユーザーID、それ以外はnull
+   */
+  public String get(String token) {
+    String key = hash(token);
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (!clock.instant().isBefore(entry.expiresAt())) {
+        entries.remove(key);
+        return null;
+      }
+      return entry.userId();
+    }
+  }
+
+  /**
+   * 検証済みのトークンを保持する
+   * 有効期限を過ぎているトークンは保持しない
+   *
+   * @param token     IDトークン
+   * @param userId    ユーザーID
+   * @param expiresAt トークンの有効期限
+   */
+  public void put(String token, String userId, Instant expiresAt) {
+    if (maxEntries <= 0 || !clock.instant().isBefore(expiresAt)) {
+      return;
+    }
+    String key = hash(token);
+    synchronized (entries) {
+      entries.put(key, new Entry(userId, expiresAt));
+    }
+  }
+
+  /**
+   * 保持しているトークンを削除する(サインアウトなどで無効にした場合)
+   */
+  public void invalidate(String token) {
+    String key = hash(token);
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private static String hash(String token) {
+    try {
+      return HexFormat.of().formatHex(
+        MessageDigest.getInstance("SHA-256").digest(
+          token.getBytes(StandardCharsets.UTF_8)
+        )
+      );
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("トークンのハッシュを計算できません", e);
+    }
+  }
+}
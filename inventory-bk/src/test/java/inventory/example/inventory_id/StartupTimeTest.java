@@ -0,0 +1,91 @@
+package inventory.example.inventory_id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 起動から最初のリクエストに応答するまでの時間の回帰テスト
+ * 他のテストでクラスの読み込みが済んでいる場合は実際より短くなるため、上限は余裕を持たせる
+ * (環境に合わせて -Dinventory.startup.max-time-to-first-request-ms で変更できる)
+ * アプリケーション全体を起動するため、testタスクでは実行せずintegrationTestタスクで実行する
+ */
+@Tag("integration")
+@DisplayName("Startup Time Tests")
+public class StartupTimeTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    StartupTimeTest.class
+  );
+
+  private static final long MAX_TIME_TO_FIRST_REQUEST_MILLIS = Long.getLong(
+    "inventory.startup.max-time-to-first-request-ms",
+    20000
+  );
+
+  private static long elapsedMillis(long startedAt) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+  }
+
+  @Test
+  @DisplayName("prodプロファイルで起動し、上限時間内に最初のリクエストに応答する")
+  void timeToFirstRequest() throws Exception {
+    long startedAt = System.nanoTime();
+    SpringApplication application = new SpringApplication(
+      InventoryIdApplication.class
+    );
+    application.setApplicationStartup(
+      new BufferingApplicationStartup(
+        InventoryIdApplication.STARTUP_STEP_CAPACITY
+      )
+    );
+    try (
+      ConfigurableApplicationContext context = application.run(
+        "--spring.profiles.active=prod,local-auth",
+        "--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:startup-time"
+      )
+    ) {
+      long readyMillis = elapsedMillis(startedAt);
+      int port = ((WebServerApplicationContext) context).getWebServer()
+        .getPort();
+      HttpResponse<String> response = HttpClient.newHttpClient()
+        .send(
+          HttpRequest.newBuilder(
+            URI.create("http://localhost:" + port + "/login")
+          ).build(),
+          HttpResponse.BodyHandlers.ofString()
+        );
+      long firstRequestMillis = elapsedMillis(startedAt);
+      logger.info(
+        "起動完了: {}ms, 最初のリクエストの応答: {}ms (参考値)",
+        readyMillis,
+        firstRequestMillis
+      );
+
+      assertThat(response.statusCode()).isEqualTo(200);
+      assertThat(firstRequestMillis).isLessThan(
+        MAX_TIME_TO_FIRST_REQUEST_MILLIS
+      );
+      // 遅延作成を有効にしても、定期処理・イベントの受信を持つBeanは起動時に作成する
+      ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+      assertThat(beanFactory.containsSingleton("outboxRelay")).isTrue();
+      assertThat(beanFactory.containsSingleton("inventoryStreamService"))
+        .isTrue();
+    }
+  }
+}
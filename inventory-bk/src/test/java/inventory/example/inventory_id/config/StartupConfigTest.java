@@ -0,0 +1,66 @@
+package inventory.example.inventory_id.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import inventory.example.inventory_id.service.OutboxRelay;
+import inventory.example.inventory_id.service.SystemCategoryRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@DisplayName("StartupConfig Tests")
+public class StartupConfigTest {
+
+  private final LazyInitializationExcludeFilter filter =
+    StartupConfig.backgroundTaskBeans();
+
+  static class EventReceiver {
+
+    @EventListener
+    public void onEvent(Object event) {}
+  }
+
+  static class TransactionalEventReceiver {
+
+    @TransactionalEventListener
+    public void onEvent(Object event) {}
+  }
+
+  static class PlainService {
+
+    public void run() {}
+  }
+
+  @Test
+  @DisplayName("定期処理・イベントの受信を持つBeanは遅延作成の対象外にする")
+  void isExcluded_backgroundTaskBeans() {
+    assertThat(filter.isExcluded("outboxRelay", null, OutboxRelay.class))
+      .isTrue();
+    assertThat(
+      filter.isExcluded(
+        "systemCategoryRegistry",
+        null,
+        SystemCategoryRegistry.class
+      )
+    ).isTrue();
+    assertThat(filter.isExcluded("eventReceiver", null, EventReceiver.class))
+      .isTrue();
+    assertThat(
+      filter.isExcluded(
+        "transactionalEventReceiver",
+        null,
+        TransactionalEventReceiver.class
+      )
+    ).isTrue();
+  }
+
+  @Test
+  @DisplayName("それ以外のBeanは遅延作成の対象にする")
+  void isExcluded_otherBeans() {
+    assertThat(filter.isExcluded("plainService", null, PlainService.class))
+      .isFalse();
+    assertThat(filter.isExcluded("unknown", null, null)).isFalse();
+  }
+}
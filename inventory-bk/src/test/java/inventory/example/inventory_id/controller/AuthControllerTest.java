@@ -1,7 +1,10 @@
 package inventory.example.inventory_id.controller;
 
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
@@ -16,7 +19,10 @@ import inventory.example.inventory_id.exception.AuthenticationException;
 import inventory.example.inventory_id.request.EmailAuthRequest;
 import inventory.example.inventory_id.response.FirebaseSignUpResponse;
 import inventory.example.inventory_id.service.FirebaseAuthService;
+import inventory.example.inventory_id.service.LoopbackTokenService;
+import inventory.example.inventory_id.service.StatelessSessionService;
 import inventory.example.inventory_id.service.TokenCacheService;
+import inventory.example.inventory_id.service.UserVersionService;
 import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -45,6 +51,15 @@ class AuthControllerTest {
   @MockitoBean
   private TokenCacheService tokenCacheService;
 
+  @MockitoBean
+  private UserVersionService userVersionService;
+
+  @MockitoBean
+  private StatelessSessionService statelessSessionService;
+
+  @MockitoBean
+  private LoopbackTokenService loopbackTokenService;
+
   private final String testIdToken = "test-id-token";
 
   private final ObjectMapper objectMapper = new ObjectMapper();
@@ -135,6 +150,49 @@ class AuthControllerTest {
       );
   }
 
+  @Test
+  @Tag("POST /api/auth/signUp")
+  @DisplayName("ステートレスなセッション - セッションCookieを設定しRedisを使わない")
+  void signUpWithStatelessSessionSetsSessionCookie() throws Exception {
+    when(statelessSessionService.isEnabled()).thenReturn(true);
+    when(statelessSessionService.createSessionCookie(testIdToken)).thenReturn(
+      "test-session-cookie"
+    );
+    when(firebaseAuthService.anonymouslySignUp()).thenReturn(
+      new FirebaseSignUpResponse(
+        testIdToken,
+        null,
+        "test-refresh-token",
+        null,
+        "test-local-id",
+        true
+      )
+    );
+
+    mockMvc
+      .perform(post("/api/auth/signUp"))
+      .andExpect(status().isOk())
+      .andExpect(cookie().value("firebase-token", "test-session-cookie"));
+    verify(tokenCacheService, never()).cacheUser(anyString(), anyString());
+  }
+
+  @Test
+  @Tag("POST /api/auth/signOut")
+  @DisplayName("ステートレスなセッション - サインアウトでセッションCookieを無効にする")
+  void signOutWithStatelessSessionRevokesCookie() throws Exception {
+    when(statelessSessionService.isEnabled()).thenReturn(true);
+
+    mockMvc
+      .perform(
+        post("/api/auth/signOut").cookie(
+          new Cookie("firebase-token", "test-session-cookie")
+        )
+      )
+      .andExpect(status().isOk());
+    verify(statelessSessionService).revoke("test-session-cookie");
+    verify(tokenCacheService, never()).removeUserCache(anyString());
+  }
+
   @Test
   @Tag("POST /api/auth/email/signUp")
   @DisplayName("メール・パスワードサインアップ - ユーザー登録成功時のテスト")
@@ -2,30 +2,36 @@ package inventory.example.inventory_id.controller;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import inventory.example.inventory_id.dto.IdempotentResponse;
 import inventory.example.inventory_id.dto.ItemRecordDto;
 import inventory.example.inventory_id.enums.TransactionType;
-import inventory.example.inventory_id.exception.AuthenticationException;
 import inventory.example.inventory_id.exception.ValidationException;
 import inventory.example.inventory_id.model.Category;
 import inventory.example.inventory_id.model.Item;
 import inventory.example.inventory_id.request.ItemRecordRequest;
+import inventory.example.inventory_id.service.IdempotencyService;
 import inventory.example.inventory_id.service.ItemRecordService;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
@@ -50,6 +56,9 @@ class ItemRecordControllerTest {
   @Mock
   private ItemRecordService itemRecordService;
 
+  @Mock
+  private IdempotencyService idempotencyService;
+
   @Spy
   @InjectMocks
   private ItemRecordController itemRecordController;
@@ -296,36 +305,96 @@ class ItemRecordControllerTest {
 
   @Test
   @Tag("POST: /api/item-record")
-  @DisplayName("アイテム記録作成-401 認証失敗エラー")
-  void createItemRecord_authenticationException() throws Exception {
+  @DisplayName("アイテム記録作成-Idempotency-Keyを指定した場合は1回だけ作成する")
+  void createItemRecord_idempotencyKey() throws Exception {
+    String idempotencyKey = "retry-key";
     ItemRecordRequest request = new ItemRecordRequest(
       UUID.randomUUID(),
-      5,
-      0,
-      null,
-      TransactionType.IN,
-      null
+      10,
+      500,
+      LocalDate.now(),
+      TransactionType.IN
+    );
+    when(
+      itemRecordService.createItemRecord(
+        eq(testUserId),
+        any(ItemRecordRequest.class)
+      )
+    ).thenThrow(
+      new ResponseStatusException(HttpStatus.NOT_FOUND, itemNotFoundMsg)
     );
+    when(
+      idempotencyService.execute(
+        eq(testUserId),
+        eq(idempotencyKey),
+        any(ItemRecordRequest.class),
+        any()
+      )
+    ).thenAnswer(invocation -> {
+      Supplier<IdempotentResponse> action = invocation.getArgument(3);
+      return action.get();
+    });
 
-    doThrow(new AuthenticationException("認証に失敗しました。"))
-      .when(itemRecordController)
-      .fetchUserIdFromToken();
+    mockMvc
+      .perform(
+        post("/api/item-record")
+          .header("Idempotency-Key", idempotencyKey)
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(objectMapper.writeValueAsString(request))
+      )
+      .andExpect(status().isNotFound())
+      .andExpect(header().doesNotExist("Idempotent-Replayed"))
+      .andExpect(
+        content()
+          .json(
+            """
+            {"message":"%s"}
+            """.formatted(itemNotFoundMsg)
+          )
+      );
+  }
+
+  @Test
+  @Tag("POST: /api/item-record")
+  @DisplayName("アイテム記録作成-保存した結果を返す場合は作成しない")
+  void createItemRecord_idempotencyKey_replayed() throws Exception {
+    ItemRecordRequest request = new ItemRecordRequest(
+      UUID.randomUUID(),
+      10,
+      500,
+      LocalDate.now(),
+      TransactionType.IN
+    );
+    when(
+      idempotencyService.execute(
+        eq(testUserId),
+        eq("retry-key"),
+        any(ItemRecordRequest.class),
+        any()
+      )
+    ).thenReturn(new IdempotentResponse(201, "Test Itemが入庫しました", true));
 
     mockMvc
       .perform(
         post("/api/item-record")
+          .header("Idempotency-Key", "retry-key")
           .contentType(MediaType.APPLICATION_JSON)
           .content(objectMapper.writeValueAsString(request))
       )
-      .andExpect(status().isInternalServerError())
+      .andExpect(status().isCreated())
+      .andExpect(header().string("Idempotent-Replayed", "true"))
       .andExpect(
         content()
           .json(
             """
-            {"message":"認証に失敗しました。"}
+            {"message":"Test Itemが入庫しました"}
             """
           )
       );
+    verify(itemRecordService, never()).createItemRecord(
+      anyString(),
+      any(ItemRecordRequest.class)
+    );
   }
 
   @Test
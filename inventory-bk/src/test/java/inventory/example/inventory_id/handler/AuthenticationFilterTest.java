@@ -0,0 +1,181 @@
+package inventory.example.inventory_id.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.controller.BaseController;
+import inventory.example.inventory_id.enums.AuthMessage;
+import inventory.example.inventory_id.service.LoopbackTokenService;
+import inventory.example.inventory_id.service.StatelessSessionService;
+import inventory.example.inventory_id.service.TokenCacheService;
+import jakarta.servlet.http.Cookie;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AuthenticationFilter Tests")
+public class AuthenticationFilterTest {
+
+  @Mock
+  private TokenCacheService tokenCacheService;
+
+  @Mock
+  private StatelessSessionService statelessSessionService;
+
+  private LoopbackTokenService loopbackTokenService =
+    new LoopbackTokenService();
+
+  private AuthenticationFilter filter;
+
+  private String testToken = "test-token";
+  private String testUserId = "testUserId";
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(
+      loopbackTokenService,
+      "ttl",
+      Duration.ofSeconds(30)
+    );
+    filter = new AuthenticationFilter(
+      tokenCacheService,
+      statelessSessionService,
+      loopbackTokenService,
+      new ObjectMapper()
+    );
+  }
+
+  private MockHttpServletRequest request(String uri) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+    request.setCookies(new Cookie("firebase-token", testToken));
+    return request;
+  }
+
+  @Test
+  @DisplayName("ユーザーIDをリクエスト属性に保存し、1回の呼び出しでセッションを延長する")
+  void doFilter_resolvesUserOnce() throws Exception {
+    when(tokenCacheService.getUserIdAndRefresh(testToken)).thenReturn(
+      testUserId
+    );
+    MockHttpServletRequest request = request("/api/item");
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+    assertThat(chain.getRequest()).isNotNull();
+    assertThat(request.getAttribute(BaseController.USER_ID_ATTRIBUTE)).isEqualTo(
+      testUserId
+    );
+    verify(tokenCacheService).getUserIdAndRefresh(testToken);
+  }
+
+  @Test
+  @DisplayName("未認証のAPIリクエストはコントローラーへ進めず401を返す")
+  void doFilter_rejectsUnauthenticatedApiRequest() throws Exception {
+    when(tokenCacheService.getUserIdAndRefresh(testToken)).thenReturn(null);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(request("/api/item"), response, chain);
+
+    assertThat(chain.getRequest()).isNull();
+    assertThat(response.getStatus()).isEqualTo(401);
+    assertThat(response.getContentAsString()).contains(
+      AuthMessage.IDLE_TIMEOUT.getMessage()
+    );
+  }
+
+  @Test
+  @DisplayName("Cookieのない画面のリクエストはログイン画面へリダイレクトする")
+  void doFilter_redirectsPageRequestWithoutToken() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "GET",
+      "/items"
+    );
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(request, response, chain);
+
+    assertThat(chain.getRequest()).isNull();
+    assertThat(response.getRedirectedUrl()).isEqualTo("/login");
+    verifyNoInteractions(tokenCacheService);
+  }
+
+  @Test
+  @DisplayName("画面からの呼び出しは引き継いだユーザーIDを使い、セッションを再度確認しない")
+  void doFilter_trustsLoopbackToken() throws Exception {
+    MockHttpServletRequest request = request("/api/item");
+    request.addHeader(
+      LoopbackTokenService.HEADER,
+      loopbackTokenService.issue(testUserId)
+    );
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+    assertThat(chain.getRequest()).isNotNull();
+    assertThat(request.getAttribute(BaseController.USER_ID_ATTRIBUTE)).isEqualTo(
+      testUserId
+    );
+    verifyNoInteractions(tokenCacheService, statelessSessionService);
+  }
+
+  @Test
+  @DisplayName("ステートレスなセッションではRedisを参照しない")
+  void doFilter_statelessSession() throws Exception {
+    when(statelessSessionService.isEnabled()).thenReturn(true);
+    when(statelessSessionService.getUserId(testToken)).thenReturn(testUserId);
+    MockHttpServletRequest request = request("/api/item");
+
+    filter.doFilter(
+      request,
+      new MockHttpServletResponse(),
+      new MockFilterChain()
+    );
+
+    assertThat(request.getAttribute(BaseController.USER_ID_ATTRIBUTE)).isEqualTo(
+      testUserId
+    );
+    verifyNoInteractions(tokenCacheService);
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+    strings = {
+      "/api/auth/signUp",
+      "/login",
+      "/css/style.css",
+      "/js/app.js",
+      "/h2-console/login.do",
+      "/swagger-ui/index.html",
+    }
+  )
+  @DisplayName("認証が不要なパスは認証しない")
+  void doFilter_skipsPublicPaths(String uri) throws Exception {
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(
+      new MockHttpServletRequest("GET", uri),
+      new MockHttpServletResponse(),
+      chain
+    );
+
+    assertThat(chain.getRequest()).isNotNull();
+    verifyNoInteractions(tokenCacheService, statelessSessionService);
+  }
+}
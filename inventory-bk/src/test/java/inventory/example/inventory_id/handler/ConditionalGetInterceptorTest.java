@@ -0,0 +1,181 @@
+package inventory.example.inventory_id.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import inventory.example.inventory_id.controller.BaseController;
+import inventory.example.inventory_id.service.UserVersionService;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConditionalGetInterceptor Tests")
+public class ConditionalGetInterceptorTest {
+
+  @Mock
+  private UserVersionService userVersionService;
+
+  private ConditionalGetInterceptor interceptor;
+
+  private String testUserId = "testUserId";
+
+  @BeforeEach
+  void setUp() {
+    interceptor = new ConditionalGetInterceptor(userVersionService);
+  }
+
+  private MockHttpServletRequest getRequest() {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "GET",
+      "/api/item"
+    );
+    request.setQueryString("category_name=食べ物");
+    // 認証フィルターで解決済みのユーザーID
+    request.setAttribute(BaseController.USER_ID_ATTRIBUTE, testUserId);
+    return request;
+  }
+
+  @Test
+  @DisplayName("ETagが付与され、リクエストはコントローラーへ進む")
+  void preHandle_setsEtag() {
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.3");
+    MockHttpServletRequest request = getRequest();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    boolean proceed = interceptor.preHandle(request, response, null);
+
+    assertThat(proceed).isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"0.3-");
+    assertThat(request.getAttribute(BaseController.USER_ID_ATTRIBUTE)).isEqualTo(
+      testUserId
+    );
+  }
+
+  @Test
+  @DisplayName("If-None-Matchが一致する場合は304を返す")
+  void preHandle_returnsNotModified() {
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.3");
+    MockHttpServletResponse first = new MockHttpServletResponse();
+    interceptor.preHandle(getRequest(), first, null);
+    String etag = first.getHeader(HttpHeaders.ETAG);
+
+    MockHttpServletRequest request = getRequest();
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    boolean proceed = interceptor.preHandle(request, response, null);
+
+    assertThat(proceed).isFalse();
+    assertThat(response.getStatus()).isEqualTo(304);
+  }
+
+  @Test
+  @DisplayName("バージョンが更新された場合は304を返さない")
+  void preHandle_versionChanged() {
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.4");
+    MockHttpServletRequest request = getRequest();
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"0.3-abc\"");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    boolean proceed = interceptor.preHandle(request, response, null);
+
+    assertThat(proceed).isTrue();
+    assertThat(response.getStatus()).isEqualTo(200);
+  }
+
+  @Test
+  @DisplayName("期間を指定した場合は、書き込みがなくても期間が変わると304を返さない")
+  void preHandle_timeBucketChanged() {
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.3");
+    Instant now = Instant.parse("2025-01-01T00:30:00Z");
+    ConditionalGetInterceptor bucketed = new ConditionalGetInterceptor(
+      userVersionService,
+      Duration.ofHours(1),
+      Clock.fixed(now, ZoneOffset.UTC)
+    );
+    MockHttpServletResponse first = new MockHttpServletResponse();
+    bucketed.preHandle(getRequest(), first, null);
+    String etag = first.getHeader(HttpHeaders.ETAG);
+
+    // 同じ期間内は304を返す
+    MockHttpServletRequest sameBucket = getRequest();
+    sameBucket.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+    assertThat(
+      new ConditionalGetInterceptor(
+        userVersionService,
+        Duration.ofHours(1),
+        Clock.fixed(now.plus(Duration.ofMinutes(20)), ZoneOffset.UTC)
+      ).preHandle(sameBucket, new MockHttpServletResponse(), null)
+    ).isFalse();
+
+    MockHttpServletRequest nextBucket = getRequest();
+    nextBucket.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    boolean proceed = new ConditionalGetInterceptor(
+      userVersionService,
+      Duration.ofHours(1),
+      Clock.fixed(now.plus(Duration.ofMinutes(40)), ZoneOffset.UTC)
+    ).preHandle(nextBucket, response, null);
+
+    assertThat(proceed).isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+  }
+
+  @Test
+  @DisplayName("バージョンが取得できない場合はETagを付与しない")
+  void preHandle_versionUnavailable() {
+    when(userVersionService.getVersion(testUserId)).thenReturn(null);
+    MockHttpServletRequest request = getRequest();
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    boolean proceed = interceptor.preHandle(request, response, null);
+
+    assertThat(proceed).isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+  }
+
+  @Test
+  @DisplayName("ユーザーが解決されていない場合は何もしない")
+  void preHandle_unauthenticated() {
+    MockHttpServletRequest request = getRequest();
+    request.removeAttribute(BaseController.USER_ID_ATTRIBUTE);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    boolean proceed = interceptor.preHandle(request, response, null);
+
+    assertThat(proceed).isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+    verify(userVersionService, never()).getVersion(testUserId);
+  }
+
+  @Test
+  @DisplayName("GET以外のリクエストは対象外")
+  void preHandle_ignoresNonGet() {
+    MockHttpServletRequest request = getRequest();
+    request.setMethod("POST");
+
+    boolean proceed = interceptor.preHandle(
+      request,
+      new MockHttpServletResponse(),
+      null
+    );
+
+    assertThat(proceed).isTrue();
+    verifyNoInteractions(userVersionService);
+  }
+}
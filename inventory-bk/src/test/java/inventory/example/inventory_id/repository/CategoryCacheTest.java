@@ -0,0 +1,119 @@
+package inventory.example.inventory_id.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import inventory.example.inventory_id.model.Category;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// クエリキャッシュはコミット済みの書き込みでのみ有効になるため、テストのトランザクションを使わない
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CategoryCacheTest {
+
+  @Autowired
+  private CategoryRepository categoryRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private String testUserId = "testUserId";
+  private String defaultSystemId = "systemId";
+  private List<String> systemCategoryNames = List.of(
+    "食べ物",
+    "飲み物",
+    "日用品",
+    "衣類",
+    "その他"
+  );
+  private List<Category> userCategories = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    categoryRepository.deleteAll();
+    for (String name : systemCategoryNames) {
+      categoryRepository.save(new Category(name, defaultSystemId));
+    }
+    userCategories.add(categoryRepository.save(new Category("本", testUserId)));
+    userCategories.add(categoryRepository.save(new Category("PC", testUserId)));
+
+    statistics = entityManagerFactory
+      .unwrap(SessionFactory.class)
+      .getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    categoryRepository.deleteAll();
+  }
+
+  /**
+   * アイテムの作成・更新(カテゴリ名で検索)、カテゴリ一覧、カテゴリのアイテム一覧を
+   * 8:1:1の割合で200リクエスト分実行する
+   */
+  private void runRequestMix() {
+    int lookups = 0;
+    int listings = 0;
+    for (int i = 0; i < 200; i++) {
+      if (i % 10 == 0) {
+        categoryRepository.findNotDeleted(testUserId);
+      } else if (i % 10 == 5) {
+        categoryRepository.findUserCategory(
+          testUserId,
+          userCategories.get(listings++ % userCategories.size()).getId()
+        );
+      } else {
+        categoryRepository.findActiveCateByName(
+          testUserId,
+          systemCategoryNames.get(lookups++ % systemCategoryNames.size())
+        );
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("カテゴリ検索は同じ条件の2回目以降はSQLを発行しない")
+  void testLookupsAreServedFromQueryCache() {
+    runRequestMix();
+
+    // 検索条件の種類(カテゴリ名5種 + 一覧1種 + ユーザーカテゴリ2種)の分だけSQLを発行する
+    assertThat(statistics.getQueryExecutionCount()).isEqualTo(8);
+    assertThat(statistics.getQueryCacheHitCount()).isEqualTo(192);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(8);
+  }
+
+  @Test
+  @DisplayName("カテゴリの書き込み後はキャッシュが無効化され、最新の結果を返す")
+  void testWriteInvalidatesQueryCache() {
+    assertThat(categoryRepository.findActiveCateByName(testUserId, "本")).hasSize(
+      1
+    );
+    assertThat(categoryRepository.findActiveCateByName(testUserId, "本")).hasSize(
+      1
+    );
+    assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+
+    Category book = userCategories.get(0);
+    book.setDeletedFlag(true);
+    categoryRepository.save(book);
+
+    assertThat(categoryRepository.findActiveCateByName(testUserId, "本")).isEmpty();
+    assertThat(categoryRepository.findNotDeleted(testUserId)).hasSize(1);
+    assertThat(statistics.getQueryExecutionCount()).isEqualTo(3);
+  }
+}
@@ -63,17 +63,20 @@ public class CategoryRepositoryTest {
   }
 
   @Test
-  @DisplayName("findNotDeletedは正しいカテゴリを返す")
-  void testFindByUserIdIn() {
-    List<Category> categories = categoryRepository.findNotDeleted(Arrays.asList(userId1, userId2));
-    assertThat(categories).hasSize(2);
-    assertThat(categories).extracting(Category::getName).containsExactlyInAnyOrder(book, electronics);
+  @DisplayName("findNotDeletedは指定ユーザーの削除されていないカテゴリのみ返す")
+  void testFindByUserId() {
+    List<Category> categories = categoryRepository.findNotDeleted(userId1);
+    assertThat(categories).hasSize(1);
+    assertThat(categories).extracting(Category::getName).containsExactly(book);
+
+    List<Category> otherUserCategories = categoryRepository.findNotDeleted(userId2);
+    assertThat(otherUserCategories).extracting(Category::getId).containsExactly(sameNameDiffUser.getId());
   }
 
   @Test
   @DisplayName("findUserCategoryは正しいカテゴリを返す")
   void testFindByUserIdAndId() {
-    Optional<Category> found = categoryRepository.findUserCategory(List.of(userId1, userId2), existedCategory.getId());
+    Optional<Category> found = categoryRepository.findUserCategory(userId1, existedCategory.getId());
     assertThat(found).isPresent();
     assertThat(found.get().getName()).isEqualTo(book);
   }
@@ -81,21 +84,21 @@ public class CategoryRepositoryTest {
   @Test
   @DisplayName("findUserCategoryは削除したものを返さない")
   void testFindByUserIdAndIdWithDeletedId() {
-    Optional<Category> found = categoryRepository.findUserCategory(List.of(userId1, userId2), deletedCategory.getId());
+    Optional<Category> found = categoryRepository.findUserCategory(userId1, deletedCategory.getId());
     assertThat(found).isNotPresent();
   }
 
   @Test
   @DisplayName("findUserCategoryは存在しない場合、空を返す")
   void testFindByUserIdAndIdNotFound() {
-    Optional<Category> found = categoryRepository.findUserCategory(List.of(userId2), existedCategory.getId());
+    Optional<Category> found = categoryRepository.findUserCategory(userId2, existedCategory.getId());
     assertThat(found).isNotPresent();
   }
 
   @Test
   @DisplayName("findByUserIdInAndNameは正しいカテゴリを返す")
   void testFindByUserIdInAndName() {
-    List<Category> categories = categoryRepository.findActiveCateByName(Arrays.asList(userId1, userId2), book);
+    List<Category> categories = categoryRepository.findActiveCateByName(userId1, book);
     assertThat(categories).hasSize(1);
     assertThat(categories.get(0).getName()).isEqualTo(book);
   }
@@ -103,10 +106,23 @@ public class CategoryRepositoryTest {
   @Test
   @DisplayName("findByUserIdInAndNameは削除したものを返さない")
   void testFindByUserIdInAndNameWithDeleted() {
-    List<Category> categories = categoryRepository.findActiveCateByName(Arrays.asList(userId1, userId2),
-        electronics);
-    assertThat(categories).hasSize(1);
-    assertThat(categories.get(0).getName()).isEqualTo(electronics);
-    assertThat(categories.get(0).getUserId()).isEqualTo(userId2);
+    List<Category> categories = categoryRepository.findActiveCateByName(userId1, electronics);
+    assertThat(categories).isEmpty();
+
+    List<Category> otherUserCategories = categoryRepository.findActiveCateByName(userId2, electronics);
+    assertThat(otherUserCategories).hasSize(1);
+    assertThat(otherUserCategories.get(0).getUserId()).isEqualTo(userId2);
+  }
+
+  @Test
+  @DisplayName("findExistingNamesは登録済みのカテゴリ名を削除済みも含めて返す")
+  void testFindExistingNames() {
+    List<String> names = categoryRepository.findExistingNames(
+        userId1, Arrays.asList(book, electronics, "furniture"));
+    assertThat(names).containsExactlyInAnyOrder(book, electronics);
+
+    List<String> otherUserNames = categoryRepository.findExistingNames(
+        userId2, Arrays.asList(book, electronics));
+    assertThat(otherUserNames).containsExactly(electronics);
   }
 }
@@ -0,0 +1,154 @@
+package inventory.example.inventory_id.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * H2のファイルモードで、接続プールの大きさごとの処理件数/秒と接続の待ち時間を出力する(参考値)
+ * spring.datasource.hikari.maximum-pool-sizeを見直す際に、実行する環境で計測する
+ * 時間を計測するのみのため、testタスクでは実行せずbenchmarkタスクで実行する
+ */
+@Tag("benchmark")
+@DisplayName("Connection Pool Benchmark")
+public class ConnectionPoolBenchmarkTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    ConnectionPoolBenchmarkTest.class
+  );
+
+  // リクエストを処理するスレッド数(接続数より多い)
+  private static final int THREADS = 32;
+  private static final int OPERATIONS_PER_THREAD = 200;
+  private static final int ITEMS = 100;
+  // 書き込みの割合(入出庫の登録・アイテムの更新)
+  private static final int WRITE_PERCENT = 20;
+
+  @TempDir
+  Path dataDir;
+
+  @ParameterizedTest
+  @ValueSource(ints = { 2, 4, 8, 16, 32 })
+  @DisplayName("接続プールの大きさごとの処理件数/秒")
+  void throughputByPoolSize(int poolSize) throws Exception {
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(
+      "jdbc:h2:file:" + dataDir.resolve("pool-" + poolSize).toAbsolutePath()
+    );
+    config.setUsername("sa");
+    config.setPassword("");
+    config.setMaximumPoolSize(poolSize);
+    config.setMinimumIdle(poolSize);
+    config.setConnectionTimeout(30000);
+    try (HikariDataSource dataSource = new HikariDataSource(config)) {
+      createItems(dataSource);
+
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+      CountDownLatch start = new CountDownLatch(1);
+      AtomicInteger completed = new AtomicInteger();
+      AtomicLong waitNanos = new AtomicLong();
+      List<Future<?>> futures = new ArrayList<>();
+      long elapsedNanos;
+      try {
+        for (int t = 0; t < THREADS; t++) {
+          futures.add(
+            executor.submit(() -> {
+              start.await();
+              for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                long requestedAt = System.nanoTime();
+                try (Connection connection = dataSource.getConnection()) {
+                  waitNanos.addAndGet(System.nanoTime() - requestedAt);
+                  runOperation(connection);
+                }
+                completed.incrementAndGet();
+              }
+              return null;
+            })
+          );
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+          future.get(300, TimeUnit.SECONDS);
+        }
+        elapsedNanos = System.nanoTime() - startedAt;
+      } finally {
+        executor.shutdownNow();
+      }
+
+      int operations = THREADS * OPERATIONS_PER_THREAD;
+      logger.info(
+        "接続数{}: {} 件/秒, 接続の平均待ち時間 {}µs (参考値)",
+        poolSize,
+        Math.round(operations / (elapsedNanos / 1_000_000_000.0)),
+        TimeUnit.NANOSECONDS.toMicros(waitNanos.get() / operations)
+      );
+      assertThat(completed.get()).isEqualTo(operations);
+    }
+  }
+
+  private static void createItems(HikariDataSource dataSource)
+    throws Exception {
+    try (
+      Connection connection = dataSource.getConnection();
+      Statement statement = connection.createStatement()
+    ) {
+      statement.execute(
+        "CREATE TABLE item (id INT PRIMARY KEY, total_quantity INT NOT NULL)"
+      );
+      statement.execute(
+        "INSERT INTO item SELECT X, 0 FROM SYSTEM_RANGE(1, " + ITEMS + ")"
+      );
+    }
+  }
+
+  // 読み取りは1件の取得、書き込みは1件の更新をそれぞれ1回のトランザクションで行う
+  private static void runOperation(Connection connection) throws Exception {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int itemId = random.nextInt(1, ITEMS + 1);
+    if (random.nextInt(100) < WRITE_PERCENT) {
+      try (
+        PreparedStatement statement = connection.prepareStatement(
+          "UPDATE item SET total_quantity = total_quantity + 1 WHERE id = ?"
+        )
+      ) {
+        statement.setInt(1, itemId);
+        statement.executeUpdate();
+      }
+      return;
+    }
+    try (
+      PreparedStatement statement = connection.prepareStatement(
+        "SELECT total_quantity FROM item WHERE id = ?"
+      )
+    ) {
+      statement.setInt(1, itemId);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+      }
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package inventory.example.inventory_id.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import inventory.example.inventory_id.enums.TransactionType;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.CategoryMonthlyRollup;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.model.ItemDailyRollup;
+import inventory.example.inventory_id.model.ItemRecord;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class ItemDailyRollupRepositoryTest {
+
+  @Autowired
+  private ItemDailyRollupRepository itemDailyRollupRepository;
+
+  @Autowired
+  private CategoryMonthlyRollupRepository categoryMonthlyRollupRepository;
+
+  @Autowired
+  private ItemRecordRepository itemRecordRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private CategoryRepository categoryRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  private String testUserId = "testUserId";
+  private Category testCategory;
+  private Item testItem;
+  private LocalDate today = LocalDate.now();
+
+  @BeforeEach
+  void setUp() {
+    testCategory = new Category("testCategory", testUserId);
+    categoryRepository.save(testCategory);
+    testItem = new Item("Test Item", testUserId, testCategory, false);
+    itemRepository.save(testItem);
+  }
+
+  @Test
+  @DisplayName("集計行がない場合は加算されず、作成後は差分が加算される")
+  void testAddToRollup() {
+    int updated = itemDailyRollupRepository.addToRollup(
+      testUserId,
+      testItem.getId(),
+      today,
+      5,
+      500L,
+      0,
+      0L
+    );
+    assertThat(updated).isEqualTo(0);
+
+    ItemDailyRollup empty = new ItemDailyRollup();
+    empty.setUserId(testUserId);
+    empty.setItemId(testItem.getId());
+    empty.setRollupDate(today);
+    itemDailyRollupRepository.saveAndFlush(empty);
+    itemDailyRollupRepository.addToRollup(
+      testUserId,
+      testItem.getId(),
+      today,
+      5,
+      500L,
+      0,
+      0L
+    );
+    itemDailyRollupRepository.addToRollup(
+      testUserId,
+      testItem.getId(),
+      today,
+      0,
+      0L,
+      2,
+      200L
+    );
+    entityManager.clear();
+
+    List<ItemDailyRollup> result = itemDailyRollupRepository.findItemRollups(
+      testUserId,
+      testItem.getId(),
+      today.minusDays(1),
+      today
+    );
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getInQuantity()).isEqualTo(5);
+    assertThat(result.get(0).getInAmount()).isEqualTo(500L);
+    assertThat(result.get(0).getOutQuantity()).isEqualTo(2);
+    assertThat(result.get(0).getOutAmount()).isEqualTo(200L);
+  }
+
+  @Test
+  @DisplayName("入出庫レコードから日別・月別の集計を作成できる(削除済みは含めない)")
+  void testBackfill() {
+    ItemRecord inRecord = new ItemRecord(
+      testItem,
+      testUserId,
+      10,
+      100,
+      null,
+      TransactionType.IN
+    );
+    itemRecordRepository.save(inRecord);
+    itemRecordRepository.save(
+      new ItemRecord(
+        testItem,
+        testUserId,
+        3,
+        100,
+        null,
+        TransactionType.OUT,
+        inRecord
+      )
+    );
+    ItemRecord deletedRecord = new ItemRecord(
+      testItem,
+      testUserId,
+      7,
+      100,
+      null,
+      TransactionType.IN
+    );
+    deletedRecord.setDeletedFlag(true);
+    itemRecordRepository.save(deletedRecord);
+
+    itemDailyRollupRepository.backfillFromItemRecords();
+    categoryMonthlyRollupRepository.backfillFromItemRecords();
+    entityManager.clear();
+
+    List<ItemDailyRollup> days = itemDailyRollupRepository.findItemRollups(
+      testUserId,
+      testItem.getId(),
+      today,
+      today
+    );
+    assertThat(days).hasSize(1);
+    assertThat(days.get(0).getInQuantity()).isEqualTo(10);
+    assertThat(days.get(0).getInAmount()).isEqualTo(1000L);
+    assertThat(days.get(0).getOutQuantity()).isEqualTo(3);
+    assertThat(days.get(0).getOutAmount()).isEqualTo(300L);
+
+    List<CategoryMonthlyRollup> months =
+      categoryMonthlyRollupRepository.findUserRollups(
+        testUserId,
+        today.withDayOfMonth(1),
+        today
+      );
+    assertThat(months).hasSize(1);
+    assertThat(months.get(0).getCategoryId()).isEqualTo(testCategory.getId());
+    assertThat(months.get(0).getRollupMonth()).isEqualTo(
+      today.withDayOfMonth(1)
+    );
+    assertThat(months.get(0).getInQuantity()).isEqualTo(10);
+    assertThat(months.get(0).getOutQuantity()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("月別集計はレコード作成時のカテゴリで作成する(作成後のカテゴリ変更に追従しない)")
+  void testBackfillUsesCategoryAtCreation() {
+    itemRecordRepository.save(
+      new ItemRecord(testItem, testUserId, 10, 100, null, TransactionType.IN)
+    );
+    Category newCategory = new Category("newCategory", testUserId);
+    categoryRepository.save(newCategory);
+    testItem.setCategory(newCategory);
+    itemRepository.save(testItem);
+
+    categoryMonthlyRollupRepository.backfillFromItemRecords();
+    entityManager.clear();
+
+    List<CategoryMonthlyRollup> months =
+      categoryMonthlyRollupRepository.findUserRollups(
+        testUserId,
+        today.withDayOfMonth(1),
+        today
+      );
+    assertThat(months).hasSize(1);
+    assertThat(months.get(0).getCategoryId()).isEqualTo(testCategory.getId());
+  }
+}
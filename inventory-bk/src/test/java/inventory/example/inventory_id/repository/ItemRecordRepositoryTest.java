@@ -2,18 +2,26 @@ package inventory.example.inventory_id.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import inventory.example.inventory_id.dto.ExpiringLotDto;
+import inventory.example.inventory_id.dto.ItemRecordDto;
 import inventory.example.inventory_id.enums.TransactionType;
 import inventory.example.inventory_id.model.Category;
 import inventory.example.inventory_id.model.Item;
 import inventory.example.inventory_id.model.ItemRecord;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 @DataJpaTest
@@ -29,6 +37,9 @@ public class ItemRecordRepositoryTest {
   @Autowired
   private CategoryRepository categoryRepository;
 
+  @Autowired
+  private EntityManager entityManager;
+
   private String testUserId = "testUserId";
   private String otherUserId = "otherUserId";
   private ItemRecord testItemInRecord;
@@ -384,4 +395,226 @@ public class ItemRecordRepositoryTest {
     var results = itemRecordRepository.getRecordsByItemIdAndUserId(newItem.getId(), testUserId);
     assertThat(results).isEmpty();
   }
+
+  @Test
+  @Tag("findUserItemRecordDtos")
+  @DisplayName("ユーザーIDで全履歴をDTOで取得 - アイテム名とカテゴリ名を1回のSQLで取得し、エンティティを読み込まない")
+  void testFindUserItemRecordDtos() {
+    entityManager.flush();
+    entityManager.clear();
+    Statistics statistics = entityManager
+      .getEntityManagerFactory()
+      .unwrap(SessionFactory.class)
+      .getStatistics();
+    statistics.clear();
+
+    List<ItemRecordDto> results = itemRecordRepository.findUserItemRecordDtos(
+      testUserId
+    );
+
+    assertThat(results)
+      .extracting(ItemRecordDto::getId)
+      .containsExactly(testItemOutRecord.getId(), testItemInRecord.getId());
+    ItemRecordDto outRecord = results.get(0);
+    assertThat(outRecord.getItemName()).isEqualTo("Test Item");
+    assertThat(outRecord.getCategoryName()).isEqualTo("testCategory");
+    assertThat(outRecord.getItemId()).isEqualTo(testUserItem.getId());
+    assertThat(outRecord.getQuantity()).isEqualTo(5);
+    assertThat(outRecord.getPrice()).isEqualTo(1000);
+    assertThat(outRecord.getTransactionType()).isEqualTo(TransactionType.OUT);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+  }
+
+  @Test
+  @Tag("findRecordDtosByItemIdAndUserId")
+  @DisplayName("アイテムIDとユーザーIDで全履歴をDTOで取得 - 他ユーザーと削除済みのレコードは含まない")
+  void testFindRecordDtosByItemIdAndUserId() {
+    List<ItemRecordDto> results =
+      itemRecordRepository.findRecordDtosByItemIdAndUserId(
+        testUserItem.getId(),
+        testUserId
+      );
+    assertThat(results)
+      .extracting(ItemRecordDto::getId)
+      .containsExactly(testItemOutRecord.getId(), testItemInRecord.getId());
+
+    assertThat(
+      itemRecordRepository.findRecordDtosByItemIdAndUserId(
+        otherUserItem.getId(),
+        testUserId
+      )
+    ).isEmpty();
+  }
+
+  @Test
+  @Tag("findRecordDtoByIdAndUserId")
+  @DisplayName("ユーザーIDとレコードIDで履歴をDTOで取得 - 削除済みや他ユーザーの場合は空")
+  void testFindRecordDtoByIdAndUserId() {
+    Optional<ItemRecordDto> result =
+      itemRecordRepository.findRecordDtoByIdAndUserId(
+        testItemInRecord.getId(),
+        testUserId
+      );
+    assertThat(result).isPresent();
+    assertThat(result.get().getCategoryName()).isEqualTo("testCategory");
+    assertThat(result.get().getTransactionType()).isEqualTo(
+      TransactionType.IN
+    );
+
+    assertThat(
+      itemRecordRepository.findRecordDtoByIdAndUserId(
+        deletedInRecord.getId(),
+        testUserId
+      )
+    ).isNotPresent();
+    assertThat(
+      itemRecordRepository.findRecordDtoByIdAndUserId(
+        testItemInRecord.getId(),
+        otherUserId
+      )
+    ).isNotPresent();
+  }
+
+  @Test
+  @Tag("findOpenLotsExpiringAfter")
+  @DisplayName("有効期限が期間内で残り数量がある入庫レコードのみ、有効期限の昇順で取得")
+  void testFindOpenLotsExpiringAfter() {
+    LocalDate today = LocalDate.now();
+    ItemRecord laterLot = new ItemRecord(
+      testUserItem,
+      testUserId,
+      3,
+      100,
+      today.plusDays(5),
+      TransactionType.IN
+    );
+    ItemRecord soonerLot = new ItemRecord(
+      otherUserItem,
+      otherUserId,
+      2,
+      100,
+      today.plusDays(1),
+      TransactionType.IN
+    );
+    ItemRecord emptyLot = new ItemRecord(
+      testUserItem,
+      testUserId,
+      4,
+      100,
+      today.plusDays(2),
+      TransactionType.IN
+    );
+    emptyLot.setRemainingQuantity(0);
+    ItemRecord outOfRangeLot = new ItemRecord(
+      testUserItem,
+      testUserId,
+      1,
+      100,
+      today.plusDays(30),
+      TransactionType.IN
+    );
+    itemRecordRepository.saveAll(
+      List.of(laterLot, soonerLot, emptyLot, outOfRangeLot)
+    );
+
+    List<ExpiringLotDto> lots = itemRecordRepository.findOpenLotsExpiringAfter(
+      today,
+      Long.MIN_VALUE,
+      today.plusDays(7),
+      PageRequest.of(0, 10)
+    );
+    assertThat(lots)
+      .extracting(ExpiringLotDto::getRecordId)
+      .containsExactly(soonerLot.getId(), laterLot.getId());
+    assertThat(lots.get(0).getUserId()).isEqualTo(otherUserId);
+    assertThat(lots.get(0).getItemName()).isEqualTo(otherUserItem.getName());
+
+    // 前のページの最後のロットの続きから取得する
+    List<ExpiringLotDto> nextPage =
+      itemRecordRepository.findOpenLotsExpiringAfter(
+        soonerLot.getExpirationDate(),
+        soonerLot.getId(),
+        today.plusDays(7),
+        PageRequest.of(0, 1)
+      );
+    assertThat(nextPage)
+      .extracting(ExpiringLotDto::getRecordId)
+      .containsExactly(laterLot.getId());
+
+    List<ExpiringLotDto> userLots =
+      itemRecordRepository.findUserOpenLotsExpiringBetween(
+        testUserId,
+        today,
+        today.plusDays(7)
+      );
+    assertThat(userLots)
+      .extracting(ExpiringLotDto::getRecordId)
+      .containsExactly(laterLot.getId());
+  }
+
+  @Test
+  @Tag("adjustRemainingQuantity")
+  @DisplayName("入庫レコードの残り数量を加減算できる")
+  void testAdjustRemainingQuantity() {
+    itemRecordRepository.adjustRemainingQuantity(testItemInRecord.getId(), -4);
+    entityManager.clear();
+
+    ItemRecord result = itemRecordRepository
+      .findById(testItemInRecord.getId())
+      .get();
+    assertThat(result.getRemainingQuantity()).isEqualTo(6);
+  }
+
+  @Test
+  @Tag("withdrawFromLot")
+  @DisplayName("残り数量が足りる場合のみロットから出庫できる")
+  void testWithdrawFromLot() {
+    int enough = itemRecordRepository.withdrawFromLot(
+      testItemInRecord.getId(),
+      10
+    );
+    int shortage = itemRecordRepository.withdrawFromLot(
+      testItemInRecord.getId(),
+      1
+    );
+    entityManager.clear();
+
+    assertThat(enough).isEqualTo(1);
+    assertThat(shortage).isEqualTo(0);
+    ItemRecord result = itemRecordRepository
+      .findById(testItemInRecord.getId())
+      .get();
+    assertThat(result.getRemainingQuantity()).isEqualTo(0);
+  }
+
+  @Test
+  @Tag("withdrawFromLot")
+  @DisplayName("出庫レコードや削除済みのロットからは出庫できない")
+  void testWithdrawFromLot_NotOpenLot() {
+    assertThat(
+      itemRecordRepository.withdrawFromLot(testItemOutRecord.getId(), 1)
+    ).isEqualTo(0);
+    assertThat(
+      itemRecordRepository.withdrawFromLot(deletedInRecord.getId(), 1)
+    ).isEqualTo(0);
+  }
+
+  @Test
+  @Tag("backfillRemainingQuantity")
+  @DisplayName("残り数量が未設定の入庫レコードに、有効な出庫を差し引いた値が設定される")
+  void testBackfillRemainingQuantity() {
+    testItemInRecord.setRemainingQuantity(null);
+    itemRecordRepository.save(testItemInRecord);
+
+    int updated = itemRecordRepository.backfillRemainingQuantity();
+    entityManager.clear();
+
+    assertThat(updated).isEqualTo(1);
+    ItemRecord result = itemRecordRepository
+      .findById(testItemInRecord.getId())
+      .get();
+    // 10個入庫、5個出庫(削除済みの2個は含めない)
+    assertThat(result.getRemainingQuantity()).isEqualTo(5);
+  }
 }
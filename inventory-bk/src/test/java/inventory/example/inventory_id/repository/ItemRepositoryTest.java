@@ -202,4 +202,80 @@ public class ItemRepositoryTest {
         defaultCategory.getId());
     assertThat(result).isEmpty();
   }
+
+  @Test
+  @DisplayName("在庫不足フラグが立っているアクティブなアイテムのみ取得")
+  public void testFindLowStockByUserId() {
+    Category category = new Category("food");
+    category.setUserId(defaultSystemId);
+    categoryRepository.save(category);
+
+    Item lowStockItem = new Item("Milk", testUserId, category, 1, 100, false);
+    lowStockItem.setReorderThreshold(3);
+    lowStockItem.updateLowStock();
+    itemRepository.save(lowStockItem);
+
+    Item enoughStockItem = new Item("Rice", testUserId, category, 10, 100, false);
+    enoughStockItem.setReorderThreshold(3);
+    enoughStockItem.updateLowStock();
+    itemRepository.save(enoughStockItem);
+
+    Item deletedItem = new Item("Egg", testUserId, category, 0, 0, true);
+    deletedItem.setReorderThreshold(3);
+    deletedItem.updateLowStock();
+    itemRepository.save(deletedItem);
+
+    Item anotherUserItem = new Item("Bread", "anotherUserId", category, 0, 0, false);
+    anotherUserItem.setReorderThreshold(3);
+    anotherUserItem.updateLowStock();
+    itemRepository.save(anotherUserItem);
+
+    List<Item> result = itemRepository.findLowStockByUserId(testUserId);
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getName()).isEqualTo("Milk");
+  }
+
+  @Test
+  @DisplayName("対象日数内に在庫切れが見込まれるアイテムを在庫切れが近い順に取得")
+  public void testFindBuySoonByUserId() {
+    Category category = new Category("food");
+    category.setUserId(defaultSystemId);
+    categoryRepository.save(category);
+
+    // 在庫切れまで5日
+    Item milk = new Item("Milk", testUserId, category, 5, 500, false);
+    milk.setConsumptionRate(1.0);
+    // 在庫切れまで2日
+    Item bread = new Item("Bread", testUserId, category, 4, 400, false);
+    bread.setConsumptionRate(2.0);
+    // 在庫切れまで20日
+    Item rice = new Item("Rice", testUserId, category, 20, 2000, false);
+    rice.setConsumptionRate(1.0);
+    // 消費実績なし
+    Item salt = new Item("Salt", testUserId, category, 1, 100, false);
+    Item deletedItem = new Item("Egg", testUserId, category, 1, 100, true);
+    deletedItem.setConsumptionRate(1.0);
+    Item anotherUserItem = new Item("Tea", "anotherUserId", category, 1, 100, false);
+    anotherUserItem.setConsumptionRate(1.0);
+    LocalDateTime now = LocalDateTime.now();
+    // 直前に出庫したアイテムは消費量がほぼ減衰しない(在庫切れまで約3日)
+    Item butter = new Item("Butter", testUserId, category, 3, 300, false);
+    butter.setConsumptionRate(1.0);
+    butter.setLastConsumedAt(now.minusHours(1));
+    // 在庫切れまで1日だったが、60日間出庫がないため消費量が減衰している
+    Item jam = new Item("Jam", testUserId, category, 2, 200, false);
+    jam.setConsumptionRate(2.0);
+    jam.setLastConsumedAt(now.minusDays(60));
+    itemRepository.saveAll(
+      List.of(milk, bread, rice, salt, deletedItem, anotherUserItem, butter, jam)
+    );
+
+    List<Item> result = itemRepository.findBuySoonByUserId(testUserId, 7, now, 14, 20);
+
+    assertThat(result).extracting(Item::getName).containsExactly("Bread", "Butter", "Milk");
+
+    List<Item> limited = itemRepository.findBuySoonByUserId(testUserId, 7, now, 14, 1);
+    assertThat(limited).extracting(Item::getName).containsExactly("Bread");
+  }
 }
@@ -0,0 +1,138 @@
+package inventory.example.inventory_id.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import inventory.example.inventory_id.enums.TransactionType;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.model.ItemRecord;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 同じロットへの同時出庫で、残り数量を超えて出庫されないことを確認するテスト
+ * 各スレッドがそれぞれのトランザクションで更新するため、テスト全体のトランザクションは使わない
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LotWithdrawalStressTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    LotWithdrawalStressTest.class
+  );
+
+  private static final int THREADS = 64;
+  private static final int WITHDRAWALS_PER_THREAD = 5;
+  private static final int LOT_QUANTITY = 100;
+
+  @Autowired
+  private ItemRecordRepository itemRecordRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private CategoryRepository categoryRepository;
+
+  private String testUserId = "testUserId";
+  private ItemRecord lot;
+
+  @BeforeEach
+  void setUp() {
+    itemRecordRepository.deleteAll();
+    itemRepository.deleteAll();
+    categoryRepository.deleteAll();
+
+    Category category = categoryRepository.save(
+      new Category("食べ物", testUserId)
+    );
+    Item item = itemRepository.save(
+      new Item("牛乳", testUserId, category, false)
+    );
+    lot = itemRecordRepository.save(
+      new ItemRecord(
+        item,
+        testUserId,
+        LOT_QUANTITY,
+        100,
+        null,
+        TransactionType.IN
+      )
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    itemRecordRepository.deleteAll();
+    itemRepository.deleteAll();
+    categoryRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("64スレッドで同時に出庫しても、ロットの数量分だけ出庫され残り数量が負にならない")
+  void concurrentWithdrawals_neverOversell() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger succeeded = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(
+          executor.submit(() -> {
+            start.await();
+            for (int j = 0; j < WITHDRAWALS_PER_THREAD; j++) {
+              if (itemRecordRepository.withdrawFromLot(lot.getId(), 1) == 1) {
+                succeeded.incrementAndGet();
+              } else {
+                rejected.incrementAndGet();
+              }
+            }
+            return null;
+          })
+        );
+      }
+      long startedAt = System.nanoTime();
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+      long elapsedNanos = System.nanoTime() - startedAt;
+      int attempts = THREADS * WITHDRAWALS_PER_THREAD;
+      logger.info(
+        "同時出庫: {}スレッド, {}回, {}ms, {} 回/秒 (参考値)",
+        THREADS,
+        attempts,
+        TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+        Math.round(attempts / (elapsedNanos / 1_000_000_000.0))
+      );
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(succeeded.get()).isEqualTo(LOT_QUANTITY);
+    assertThat(rejected.get()).isEqualTo(
+      THREADS * WITHDRAWALS_PER_THREAD - LOT_QUANTITY
+    );
+    ItemRecord result = itemRecordRepository.findById(lot.getId()).get();
+    assertThat(result.getRemainingQuantity()).isEqualTo(0);
+  }
+}
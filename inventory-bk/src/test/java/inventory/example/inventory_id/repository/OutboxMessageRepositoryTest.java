@@ -0,0 +1,170 @@
+package inventory.example.inventory_id.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import inventory.example.inventory_id.model.OutboxMessage;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class OutboxMessageRepositoryTest {
+
+  @Autowired
+  private OutboxMessageRepository outboxMessageRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  private String testUserId = "testUserId";
+  private OutboxMessage first;
+  private OutboxMessage second;
+  private OutboxMessage third;
+
+  @BeforeEach
+  void setUp() {
+    outboxMessageRepository.deleteAll();
+    first = outboxMessageRepository.save(
+      OutboxMessage.cacheEvict(testUserId, "items", null)
+    );
+    second = outboxMessageRepository.save(
+      OutboxMessage.cacheEvict(testUserId, "itemRecord", testUserId)
+    );
+    third = outboxMessageRepository.save(
+      OutboxMessage.inventoryEvent(testUserId, "{}")
+    );
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  @DisplayName("未処理のメッセージを記録順にバッチサイズ分取得する")
+  void findPending_returnsInOrder() {
+    List<OutboxMessage> pending = outboxMessageRepository.findPending(
+      LocalDateTime.now().plusSeconds(1),
+      PageRequest.of(0, 2)
+    );
+
+    assertThat(pending)
+      .extracting(OutboxMessage::getId)
+      .containsExactly(first.getId(), second.getId());
+  }
+
+  @Test
+  @DisplayName("指定日時より後に記録されたメッセージは取得しない")
+  void findPending_excludesRecentMessages() {
+    List<OutboxMessage> pending = outboxMessageRepository.findPending(
+      LocalDateTime.now().minusHours(1),
+      PageRequest.of(0, 10)
+    );
+
+    assertThat(pending).isEmpty();
+  }
+
+  @Test
+  @DisplayName("処理済みにしたメッセージは取得・遅延の対象にならず、保持期間後に削除できる")
+  void markProcessed_andPurge() {
+    LocalDateTime now = LocalDateTime.now();
+    int updated = outboxMessageRepository.markProcessed(
+      List.of(first.getId(), second.getId()),
+      now
+    );
+    entityManager.clear();
+
+    assertThat(updated).isEqualTo(2);
+    assertThat(outboxMessageRepository.countByProcessedAtIsNullAndDeadAtIsNull()).isEqualTo(1);
+    assertThat(
+      outboxMessageRepository.findPending(
+        now.plusSeconds(1),
+        PageRequest.of(0, 10)
+      )
+    )
+      .extracting(OutboxMessage::getId)
+      .containsExactly(third.getId());
+
+    // 処理済みのメッセージを再度処理済みにしても更新しない
+    assertThat(
+      outboxMessageRepository.markProcessed(List.of(first.getId()), now)
+    ).isEqualTo(0);
+
+    int deleted = outboxMessageRepository.deleteProcessedBefore(
+      now.plusSeconds(1)
+    );
+    assertThat(deleted).isEqualTo(2);
+    assertThat(outboxMessageRepository.count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("最も古い未処理のメッセージの記録日時を取得する")
+  void findOldestPendingCreatedAt() {
+    OutboxMessage oldest = outboxMessageRepository
+      .findById(first.getId())
+      .get();
+
+    assertThat(outboxMessageRepository.findOldestPendingCreatedAt()).isEqualTo(
+      oldest.getCreatedAt()
+    );
+
+    outboxMessageRepository.markProcessed(
+      List.of(first.getId(), second.getId(), third.getId()),
+      LocalDateTime.now()
+    );
+    assertThat(outboxMessageRepository.findOldestPendingCreatedAt()).isNull();
+  }
+
+  @Test
+  @DisplayName("実行を諦めたメッセージは取得・遅延の対象にならない")
+  void markDead_excludesFromPending() {
+    outboxMessageRepository.markDead(first.getId(), LocalDateTime.now());
+    entityManager.clear();
+
+    assertThat(
+      outboxMessageRepository.findPending(
+        LocalDateTime.now().plusSeconds(1),
+        PageRequest.of(0, 10)
+      )
+    )
+      .extracting(OutboxMessage::getId)
+      .containsExactly(second.getId(), third.getId());
+    assertThat(
+      outboxMessageRepository.countByProcessedAtIsNullAndDeadAtIsNull()
+    ).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("ユーザーの先行する未処理のメッセージの有無を確認する")
+  void existsOlderPending() {
+    assertThat(
+      outboxMessageRepository.existsByUserIdAndIdLessThanAndProcessedAtIsNullAndDeadAtIsNull(
+        testUserId,
+        third.getId()
+      )
+    ).isTrue();
+    assertThat(
+      outboxMessageRepository.existsByUserIdAndIdLessThanAndProcessedAtIsNullAndDeadAtIsNull(
+        "otherUserId",
+        third.getId()
+      )
+    ).isFalse();
+
+    outboxMessageRepository.markProcessed(
+      List.of(first.getId()),
+      LocalDateTime.now()
+    );
+    outboxMessageRepository.markDead(second.getId(), LocalDateTime.now());
+    assertThat(
+      outboxMessageRepository.existsByUserIdAndIdLessThanAndProcessedAtIsNullAndDeadAtIsNull(
+        testUserId,
+        third.getId()
+      )
+    ).isFalse();
+  }
+}
@@ -0,0 +1,205 @@
+package inventory.example.inventory_id.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import inventory.example.inventory_id.dto.ExpiringLotDto;
+import inventory.example.inventory_id.enums.TransactionType;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.model.ItemRecord;
+import inventory.example.inventory_id.spec.ItemSpecs;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * 各エンドポイントが使用するクエリのSQL発行数を固定するテスト
+ * 関連の取得方法を変更してN+1が発生した場合に検知する
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+public class StatementCountTest {
+
+  @Autowired
+  private ItemRecordRepository itemRecordRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private CategoryRepository categoryRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  private Statistics statistics;
+  private String testUserId = "testUserId";
+  private Item milk;
+  private Item bread;
+  private Item laptop;
+
+  @BeforeEach
+  void setUp() {
+    itemRecordRepository.deleteAll();
+    itemRepository.deleteAll();
+    categoryRepository.deleteAll();
+
+    Category food = categoryRepository.save(new Category("食べ物", "System"));
+    Category electronics = categoryRepository.save(
+      new Category("家電", testUserId)
+    );
+    milk = new Item("牛乳", testUserId, food, false);
+    milk.setReorderThreshold(5);
+    milk.setLowStock(true);
+    bread = new Item("パン", testUserId, food, false);
+    bread.setReorderThreshold(5);
+    bread.setLowStock(true);
+    laptop = new Item("ノートPC", testUserId, electronics, false);
+    itemRepository.saveAll(List.of(milk, bread, laptop));
+
+    LocalDate today = LocalDate.now();
+    for (Item item : List.of(milk, bread, laptop)) {
+      ItemRecord in = itemRecordRepository.save(
+        new ItemRecord(
+          item,
+          testUserId,
+          10,
+          100,
+          today.plusDays(3),
+          TransactionType.IN
+        )
+      );
+      itemRecordRepository.save(
+        new ItemRecord(
+          item,
+          testUserId,
+          2,
+          100,
+          in.getExpirationDate(),
+          TransactionType.OUT,
+          in
+        )
+      );
+    }
+
+    // 永続化コンテキストに残ったエンティティを使わず、DBから読み込ませる
+    entityManager.flush();
+    entityManager.clear();
+    statistics = entityManager
+      .getEntityManagerFactory()
+      .unwrap(SessionFactory.class)
+      .getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  @DisplayName("GET /api/sync (全件) - 入出庫レコードとアイテム・カテゴリ名を1回のSQLで取得する")
+  void fullSyncRecords_singleStatement() {
+    List<ItemRecord> records = itemRecordRepository.findUserItemRecords(
+      testUserId
+    );
+    records.forEach(record -> {
+      record.getItem().getName();
+      record.getItem().getCategoryName();
+    });
+
+    assertThat(records).hasSize(6);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("GET /api/sync (全件) - アイテムとカテゴリ名を1回のSQLで取得する")
+  void fullSyncItems_singleStatement() {
+    List<Item> items = itemRepository.findActiveByUserId(testUserId);
+    items.forEach(Item::getCategoryName);
+
+    assertThat(items).hasSize(3);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("GET /api/sync (差分) - 変更されたレコードとアイテム・カテゴリ名を1回のSQLで取得する")
+  void deltaSyncRecords_singleStatement() {
+    LocalDateTime now = LocalDateTime.now();
+    List<ItemRecord> records = itemRecordRepository.findChangedBetween(
+      testUserId,
+      now.minusHours(1),
+      now.plusHours(1)
+    );
+    records.forEach(record -> record.getItem().getCategoryName());
+
+    assertThat(records).hasSize(6);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("有効期限アラート - ロットとアイテム・カテゴリ名を1回のSQLで、エンティティを読み込まずに取得する")
+  void expiryScan_singleStatement() {
+    LocalDate today = LocalDate.now();
+    List<ExpiringLotDto> lots = itemRecordRepository.findOpenLotsExpiringAfter(
+      today,
+      Long.MIN_VALUE,
+      today.plusDays(7),
+      PageRequest.of(0, 100)
+    );
+
+    assertThat(lots).hasSize(3);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("POST /api/item-record (在庫集計) - レコードのみを読み込み、アイテムや出庫元を読み込まない")
+  void itemSummary_loadsRecordsOnly() {
+    List<ItemRecord> records = itemRecordRepository.getRecordsByItemIdAndUserId(
+      milk.getId(),
+      testUserId
+    );
+    records.forEach(record -> {
+      record.getQuantity();
+      record.getPrice();
+      record.getTransactionType();
+    });
+
+    assertThat(records).hasSize(2);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("GET /api/item - ページとカテゴリ名の取得、件数の取得の2回のSQLを発行する")
+  void itemList_pageAndCount() {
+    Page<Item> page = itemRepository.findAll(
+      ItemSpecs.belongsToUser(testUserId).and(ItemSpecs.isNotDeleted()),
+      PageRequest.of(0, 2, Sort.by("name"))
+    );
+    page.forEach(item -> item.getCategory().getName());
+
+    assertThat(page.getTotalElements()).isEqualTo(3);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("GET /api/item/low-stock - 在庫不足のアイテムとカテゴリ名を1回のSQLで取得する")
+  void lowStock_singleStatement() {
+    List<Item> items = itemRepository.findLowStockByUserId(testUserId);
+    items.forEach(Item::getCategoryName);
+
+    assertThat(items)
+      .extracting(Item::getName)
+      .containsExactly("パン", "牛乳");
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+}
@@ -24,8 +24,10 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
-import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import inventory.example.inventory_id.dto.CategoryDto;
@@ -33,6 +35,9 @@ import inventory.example.inventory_id.dto.ItemDto;
 import inventory.example.inventory_id.model.Category;
 import inventory.example.inventory_id.model.Item;
 import inventory.example.inventory_id.repository.CategoryRepository;
+import inventory.example.inventory_id.repository.ItemRepository;
+import inventory.example.inventory_id.repository.ItemRepository.CategoryItemCount;
+import inventory.example.inventory_id.service.SystemCategoryRegistry.SystemCategory;
 import inventory.example.inventory_id.request.CategoryRequest;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +46,15 @@ public class CategoryServiceTest {
   @Mock
   private CategoryRepository categoryRepository;
 
+  @Mock
+  private ItemRepository itemRepository;
+
+  @Mock
+  private SystemCategoryRegistry systemCategoryRegistry;
+
+  @Mock
+  private UserVersionService userVersionService;
+
   @InjectMocks
   private CategoryService categoryService;
   private String testUserId = "testUserId";
@@ -51,7 +65,6 @@ public class CategoryServiceTest {
   @BeforeEach
   void setup() {
     MockitoAnnotations.openMocks(this);
-    ReflectionTestUtils.setField(categoryService, "systemUserId", defaultSystemId);
   }
 
   @Test
@@ -68,7 +81,7 @@ public class CategoryServiceTest {
     category2.setName("CategoryA");
     category2.setId(UUID.randomUUID());
     category2.setUserId(userId);
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of(category1, category2));
 
     List<CategoryDto> result = categoryService.getAllCategories(userId);
@@ -83,7 +96,7 @@ public class CategoryServiceTest {
   @DisplayName("カテゴリー取得- 件数0件の場合")
   void testGetAllCategoriesNoResults() {
     String userId = testUserId;
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of());
     ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
       categoryService.getAllCategories(userId);
@@ -92,6 +105,48 @@ public class CategoryServiceTest {
     assertEquals(categoryNotFoundMsg, exception.getReason());
   }
 
+  @Test
+  @Tag("getCategory")
+  @DisplayName("カテゴリー取得- デフォルトカテゴリと合わせてアイテム数の降順でページングする")
+  void testGetAllCategoriesPagedSortedByItemCount() {
+    String userId = testUserId;
+    Category userCategory = new Category("本", userId);
+    userCategory.setId(UUID.randomUUID());
+    SystemCategory food = new SystemCategory(UUID.randomUUID(), "食べ物", null);
+    SystemCategory clothes = new SystemCategory(UUID.randomUUID(), "衣類", null);
+
+    when(categoryRepository.findNotDeleted(userId)).thenReturn(List.of(userCategory));
+    when(systemCategoryRegistry.getAll()).thenReturn(List.of(food, clothes));
+    when(itemRepository.countActiveByCategory(userId)).thenReturn(List.of(
+        itemCount(food.getId(), 5),
+        itemCount(userCategory.getId(), 2)));
+
+    Page<CategoryDto> result = categoryService.getAllCategories(
+        PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "itemCount")),
+        userId);
+
+    assertEquals(3, result.getTotalElements());
+    assertEquals(2, result.getContent().size());
+    assertEquals("食べ物", result.getContent().get(0).getName());
+    assertEquals(5, result.getContent().get(0).getItemCount());
+    assertEquals("本", result.getContent().get(1).getName());
+    assertEquals(2, result.getContent().get(1).getItemCount());
+  }
+
+  @Test
+  @Tag("getCategory")
+  @DisplayName("カテゴリー取得- 並び替えに指定できない項目の場合のエラー")
+  void testGetAllCategoriesInvalidSort() {
+    String userId = testUserId;
+    Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+      categoryService.getAllCategories(
+          PageRequest.of(0, 10, Sort.by("userId")),
+          userId);
+    });
+
+    assertEquals("並び替えに指定できない項目です: userId", exception.getMessage());
+  }
+
   @Test
   @Tag("getCategory/items")
   @DisplayName("アイテム取得- アイテムを取得成功")
@@ -112,8 +167,10 @@ public class CategoryServiceTest {
 
     category.setItems(new ArrayList<>(List.of(userNewItem,
         userOldItem, userDeletedItem, otherUserItem)));
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
-        .thenReturn(List.of(category));
+    // デフォルトカテゴリの場合もユーザのアイテムのみをDBから取得する
+    when(systemCategoryRegistry.contains(categoryId)).thenReturn(true);
+    when(itemRepository.findActiveByCategoryId(userId, categoryId))
+        .thenReturn(List.of(userNewItem, userOldItem));
 
     List<ItemDto> result = categoryService.getCategoryItems(testUserId, categoryId);
     assertEquals(2, result.size());
@@ -130,8 +187,10 @@ public class CategoryServiceTest {
     Category category = new Category("TestCategory", new String(userId));
     category.setId(categoryId);
     category.setItems(new ArrayList<>());
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
-        .thenReturn(List.of(category));
+    when(categoryRepository.findUserCategory(userId, categoryId))
+        .thenReturn(Optional.of(category));
+    when(itemRepository.findActiveByCategoryId(userId, categoryId))
+        .thenReturn(List.of());
 
     List<ItemDto> result = categoryService.getCategoryItems(testUserId, categoryId);
     assertTrue(result.isEmpty());
@@ -145,7 +204,7 @@ public class CategoryServiceTest {
     request.setName("TestCategory");
     String userId = testUserId;
 
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId))).thenReturn(List.of());
+    when(categoryRepository.findNotDeleted(userId)).thenReturn(List.of());
 
     Category savedCategory = new Category();
     savedCategory.setName(request.getName());
@@ -169,7 +228,7 @@ public class CategoryServiceTest {
     Category savedCategory = new Category();
     savedCategory.setName(request.getName());
     savedCategory.setUserId(userId);
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of(savedCategory));
     ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
       categoryService.createCategory(request, userId);
@@ -190,7 +249,7 @@ public class CategoryServiceTest {
     existedCategory.setUserId(userId);
     existedCategory.setDeletedFlag(true);
 
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of());
 
     Category newCategory = new Category();
@@ -213,7 +272,7 @@ public class CategoryServiceTest {
     existedCategory.setUserId(userId);
     existedCategory.setDeletedFlag(true);
 
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of(existedCategory));
 
     Category newCategory = new Category();
@@ -241,12 +300,9 @@ public class CategoryServiceTest {
       category.setName("Category" + i);
       existingCategories.add(category);
     }
-    Category defCategory = new Category("DefaultCategory");
-    defCategory.setUserId(defaultSystemId);
-    existingCategories.add(defCategory);
 
     // Mock the repository to return the list
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(existingCategories);
 
     ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
@@ -267,7 +323,7 @@ public class CategoryServiceTest {
 
     Category category = new Category("OldName", new String(testUserId));
 
-    when(categoryRepository.findUserCategory(List.of(userId, defaultSystemId), categoryId))
+    when(categoryRepository.findUserCategory(userId, categoryId))
         .thenReturn(Optional.of(category));
     when(categoryRepository.save(any(Category.class))).thenReturn(category);
 
@@ -284,7 +340,7 @@ public class CategoryServiceTest {
     request.setName("UpdatedName");
     String userId = testUserId;
 
-    when(categoryRepository.findUserCategory(List.of(userId, defaultSystemId), categoryId))
+    when(categoryRepository.findUserCategory(userId, categoryId))
         .thenReturn(Optional.empty());
 
     Exception exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -303,10 +359,7 @@ public class CategoryServiceTest {
     request.setName("Update");
     String userId = testUserId; // Default user ID
 
-    Category category = new Category("target");
-    category.setUserId(defaultSystemId);
-    when(categoryRepository.findUserCategory(List.of(userId, defaultSystemId), categoryId))
-        .thenReturn(Optional.of(category));
+    when(systemCategoryRegistry.contains(categoryId)).thenReturn(true);
 
     Exception exception = assertThrows(IllegalArgumentException.class, () -> {
       categoryService.updateCategory(categoryId, request, userId);
@@ -326,9 +379,9 @@ public class CategoryServiceTest {
 
     Category category = new Category("target", new String(userId));
 
-    when(categoryRepository.findUserCategory(List.of(userId, defaultSystemId), categoryId))
+    when(categoryRepository.findUserCategory(userId, categoryId))
         .thenReturn(Optional.of(category));
-    when(categoryRepository.findActiveCateByName(List.of(userId, defaultSystemId), request.getName()))
+    when(categoryRepository.findActiveCateByName(userId, request.getName()))
         .thenReturn(List.of(new Category(request.getName(), new String(userId))));
 
     ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
@@ -349,7 +402,7 @@ public class CategoryServiceTest {
     category.setId(categoryId);
     category.setItems(new ArrayList<Item>());
 
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of(category));
 
     assertDoesNotThrow(() -> categoryService.deleteCategory(categoryId, userId));
@@ -370,7 +423,7 @@ public class CategoryServiceTest {
         category,
         true))));
 
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of(category));
 
     assertDoesNotThrow(() -> categoryService.deleteCategory(categoryId, userId));
@@ -387,7 +440,7 @@ public class CategoryServiceTest {
     category.setId(categoryId);
     category.setUserId(userId);
     category.setItems(new ArrayList<Item>(List.of(new Item())));
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of(category));
 
     Exception exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -407,7 +460,7 @@ public class CategoryServiceTest {
     exsitedCategory.setId(UUID.randomUUID());
     exsitedCategory.setUserId(userId);
 
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of(exsitedCategory));
 
     ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> {
@@ -423,12 +476,7 @@ public class CategoryServiceTest {
   void testDeleteDefaultCategoryError() {
     UUID categoryId = UUID.randomUUID();
     String userId = testUserId; // Default user ID
-    Category category = new Category();
-    category.setId(categoryId);
-    category.setUserId(defaultSystemId);
-    category.setItems(new ArrayList<>());
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
-        .thenReturn(List.of(category));
+    when(systemCategoryRegistry.contains(categoryId)).thenReturn(true);
 
     Exception exception = assertThrows(IllegalArgumentException.class, () -> {
       categoryService.deleteCategory(categoryId, userId);
@@ -443,7 +491,7 @@ public class CategoryServiceTest {
   void testDeleteCategoryEmptyList() {
     String userId = testUserId;
     UUID categoryId = UUID.randomUUID();
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId))).thenReturn(List.of());
+    when(categoryRepository.findNotDeleted(userId)).thenReturn(List.of());
 
     ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
       categoryService.deleteCategory(categoryId, userId);
@@ -457,7 +505,7 @@ public class CategoryServiceTest {
   @DisplayName("カテゴリー取得失敗 - DBエラー")
   void testGetAllCategoriesDbError() {
     String userId = testUserId;
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenThrow(new DataAccessException("DBエラー") {
         });
 
@@ -478,7 +526,7 @@ public class CategoryServiceTest {
     category.setId(categoryId);
     category.setUserId(userId);
     category.setItems(new ArrayList<>());
-    when(categoryRepository.findNotDeleted(List.of(userId, defaultSystemId)))
+    when(categoryRepository.findNotDeleted(userId))
         .thenReturn(List.of(category));
     when(categoryRepository.save(any(Category.class))).thenThrow(new DataAccessException("DBエラー") {
     });
@@ -488,4 +536,18 @@ public class CategoryServiceTest {
     });
     assertEquals("DBエラー", exception.getMessage());
   }
+
+  private CategoryItemCount itemCount(UUID categoryId, long count) {
+    return new CategoryItemCount() {
+      @Override
+      public UUID getCategoryId() {
+        return categoryId;
+      }
+
+      @Override
+      public long getItemCount() {
+        return count;
+      }
+    };
+  }
 }
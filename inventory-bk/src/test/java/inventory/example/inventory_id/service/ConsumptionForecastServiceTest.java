@@ -0,0 +1,168 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import inventory.example.inventory_id.dto.StockoutForecastDto;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.repository.ItemRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConsumptionForecastService Tests")
+public class ConsumptionForecastServiceTest {
+
+  @Mock
+  private ItemRepository itemRepository;
+
+  @InjectMocks
+  private ConsumptionForecastService consumptionForecastService;
+
+  private String testUserId = "testUserId";
+  private Item testItem;
+  private LocalDateTime baseTime = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(
+      consumptionForecastService,
+      "timeConstantDays",
+      10.0
+    );
+    ReflectionTestUtils.setField(
+      consumptionForecastService,
+      "defaultHorizonDays",
+      7
+    );
+    ReflectionTestUtils.setField(consumptionForecastService, "maxHorizonDays", 90);
+    ReflectionTestUtils.setField(consumptionForecastService, "buySoonLimit", 20);
+
+    Category category = new Category("食べ物", testUserId);
+    testItem = new Item("牛乳", testUserId, category, 10, 1000, false);
+    testItem.setId(UUID.randomUUID());
+  }
+
+  @Test
+  @DisplayName("消費量 - 出庫実績がない場合は見積もらない")
+  void estimate_isNull_withoutConsumption() {
+    assertThat(testItem.getConsumptionRate()).isNull();
+    assertThat(
+      consumptionForecastService.estimateDaysUntilStockout(testItem)
+    ).isNull();
+  }
+
+  @Test
+  @DisplayName("消費量 - 経過時間に応じて過去の消費量を減衰させて加算する")
+  void recordConsumption_decaysPreviousRate() {
+    consumptionForecastService.recordConsumption(testItem, 5, baseTime);
+    assertThat(testItem.getConsumptionRate()).isCloseTo(0.5, within(1e-9));
+    assertThat(testItem.getLastConsumedAt()).isEqualTo(baseTime);
+
+    // 時定数と同じ日数が経過すると、過去の消費量は1/eになる
+    LocalDateTime next = baseTime.plusDays(10);
+    consumptionForecastService.recordConsumption(testItem, 2, next);
+    assertThat(testItem.getConsumptionRate()).isCloseTo(
+      0.5 * Math.exp(-1) + 0.2,
+      within(1e-9)
+    );
+    assertThat(testItem.getLastConsumedAt()).isEqualTo(next);
+  }
+
+  @Test
+  @DisplayName("消費量 - 前回より古い出庫日時は経過時間0として扱う")
+  void recordConsumption_ignoresOutOfOrderTime() {
+    consumptionForecastService.recordConsumption(testItem, 5, baseTime);
+    consumptionForecastService.recordConsumption(
+      testItem,
+      5,
+      baseTime.minusDays(1)
+    );
+    assertThat(testItem.getConsumptionRate()).isCloseTo(1.0, within(1e-9));
+    assertThat(testItem.getLastConsumedAt()).isEqualTo(baseTime);
+  }
+
+  @Test
+  @DisplayName("在庫切れ日数 - 在庫数を消費量で割った日数を返す")
+  void estimateDaysUntilStockout_dividesQuantityByRate() {
+    consumptionForecastService.recordConsumption(testItem, 40, baseTime);
+    // 在庫10個、1日あたり4個の消費
+    assertThat(testItem.estimateDaysUntilStockout(baseTime, 10)).isEqualTo(2.5);
+
+    testItem.setTotalQuantity(0);
+    assertThat(testItem.estimateDaysUntilStockout(baseTime, 10)).isEqualTo(0.0);
+  }
+
+  @Test
+  @DisplayName("在庫切れ日数 - 出庫が途絶えた場合は経過時間に応じて消費量を減衰させる")
+  void estimateDaysUntilStockout_decaysWithoutConsumption() {
+    consumptionForecastService.recordConsumption(testItem, 40, baseTime);
+
+    // 時定数と同じ日数が経過すると、消費量は1/eになる
+    assertThat(
+      testItem.consumptionRateAt(baseTime.plusDays(10), 10)
+    ).isCloseTo(4 * Math.exp(-1), within(1e-9));
+    assertThat(
+      testItem.estimateDaysUntilStockout(baseTime.plusDays(10), 10)
+    ).isEqualTo(Math.round(10 / (4 * Math.exp(-1)) * 10) / 10.0);
+    // 長期間出庫がない場合は在庫切れ間近と判定しない
+    assertThat(
+      testItem.estimateDaysUntilStockout(baseTime.plusDays(180), 10)
+    ).isGreaterThan(90.0);
+    // 記録された値は変更しない
+    assertThat(testItem.getConsumptionRate()).isCloseTo(4.0, within(1e-9));
+  }
+
+  @Test
+  @DisplayName("まもなく在庫切れ - 既定の対象日数で取得する")
+  void getBuySoonItems_usesDefaultHorizon() {
+    // 直前の出庫のため、消費量はほぼ減衰しない
+    consumptionForecastService.recordConsumption(
+      testItem,
+      40,
+      LocalDateTime.now()
+    );
+    when(
+      itemRepository.findBuySoonByUserId(
+        eq(testUserId),
+        eq(7.0),
+        any(LocalDateTime.class),
+        eq(10.0),
+        eq(20)
+      )
+    ).thenReturn(List.of(testItem));
+
+    List<StockoutForecastDto> result =
+      consumptionForecastService.getBuySoonItems(testUserId, null);
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getItemId()).isEqualTo(testItem.getId());
+    assertThat(result.get(0).getConsumptionRate()).isEqualTo(4.0);
+    assertThat(result.get(0).getDaysUntilStockout()).isEqualTo(2.5);
+  }
+
+  @Test
+  @DisplayName("まもなく在庫切れ失敗 - 対象日数が範囲外")
+  void getBuySoonItems_throwsException_whenHorizonIsOutOfRange() {
+    assertThrows(IllegalArgumentException.class, () ->
+      consumptionForecastService.getBuySoonItems(testUserId, 0)
+    );
+    assertThrows(IllegalArgumentException.class, () ->
+      consumptionForecastService.getBuySoonItems(testUserId, 91)
+    );
+  }
+}
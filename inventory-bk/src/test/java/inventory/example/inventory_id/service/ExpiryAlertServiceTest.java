@@ -0,0 +1,298 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import inventory.example.inventory_id.dto.ExpiringLotDto;
+import inventory.example.inventory_id.dto.ExpiryAlertDto;
+import inventory.example.inventory_id.enums.InventoryEventType;
+import inventory.example.inventory_id.event.InventoryEvent;
+import inventory.example.inventory_id.event.InventoryEventBus;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.model.UserSetting;
+import inventory.example.inventory_id.repository.ItemRecordRepository;
+import inventory.example.inventory_id.repository.UserSettingRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExpiryAlertService Tests")
+public class ExpiryAlertServiceTest {
+
+  @Mock
+  private ItemRecordRepository itemRecordRepository;
+
+  @Mock
+  private UserSettingRepository userSettingRepository;
+
+  @Mock
+  private InventoryEventBus inventoryEventBus;
+
+  @Mock
+  private StringRedisTemplate redisTemplate;
+
+  @Mock
+  private ValueOperations<String, String> valueOperations;
+
+  @InjectMocks
+  private ExpiryAlertService expiryAlertService;
+
+  private String testUserId = "testUserId";
+  private LocalDate today;
+  private Item testItem;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(expiryAlertService, "defaultHorizonDays", 7);
+    ReflectionTestUtils.setField(expiryAlertService, "maxHorizonDays", 90);
+    ReflectionTestUtils.setField(expiryAlertService, "expiredLookbackDays", 30);
+
+    today = LocalDate.now();
+    Category category = new Category("食べ物", testUserId);
+    testItem = new Item("牛肉", testUserId, category, false);
+    testItem.setId(UUID.randomUUID());
+  }
+
+  private ExpiringLotDto lot(Long id, String userId, LocalDate expirationDate) {
+    return new ExpiringLotDto(
+      id,
+      userId,
+      testItem.getId(),
+      testItem.getName(),
+      testItem.getCategoryName(),
+      5,
+      expirationDate
+    );
+  }
+
+  @Test
+  @DisplayName("アラート取得 - 対象日数の範囲のみを検索し、キャッシュする")
+  void getAlerts_queriesUserRangeOnce() {
+    when(userSettingRepository.findById(testUserId)).thenReturn(
+      Optional.empty()
+    );
+    when(
+      itemRecordRepository.findUserOpenLotsExpiringBetween(
+        testUserId,
+        today.minusDays(30),
+        today.plusDays(7)
+      )
+    ).thenReturn(List.of(lot(1L, testUserId, today.plusDays(2))));
+
+    List<ExpiryAlertDto> alerts = expiryAlertService.getAlerts(testUserId);
+    expiryAlertService.getAlerts(testUserId);
+
+    assertThat(alerts).hasSize(1);
+    assertThat(alerts.get(0).getItemName()).isEqualTo("牛肉");
+    assertThat(alerts.get(0).getRemainingQuantity()).isEqualTo(5);
+    assertThat(alerts.get(0).getDaysUntilExpiration()).isEqualTo(2);
+    verify(itemRecordRepository, times(1)).findUserOpenLotsExpiringBetween(
+      testUserId,
+      today.minusDays(30),
+      today.plusDays(7)
+    );
+  }
+
+  @Test
+  @DisplayName("アラート取得 - 入出庫イベントでキャッシュが破棄される")
+  void onInventoryEvent_evictsUserCache() {
+    when(userSettingRepository.findById(testUserId)).thenReturn(
+      Optional.empty()
+    );
+    when(
+      itemRecordRepository.findUserOpenLotsExpiringBetween(
+        eq(testUserId),
+        any(LocalDate.class),
+        any(LocalDate.class)
+      )
+    ).thenReturn(List.of());
+
+    expiryAlertService.getAlerts(testUserId);
+    expiryAlertService.onInventoryEvent(
+      new InventoryEvent(testUserId, InventoryEventType.RECORD_CREATED, null)
+    );
+    expiryAlertService.getAlerts(testUserId);
+
+    verify(itemRecordRepository, times(2)).findUserOpenLotsExpiringBetween(
+      eq(testUserId),
+      any(LocalDate.class),
+      any(LocalDate.class)
+    );
+  }
+
+  @Test
+  @DisplayName("定期スキャン - ユーザーの対象日数で絞り込み、新しいアラートのみ通知する")
+  void scan_filtersByUserHorizonAndNotifiesOnce() {
+    String otherUserId = "otherUserId";
+    when(
+      itemRecordRepository.findOpenLotsExpiringAfter(
+        eq(today.minusDays(30)),
+        eq(Long.MIN_VALUE),
+        eq(today.plusDays(90)),
+        any(Pageable.class)
+      )
+    ).thenReturn(
+      List.of(
+        lot(1L, testUserId, today.plusDays(1)),
+        lot(2L, testUserId, today.plusDays(10)),
+        lot(3L, otherUserId, today.plusDays(10))
+      )
+    );
+    when(userSettingRepository.findAllById(any())).thenReturn(
+      List.of(new UserSetting(otherUserId, 14))
+    );
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(
+      valueOperations.setIfAbsent(anyString(), eq("1"), any(Duration.class))
+    ).thenReturn(true, false);
+
+    expiryAlertService.scan();
+
+    // testUserは初期値の7日、otherUserは14日
+    assertThat(expiryAlertService.getAlerts(testUserId))
+      .extracting(ExpiryAlertDto::getRecordId)
+      .containsExactly(1L);
+    assertThat(expiryAlertService.getAlerts(otherUserId))
+      .extracting(ExpiryAlertDto::getRecordId)
+      .containsExactly(3L);
+    // 2件目は通知済みのため1件のみ通知
+    verify(inventoryEventBus, times(1)).publish(any(InventoryEvent.class));
+  }
+
+  @Test
+  @DisplayName("定期スキャン - スキャン中に変更されたユーザーはスキャン結果を使わずに読み込み直す")
+  void scan_discardsUsersChangedDuringScan() {
+    when(
+      itemRecordRepository.findOpenLotsExpiringAfter(
+        eq(today.minusDays(30)),
+        eq(Long.MIN_VALUE),
+        eq(today.plusDays(90)),
+        any(Pageable.class)
+      )
+    ).thenAnswer(invocation -> {
+      // 読み込み後にロットが出庫された
+      expiryAlertService.onInventoryEvent(
+        new InventoryEvent(testUserId, InventoryEventType.RECORD_CREATED, null)
+      );
+      return List.of(lot(1L, testUserId, today.plusDays(1)));
+    });
+    when(userSettingRepository.findAllById(any())).thenReturn(List.of());
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(
+      valueOperations.setIfAbsent(anyString(), eq("1"), any(Duration.class))
+    ).thenReturn(true);
+    when(userSettingRepository.findById(testUserId)).thenReturn(
+      Optional.empty()
+    );
+    when(
+      itemRecordRepository.findUserOpenLotsExpiringBetween(
+        eq(testUserId),
+        any(LocalDate.class),
+        any(LocalDate.class)
+      )
+    ).thenReturn(List.of());
+
+    expiryAlertService.scan();
+
+    assertThat(expiryAlertService.getAlerts(testUserId)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("定期スキャン - ロットを(有効期限, ID)の続きからページ単位で読み込む")
+  void scan_readsLotsByKeysetPages() {
+    ReflectionTestUtils.setField(expiryAlertService, "scanPageSize", 2);
+    when(
+      itemRecordRepository.findOpenLotsExpiringAfter(
+        today.minusDays(30),
+        Long.MIN_VALUE,
+        today.plusDays(90),
+        PageRequest.of(0, 2)
+      )
+    ).thenReturn(
+      List.of(
+        lot(1L, testUserId, today.plusDays(1)),
+        lot(4L, testUserId, today.plusDays(3))
+      )
+    );
+    when(
+      itemRecordRepository.findOpenLotsExpiringAfter(
+        today.plusDays(3),
+        4L,
+        today.plusDays(90),
+        PageRequest.of(0, 2)
+      )
+    ).thenReturn(List.of(lot(2L, testUserId, today.plusDays(5))));
+    when(userSettingRepository.findAllById(any())).thenReturn(List.of());
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(
+      valueOperations.setIfAbsent(anyString(), eq("1"), any(Duration.class))
+    ).thenReturn(true);
+
+    expiryAlertService.scan();
+
+    assertThat(expiryAlertService.getAlerts(testUserId))
+      .extracting(ExpiryAlertDto::getRecordId)
+      .containsExactly(1L, 4L, 2L);
+    // 対象日数は最初のページで読み込んだ値を使う
+    verify(userSettingRepository, times(1)).findAllById(any());
+    verify(inventoryEventBus, times(3)).publish(any(InventoryEvent.class));
+  }
+
+  @Test
+  @DisplayName("アラート取得 - キャッシュの件数が上限を超えた場合は古いものから破棄する")
+  void getAlerts_boundsCachedUsers() {
+    ReflectionTestUtils.setField(expiryAlertService, "cacheMaxEntries", 1);
+    when(userSettingRepository.findById(anyString())).thenReturn(
+      Optional.empty()
+    );
+    when(
+      itemRecordRepository.findUserOpenLotsExpiringBetween(
+        anyString(),
+        any(LocalDate.class),
+        any(LocalDate.class)
+      )
+    ).thenReturn(List.of());
+
+    expiryAlertService.getAlerts(testUserId);
+    expiryAlertService.getAlerts("otherUserId");
+    expiryAlertService.getAlerts(testUserId);
+
+    verify(itemRecordRepository, times(2)).findUserOpenLotsExpiringBetween(
+      eq(testUserId),
+      any(LocalDate.class),
+      any(LocalDate.class)
+    );
+  }
+
+  @Test
+  @DisplayName("対象日数の更新 - 範囲外の場合はエラー")
+  void updateHorizonDays_outOfRange() {
+    assertThrows(IllegalArgumentException.class, () ->
+      expiryAlertService.updateHorizonDays(testUserId, 91)
+    );
+    verify(userSettingRepository, never()).save(any(UserSetting.class));
+  }
+}
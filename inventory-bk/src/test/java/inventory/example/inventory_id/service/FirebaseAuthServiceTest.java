@@ -1,23 +1,59 @@
 package inventory.example.inventory_id.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.firebase.ErrorCode;
+import com.google.firebase.auth.AuthErrorCode;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
 import inventory.example.inventory_id.enums.AuthMessage;
 import inventory.example.inventory_id.exception.AuthenticationException;
 import inventory.example.inventory_id.response.FirebaseSignUpResponse;
 import io.github.cdimascio.dotenv.Dotenv;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
 
 public class FirebaseAuthServiceTest {
 
+  private static final Logger logger = LoggerFactory.getLogger(
+    FirebaseAuthServiceTest.class
+  );
+
   private FirebaseAuthService firebaseAuthService;
   private Dotenv dotenv;
   private final String FIREBASE_API_KEY = "FIREBASE_API_KEY";
@@ -27,7 +63,7 @@ public class FirebaseAuthServiceTest {
     dotenv = mock(Dotenv.class);
     when(dotenv.get(FIREBASE_API_KEY)).thenReturn("test-api-key");
     firebaseAuthService = spy(
-      new FirebaseAuthService(dotenv) {
+      new FirebaseAuthService(dotenv, RestClient.create(), 100, 8) {
         @Override
         public String getApiKey() {
           return dotenv.get(FIREBASE_API_KEY);
@@ -170,4 +206,323 @@ public class FirebaseAuthServiceTest {
     );
     assertEquals(AuthMessage.SIGNIN_FAILED_MSG.getMessage(), ex.getMessage());
   }
+
+  @Test
+  @DisplayName("検証済みのトークンは有効期限まで再検証しない")
+  void testVerifyTokenCachesUntilExpiry() throws Exception {
+    FirebaseToken token = mock(FirebaseToken.class);
+    when(token.getUid()).thenReturn("test-user-id");
+    when(token.getClaims()).thenReturn(
+      Map.of("exp", Instant.now().plusSeconds(3600).getEpochSecond())
+    );
+    doReturn(token).when(firebaseAuthService).verifyWithFirebase("id-token");
+
+    assertEquals("test-user-id", firebaseAuthService.verifyToken("id-token"));
+    assertEquals("test-user-id", firebaseAuthService.verifyToken("id-token"));
+    verify(firebaseAuthService, times(1)).verifyWithFirebase("id-token");
+  }
+
+  @Test
+  @DisplayName("有効期限を過ぎたトークンはキャッシュしない")
+  void testVerifyTokenDoesNotCacheExpiredToken() throws Exception {
+    FirebaseToken token = mock(FirebaseToken.class);
+    when(token.getUid()).thenReturn("test-user-id");
+    when(token.getClaims()).thenReturn(
+      Map.of("exp", Instant.now().minusSeconds(1).getEpochSecond())
+    );
+    doReturn(token).when(firebaseAuthService).verifyWithFirebase("id-token");
+
+    firebaseAuthService.verifyToken("id-token");
+    firebaseAuthService.verifyToken("id-token");
+    verify(firebaseAuthService, times(2)).verifyWithFirebase("id-token");
+  }
+
+  @Test
+  @DisplayName("署名の検証で失敗した場合は公開鍵を取得できたものとする")
+  void testFetchPublicKeysSucceedsOnSignatureFailure() throws Exception {
+    doThrow(
+      new FirebaseAuthException(
+        ErrorCode.INVALID_ARGUMENT,
+        "Failed to verify the signature of Firebase ID token.",
+        null,
+        null,
+        AuthErrorCode.INVALID_ID_TOKEN
+      )
+    )
+      .when(firebaseAuthService)
+      .verifyWithFirebase(anyString());
+
+    assertThat(firebaseAuthService.fetchPublicKeys("test-project")).isTrue();
+  }
+
+  @Test
+  @DisplayName("公開鍵の取得に失敗した場合は失敗とする")
+  void testFetchPublicKeysFailsOnCertificateFetchFailure() throws Exception {
+    doThrow(
+      new FirebaseAuthException(
+        ErrorCode.UNKNOWN,
+        "Error while fetching public key certificates",
+        null,
+        null,
+        AuthErrorCode.CERTIFICATE_FETCH_FAILED
+      )
+    )
+      .when(firebaseAuthService)
+      .verifyWithFirebase(anyString());
+
+    assertThat(firebaseAuthService.fetchPublicKeys("test-project")).isFalse();
+  }
+
+  /**
+   * identitytoolkitの代わりにローカルで応答するサーバー
+   * 応答の遅延と、先頭から指定回数のエラー応答を設定できる
+   */
+  private static final class StubIdentityToolkit {
+
+    final HttpServer server;
+    final AtomicInteger requests = new AtomicInteger();
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final AtomicInteger failuresLeft;
+    final int failureStatus;
+    final long latencyMillis;
+
+    StubIdentityToolkit(int failures, int failureStatus, long latencyMillis)
+      throws IOException {
+      this.failuresLeft = new AtomicInteger(failures);
+      this.failureStatus = failureStatus;
+      this.latencyMillis = latencyMillis;
+      server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/v1", this::handle);
+      server.setExecutor(Executors.newFixedThreadPool(64));
+      server.start();
+    }
+
+    String url(String path) {
+      return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    void handle(HttpExchange exchange) throws IOException {
+      requests.incrementAndGet();
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        exchange.getRequestBody().readAllBytes();
+        Thread.sleep(latencyMillis);
+        boolean fail = failuresLeft.getAndDecrement() > 0;
+        byte[] body = (
+          fail
+            ? "{\"error\":{\"message\":\"UNAVAILABLE\"}}"
+            : "{\"idToken\":\"stub-id-token\",\"localId\":\"stub-user\"}"
+        ).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(fail ? failureStatus : 200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    void stop() {
+      server.stop(0);
+      ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+  }
+
+  private FirebaseAuthService stubbedService(
+    StubIdentityToolkit stub,
+    int maxConcurrentRequests
+  ) {
+    JdkClientHttpRequestFactory requestFactory =
+      new JdkClientHttpRequestFactory();
+    requestFactory.setReadTimeout(Duration.ofSeconds(5));
+    FirebaseAuthService service = new FirebaseAuthService(
+      dotenv,
+      RestClient.builder().requestFactory(requestFactory).build(),
+      100,
+      maxConcurrentRequests
+    );
+    ReflectionTestUtils.setField(
+      service,
+      "signInBaseUrl",
+      stub.url("/v1/accounts:signInWithPassword")
+    );
+    ReflectionTestUtils.setField(
+      service,
+      "signUpBaseUrl",
+      stub.url("/v1/accounts:signUp")
+    );
+    ReflectionTestUtils.setField(service, "maxAttempts", 3);
+    ReflectionTestUtils.setField(service, "retryBackoff", Duration.ofMillis(5));
+    ReflectionTestUtils.setField(
+      service,
+      "acquireTimeout",
+      Duration.ofSeconds(30)
+    );
+    return service;
+  }
+
+  @Test
+  @DisplayName("サインインは一時的なエラーを再実行する")
+  void testEmailSignInRetriesTransientError() throws Exception {
+    StubIdentityToolkit stub = new StubIdentityToolkit(2, 500, 0);
+    try {
+      FirebaseSignUpResponse response = stubbedService(stub, 8).emailSignIn(
+        "test@example.com",
+        "password123"
+      );
+
+      assertEquals("stub-id-token", response.getIdToken());
+      assertEquals(3, stub.requests.get());
+    } finally {
+      stub.stop();
+    }
+  }
+
+  @Test
+  @DisplayName("登録はリクエストを処理した可能性があるエラーを再実行しない")
+  void testEmailSignUpDoesNotRetryServerError() throws Exception {
+    StubIdentityToolkit stub = new StubIdentityToolkit(1, 500, 0);
+    try {
+      FirebaseAuthService service = stubbedService(stub, 8);
+
+      assertThrows(AuthenticationException.class, () ->
+        service.emailSignUp("test@example.com", "password123")
+      );
+      assertEquals(1, stub.requests.get());
+    } finally {
+      stub.stop();
+    }
+  }
+
+  @Test
+  @DisplayName("登録は503エラーを再実行する")
+  void testEmailSignUpRetriesUnavailable() throws Exception {
+    StubIdentityToolkit stub = new StubIdentityToolkit(1, 503, 0);
+    try {
+      FirebaseSignUpResponse response = stubbedService(stub, 8).emailSignUp(
+        "test@example.com",
+        "password123"
+      );
+
+      assertEquals("stub-id-token", response.getIdToken());
+      assertEquals(2, stub.requests.get());
+    } finally {
+      stub.stop();
+    }
+  }
+
+  @Test
+  @DisplayName("障害が続いた場合は認証サーバーを呼び出さずに失敗し、停止時間後に再開する")
+  void testCircuitBreakerFailsFastDuringOutage() throws Exception {
+    StubIdentityToolkit stub = new StubIdentityToolkit(6, 500, 0);
+    try {
+      FirebaseAuthService service = stubbedService(stub, 8);
+      ReflectionTestUtils.setField(service, "maxAttempts", 1);
+      ReflectionTestUtils.setField(service, "breakerFailureThreshold", 2);
+      ReflectionTestUtils.setField(
+        service,
+        "breakerOpenDuration",
+        Duration.ofMillis(200)
+      );
+
+      for (int i = 0; i < 5; i++) {
+        assertThrows(AuthenticationException.class, () ->
+          service.emailSignIn("test@example.com", "password123")
+        );
+      }
+      assertEquals(2, stub.requests.get());
+
+      // 停止時間後は1件だけ試行し、成功すれば呼び出しを再開する
+      stub.failuresLeft.set(0);
+      Thread.sleep(250);
+      assertEquals(
+        "stub-id-token",
+        service.emailSignIn("test@example.com", "password123").getIdToken()
+      );
+      assertEquals(3, stub.requests.get());
+    } finally {
+      stub.stop();
+    }
+  }
+
+  @Test
+  @DisplayName("認証情報の誤り(400)は障害として数えない")
+  void testCircuitBreakerIgnoresClientErrors() throws Exception {
+    StubIdentityToolkit stub = new StubIdentityToolkit(5, 400, 0);
+    try {
+      FirebaseAuthService service = stubbedService(stub, 8);
+      ReflectionTestUtils.setField(service, "breakerFailureThreshold", 2);
+      ReflectionTestUtils.setField(
+        service,
+        "breakerOpenDuration",
+        Duration.ofSeconds(10)
+      );
+
+      for (int i = 0; i < 5; i++) {
+        assertThrows(AuthenticationException.class, () ->
+          service.emailSignIn("test@example.com", "wrongpassword")
+        );
+      }
+      assertEquals(5, stub.requests.get());
+    } finally {
+      stub.stop();
+    }
+  }
+
+  /**
+   * ローカルのidentitytoolkitに同時にサインインし、応答時間のp99を出力する(参考値)
+   * 同時リクエスト数が上限を超えないことを確認する
+   */
+  @Test
+  @DisplayName("バースト時も同時リクエスト数を上限までに制限する")
+  void testEmailSignInBurstIsBounded() throws Exception {
+    int burst = 200;
+    int maxConcurrentRequests = 16;
+    StubIdentityToolkit stub = new StubIdentityToolkit(0, 500, 5);
+    FirebaseAuthService service = stubbedService(stub, maxConcurrentRequests);
+    ExecutorService executor = Executors.newFixedThreadPool(64);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < burst; i++) {
+        futures.add(
+          executor.submit(() -> {
+            start.await();
+            long startedAt = System.nanoTime();
+            service.emailSignIn("test@example.com", "password123");
+            latencies.add(System.nanoTime() - startedAt);
+            return null;
+          })
+        );
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+
+      List<Long> sorted = new ArrayList<>(latencies);
+      Collections.sort(sorted);
+      logger.info(
+        "サインイン {}件: p50 {}ms / p99 {}ms / 最大同時リクエスト数 {} (参考値)",
+        burst,
+        TimeUnit.NANOSECONDS.toMillis(sorted.get(burst / 2)),
+        TimeUnit.NANOSECONDS.toMillis(
+          sorted.get((int) Math.ceil(burst * 0.99) - 1)
+        ),
+        stub.maxInFlight.get()
+      );
+      assertEquals(burst, stub.requests.get());
+      assertThat(stub.maxInFlight.get()).isLessThanOrEqualTo(
+        maxConcurrentRequests
+      );
+    } finally {
+      executor.shutdownNow();
+      stub.stop();
+    }
+  }
 }
@@ -0,0 +1,347 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.dto.IdempotentResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyService Tests")
+public class IdempotencyServiceTest {
+
+  @Mock
+  private StringRedisTemplate redisTemplate;
+
+  @Mock
+  private ValueOperations<String, String> valueOperations;
+
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  private IdempotencyService idempotencyService;
+
+  private String testUserId = "testUserId";
+  private String idempotencyKey = "retry-key";
+  private Map<String, Object> request = Map.of("itemId", "item", "quantity", 5);
+
+  @BeforeEach
+  void setUp() {
+    idempotencyService = new IdempotencyService(
+      redisTemplate,
+      objectMapper,
+      100
+    );
+    ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofHours(1));
+    ReflectionTestUtils.setField(
+      idempotencyService,
+      "waitTimeout",
+      Duration.ofSeconds(5)
+    );
+    ReflectionTestUtils.setField(
+      idempotencyService,
+      "inFlightTtl",
+      Duration.ofSeconds(30)
+    );
+    lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    lenient()
+      .when(
+        valueOperations.setIfAbsent(
+          anyString(),
+          anyString(),
+          any(Duration.class)
+        )
+      )
+      .thenReturn(true);
+  }
+
+  @Test
+  @DisplayName("同じキーで再送された場合は、書き込みを実行せず保存した結果を返す")
+  void execute_replaysStoredResult() {
+    AtomicInteger calls = new AtomicInteger();
+
+    IdempotentResponse first = idempotencyService.execute(
+      testUserId,
+      idempotencyKey,
+      request,
+      () -> new IdempotentResponse(201, "入庫しました" + calls.incrementAndGet())
+    );
+    IdempotentResponse second = idempotencyService.execute(
+      testUserId,
+      idempotencyKey,
+      request,
+      () -> new IdempotentResponse(201, "入庫しました" + calls.incrementAndGet())
+    );
+
+    assertThat(calls.get()).isEqualTo(1);
+    assertThat(first.isReplayed()).isFalse();
+    assertThat(second.isReplayed()).isTrue();
+    assertThat(second.getStatus()).isEqualTo(201);
+    assertThat(second.getMessage()).isEqualTo("入庫しました1");
+    verify(valueOperations).set(
+      eq("idempotency:" + testUserId + ":" + idempotencyKey),
+      anyString(),
+      eq(Duration.ofHours(1))
+    );
+    // 処理中の印は、付けた値と一致する場合のみ削除する
+    ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+    verify(valueOperations).setIfAbsent(
+      eq("idempotency_lock:" + testUserId + ":" + idempotencyKey),
+      token.capture(),
+      eq(Duration.ofSeconds(30))
+    );
+    verify(redisTemplate).execute(
+      any(RedisScript.class),
+      eq(List.of("idempotency_lock:" + testUserId + ":" + idempotencyKey)),
+      eq(token.getValue())
+    );
+    verify(redisTemplate, never()).delete(anyString());
+  }
+
+  @Test
+  @DisplayName("処理中の印の値は書き込みごとに異なる")
+  void execute_usesUniqueLockToken() {
+    idempotencyService.execute(testUserId, "first-key", request, () ->
+      new IdempotentResponse(201, "入庫しました")
+    );
+    idempotencyService.execute(testUserId, "second-key", request, () ->
+      new IdempotentResponse(201, "入庫しました")
+    );
+
+    ArgumentCaptor<String> tokens = ArgumentCaptor.forClass(String.class);
+    verify(valueOperations, times(2)).setIfAbsent(
+      anyString(),
+      tokens.capture(),
+      any(Duration.class)
+    );
+    assertThat(tokens.getAllValues()).doesNotHaveDuplicates();
+  }
+
+  @Test
+  @DisplayName("同じキーで異なる内容が送信された場合は422エラー")
+  void execute_rejectsDifferentRequest() {
+    idempotencyService.execute(testUserId, idempotencyKey, request, () ->
+      new IdempotentResponse(201, "入庫しました")
+    );
+
+    ResponseStatusException exception = assertThrows(
+      ResponseStatusException.class,
+      () ->
+        idempotencyService.execute(
+          testUserId,
+          idempotencyKey,
+          Map.of("itemId", "item", "quantity", 6),
+          () -> new IdempotentResponse(201, "入庫しました")
+        )
+    );
+
+    assertThat(exception.getStatusCode()).isEqualTo(
+      HttpStatus.UNPROCESSABLE_ENTITY
+    );
+  }
+
+  @Test
+  @DisplayName("キーはユーザーごとに区別する")
+  void execute_scopesKeyByUser() {
+    AtomicInteger calls = new AtomicInteger();
+
+    idempotencyService.execute(testUserId, idempotencyKey, request, () ->
+      new IdempotentResponse(201, "入庫しました" + calls.incrementAndGet())
+    );
+    IdempotentResponse other = idempotencyService.execute(
+      "otherUserId",
+      idempotencyKey,
+      request,
+      () -> new IdempotentResponse(201, "入庫しました" + calls.incrementAndGet())
+    );
+
+    assertThat(calls.get()).isEqualTo(2);
+    assertThat(other.isReplayed()).isFalse();
+  }
+
+  @Test
+  @DisplayName("サーバーエラーや競合の結果は保存せず、再送時に改めて実行する")
+  void execute_doesNotStoreRetryableResult() {
+    AtomicInteger calls = new AtomicInteger();
+
+    idempotencyService.execute(testUserId, idempotencyKey, request, () -> {
+      calls.incrementAndGet();
+      return new IdempotentResponse(409, "競合しました");
+    });
+    assertThrows(IllegalStateException.class, () ->
+      idempotencyService.execute(testUserId, idempotencyKey, request, () -> {
+        calls.incrementAndGet();
+        throw new IllegalStateException("db down");
+      })
+    );
+    IdempotentResponse third = idempotencyService.execute(
+      testUserId,
+      idempotencyKey,
+      request,
+      () -> {
+        calls.incrementAndGet();
+        return new IdempotentResponse(201, "入庫しました");
+      }
+    );
+
+    assertThat(calls.get()).isEqualTo(3);
+    assertThat(third.isReplayed()).isFalse();
+    verify(valueOperations).set(anyString(), anyString(), any(Duration.class));
+  }
+
+  @Test
+  @DisplayName("他ノードが保存した結果がRedisにある場合は、書き込みを実行しない")
+  void execute_replaysResultFromRedis() throws Exception {
+    String stored = objectMapper.writeValueAsString(
+      new IdempotencyService.StoredResult(
+        fingerprint(request),
+        201,
+        "入庫しました"
+      )
+    );
+    when(
+      valueOperations.get("idempotency:" + testUserId + ":" + idempotencyKey)
+    ).thenReturn(stored);
+
+    IdempotentResponse result = idempotencyService.execute(
+      testUserId,
+      idempotencyKey,
+      request,
+      () -> {
+        throw new AssertionError("書き込みは実行しない");
+      }
+    );
+
+    assertThat(result.isReplayed()).isTrue();
+    assertThat(result.getMessage()).isEqualTo("入庫しました");
+    verify(valueOperations, never()).setIfAbsent(
+      anyString(),
+      anyString(),
+      any(Duration.class)
+    );
+  }
+
+  @Test
+  @DisplayName("Redisに接続できない場合も、このノード内で重複を防ぐ")
+  void execute_worksWithoutRedis() {
+    when(redisTemplate.opsForValue()).thenThrow(
+      new RedisConnectionFailureException("redis down")
+    );
+    AtomicInteger calls = new AtomicInteger();
+
+    idempotencyService.execute(testUserId, idempotencyKey, request, () ->
+      new IdempotentResponse(201, "入庫しました" + calls.incrementAndGet())
+    );
+    IdempotentResponse second = idempotencyService.execute(
+      testUserId,
+      idempotencyKey,
+      request,
+      () -> new IdempotentResponse(201, "入庫しました" + calls.incrementAndGet())
+    );
+
+    assertThat(calls.get()).isEqualTo(1);
+    assertThat(second.isReplayed()).isTrue();
+  }
+
+  @Test
+  @DisplayName("255文字を超えるキーは400エラー")
+  void execute_rejectsLongKey() {
+    assertThrows(IllegalArgumentException.class, () ->
+      idempotencyService.execute(testUserId, "a".repeat(256), request, () ->
+        new IdempotentResponse(201, "入庫しました")
+      )
+    );
+  }
+
+  @Test
+  @DisplayName("同じキーで並行した書き込みは1回だけ実行し、他は結果を待って返す")
+  void execute_concurrentDuplicatesRunOnce() throws Exception {
+    int threads = 16;
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<IdempotentResponse>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        futures.add(
+          executor.submit(() -> {
+            start.await();
+            return idempotencyService.execute(
+              testUserId,
+              idempotencyKey,
+              request,
+              () -> {
+                calls.incrementAndGet();
+                try {
+                  // 他の書き込みが到着するまで完了しない
+                  release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                return new IdempotentResponse(201, "入庫しました");
+              }
+            );
+          })
+        );
+      }
+      start.countDown();
+      Thread.sleep(100);
+      release.countDown();
+
+      int replayed = 0;
+      for (Future<IdempotentResponse> future : futures) {
+        IdempotentResponse result = future.get(10, TimeUnit.SECONDS);
+        assertThat(result.getStatus()).isEqualTo(201);
+        if (result.isReplayed()) {
+          replayed++;
+        }
+      }
+      assertThat(calls.get()).isEqualTo(1);
+      assertThat(replayed).isEqualTo(threads - 1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private String fingerprint(Object body) throws Exception {
+    byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+      objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8)
+    );
+    return HexFormat.of().formatHex(digest);
+  }
+}
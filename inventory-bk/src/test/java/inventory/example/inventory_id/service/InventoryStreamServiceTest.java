@@ -0,0 +1,128 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import inventory.example.inventory_id.enums.InventoryEventType;
+import inventory.example.inventory_id.event.InventoryEvent;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@DisplayName("InventoryStreamService Tests")
+public class InventoryStreamServiceTest {
+
+  private InventoryStreamService inventoryStreamService;
+
+  private String testUserId = "testUserId";
+
+  @BeforeEach
+  void setUp() {
+    inventoryStreamService = new InventoryStreamService();
+    ReflectionTestUtils.setField(
+      inventoryStreamService,
+      "timeout",
+      Duration.ofMinutes(30)
+    );
+    ReflectionTestUtils.setField(
+      inventoryStreamService,
+      "maxConnectionsPerUser",
+      2
+    );
+  }
+
+  @Test
+  @DisplayName("購読 - 接続が登録される")
+  void subscribe_registersEmitter() {
+    SseEmitter emitter = inventoryStreamService.subscribe(testUserId);
+
+    assertThat(emitter).isNotNull();
+    assertThat(inventoryStreamService.getSubscriberCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("購読 - 上限を超えた場合は古い接続が閉じられる")
+  void subscribe_limitsConnectionsPerUser() {
+    inventoryStreamService.subscribe(testUserId);
+    inventoryStreamService.subscribe(testUserId);
+    inventoryStreamService.subscribe(testUserId);
+
+    assertThat(inventoryStreamService.getSubscriberCount()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("イベント配信 - 購読者のいないユーザーへのイベントは無視される")
+  void onInventoryEvent_ignoresOtherUsers() {
+    inventoryStreamService.subscribe(testUserId);
+
+    inventoryStreamService.onInventoryEvent(
+      new InventoryEvent(
+        "otherUserId",
+        InventoryEventType.RECORD_DELETED,
+        List.of(1L)
+      )
+    );
+    inventoryStreamService.onInventoryEvent(
+      new InventoryEvent(
+        testUserId,
+        InventoryEventType.RECORD_DELETED,
+        List.of(1L)
+      )
+    );
+
+    assertThat(inventoryStreamService.getSubscriberCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("イベント配信 - 送信を待たずに戻り、送信待ちが上限を超えた接続は閉じられる")
+  void onInventoryEvent_closesSlowSubscriber() throws Exception {
+    ReflectionTestUtils.setField(
+      inventoryStreamService,
+      "maxPendingPerConnection",
+      2
+    );
+    // 送信用のスレッドが受信の遅い接続への書き込みで止まっている状態
+    CountDownLatch release = new CountDownLatch(1);
+    ThreadPoolExecutor sender = new ThreadPoolExecutor(
+      1,
+      1,
+      0,
+      TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(10)
+    );
+    sender.execute(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    ReflectionTestUtils.setField(inventoryStreamService, "sender", sender);
+    try {
+      inventoryStreamService.subscribe(testUserId);
+      InventoryEvent event = new InventoryEvent(
+        testUserId,
+        InventoryEventType.RECORD_DELETED,
+        List.of(1L)
+      );
+
+      // 接続時のイベントと合わせて上限に達する
+      inventoryStreamService.onInventoryEvent(event);
+      assertThat(inventoryStreamService.getSubscriberCount()).isEqualTo(1);
+
+      inventoryStreamService.onInventoryEvent(event);
+      assertThat(inventoryStreamService.getSubscriberCount()).isZero();
+    } finally {
+      release.countDown();
+      sender.shutdown();
+      assertThat(sender.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+}
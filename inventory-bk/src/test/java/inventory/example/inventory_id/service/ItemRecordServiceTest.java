@@ -4,22 +4,33 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import inventory.example.inventory_id.dto.ItemRecordDto;
+import inventory.example.inventory_id.enums.InventoryEventType;
 import inventory.example.inventory_id.enums.TransactionType;
+import inventory.example.inventory_id.event.InventoryEvent;
 import inventory.example.inventory_id.model.Category;
 import inventory.example.inventory_id.model.Item;
 import inventory.example.inventory_id.model.ItemRecord;
 import inventory.example.inventory_id.repository.ItemRecordRepository;
 import inventory.example.inventory_id.repository.ItemRepository;
 import inventory.example.inventory_id.request.ItemRecordRequest;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -28,7 +39,10 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +55,24 @@ public class ItemRecordServiceTest {
   @Mock
   private ItemRepository itemRepository;
 
+  @Mock
+  private UserVersionService userVersionService;
+
+  @Mock
+  private OutboxService outboxService;
+
+  @Mock
+  private RollupService rollupService;
+
+  @Mock
+  private ConsumptionForecastService consumptionForecastService;
+
+  @Mock
+  private ItemWriteLocks itemWriteLocks;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
   @InjectMocks
   private ItemRecordService itemRecordService;
 
@@ -64,6 +96,12 @@ public class ItemRecordServiceTest {
     testItemId = UUID.randomUUID();
     testItemRecordId = 1L;
     timeNow = LocalDate.now();
+    ReflectionTestUtils.setField(itemRecordService, "maxAttempts", 3);
+    ReflectionTestUtils.setField(
+      itemRecordService,
+      "retryBackoff",
+      Duration.ZERO
+    );
 
     testCategory = new Category("Test Category", testUserId);
     testCategory.setId(UUID.randomUUID());
@@ -113,6 +151,185 @@ public class ItemRecordServiceTest {
     assertThat(savedRecord.getExpirationDate()).isEqualTo(timeNow);
     assertThat(savedRecord.getTransactionType()).isEqualTo(TransactionType.IN);
     assertThat(savedRecord.getSourceRecord()).isNull();
+    verify(userVersionService).bump(testUserId);
+    verify(outboxService, times(2)).publish(any(InventoryEvent.class));
+    verify(outboxService).evict(testUserId, "itemRecord", testUserId);
+    verify(outboxService).evict(
+      testUserId,
+      "itemRecord",
+      testUserId + ":" + testItemId
+    );
+    verify(outboxService).evictAll(testUserId, "items");
+    verify(rollupService).apply(savedRecord, 1);
+  }
+
+  @Test
+  @DisplayName("グループコミット - 並行する登録を1回のトランザクションで書き込み、それぞれの結果を返す")
+  void createItemRecord_groupCommit_writesBatchInOneTransaction() {
+    ReflectionTestUtils.setField(itemRecordService, "groupCommitEnabled", true);
+    ReflectionTestUtils.setField(
+      itemRecordService,
+      "groupCommitMaxBatchSize",
+      2
+    );
+    ReflectionTestUtils.setField(
+      itemRecordService,
+      "groupCommitMaxDelay",
+      Duration.ofSeconds(5)
+    );
+    itemRecordService.startGroupCommit();
+    UUID unknownItemId = UUID.randomUUID();
+    ItemRecordRequest valid = new ItemRecordRequest(
+      testItemId,
+      10,
+      500,
+      timeNow,
+      TransactionType.IN
+    );
+    ItemRecordRequest invalid = new ItemRecordRequest(
+      unknownItemId,
+      10,
+      500,
+      timeNow,
+      TransactionType.IN
+    );
+    when(
+      itemRepository.getActiveItemWithId(List.of(testUserId), testItemId)
+    ).thenReturn(Optional.of(testItem));
+
+    try {
+      CompletableFuture<String> validResult = CompletableFuture.supplyAsync(
+        () -> itemRecordService.createItemRecord(testUserId, valid)
+      );
+      CompletableFuture<String> invalidResult = CompletableFuture.supplyAsync(
+        () -> itemRecordService.createItemRecord(testUserId, invalid)
+      );
+
+      assertThat(validResult.join()).isEqualTo("Test Itemが入庫しました");
+      CompletionException exception = assertThrows(
+        CompletionException.class,
+        invalidResult::join
+      );
+      assertThat(exception.getCause())
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage(itemNotFoundMsg);
+    } finally {
+      itemRecordService.stopGroupCommit();
+    }
+
+    verify(transactionManager, times(1)).commit(any());
+    verify(itemRecordRepository, times(1)).save(any(ItemRecord.class));
+    // エラーのレコードはアウトボックスにも書き込まない
+    verify(outboxService, never()).evict(
+      testUserId,
+      "itemRecord",
+      testUserId + ":" + unknownItemId
+    );
+    verify(outboxService, times(1)).evictAll(testUserId, "items");
+  }
+
+  @Test
+  @DisplayName("グループコミット - まとめた書き込みが失敗した場合は、それぞれの呼び出し元のスレッドで書き込み直す")
+  void createItemRecord_groupCommit_replaysOnCallerThreads() {
+    ReflectionTestUtils.setField(itemRecordService, "groupCommitEnabled", true);
+    ReflectionTestUtils.setField(
+      itemRecordService,
+      "groupCommitMaxBatchSize",
+      2
+    );
+    ReflectionTestUtils.setField(
+      itemRecordService,
+      "groupCommitMaxDelay",
+      Duration.ofSeconds(5)
+    );
+    itemRecordService.startGroupCommit();
+    ItemRecordRequest request = new ItemRecordRequest(
+      testItemId,
+      10,
+      500,
+      timeNow,
+      TransactionType.IN
+    );
+    when(
+      itemRepository.getActiveItemWithId(List.of(testUserId), testItemId)
+    ).thenReturn(Optional.of(testItem));
+    List<String> writerThreads = new CopyOnWriteArrayList<>();
+    when(itemRecordRepository.save(any(ItemRecord.class))).thenAnswer(
+      invocation -> {
+        writerThreads.add(Thread.currentThread().getName());
+        return invocation.getArgument(0);
+      }
+    );
+    doThrow(new CannotAcquireLockException("lock timeout"))
+      .doNothing()
+      .when(transactionManager)
+      .commit(any());
+
+    try {
+      CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+        itemRecordService.createItemRecord(testUserId, request)
+      );
+      CompletableFuture<String> second = CompletableFuture.supplyAsync(() ->
+        itemRecordService.createItemRecord(testUserId, request)
+      );
+
+      assertThat(first.join()).isEqualTo("Test Itemが入庫しました");
+      assertThat(second.join()).isEqualTo("Test Itemが入庫しました");
+    } finally {
+      itemRecordService.stopGroupCommit();
+    }
+
+    verify(transactionManager, times(3)).commit(any());
+    // 1回目はまとめた書き込み、2回目以降はそれぞれの呼び出し元で書き込む
+    assertThat(writerThreads).hasSize(4);
+    assertThat(writerThreads.subList(2, 4)).doesNotContain(
+      "item-record-group-commit"
+    );
+  }
+
+  @Test
+  @DisplayName("グループコミット - 完了を待つ時間を過ぎた場合は503を返す")
+  void createItemRecord_groupCommit_timesOut() {
+    ReflectionTestUtils.setField(itemRecordService, "groupCommitEnabled", true);
+    ReflectionTestUtils.setField(
+      itemRecordService,
+      "groupCommitMaxBatchSize",
+      2
+    );
+    // 2件目を待つ間に、1件目の呼び出し元の待ち時間が過ぎる
+    ReflectionTestUtils.setField(
+      itemRecordService,
+      "groupCommitMaxDelay",
+      Duration.ofSeconds(5)
+    );
+    ReflectionTestUtils.setField(
+      itemRecordService,
+      "groupCommitAwaitTimeout",
+      Duration.ofMillis(50)
+    );
+    itemRecordService.startGroupCommit();
+    ItemRecordRequest request = new ItemRecordRequest(
+      testItemId,
+      10,
+      500,
+      timeNow,
+      TransactionType.IN
+    );
+    when(
+      itemRepository.getActiveItemWithId(List.of(testUserId), testItemId)
+    ).thenReturn(Optional.of(testItem));
+
+    try {
+      ResponseStatusException exception = assertThrows(
+        ResponseStatusException.class,
+        () -> itemRecordService.createItemRecord(testUserId, request)
+      );
+      assertThat(exception.getStatusCode()).isEqualTo(
+        HttpStatus.SERVICE_UNAVAILABLE
+      );
+    } finally {
+      itemRecordService.stopGroupCommit();
+    }
   }
 
   @Test
@@ -218,6 +435,8 @@ public class ItemRecordServiceTest {
 
     assertThat(exception.getMessage()).isEqualTo(itemNotFoundMsg);
     verify(itemRecordRepository, times(0)).save(any(ItemRecord.class));
+    verify(userVersionService, times(0)).bump(testUserId);
+    verifyNoInteractions(outboxService);
   }
 
   @Test
@@ -236,9 +455,9 @@ public class ItemRecordServiceTest {
     when(
       itemRecordRepository.getRecordByUserIdAndId(testUserId, testItemRecordId)
     ).thenReturn(Optional.of(testItemRecord));
-    when(
-      itemRecordRepository.getInrecordRemainQuantity(testItemRecordId)
-    ).thenReturn(50); // 残り在庫50個
+    when(itemRecordRepository.withdrawFromLot(testItemRecordId, 10)).thenReturn(
+      1
+    ); // 残り在庫から出庫できた
 
     itemRecordService.createItemRecord(testUserId, request);
 
@@ -253,6 +472,13 @@ public class ItemRecordServiceTest {
     assertThat(savedRecord.getQuantity()).isEqualTo(10);
     assertThat(savedRecord.getTransactionType()).isEqualTo(TransactionType.OUT);
     assertThat(savedRecord.getSourceRecord()).isEqualTo(testItemRecord);
+    verify(itemRecordRepository).withdrawFromLot(testItemRecordId, 10);
+    verify(itemWriteLocks).lockUntilCompletion(testItemId);
+    verify(consumptionForecastService).recordConsumption(
+      eq(testItem),
+      eq(10),
+      any()
+    );
   }
 
   @Test
@@ -271,9 +497,9 @@ public class ItemRecordServiceTest {
     when(
       itemRecordRepository.getRecordByUserIdAndId(testUserId, testItemRecordId)
     ).thenReturn(Optional.of(testItemRecord));
-    when(
-      itemRecordRepository.getInrecordRemainQuantity(testItemRecordId)
-    ).thenReturn(50); // 残り在庫50個
+    when(itemRecordRepository.withdrawFromLot(testItemRecordId, 50)).thenReturn(
+      1
+    ); // 残り在庫50個をすべて出庫できた
 
     assertDoesNotThrow(() ->
       itemRecordService.createItemRecord(testUserId, request)
@@ -289,6 +515,70 @@ public class ItemRecordServiceTest {
     assertThat(savedRecord.getTransactionType()).isEqualTo(TransactionType.OUT);
   }
 
+  @Test
+  @DisplayName("出庫記録作成成功 - ロックを取得できなかった場合は再実行する")
+  void createItemRecord_out_retries_on_lock_failure() {
+    ItemRecordRequest request = new ItemRecordRequest(
+      testItemId,
+      10,
+      TransactionType.OUT,
+      testItemRecordId
+    );
+
+    when(
+      itemRepository.getActiveItemWithId(List.of(testUserId), testItemId)
+    ).thenReturn(Optional.of(testItem));
+    when(
+      itemRecordRepository.getRecordByUserIdAndId(testUserId, testItemRecordId)
+    ).thenReturn(Optional.of(testItemRecord));
+    when(itemRecordRepository.withdrawFromLot(testItemRecordId, 10))
+      .thenThrow(new CannotAcquireLockException("lock timeout"))
+      .thenReturn(1);
+
+    assertDoesNotThrow(() ->
+      itemRecordService.createItemRecord(testUserId, request)
+    );
+
+    verify(itemRecordRepository, times(2)).withdrawFromLot(
+      testItemRecordId,
+      10
+    );
+    verify(itemRecordRepository, times(1)).save(any(ItemRecord.class));
+  }
+
+  @Test
+  @DisplayName("出庫記録作成失敗 - 再実行しても競合が続く場合は409を返す")
+  void createItemRecord_out_conflict_after_max_attempts() {
+    ItemRecordRequest request = new ItemRecordRequest(
+      testItemId,
+      10,
+      TransactionType.OUT,
+      testItemRecordId
+    );
+
+    when(
+      itemRepository.getActiveItemWithId(List.of(testUserId), testItemId)
+    ).thenReturn(Optional.of(testItem));
+    when(
+      itemRecordRepository.getRecordByUserIdAndId(testUserId, testItemRecordId)
+    ).thenReturn(Optional.of(testItemRecord));
+    when(itemRecordRepository.withdrawFromLot(testItemRecordId, 10)).thenThrow(
+      new CannotAcquireLockException("lock timeout")
+    );
+
+    ResponseStatusException exception = assertThrows(
+      ResponseStatusException.class,
+      () -> itemRecordService.createItemRecord(testUserId, request)
+    );
+
+    assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    verify(itemRecordRepository, times(3)).withdrawFromLot(
+      testItemRecordId,
+      10
+    );
+    verify(itemRecordRepository, times(0)).save(any(ItemRecord.class));
+  }
+
   @Test
   @DisplayName("出庫記録作成失敗 - 在庫数が不足している")
   void createItemRecord_throws_exception_when_insufficient_stock() {
@@ -471,6 +761,8 @@ public class ItemRecordServiceTest {
     );
     verify(itemRecordRepository, times(1)).save(testItemRecord);
     assertThat(testItemRecord.isDeletedFlag()).isEqualTo(true);
+    verify(rollupService).apply(testItemRecord, -1);
+    verify(itemWriteLocks).lockUntilCompletion(testItemId);
   }
 
   @Test
@@ -526,8 +818,11 @@ public class ItemRecordServiceTest {
   @DisplayName("履歴取得 - 正常系（入庫）")
   void getItemRecord_success() {
     when(
-      itemRecordRepository.findByIdAndUserId(testItemRecordId, testUserId)
-    ).thenReturn(Optional.of(testItemRecord));
+      itemRecordRepository.findRecordDtoByIdAndUserId(
+        testItemRecordId,
+        testUserId
+      )
+    ).thenReturn(Optional.of(toDto(testItemRecord)));
 
     ItemRecordDto result = itemRecordService.getItemRecord(
       testItemRecordId,
@@ -559,8 +854,11 @@ public class ItemRecordServiceTest {
     );
 
     when(
-      itemRecordRepository.findByIdAndUserId(outRecord.getId(), testUserId)
-    ).thenReturn(Optional.of(outRecord));
+      itemRecordRepository.findRecordDtoByIdAndUserId(
+        outRecord.getId(),
+        testUserId
+      )
+    ).thenReturn(Optional.of(toDto(outRecord)));
 
     ItemRecordDto result = itemRecordService.getItemRecord(
       outRecord.getId(),
@@ -583,7 +881,10 @@ public class ItemRecordServiceTest {
   @DisplayName("履歴取得失敗 - 存在しない履歴を取得しようとした場合")
   void getItemRecord_throws_exception_when_record_not_found() {
     when(
-      itemRecordRepository.findByIdAndUserId(testItemRecordId, testUserId)
+      itemRecordRepository.findRecordDtoByIdAndUserId(
+        testItemRecordId,
+        testUserId
+      )
     ).thenReturn(Optional.empty());
 
     ResponseStatusException exception = assertThrows(
@@ -608,8 +909,8 @@ public class ItemRecordServiceTest {
     );
     anotherRecord.setId(2L);
 
-    when(itemRecordRepository.findUserItemRecords(testUserId)).thenReturn(
-      List.of(testItemRecord, anotherRecord)
+    when(itemRecordRepository.findUserItemRecordDtos(testUserId)).thenReturn(
+      List.of(toDto(testItemRecord), toDto(anotherRecord))
     );
 
     List<ItemRecordDto> result = itemRecordService.getUserItemRecords(
@@ -657,7 +958,7 @@ public class ItemRecordServiceTest {
   @Test
   @DisplayName("履歴一覧取得 - 正常系(履歴なし)")
   void getUserItemRecords_success_empty() {
-    when(itemRecordRepository.findUserItemRecords(testUserId)).thenReturn(
+    when(itemRecordRepository.findUserItemRecordDtos(testUserId)).thenReturn(
       List.of()
     );
     List<ItemRecordDto> result = itemRecordService.getUserItemRecords(
@@ -670,7 +971,7 @@ public class ItemRecordServiceTest {
   @Test
   @DisplayName("履歴一覧取得 - サーバーエラー発生時")
   void getUserItemRecords_throws_exception_on_server_error() {
-    when(itemRecordRepository.findUserItemRecords(testUserId)).thenThrow(
+    when(itemRecordRepository.findUserItemRecordDtos(testUserId)).thenThrow(
       new RuntimeException(serverErrorMsg)
     );
     Exception exception = assertThrows(Exception.class, () ->
@@ -697,8 +998,11 @@ public class ItemRecordServiceTest {
     );
 
     when(
-      itemRecordRepository.getRecordsByItemIdAndUserId(testItemId, testUserId)
-    ).thenReturn(List.of(anotherRecord, testItemRecord));
+      itemRecordRepository.findRecordDtosByItemIdAndUserId(
+        testItemId,
+        testUserId
+      )
+    ).thenReturn(List.of(toDto(anotherRecord), toDto(testItemRecord)));
     var results = itemRecordService.getAllRecordsByItem(testUserId, testItemId);
     assertThat(results).hasSize(2);
     assertThat(results.get(0).getItemName()).isEqualTo(
@@ -716,7 +1020,10 @@ public class ItemRecordServiceTest {
       itemRepository.getActiveItemWithId(List.of(testUserId), testItemId)
     ).thenReturn(Optional.of(testItem));
     when(
-      itemRecordRepository.getRecordsByItemIdAndUserId(testItemId, testUserId)
+      itemRecordRepository.findRecordDtosByItemIdAndUserId(
+        testItemId,
+        testUserId
+      )
     ).thenReturn(List.of());
     var results = itemRecordService.getAllRecordsByItem(testUserId, testItemId);
     assertThat(results).isEmpty();
@@ -743,7 +1050,10 @@ public class ItemRecordServiceTest {
       itemRepository.getActiveItemWithId(List.of(testUserId), testItemId)
     ).thenReturn(Optional.of(testItem));
     when(
-      itemRecordRepository.getRecordsByItemIdAndUserId(testItemId, testUserId)
+      itemRecordRepository.findRecordDtosByItemIdAndUserId(
+        testItemId,
+        testUserId
+      )
     ).thenThrow(new RuntimeException(serverErrorMsg));
     Exception exception = assertThrows(Exception.class, () ->
       itemRecordService.getAllRecordsByItem(testUserId, testItemId)
@@ -865,4 +1175,58 @@ public class ItemRecordServiceTest {
 
     verify(itemRepository, times(0)).save(testItem);
   }
+
+  @Test
+  @DisplayName("在庫集計 - 発注点を下回ると在庫不足になり、回復すると解除される")
+  void updateItemSummary_detects_low_stock_and_recovery() {
+    testItem.setReorderThreshold(5);
+    ItemRecord smallLot = new ItemRecord(
+      testItem,
+      testUserId,
+      3,
+      100,
+      timeNow,
+      TransactionType.IN
+    );
+    ItemRecord largeLot = new ItemRecord(
+      testItem,
+      testUserId,
+      10,
+      100,
+      timeNow,
+      TransactionType.IN
+    );
+    when(
+      itemRecordRepository.getRecordsByItemIdAndUserId(testItemId, testUserId)
+    ).thenReturn(List.of(smallLot), List.of(smallLot, largeLot));
+
+    itemRecordService.updateItemSummary(testUserId, testItem);
+
+    assertThat(testItem.getTotalQuantity()).isEqualTo(3);
+    assertThat(testItem.isLowStock()).isTrue();
+    verify(outboxService).publish(
+      argThat(event -> event.getType() == InventoryEventType.LOW_STOCK_ALERT)
+    );
+
+    itemRecordService.updateItemSummary(testUserId, testItem);
+
+    assertThat(testItem.getTotalQuantity()).isEqualTo(13);
+    assertThat(testItem.isLowStock()).isFalse();
+    verify(outboxService, times(1)).publish(any(InventoryEvent.class));
+  }
+
+  // リポジトリの参照用クエリが返すDTOと同じ内容を作成する
+  private ItemRecordDto toDto(ItemRecord record) {
+    return new ItemRecordDto(
+      record.getId(),
+      record.getItem().getName(),
+      record.getItem().getCategoryName(),
+      record.getQuantity(),
+      record.getPrice(),
+      record.getTransactionType(),
+      record.getExpirationDate(),
+      record.getCreatedAt(),
+      record.getItem().getId()
+    );
+  }
 }
@@ -6,6 +6,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -22,10 +24,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.dao.DataAccessException;
-import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import inventory.example.inventory_id.dto.ItemDto;
+import inventory.example.inventory_id.dto.LowStockAlertDto;
+import inventory.example.inventory_id.enums.InventoryEventType;
 import inventory.example.inventory_id.model.Category;
 import inventory.example.inventory_id.model.Item;
 import inventory.example.inventory_id.repository.CategoryRepository;
@@ -40,6 +43,21 @@ class ItemServiceTest {
   @Mock
   private ItemRepository itemRepository;
 
+  @Mock
+  private UserVersionService userVersionService;
+
+  @Mock
+  private OutboxService outboxService;
+
+  @Mock
+  private SystemCategoryRegistry systemCategoryRegistry;
+
+  @Mock
+  private ItemWriteLocks itemWriteLocks;
+
+  @Mock
+  private ConsumptionForecastService consumptionForecastService;
+
   @InjectMocks
   private ItemService itemService;
 
@@ -51,7 +69,6 @@ class ItemServiceTest {
   @BeforeEach
   void setup() {
     MockitoAnnotations.openMocks(this);
-    ReflectionTestUtils.setField(itemService, "systemUserId", defaultSystemId);
   }
 
   @Test
@@ -70,13 +87,14 @@ class ItemServiceTest {
     ItemRequest request = new ItemRequest(itemName, categoryName);
 
     when(categoryRepository
-        .findActiveCateByName(List.of(userId, systemUserId), categoryName))
+        .findActiveCateByName(userId, categoryName))
         .thenReturn(List.of(category));
 
-    when(categoryRepository.save(any(Category.class))).thenReturn(category);
-
     assertDoesNotThrow(() -> itemService.createItem(userId, request));
-    verify(categoryRepository).save(any(Category.class));
+    verify(itemRepository).save(any(Item.class));
+    verify(outboxService).publish(argThat(event ->
+        event.getType() == InventoryEventType.ITEM_CREATED &&
+        ((ItemDto) event.getData()).getName().equals(itemName)));
   }
 
   @Test
@@ -90,7 +108,7 @@ class ItemServiceTest {
     ItemRequest request = new ItemRequest("Notebook", categoryName);
 
     when(categoryRepository
-        .findActiveCateByName(List.of(userId, systemUserId), categoryName))
+        .findActiveCateByName(userId, categoryName))
         .thenReturn(List.of());
 
     Exception ex = assertThrows(IllegalArgumentException.class,
@@ -117,9 +135,11 @@ class ItemServiceTest {
     ItemRequest request = new ItemRequest(itemName, categoryName);
 
     when(categoryRepository
-        .findActiveCateByName(List.of(userId,
-            systemUserId), categoryName))
+        .findActiveCateByName(userId, categoryName))
         .thenReturn(List.of(category));
+    when(itemRepository.getActiveWithSameNameAndCategory(
+        List.of(userId), itemName, category.getId()))
+        .thenReturn(Optional.of(existingItem));
 
     ResponseStatusException ex = assertThrows(ResponseStatusException.class,
         () -> itemService.createItem(userId, request));
@@ -137,6 +157,7 @@ class ItemServiceTest {
     String itemName = "Notebook";
 
     Category category = new Category(categoryName, systemUserId);
+    category.setId(UUID.randomUUID());
 
     Item otherUserItem = new Item(itemName, otherUserId, category, false);
 
@@ -144,13 +165,15 @@ class ItemServiceTest {
 
     ItemRequest request = new ItemRequest(itemName, categoryName);
 
-    when(categoryRepository
-        .findActiveCateByName(List.of(userId,
-            systemUserId), categoryName))
-        .thenReturn(List.of(category));
+    // デフォルトカテゴリはメモリ上の一覧から特定する
+    when(systemCategoryRegistry.findByName(categoryName))
+        .thenReturn(Optional.of(new SystemCategoryRegistry.SystemCategory(
+            category.getId(), categoryName, null)));
+    when(categoryRepository.findById(category.getId()))
+        .thenReturn(Optional.of(category));
 
     assertDoesNotThrow(() -> itemService.createItem(userId, request));
-    verify(categoryRepository).save(any(Category.class));
+    verify(itemRepository).save(any(Item.class));
   }
 
   @Test
@@ -174,11 +197,11 @@ class ItemServiceTest {
     ItemRequest request = new ItemRequest(itemName, categoryName);
 
     when(categoryRepository
-        .findActiveCateByName(List.of(userId, systemUserId), categoryName))
+        .findActiveCateByName(userId, categoryName))
         .thenReturn(List.of(category));
 
     assertDoesNotThrow(() -> itemService.createItem(userId, request));
-    verify(categoryRepository).save(any(Category.class));
+    verify(itemRepository).save(any(Item.class));
   }
 
   @Test
@@ -203,11 +226,11 @@ class ItemServiceTest {
     ItemRequest request = new ItemRequest(itemName, categoryName);
 
     when(categoryRepository
-        .findActiveCateByName(List.of(userId, systemUserId), categoryName))
+        .findActiveCateByName(userId, categoryName))
         .thenReturn(List.of(category));
 
     assertDoesNotThrow(() -> itemService.createItem(userId, request));
-    verify(categoryRepository).save(any(Category.class));
+    verify(itemRepository).save(any(Item.class));
   }
 
   @Test
@@ -236,11 +259,11 @@ class ItemServiceTest {
     category.setItems(List.of(notebook, desktop));
 
     when(categoryRepository
-        .findActiveCateByName(List.of(userId, systemUserId), categoryName))
+        .findActiveCateByName(userId, categoryName))
         .thenReturn(List.of(category));
 
     when(itemRepository
-        .getActiveByCategoryName(List.of(userId, systemUserId), categoryName))
+        .getActiveByCategoryName(List.of(userId), categoryName))
         .thenReturn(category.getItems());
 
     List<ItemDto> result = assertDoesNotThrow(() -> itemService.getItems(userId, categoryName));
@@ -257,11 +280,11 @@ class ItemServiceTest {
     String categoryName = "Food";
 
     when(categoryRepository
-        .findActiveCateByName(List.of(userId, systemUserId), categoryName))
+        .findActiveCateByName(userId, categoryName))
         .thenReturn(List.of(new Category(categoryName)));
 
     when(itemRepository
-        .getActiveByCategoryName(List.of(userId, systemUserId), categoryName))
+        .getActiveByCategoryName(List.of(userId), categoryName))
         .thenReturn(new ArrayList<>());
 
     List<ItemDto> result = assertDoesNotThrow(() -> itemService.getItems(userId, categoryName));
@@ -277,7 +300,7 @@ class ItemServiceTest {
     String categoryName = "notexits";
 
     when(categoryRepository
-        .findActiveCateByName(List.of(userId, systemUserId), categoryName))
+        .findActiveCateByName(userId, categoryName))
         .thenThrow(new IllegalArgumentException("カテゴリーが見つかりません"));
 
     Exception ex = assertThrows(IllegalArgumentException.class,
@@ -306,24 +329,99 @@ class ItemServiceTest {
 
     ItemRequest request = new ItemRequest("newItemName", "newCategory");
 
-    when(itemRepository.getActiveItemWithId(List.of(userId, systemUserId), existingItemId))
+    when(itemRepository.getActiveItemWithId(List.of(userId), existingItemId))
         .thenReturn(Optional.of(existingItem));
 
-    when(categoryRepository.findActiveCateByName(List.of(userId, systemUserId),
+    when(categoryRepository.findActiveCateByName(userId,
         "newCategory"))
         .thenReturn(List.of(newCategory));
 
     when(itemRepository.getActiveWithSameNameAndCategory(
-        List.of(userId, systemUserId), existingName, newCategory.getId())).thenReturn(Optional.empty());
+        List.of(userId), existingName, newCategory.getId())).thenReturn(Optional.empty());
 
     when(itemRepository.save(any(Item.class))).thenReturn(existingItem);
 
     assertDoesNotThrow(() -> itemService.updateItem(userId, existingItemId, request));
     assertEquals("newItemName", existingItem.getName());
     assertEquals(newCategory, existingItem.getCategory());
+    verify(itemWriteLocks).lockUntilCompletion(existingItemId);
     verify(itemRepository).save(existingItem);
   }
 
+  @Test
+  @Tag("updateItem")
+  @DisplayName("アイテム更新成功- 発注点を在庫数より大きくすると在庫不足になり通知される")
+  void testUpdateItemReorderThresholdBreached() {
+    String userId = testUserId;
+    String systemUserId = defaultSystemId;
+    Category category = new Category("category", userId);
+    UUID existingItemId = UUID.randomUUID();
+    Item existingItem = new Item("existingItem", userId, category, 2, 200, false);
+    existingItem.setId(existingItemId);
+
+    ItemRequest request = new ItemRequest("existingItem", "category", 3);
+
+    when(itemRepository.getActiveItemWithId(List.of(userId), existingItemId))
+        .thenReturn(Optional.of(existingItem));
+    when(categoryRepository.findActiveCateByName(userId, "category"))
+        .thenReturn(List.of(category));
+    when(itemRepository.getActiveWithSameNameAndCategory(
+        List.of(userId), "existingItem", category.getId())).thenReturn(Optional.of(existingItem));
+
+    itemService.updateItem(userId, existingItemId, request);
+
+    assertTrue(existingItem.isLowStock());
+    verify(outboxService).publish(argThat(event -> event.getType() == InventoryEventType.LOW_STOCK_ALERT));
+  }
+
+  @Test
+  @Tag("updateItem")
+  @DisplayName("アイテム更新成功- 発注点を指定しない場合は設定済みの発注点を変更しない")
+  void testUpdateItemKeepsReorderThresholdWhenOmitted() {
+    String userId = testUserId;
+    Category category = new Category("category", userId);
+    UUID existingItemId = UUID.randomUUID();
+    Item existingItem = new Item("existingItem", userId, category, 2, 200, false);
+    existingItem.setId(existingItemId);
+    existingItem.setReorderThreshold(5);
+    existingItem.updateLowStock();
+
+    ItemRequest request = new ItemRequest("renamedItem", "category");
+
+    when(itemRepository.getActiveItemWithId(List.of(userId), existingItemId))
+        .thenReturn(Optional.of(existingItem));
+    when(categoryRepository.findActiveCateByName(userId, "category"))
+        .thenReturn(List.of(category));
+    when(itemRepository.getActiveWithSameNameAndCategory(
+        List.of(userId), "renamedItem", category.getId())).thenReturn(Optional.empty());
+
+    itemService.updateItem(userId, existingItemId, request);
+
+    assertEquals("renamedItem", existingItem.getName());
+    assertEquals(5, existingItem.getReorderThreshold());
+    assertTrue(existingItem.isLowStock());
+    // 在庫不足のままのため、在庫不足アラートは再通知しない
+    verify(outboxService, never()).publish(argThat(event -> event.getType() == InventoryEventType.LOW_STOCK_ALERT));
+  }
+
+  @Test
+  @Tag("getLowStockItems")
+  @DisplayName("在庫不足アイテム取得成功")
+  void testGetLowStockItems() {
+    Category category = new Category("category", testUserId);
+    Item lowStockItem = new Item("lowStockItem", testUserId, category, 1, 100, false);
+    lowStockItem.setReorderThreshold(5);
+    when(itemRepository.findLowStockByUserId(testUserId)).thenReturn(List.of(lowStockItem));
+
+    List<LowStockAlertDto> result = itemService.getLowStockItems(testUserId);
+
+    assertEquals(1, result.size());
+    assertEquals("lowStockItem", result.get(0).getItemName());
+    assertEquals("category", result.get(0).getCategoryName());
+    assertEquals(1, result.get(0).getTotalQuantity());
+    assertEquals(5, result.get(0).getReorderThreshold());
+  }
+
   @Test
   @Tag("updateItem")
   @DisplayName("アイテム更新成功- 正常系(他のユーザがデフォルトカテゴリに同じ名前のアイテムを持っている場合)")
@@ -354,15 +452,15 @@ class ItemServiceTest {
 
     ItemRequest request = new ItemRequest("newItemName", "newCategory");
 
-    when(itemRepository.getActiveItemWithId(List.of(userId, systemUserId), testItemId))
+    when(itemRepository.getActiveItemWithId(List.of(userId), testItemId))
         .thenReturn(Optional.of(existingItem));
 
-    when(categoryRepository.findActiveCateByName(List.of(userId, systemUserId),
+    when(categoryRepository.findActiveCateByName(userId,
         "newCategory"))
         .thenReturn(List.of(newCategory));
 
     when(itemRepository.getActiveWithSameNameAndCategory(
-        List.of(userId, systemUserId), oldItemName, newCategory.getId())).thenReturn(Optional.empty());
+        List.of(userId), oldItemName, newCategory.getId())).thenReturn(Optional.empty());
 
     when(itemRepository.save(any(Item.class))).thenReturn(existingItem);
 
@@ -398,15 +496,15 @@ class ItemServiceTest {
     ItemRequest request = new ItemRequest("Notebook", categoryName);
 
     when(itemRepository.getActiveItemWithId(
-        List.of(userId, systemUserId), targetItemId))
+        List.of(userId), targetItemId))
         .thenReturn(Optional.of(targetItem));
 
     when(categoryRepository.findActiveCateByName(
-        List.of(userId, systemUserId), categoryName))
+        userId, categoryName))
         .thenReturn(List.of(LaptopCategory));
 
     when(itemRepository.getActiveWithSameNameAndCategory(
-        List.of(userId, systemUserId),
+        List.of(userId),
         request.getName(),
         LaptopCategory.getId()))
         .thenReturn(Optional.of(userNotebook));
@@ -438,14 +536,14 @@ class ItemServiceTest {
     ItemRequest request = new ItemRequest(itemName,
         "newCategoryName");
 
-    when(itemRepository.getActiveItemWithId(List.of(userId, systemUserId), targetItemId))
+    when(itemRepository.getActiveItemWithId(List.of(userId), targetItemId))
         .thenReturn(Optional.of(itemInOldCategory));
 
-    when(categoryRepository.findActiveCateByName(List.of(userId, systemUserId),
+    when(categoryRepository.findActiveCateByName(userId,
         newCategoryName))
         .thenReturn(List.of(newCategory));
 
-    when(itemRepository.getActiveWithSameNameAndCategory(List.of(userId, systemUserId),
+    when(itemRepository.getActiveWithSameNameAndCategory(List.of(userId),
         request.getName(), newCategory.getId()))
         .thenReturn(Optional.of(itemInNewCategory));
 
@@ -465,7 +563,7 @@ class ItemServiceTest {
     ItemRequest request = new ItemRequest("Notebook", "Laptop");
 
     when(itemRepository
-        .getActiveItemWithId(List.of(userId, systemUserId), itemId))
+        .getActiveItemWithId(List.of(userId), itemId))
         .thenReturn(Optional.empty());
 
     ResponseStatusException ex = assertThrows(ResponseStatusException.class,
@@ -485,7 +583,7 @@ class ItemServiceTest {
         "NotExistCategory");
 
     when(itemRepository
-        .getActiveItemWithId(List.of(userId, systemUserId),
+        .getActiveItemWithId(List.of(userId),
             itemId))
         .thenReturn(Optional.of(new Item(
             "Notebook",
@@ -495,8 +593,7 @@ class ItemServiceTest {
             false)));
 
     when(categoryRepository
-        .findActiveCateByName(List.of(userId,
-            systemUserId), request.getCategoryName()))
+        .findActiveCateByName(userId, request.getCategoryName()))
         .thenReturn(List.of());
 
     Exception ex = assertThrows(
@@ -516,7 +613,7 @@ class ItemServiceTest {
     item.setUserId(userId);
 
     when(itemRepository
-        .getActiveItemWithId(List.of(userId, defaultSystemId), itemId))
+        .getActiveItemWithId(List.of(userId), itemId))
         .thenReturn(Optional.of(item));
 
     when(itemRepository.save(any(Item.class))).thenReturn(item);
@@ -533,7 +630,7 @@ class ItemServiceTest {
     String userId = testUserId;
     UUID itemId = UUID.randomUUID();
     when(itemRepository
-        .getActiveItemWithId(List.of(userId, defaultSystemId), itemId))
+        .getActiveItemWithId(List.of(userId), itemId))
         .thenReturn(Optional.empty());
 
     Exception ex = assertThrows(ResponseStatusException.class,
@@ -570,7 +667,7 @@ class ItemServiceTest {
     item.setUserId(userId);
 
     when(itemRepository
-        .getActiveItemWithId(List.of(userId, defaultSystemId), itemId))
+        .getActiveItemWithId(List.of(userId), itemId))
         .thenReturn(Optional.of(item));
     when(itemRepository.save(any(Item.class)))
         .thenThrow(new DataAccessException("DB エラー") {
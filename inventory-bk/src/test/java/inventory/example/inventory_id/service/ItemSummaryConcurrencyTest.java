@@ -0,0 +1,198 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import inventory.example.inventory_id.enums.TransactionType;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.repository.CategoryMonthlyRollupRepository;
+import inventory.example.inventory_id.repository.CategoryRepository;
+import inventory.example.inventory_id.repository.ItemDailyRollupRepository;
+import inventory.example.inventory_id.repository.ItemRecordRepository;
+import inventory.example.inventory_id.repository.ItemRepository;
+import inventory.example.inventory_id.request.ItemRecordRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 同じアイテムへの入出庫の同時登録で、在庫集計(在庫数・在庫金額)の更新が失われないことを確認するテスト
+ * 各スレッドがそれぞれのトランザクションで登録するため、テスト全体のトランザクションは使わない
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Item Summary Concurrency Tests")
+public class ItemSummaryConcurrencyTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    ItemSummaryConcurrencyTest.class
+  );
+
+  private static final int THREADS = 8;
+  private static final int RECORDS_PER_THREAD = 10;
+  private static final int PRICE = 100;
+
+  @Autowired
+  private ItemRecordRepository itemRecordRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private CategoryRepository categoryRepository;
+
+  @Autowired
+  private ItemDailyRollupRepository itemDailyRollupRepository;
+
+  @Autowired
+  private CategoryMonthlyRollupRepository categoryMonthlyRollupRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private ItemRecordService itemRecordService;
+  private String testUserId = "testUserId";
+  private Category category;
+
+  @BeforeEach
+  void setUp() {
+    deleteAll();
+    category = categoryRepository.save(new Category("食べ物", testUserId));
+
+    // イベントの送信・キャッシュの削除・バージョンの更新は集計に関係しないためモックにする
+    itemRecordService = new ItemRecordService(
+      itemRecordRepository,
+      itemRepository,
+      mock(UserVersionService.class),
+      mock(OutboxService.class),
+      new RollupService(
+        itemDailyRollupRepository,
+        categoryMonthlyRollupRepository,
+        jdbcTemplate
+      ),
+      mock(ConsumptionForecastService.class),
+      new ItemWriteLocks(256, Duration.ofSeconds(5)),
+      transactionManager
+    );
+    ReflectionTestUtils.setField(itemRecordService, "maxAttempts", 3);
+    ReflectionTestUtils.setField(
+      itemRecordService,
+      "retryBackoff",
+      Duration.ofMillis(20)
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    deleteAll();
+  }
+
+  private void deleteAll() {
+    itemRecordRepository.deleteAll();
+    itemDailyRollupRepository.deleteAll();
+    categoryMonthlyRollupRepository.deleteAll();
+    itemRepository.deleteAll();
+    categoryRepository.deleteAll();
+  }
+
+  /**
+   * 集計の読み込みと書き込みの間に他の登録が割り込むと、後の書き込みで合計が失われる
+   * あわせて、登録が集中するアイテム数ごとの登録件数/秒を出力する(参考値)
+   */
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 4 })
+  @DisplayName("同じアイテムへの入庫を同時に登録しても、在庫数と在庫金額が失われない")
+  void concurrentRecords_keepItemTotals(int hotItems) throws Exception {
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < hotItems; i++) {
+      items.add(
+        itemRepository.save(new Item("牛乳" + i, testUserId, category, false))
+      );
+    }
+    int[] expectedQuantities = new int[hotItems];
+    for (int t = 0; t < THREADS; t++) {
+      for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+        expectedQuantities[(t + i) % hotItems]++;
+      }
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        int thread = t;
+        futures.add(
+          executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+              Item item = items.get((thread + i) % hotItems);
+              itemRecordService.createItemRecord(
+                testUserId,
+                new ItemRecordRequest(
+                  item.getId(),
+                  1,
+                  PRICE,
+                  null,
+                  TransactionType.IN
+                )
+              );
+            }
+            return null;
+          })
+        );
+      }
+      long startedAt = System.nanoTime();
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+      long elapsedNanos = System.nanoTime() - startedAt;
+      int records = THREADS * RECORDS_PER_THREAD;
+      logger.info(
+        "在庫集計の更新: アイテム{}件, {}回, {} 回/秒 (参考値)",
+        hotItems,
+        records,
+        Math.round(records / (elapsedNanos / 1_000_000_000.0))
+      );
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(itemRecordRepository.count()).isEqualTo(
+      (long) THREADS * RECORDS_PER_THREAD
+    );
+    for (int i = 0; i < hotItems; i++) {
+      Item result = itemRepository.findById(items.get(i).getId()).get();
+      assertThat(result.getTotalQuantity()).isEqualTo(expectedQuantities[i]);
+      assertThat(result.getTotalPrice()).isEqualTo(
+        expectedQuantities[i] * PRICE
+      );
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@DisplayName("ItemWriteLocks Tests")
+public class ItemWriteLocksTest {
+
+  private ItemWriteLocks itemWriteLocks = new ItemWriteLocks(
+    256,
+    Duration.ofMillis(100)
+  );
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  @DisplayName("トランザクションの完了までロックを保持し、完了時に解放する")
+  void lockUntilCompletion_releasesAfterCompletion() throws Exception {
+    UUID itemId = UUID.randomUUID();
+    TransactionSynchronizationManager.initSynchronization();
+
+    itemWriteLocks.lockUntilCompletion(itemId);
+
+    // 他のスレッドからはロックを取得できない
+    assertThat(tryLockFromOtherThread(itemId)).isFalse();
+
+    List<TransactionSynchronization> synchronizations =
+      TransactionSynchronizationManager.getSynchronizations();
+    for (TransactionSynchronization synchronization : synchronizations) {
+      synchronization.afterCompletion(
+        TransactionSynchronization.STATUS_COMMITTED
+      );
+    }
+    assertThat(tryLockFromOtherThread(itemId)).isTrue();
+  }
+
+  @Test
+  @DisplayName("待ち時間内にロックを取得できない場合はCannotAcquireLockExceptionを投げる")
+  void lockUntilCompletion_timesOut() throws Exception {
+    UUID itemId = UUID.randomUUID();
+    Lock lock = itemWriteLocks.lockFor(itemId);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      executor.submit(() -> {
+        lock.lock();
+        try {
+          locked.countDown();
+          release.await();
+        } finally {
+          lock.unlock();
+        }
+        return null;
+      });
+      locked.await();
+      TransactionSynchronizationManager.initSynchronization();
+
+      assertThrows(CannotAcquireLockException.class, () ->
+        itemWriteLocks.lockUntilCompletion(itemId)
+      );
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("トランザクション外ではロックを取得できない")
+  void lockUntilCompletion_requiresTransaction() {
+    assertThrows(IllegalStateException.class, () ->
+      itemWriteLocks.lockUntilCompletion(UUID.randomUUID())
+    );
+  }
+
+  private boolean tryLockFromOtherThread(UUID itemId) throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      return executor
+        .submit(() -> {
+          Lock lock = itemWriteLocks.lockFor(itemId);
+          if (lock.tryLock()) {
+            lock.unlock();
+            return true;
+          }
+          return false;
+        })
+        .get();
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.exception.AuthenticationException;
+import inventory.example.inventory_id.response.FirebaseSignUpResponse;
+import inventory.example.inventory_id.service.FirebaseAuthService.VerifiedIdToken;
+import io.github.cdimascio.dotenv.Dotenv;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+
+@DisplayName("LocalIdentityProvider Tests")
+public class LocalIdentityProviderTest {
+
+  private MutableClock clock;
+  private LocalIdentityProvider localIdentityProvider;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(Instant.now());
+    localIdentityProvider = new LocalIdentityProvider(
+      new ObjectMapper(),
+      clock
+    );
+    ReflectionTestUtils.setField(
+      localIdentityProvider,
+      "tokenTtl",
+      Duration.ofHours(1)
+    );
+    ReflectionTestUtils.setField(
+      localIdentityProvider,
+      "signInLatency",
+      Duration.ZERO
+    );
+    ReflectionTestUtils.setField(
+      localIdentityProvider,
+      "verifyLatency",
+      Duration.ZERO
+    );
+    ReflectionTestUtils.setField(localIdentityProvider, "latencyJitter", 0.0);
+  }
+
+  @Test
+  @DisplayName("登録・サインインで発行したIDトークンを検証できる")
+  void signUpAndSignIn_issueVerifiableTokens() {
+    FirebaseSignUpResponse signUp = localIdentityProvider.signUp(
+      "test@example.com",
+      "password123"
+    );
+    FirebaseSignUpResponse signIn = localIdentityProvider.signIn(
+      "test@example.com",
+      "password123"
+    );
+
+    VerifiedIdToken verified = localIdentityProvider.verify(
+      signIn.getIdToken()
+    );
+    assertThat(signIn.getLocalId()).isEqualTo(signUp.getLocalId());
+    assertThat(verified.userId()).isEqualTo(signUp.getLocalId());
+    assertThat(verified.expiresAt()).isAfter(clock.instant());
+  }
+
+  @Test
+  @DisplayName("匿名で登録したユーザーのIDトークンも検証できる")
+  void signUp_anonymous() {
+    FirebaseSignUpResponse signUp = localIdentityProvider.signUp(null, null);
+
+    assertThat(
+      localIdentityProvider.verify(signUp.getIdToken()).userId()
+    ).isEqualTo(signUp.getLocalId());
+  }
+
+  @Test
+  @DisplayName("登録済みのメールアドレスや誤ったパスワードはエラー")
+  void signUpAndSignIn_rejectInvalidCredentials() {
+    localIdentityProvider.signUp("test@example.com", "password123");
+
+    assertThrows(IllegalArgumentException.class, () ->
+      localIdentityProvider.signUp("test@example.com", "password123")
+    );
+    assertThrows(IllegalArgumentException.class, () ->
+      localIdentityProvider.signIn("test@example.com", "wrongpassword")
+    );
+    assertThrows(IllegalArgumentException.class, () ->
+      localIdentityProvider.signIn("unknown@example.com", "password123")
+    );
+  }
+
+  @Test
+  @DisplayName("改ざん・有効期限切れのIDトークンは認証エラー")
+  void verify_rejectsTamperedAndExpiredTokens() {
+    String idToken = localIdentityProvider
+      .signUp("test@example.com", "password123")
+      .getIdToken();
+    String[] parts = idToken.split("\\.");
+    String otherPayload = localIdentityProvider
+      .issueToken("otherUser", null)
+      .split("\\.")[1];
+
+    String tampered = parts[0] + "." + otherPayload + "." + parts[2];
+    assertThrows(AuthenticationException.class, () ->
+      localIdentityProvider.verify(tampered)
+    );
+    assertThrows(AuthenticationException.class, () ->
+      localIdentityProvider.verify("not-a-token")
+    );
+
+    clock.now = clock.now.plus(Duration.ofHours(1));
+    assertThrows(AuthenticationException.class, () ->
+      localIdentityProvider.verify(idToken)
+    );
+  }
+
+  @Test
+  @DisplayName("設定した遅延を入れて応答する")
+  void signIn_injectsLatency() {
+    localIdentityProvider.signUp("test@example.com", "password123");
+    ReflectionTestUtils.setField(
+      localIdentityProvider,
+      "signInLatency",
+      Duration.ofMillis(30)
+    );
+
+    long startedAt = System.nanoTime();
+    localIdentityProvider.signIn("test@example.com", "password123");
+
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+    assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(30));
+  }
+
+  @Test
+  @DisplayName("local-authプロファイルのサービスは検証済みのトークンを再検証しない")
+  void localFirebaseAuthService_cachesVerification() throws Exception {
+    LocalIdentityProvider provider = spy(localIdentityProvider);
+    LocalFirebaseAuthService service = new LocalFirebaseAuthService(
+      mock(Dotenv.class),
+      RestClient.create(),
+      100,
+      8,
+      provider
+    );
+    FirebaseSignUpResponse signUp = provider.signUp(null, null);
+
+    assertThat(service.verifyToken(signUp.getIdToken())).isEqualTo(
+      signUp.getLocalId()
+    );
+    assertThat(service.verifyToken(signUp.getIdToken())).isEqualTo(
+      signUp.getLocalId()
+    );
+    verify(provider, times(1)).verify(signUp.getIdToken());
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
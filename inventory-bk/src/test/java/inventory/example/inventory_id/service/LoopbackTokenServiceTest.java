@@ -0,0 +1,64 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@DisplayName("LoopbackTokenService Tests")
+public class LoopbackTokenServiceTest {
+
+  private LoopbackTokenService loopbackTokenService;
+
+  private String testUserId = "testUserId";
+
+  @BeforeEach
+  void setUp() {
+    loopbackTokenService = new LoopbackTokenService();
+    ReflectionTestUtils.setField(
+      loopbackTokenService,
+      "ttl",
+      Duration.ofSeconds(30)
+    );
+  }
+
+  @Test
+  @DisplayName("発行したトークンからユーザーIDを取得できる")
+  void verify_returnsUserId() {
+    String token = loopbackTokenService.issue(testUserId);
+
+    assertThat(loopbackTokenService.verify(token)).isEqualTo(testUserId);
+  }
+
+  @Test
+  @DisplayName("改ざんしたトークンや他のプロセスで発行したトークンは無効")
+  void verify_rejectsTamperedTokens() {
+    String token = loopbackTokenService.issue(testUserId);
+    String otherUserToken = loopbackTokenService.issue("otherUserId");
+    String forged =
+      otherUserToken.substring(0, otherUserToken.lastIndexOf('.')) +
+      token.substring(token.lastIndexOf('.'));
+    LoopbackTokenService otherProcess = new LoopbackTokenService();
+    ReflectionTestUtils.setField(otherProcess, "ttl", Duration.ofSeconds(30));
+
+    assertThat(loopbackTokenService.verify(forged)).isNull();
+    assertThat(
+      loopbackTokenService.verify(otherProcess.issue(testUserId))
+    ).isNull();
+    assertThat(loopbackTokenService.verify("not-a-token")).isNull();
+    assertThat(loopbackTokenService.verify(null)).isNull();
+  }
+
+  @Test
+  @DisplayName("有効期限切れのトークンは無効")
+  void verify_rejectsExpiredToken() {
+    ReflectionTestUtils.setField(loopbackTokenService, "ttl", Duration.ZERO);
+
+    String token = loopbackTokenService.issue(testUserId);
+
+    assertThat(loopbackTokenService.verify(token)).isNull();
+  }
+}
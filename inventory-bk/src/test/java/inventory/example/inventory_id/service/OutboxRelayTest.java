@@ -0,0 +1,277 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.enums.InventoryEventType;
+import inventory.example.inventory_id.event.InventoryEvent;
+import inventory.example.inventory_id.event.InventoryEventBus;
+import inventory.example.inventory_id.model.OutboxMessage;
+import inventory.example.inventory_id.repository.OutboxMessageRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxRelay Tests")
+public class OutboxRelayTest {
+
+  @Mock
+  private OutboxMessageRepository outboxMessageRepository;
+
+  @Mock
+  private CacheManager cacheManager;
+
+  @Mock
+  private InventoryEventBus inventoryEventBus;
+
+  @Mock
+  private Cache itemsCache;
+
+  private ObjectMapper objectMapper = new ObjectMapper()
+    .findAndRegisterModules();
+
+  private OutboxRelay outboxRelay;
+
+  private String testUserId = "testUserId";
+
+  @BeforeEach
+  void setUp() {
+    outboxRelay = new OutboxRelay(
+      outboxMessageRepository,
+      cacheManager,
+      inventoryEventBus,
+      objectMapper
+    );
+    ReflectionTestUtils.setField(outboxRelay, "batchSize", 10);
+    ReflectionTestUtils.setField(outboxRelay, "minAge", Duration.ofSeconds(2));
+    ReflectionTestUtils.setField(
+      outboxRelay,
+      "lagWarnThreshold",
+      Duration.ofSeconds(30)
+    );
+    ReflectionTestUtils.setField(outboxRelay, "maxAttempts", 3);
+  }
+
+  private OutboxMessage message(Long id, OutboxMessage message) {
+    message.setId(id);
+    message.setCreatedAt(LocalDateTime.now().minusSeconds(5));
+    return message;
+  }
+
+  @Test
+  @DisplayName("未処理のメッセージを記録順に実行し、処理済みにする")
+  void drain_deliversAndMarksProcessed() throws Exception {
+    InventoryEvent event = new InventoryEvent(
+      testUserId,
+      InventoryEventType.ITEM_DELETED,
+      "itemId"
+    );
+    OutboxMessage evictAll = message(
+      1L,
+      OutboxMessage.cacheEvict(testUserId, "items", null)
+    );
+    OutboxMessage evictKey = message(
+      2L,
+      OutboxMessage.cacheEvict(testUserId, "items", testUserId + ":食べ物")
+    );
+    OutboxMessage publish = message(
+      3L,
+      OutboxMessage.inventoryEvent(
+        testUserId,
+        objectMapper.writeValueAsString(event)
+      )
+    );
+    when(
+      outboxMessageRepository.findPending(
+        any(LocalDateTime.class),
+        any(Pageable.class)
+      )
+    ).thenReturn(List.of(evictAll, evictKey, publish));
+    when(cacheManager.getCache("items")).thenReturn(itemsCache);
+
+    outboxRelay.drain();
+
+    verify(itemsCache).clear();
+    verify(itemsCache).evict(testUserId + ":食べ物");
+    verify(inventoryEventBus).publish(
+      argThat(
+        published ->
+          published.getType() == InventoryEventType.ITEM_DELETED &&
+          "itemId".equals(published.getData())
+      )
+    );
+    verify(outboxMessageRepository).markProcessed(
+      eq(List.of(1L, 2L, 3L)),
+      any(LocalDateTime.class)
+    );
+    assertThat(outboxRelay.getDeliveredCount()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("実行に失敗した場合は同じユーザーの以降のメッセージを実行せず、他のユーザーは続けて実行する")
+  void drain_stopsAtFailureForUser() {
+    OutboxMessage first = message(
+      1L,
+      OutboxMessage.cacheEvict(testUserId, "items", null)
+    );
+    OutboxMessage second = message(
+      2L,
+      OutboxMessage.cacheEvict(testUserId, "itemRecord", null)
+    );
+    OutboxMessage otherUser = message(
+      3L,
+      OutboxMessage.cacheEvict("otherUserId", "category", null)
+    );
+    Cache categoryCache = mock(Cache.class);
+    when(
+      outboxMessageRepository.findPending(
+        any(LocalDateTime.class),
+        any(Pageable.class)
+      )
+    ).thenReturn(List.of(first, second, otherUser));
+    when(cacheManager.getCache("items")).thenReturn(itemsCache);
+    when(cacheManager.getCache("category")).thenReturn(categoryCache);
+    doThrow(new IllegalStateException("redis down")).when(itemsCache).clear();
+
+    outboxRelay.drain();
+
+    verify(cacheManager, never()).getCache("itemRecord");
+    verify(categoryCache).clear();
+    verify(outboxMessageRepository).incrementAttempts(1L);
+    verify(outboxMessageRepository, never()).markDead(
+      any(),
+      any(LocalDateTime.class)
+    );
+    verify(outboxMessageRepository).markProcessed(
+      eq(List.of(3L)),
+      any(LocalDateTime.class)
+    );
+    assertThat(outboxRelay.getFailedCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("上限回数失敗したメッセージは実行を諦め、以降のメッセージを止めない")
+  void drain_deadLettersPoisonMessage() {
+    OutboxMessage poison = message(
+      1L,
+      OutboxMessage.inventoryEvent(testUserId, "not json")
+    );
+    poison.setAttempts(2);
+
+    when(
+      outboxMessageRepository.findPending(
+        any(LocalDateTime.class),
+        any(Pageable.class)
+      )
+    ).thenReturn(List.of(poison));
+
+    outboxRelay.drain();
+
+    verify(outboxMessageRepository).incrementAttempts(1L);
+    verify(outboxMessageRepository).markDead(eq(1L), any(LocalDateTime.class));
+    verify(inventoryEventBus, never()).publish(any());
+    assertThat(outboxRelay.getDeadCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("コミット直後の実行で失敗しても例外を投げない")
+  void deliverCommitted_doesNotThrow() {
+    OutboxMessage evict = message(
+      1L,
+      OutboxMessage.cacheEvict(testUserId, "items", null)
+    );
+    when(cacheManager.getCache("items")).thenReturn(itemsCache);
+    doThrow(new IllegalStateException("redis down")).when(itemsCache).clear();
+
+    outboxRelay.deliverCommitted(List.of(evict));
+
+    verify(outboxMessageRepository).incrementAttempts(1L);
+  }
+
+  @Test
+  @DisplayName("同じユーザーの先行する未処理のメッセージがある場合は、コミット直後に実行せず定期実行に任せる")
+  void deliverCommitted_waitsForOlderPendingMessages() {
+    OutboxMessage evict = message(
+      5L,
+      OutboxMessage.cacheEvict(testUserId, "items", null)
+    );
+    when(
+      outboxMessageRepository.existsByUserIdAndIdLessThanAndProcessedAtIsNullAndDeadAtIsNull(
+        testUserId,
+        5L
+      )
+    ).thenReturn(true);
+
+    outboxRelay.deliverCommitted(List.of(evict));
+
+    verify(cacheManager, never()).getCache(any());
+    verify(outboxMessageRepository, never()).markProcessed(
+      any(),
+      any(LocalDateTime.class)
+    );
+  }
+
+  @Test
+  @DisplayName("コミット直後の実行は呼び出し元のスレッドではなく専用のスレッドで行う")
+  void dispatchCommitted_deliversOnDispatcherThread() {
+    OutboxMessage evict = message(
+      1L,
+      OutboxMessage.cacheEvict(testUserId, "items", null)
+    );
+    Thread caller = Thread.currentThread();
+    when(cacheManager.getCache("items")).thenAnswer(invocation -> {
+      assertThat(Thread.currentThread()).isNotSameAs(caller);
+      return itemsCache;
+    });
+
+    outboxRelay.dispatchCommitted(List.of(evict));
+
+    verify(itemsCache, timeout(1000)).clear();
+    verify(outboxMessageRepository, timeout(1000)).markProcessed(
+      eq(List.of(1L)),
+      any(LocalDateTime.class)
+    );
+    outboxRelay.stopDispatcher();
+  }
+
+  @Test
+  @DisplayName("最も古い未処理のメッセージから遅延を計算する")
+  void drain_updatesLag() {
+    when(outboxMessageRepository.findOldestPendingCreatedAt()).thenReturn(
+      LocalDateTime.now().minusMinutes(1)
+    );
+    when(
+      outboxMessageRepository.findPending(
+        any(LocalDateTime.class),
+        any(Pageable.class)
+      )
+    ).thenReturn(List.of());
+
+    outboxRelay.drain();
+
+    assertThat(outboxRelay.getLag()).isGreaterThanOrEqualTo(
+      Duration.ofMinutes(1)
+    );
+    verify(outboxMessageRepository).countByProcessedAtIsNullAndDeadAtIsNull();
+  }
+}
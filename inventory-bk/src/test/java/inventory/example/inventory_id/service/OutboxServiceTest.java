@@ -0,0 +1,93 @@
+package inventory.example.inventory_id.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inventory.example.inventory_id.model.OutboxMessage;
+import inventory.example.inventory_id.repository.OutboxMessageRepository;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.interceptor.CacheInterceptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxService Tests")
+public class OutboxServiceTest {
+
+  @Mock
+  private OutboxMessageRepository outboxMessageRepository;
+
+  @Mock
+  private OutboxRelay outboxRelay;
+
+  @Mock
+  private ObjectProvider<CacheInterceptor> cacheInterceptor;
+
+  private String testUserId = "testUserId";
+
+  @BeforeEach
+  void setUp() {
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private OutboxService outboxService(boolean cachingEnabled) {
+    when(cacheInterceptor.getIfAvailable()).thenReturn(
+      cachingEnabled ? new CacheInterceptor() : null
+    );
+    return new OutboxService(
+      outboxMessageRepository,
+      outboxRelay,
+      new ObjectMapper(),
+      cacheInterceptor
+    );
+  }
+
+  @Test
+  @DisplayName("キャッシュが無効な場合はキャッシュの削除を記録しない")
+  void evict_skipsWhenCachingDisabled() {
+    OutboxService outboxService = outboxService(false);
+
+    outboxService.evict(testUserId, "itemRecord", testUserId);
+    outboxService.evictAll(testUserId, "items");
+
+    verify(outboxMessageRepository, never()).save(any(OutboxMessage.class));
+    verify(outboxRelay, never()).dispatchCommitted(any());
+  }
+
+  @Test
+  @DisplayName("キャッシュが有効な場合はキャッシュの削除を記録し、コミット後に配信する")
+  void evict_enqueuesWhenCachingEnabled() {
+    OutboxService outboxService = outboxService(true);
+
+    outboxService.evictAll(testUserId, "items");
+
+    verify(outboxMessageRepository).save(any(OutboxMessage.class));
+    for (
+      TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()
+    ) {
+      synchronization.afterCommit();
+      synchronization.afterCompletion(
+        TransactionSynchronization.STATUS_COMMITTED
+      );
+    }
+    verify(outboxRelay).dispatchCommitted(any(List.class));
+  }
+}
@@ -0,0 +1,425 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import inventory.example.inventory_id.config.RedisConfig;
+import inventory.example.inventory_id.util.CircuitBreaker;
+import inventory.example.inventory_id.util.CircuitBreaker.State;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Redisの代わりに遅延・切断を起こせるローカルのサーバーを使い、
+ * Redisの障害時にもタイムアウトを待たずに応答できることを確認する
+ */
+@DisplayName("Redis Chaos Tests")
+public class RedisChaosTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    RedisChaosTest.class
+  );
+
+  private static final Duration COMMAND_TIMEOUT = Duration.ofMillis(80);
+  private static final Duration REDIS_LATENCY = Duration.ofSeconds(2);
+  // 1回の呼び出しの応答時間の上限(コマンドのタイムアウトに余裕を持たせた値)
+  private static final long MAX_RESPONSE_MILLIS = 500;
+
+  private RedisStandIn redis;
+  private LettuceConnectionFactory connectionFactory;
+  private CircuitBreaker circuitBreaker;
+  private TokenCacheService tokenCacheService;
+
+  private String testToken = "test-token";
+  private String testUserId = "testUserId";
+
+  @BeforeEach
+  void setUp() throws IOException {
+    redis = new RedisStandIn();
+    LettuceClientConfiguration clientConfiguration =
+      LettuceClientConfiguration.builder()
+        .commandTimeout(COMMAND_TIMEOUT)
+        .clientOptions(
+          ClientOptions.builder()
+            .protocolVersion(ProtocolVersion.RESP2)
+            .socketOptions(
+              SocketOptions.builder()
+                .connectTimeout(Duration.ofMillis(100))
+                .build()
+            )
+            .build()
+        )
+        .build();
+    connectionFactory = new LettuceConnectionFactory(
+      new RedisStandaloneConfiguration("localhost", redis.port()),
+      clientConfiguration
+    );
+    connectionFactory.afterPropertiesSet();
+
+    circuitBreaker = new CircuitBreaker("Redis", 3, Duration.ofMillis(300));
+    tokenCacheService = new TokenCacheService(100);
+    ReflectionTestUtils.setField(
+      tokenCacheService,
+      "redisTemplate",
+      new RedisConfig().redisTemplate(connectionFactory)
+    );
+    ReflectionTestUtils.setField(
+      tokenCacheService,
+      "redisCircuitBreaker",
+      circuitBreaker
+    );
+    ReflectionTestUtils.setField(
+      tokenCacheService,
+      "SESSION_TIMEOUT",
+      Duration.ofMinutes(5)
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    connectionFactory.destroy();
+    redis.stop();
+  }
+
+  private long elapsedMillis(Supplier<?> action, List<Object> results) {
+    long startedAt = System.nanoTime();
+    results.add(action.get());
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+  }
+
+  @Test
+  @DisplayName("Redisの応答が遅い場合は、認証済みのユーザーをローカルのセッションで認証する")
+  void sessions_failFastWhenRedisIsSlow() {
+    tokenCacheService.cacheUser(testToken, testUserId);
+    assertThat(redis.data).containsKey("user_session:" + testToken);
+
+    redis.latency = REDIS_LATENCY;
+    List<Object> results = new ArrayList<>();
+    long maxMillis = 0;
+    for (int i = 0; i < 10; i++) {
+      maxMillis = Math.max(
+        maxMillis,
+        elapsedMillis(
+          () -> tokenCacheService.getUserIdAndRefresh(testToken),
+          results
+        )
+      );
+    }
+    // 停止中はRedisを呼び出さない
+    long openMillis = 0;
+    for (int i = 0; i < 100; i++) {
+      openMillis += elapsedMillis(
+        () -> tokenCacheService.getUserIdAndRefresh(testToken),
+        results
+      );
+    }
+    logger.info(
+      "Redisの遅延({}ms)時: 最大 {}ms, 停止中の100件 {}ms (参考値)",
+      REDIS_LATENCY.toMillis(),
+      maxMillis,
+      openMillis
+    );
+
+    assertThat(results).containsOnly(testUserId);
+    assertThat(maxMillis).isLessThan(MAX_RESPONSE_MILLIS);
+    assertThat(openMillis).isLessThan(MAX_RESPONSE_MILLIS);
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    assertThat(tokenCacheService.getUserIdAndRefresh("unknown-token")).isNull();
+  }
+
+  @Test
+  @DisplayName("Redisが停止した場合も、認証済みのユーザーはサインインを続けられる")
+  void sessions_failFastWhenRedisIsDown() {
+    tokenCacheService.cacheUser(testToken, testUserId);
+
+    redis.setDown(true);
+    List<Object> results = new ArrayList<>();
+    long maxMillis = 0;
+    for (int i = 0; i < 10; i++) {
+      maxMillis = Math.max(
+        maxMillis,
+        elapsedMillis(
+          () -> tokenCacheService.getUserIdAndRefresh(testToken),
+          results
+        )
+      );
+    }
+    // 停止中のサインインはこのノードでのみ有効なセッションになる
+    tokenCacheService.cacheUser("new-token", "newUserId");
+
+    assertThat(results).containsOnly(testUserId);
+    assertThat(maxMillis).isLessThan(MAX_RESPONSE_MILLIS);
+    assertThat(tokenCacheService.getUserIdAndRefresh("new-token")).isEqualTo(
+      "newUserId"
+    );
+  }
+
+  @Test
+  @DisplayName("Redisの復旧後は呼び出しを再開し、他のノードでのサインアウトを反映する")
+  void sessions_resumeAfterRecovery() throws Exception {
+    tokenCacheService.cacheUser(testToken, testUserId);
+    redis.latency = REDIS_LATENCY;
+    for (int i = 0; i < 3; i++) {
+      tokenCacheService.getUserIdAndRefresh(testToken);
+    }
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+
+    redis.latency = Duration.ZERO;
+    Thread.sleep(350);
+    assertThat(tokenCacheService.getUserIdAndRefresh(testToken)).isEqualTo(
+      testUserId
+    );
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+
+    // 他のノードでサインアウトした
+    redis.data.remove("user_session:" + testToken);
+    assertThat(tokenCacheService.getUserIdAndRefresh(testToken)).isNull();
+  }
+
+  @Test
+  @DisplayName("キャッシュが利用できない場合、読み取りはDBから取得し、削除は待たずに失敗する")
+  void cache_readsFallThroughWhenRedisIsSlow() {
+    RedisConfig redisConfig = new RedisConfig();
+    ReflectionTestUtils.setField(
+      redisConfig,
+      "cacheTimeToLive",
+      Duration.ofMinutes(5)
+    );
+    Cache cache = redisConfig
+      .cacheManager(connectionFactory, circuitBreaker)
+      .getCache("items");
+    cache.put("testUserId:食べ物", "cached");
+    assertThat(cache.get("testUserId:食べ物", () -> "db")).isEqualTo("cached");
+
+    redis.latency = REDIS_LATENCY;
+    List<Object> results = new ArrayList<>();
+    long maxMillis = 0;
+    for (int i = 0; i < 5; i++) {
+      maxMillis = Math.max(
+        maxMillis,
+        elapsedMillis(() -> cache.get("testUserId:食べ物", () -> "db"), results)
+      );
+    }
+
+    assertThat(results).containsOnly("db");
+    assertThat(maxMillis).isLessThan(MAX_RESPONSE_MILLIS);
+    // 削除の失敗はアウトボックスで再実行する
+    assertThrows(IllegalStateException.class, () ->
+      cache.evict("testUserId:食べ物")
+    );
+  }
+
+  /**
+   * Redisの代わりにローカルで応答するサーバー(RESP2の一部のコマンドのみ)
+   * 応答の遅延と、接続の切断を設定できる
+   */
+  private static final class RedisStandIn {
+
+    final ServerSocket serverSocket;
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    final Map<String, byte[]> data = new ConcurrentHashMap<>();
+    final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    volatile Duration latency = Duration.ZERO;
+    volatile boolean down = false;
+
+    RedisStandIn() throws IOException {
+      serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+      executor.execute(this::accept);
+    }
+
+    int port() {
+      return serverSocket.getLocalPort();
+    }
+
+    void setDown(boolean down) {
+      this.down = down;
+      if (down) {
+        clients.forEach(RedisStandIn::close);
+        clients.clear();
+      }
+    }
+
+    void stop() {
+      close(serverSocket);
+      clients.forEach(RedisStandIn::close);
+      executor.shutdownNow();
+    }
+
+    void accept() {
+      while (!serverSocket.isClosed()) {
+        try {
+          Socket socket = serverSocket.accept();
+          if (down) {
+            close(socket);
+            continue;
+          }
+          clients.add(socket);
+          executor.execute(() -> serve(socket));
+        } catch (IOException e) {
+          return;
+        }
+      }
+    }
+
+    void serve(Socket socket) {
+      try {
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+        List<byte[]> command;
+        while ((command = readCommand(in)) != null) {
+          delay(System.nanoTime());
+          if (down) {
+            return;
+          }
+          out.write(execute(command));
+          out.flush();
+        }
+      } catch (IOException e) {
+        // 切断された
+      } finally {
+        clients.remove(socket);
+        close(socket);
+      }
+    }
+
+    // 遅延の設定を変更した場合は、待機中の応答にも反映する
+    void delay(long receivedAt) {
+      while (!down) {
+        long waitNanos = receivedAt + latency.toNanos() - System.nanoTime();
+        if (waitNanos <= 0) {
+          return;
+        }
+        try {
+          Thread.sleep(Math.min(5, TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+
+    byte[] execute(List<byte[]> command) {
+      String name = new String(command.get(0), StandardCharsets.US_ASCII)
+        .toUpperCase(Locale.ROOT);
+      String key = command.size() > 1
+        ? new String(command.get(1), StandardCharsets.UTF_8)
+        : null;
+      switch (name) {
+        case "PING":
+          return reply("+PONG");
+        case "CLIENT":
+        case "SELECT":
+          return reply("+OK");
+        case "SET":
+          data.put(key, command.get(2));
+          return reply("+OK");
+        case "SETEX":
+        case "PSETEX":
+          data.put(key, command.get(3));
+          return reply("+OK");
+        case "GET":
+        case "GETEX":
+          return bulk(data.get(key));
+        case "EXPIRE":
+        case "PEXPIRE":
+        case "EXISTS":
+          return reply(":" + (data.containsKey(key) ? 1 : 0));
+        case "DEL":
+          return reply(":" + (data.remove(key) != null ? 1 : 0));
+        default:
+          return reply("-ERR unknown command '" + name + "'");
+      }
+    }
+
+    static List<byte[]> readCommand(InputStream in) throws IOException {
+      String header = readLine(in);
+      if (header == null) {
+        return null;
+      }
+      if (!header.startsWith("*")) {
+        throw new IOException("未対応の形式です: " + header);
+      }
+      int count = Integer.parseInt(header.substring(1));
+      List<byte[]> args = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        String length = readLine(in);
+        if (length == null) {
+          throw new EOFException();
+        }
+        args.add(in.readNBytes(Integer.parseInt(length.substring(1))));
+        readLine(in);
+      }
+      return args;
+    }
+
+    static String readLine(InputStream in) throws IOException {
+      StringBuilder line = new StringBuilder();
+      int c;
+      while ((c = in.read()) != -1) {
+        if (c == '\r') {
+          in.read();
+          return line.toString();
+        }
+        line.append((char) c);
+      }
+      return null;
+    }
+
+    static byte[] reply(String line) {
+      return (line + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] bulk(byte[] value) {
+      if (value == null) {
+        return reply("$-1");
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      out.writeBytes(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+      out.writeBytes(value);
+      out.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+      return out.toByteArray();
+    }
+
+    static void close(AutoCloseable closeable) {
+      try {
+        closeable.close();
+      } catch (Exception e) {
+        // 終了処理のため無視する
+      }
+    }
+  }
+}
@@ -0,0 +1,344 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import inventory.example.inventory_id.dto.ConsumptionRollupDto;
+import inventory.example.inventory_id.enums.TransactionType;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.model.ItemDailyRollup;
+import inventory.example.inventory_id.model.ItemRecord;
+import inventory.example.inventory_id.repository.CategoryMonthlyRollupRepository;
+import inventory.example.inventory_id.repository.ItemDailyRollupRepository;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RollupService Tests")
+public class RollupServiceTest {
+
+  @Mock
+  private ItemDailyRollupRepository itemDailyRollupRepository;
+
+  @Mock
+  private CategoryMonthlyRollupRepository categoryMonthlyRollupRepository;
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private Connection connection;
+
+  @Mock
+  private PreparedStatement statement;
+
+  @Mock
+  private Savepoint savepoint;
+
+  private RollupService rollupService;
+
+  private String testUserId = "testUserId";
+  private Item testItem;
+  private Category testCategory;
+  private LocalDateTime createdAt = LocalDateTime.of(2025, 3, 15, 10, 0);
+
+  @BeforeEach
+  void setUp() {
+    rollupService = new RollupService(
+      itemDailyRollupRepository,
+      categoryMonthlyRollupRepository,
+      jdbcTemplate
+    );
+    testCategory = new Category("食べ物", testUserId);
+    testCategory.setId(UUID.randomUUID());
+    testItem = new Item("牛肉", testUserId, testCategory, false);
+    testItem.setId(UUID.randomUUID());
+  }
+
+  private ItemRecord record(TransactionType type) {
+    ItemRecord record = new ItemRecord(
+      testItem,
+      testUserId,
+      4,
+      250,
+      null,
+      type
+    );
+    record.setCreatedAt(createdAt);
+    return record;
+  }
+
+  @Test
+  @DisplayName("集計反映 - 既存の集計行に入庫数量と金額を加算する")
+  void apply_addsToExistingRows() {
+    when(
+      itemDailyRollupRepository.addToRollup(
+        testUserId,
+        testItem.getId(),
+        LocalDate.of(2025, 3, 15),
+        4,
+        1000L,
+        0,
+        0L
+      )
+    ).thenReturn(1);
+    when(
+      categoryMonthlyRollupRepository.addToRollup(
+        testUserId,
+        testCategory.getId(),
+        LocalDate.of(2025, 3, 1),
+        4,
+        1000L,
+        0,
+        0L
+      )
+    ).thenReturn(1);
+
+    rollupService.apply(record(TransactionType.IN), 1);
+
+    verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+  }
+
+  @Test
+  @DisplayName("集計反映 - 削除時は出庫数量と金額を差し引く")
+  void apply_subtractsOnDelete() {
+    when(
+      itemDailyRollupRepository.addToRollup(
+        testUserId,
+        testItem.getId(),
+        LocalDate.of(2025, 3, 15),
+        0,
+        0L,
+        -4,
+        -1000L
+      )
+    ).thenReturn(1);
+    when(
+      categoryMonthlyRollupRepository.addToRollup(
+        eq(testUserId),
+        eq(testCategory.getId()),
+        eq(LocalDate.of(2025, 3, 1)),
+        eq(0),
+        eq(0L),
+        eq(-4),
+        eq(-1000L)
+      )
+    ).thenReturn(1);
+
+    rollupService.apply(record(TransactionType.OUT), -1);
+
+    verify(itemDailyRollupRepository, times(1)).addToRollup(
+      any(),
+      any(),
+      any(),
+      anyInt(),
+      anyLong(),
+      anyInt(),
+      anyLong()
+    );
+  }
+
+  @Test
+  @DisplayName("集計反映 - 集計行がない場合は作成してから加算する")
+  void apply_createsMissingRows() throws SQLException {
+    when(
+      itemDailyRollupRepository.addToRollup(
+        any(),
+        any(),
+        any(),
+        anyInt(),
+        anyLong(),
+        anyInt(),
+        anyLong()
+      )
+    ).thenReturn(0, 1);
+    when(
+      categoryMonthlyRollupRepository.addToRollup(
+        any(),
+        any(),
+        any(),
+        anyInt(),
+        anyLong(),
+        anyInt(),
+        anyLong()
+      )
+    ).thenReturn(0, 1);
+    givenConnection();
+    when(connection.prepareStatement(any())).thenReturn(statement);
+    // 同時に作成された場合は一意制約違反になるが、作成済みの行に加算する
+    when(statement.executeUpdate()).thenReturn(1).thenThrow(
+      new SQLException("duplicate", "23505")
+    );
+
+    rollupService.apply(record(TransactionType.IN), 1);
+
+    verify(statement).setObject(2, testItem.getId());
+    verify(statement).setObject(2, testCategory.getId());
+    // 一意制約違反はセーブポイントまで戻し、呼び出し元のトランザクションは継続する
+    verify(connection).releaseSavepoint(savepoint);
+    verify(connection).rollback(savepoint);
+    verify(itemDailyRollupRepository, times(2)).addToRollup(
+      any(),
+      any(),
+      any(),
+      anyInt(),
+      anyLong(),
+      anyInt(),
+      anyLong()
+    );
+    verify(categoryMonthlyRollupRepository, times(2)).addToRollup(
+      any(),
+      any(),
+      any(),
+      anyInt(),
+      anyLong(),
+      anyInt(),
+      anyLong()
+    );
+  }
+
+  @Test
+  @DisplayName("集計反映 - 一意制約違反以外のエラーは呼び出し元に返す")
+  void apply_propagatesOtherInsertErrors() throws SQLException {
+    when(
+      itemDailyRollupRepository.addToRollup(
+        any(),
+        any(),
+        any(),
+        anyInt(),
+        anyLong(),
+        anyInt(),
+        anyLong()
+      )
+    ).thenReturn(0);
+    givenConnection();
+    when(connection.prepareStatement(any())).thenReturn(statement);
+    when(statement.executeUpdate()).thenThrow(
+      new SQLException("lock timeout", "HYT00")
+    );
+
+    assertThrows(SQLException.class, () ->
+      rollupService.apply(record(TransactionType.IN), 1)
+    );
+    verify(connection, never()).rollback(any(Savepoint.class));
+  }
+
+  @Test
+  @DisplayName("集計反映 - 作成後にカテゴリを変更しても、作成時のカテゴリから差し引く")
+  void apply_subtractsFromCategoryAtCreation() {
+    ItemRecord record = record(TransactionType.IN);
+    Category newCategory = new Category("飲み物", testUserId);
+    newCategory.setId(UUID.randomUUID());
+    testItem.setCategory(newCategory);
+    when(
+      itemDailyRollupRepository.addToRollup(
+        any(),
+        any(),
+        any(),
+        anyInt(),
+        anyLong(),
+        anyInt(),
+        anyLong()
+      )
+    ).thenReturn(1);
+    when(
+      categoryMonthlyRollupRepository.addToRollup(
+        any(),
+        any(),
+        any(),
+        anyInt(),
+        anyLong(),
+        anyInt(),
+        anyLong()
+      )
+    ).thenReturn(1);
+
+    rollupService.apply(record, -1);
+
+    verify(categoryMonthlyRollupRepository).addToRollup(
+      testUserId,
+      testCategory.getId(),
+      LocalDate.of(2025, 3, 1),
+      -4,
+      -1000L,
+      0,
+      0L
+    );
+  }
+
+  @Test
+  @DisplayName("日別集計取得 - 集計テーブルの行をDTOに変換する")
+  void getItemDailyRollups_success() {
+    ItemDailyRollup rollup = new ItemDailyRollup();
+    rollup.setItemId(testItem.getId());
+    rollup.setRollupDate(LocalDate.of(2025, 3, 15));
+    rollup.setInQuantity(4);
+    rollup.setInAmount(1000L);
+    when(
+      itemDailyRollupRepository.findItemRollups(
+        testUserId,
+        testItem.getId(),
+        LocalDate.of(2025, 3, 1),
+        LocalDate.of(2025, 3, 31)
+      )
+    ).thenReturn(List.of(rollup));
+
+    List<ConsumptionRollupDto> result = rollupService.getItemDailyRollups(
+      testUserId,
+      testItem.getId(),
+      LocalDate.of(2025, 3, 1),
+      LocalDate.of(2025, 3, 31)
+    );
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getPeriod()).isEqualTo(LocalDate.of(2025, 3, 15));
+    assertThat(result.get(0).getInAmount()).isEqualTo(1000L);
+  }
+
+  @Test
+  @DisplayName("日別集計取得 - 開始日が終了日より後の場合はエラー")
+  void getItemDailyRollups_invalidPeriod() {
+    assertThrows(IllegalArgumentException.class, () ->
+      rollupService.getItemDailyRollups(
+        testUserId,
+        testItem.getId(),
+        LocalDate.of(2025, 4, 1),
+        LocalDate.of(2025, 3, 1)
+      )
+    );
+  }
+
+  // ConnectionCallbackを呼び出し元のトランザクションの接続で実行する
+  private void givenConnection() throws SQLException {
+    when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(
+      invocation ->
+        invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(
+          connection
+        )
+    );
+    when(connection.setSavepoint()).thenReturn(savepoint);
+  }
+}
@@ -0,0 +1,149 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SessionRevocationList Tests")
+public class SessionRevocationListTest {
+
+  private static final String REVOKED_KEY = "revoked_sessions";
+
+  @Mock
+  private StringRedisTemplate redisTemplate;
+
+  @Mock
+  private ZSetOperations<String, String> zSetOperations;
+
+  private SessionRevocationList revocationList;
+
+  private String revokedCookie = "revoked-session-cookie";
+  private String activeCookie = "active-session-cookie";
+  private Instant expiresAt = Instant.now().plus(Duration.ofDays(7));
+
+  @BeforeEach
+  void setUp() {
+    revocationList = new SessionRevocationList(redisTemplate);
+    ReflectionTestUtils.setField(revocationList, "sessionMode", "stateless");
+    ReflectionTestUtils.setField(revocationList, "expectedInsertions", 1000);
+    ReflectionTestUtils.setField(revocationList, "falsePositiveRate", 0.01);
+    lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+  }
+
+  private static String hash(String token) throws Exception {
+    return HexFormat.of().formatHex(
+      MessageDigest.getInstance("SHA-256").digest(
+        token.getBytes(StandardCharsets.UTF_8)
+      )
+    );
+  }
+
+  @Test
+  @DisplayName("一覧の読み込み後は、含まれないCookieをRedisで確認しない")
+  void isRevoked_usesFilterAfterRefresh() throws Exception {
+    when(
+      zSetOperations.rangeByScore(eq(REVOKED_KEY), anyDouble(), anyDouble())
+    ).thenReturn(Set.of(hash(revokedCookie)));
+    when(zSetOperations.score(REVOKED_KEY, hash(revokedCookie))).thenReturn(
+      (double) expiresAt.getEpochSecond()
+    );
+    revocationList.refresh();
+
+    assertThat(revocationList.isRevoked(activeCookie)).isFalse();
+    assertThat(revocationList.isRevoked(revokedCookie)).isTrue();
+    verify(zSetOperations, never()).score(REVOKED_KEY, hash(activeCookie));
+  }
+
+  @Test
+  @DisplayName("一覧の読み込み前はRedisで確認し、確認できない場合は無効として扱う")
+  void isRevoked_checksRedisBeforeRefresh() throws Exception {
+    when(zSetOperations.score(REVOKED_KEY, hash(activeCookie))).thenReturn(
+      null
+    );
+    when(zSetOperations.score(REVOKED_KEY, hash(revokedCookie))).thenThrow(
+      new RedisConnectionFailureException("connection refused")
+    );
+
+    assertThat(revocationList.isRevoked(activeCookie)).isFalse();
+    assertThat(revocationList.isRevoked(revokedCookie)).isTrue();
+  }
+
+  @Test
+  @DisplayName("Redisに保存できなくても無効にしたCookieは使えず、次の読み込みで保存する")
+  void revoke_retriesUnsyncedWrites() throws Exception {
+    doThrow(new RedisConnectionFailureException("connection refused"))
+      .doReturn(true)
+      .when(zSetOperations)
+      .add(REVOKED_KEY, hash(revokedCookie), expiresAt.getEpochSecond());
+    when(
+      zSetOperations.rangeByScore(eq(REVOKED_KEY), anyDouble(), anyDouble())
+    ).thenReturn(Set.of());
+
+    revocationList.revoke(revokedCookie, expiresAt);
+    assertThat(revocationList.isRevoked(revokedCookie)).isTrue();
+
+    revocationList.refresh();
+    assertThat(revocationList.isRevoked(revokedCookie)).isTrue();
+    verify(zSetOperations, times(2)).add(
+      REVOKED_KEY,
+      hash(revokedCookie),
+      expiresAt.getEpochSecond()
+    );
+    verify(zSetOperations).removeRangeByScore(
+      eq(REVOKED_KEY),
+      eq(0.0),
+      anyDouble()
+    );
+  }
+
+  @Test
+  @DisplayName("Redisのセッションを使う場合は一覧を読み込まない")
+  void refresh_skippedInRedisMode() {
+    ReflectionTestUtils.setField(revocationList, "sessionMode", "redis");
+
+    revocationList.refresh();
+
+    verifyNoInteractions(redisTemplate);
+  }
+
+  @Test
+  @DisplayName("一覧の読み込みに失敗した場合はRedisでの確認を続ける")
+  void refresh_failureKeepsRedisLookup() throws Exception {
+    when(
+      zSetOperations.rangeByScore(eq(REVOKED_KEY), anyDouble(), anyDouble())
+    ).thenThrow(new RedisConnectionFailureException("connection refused"));
+    when(zSetOperations.score(anyString(), anyString())).thenReturn(
+      (double) expiresAt.getEpochSecond()
+    );
+
+    revocationList.refresh();
+
+    assertThat(revocationList.isRevoked(revokedCookie)).isTrue();
+  }
+}
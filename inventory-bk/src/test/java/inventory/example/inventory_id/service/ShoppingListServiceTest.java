@@ -0,0 +1,221 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import inventory.example.inventory_id.dto.ExpiryAlertDto;
+import inventory.example.inventory_id.dto.StockoutForecastDto;
+import inventory.example.inventory_id.enums.ShoppingReason;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.repository.ItemRepository;
+import inventory.example.inventory_id.response.ShoppingListResponse;
+import inventory.example.inventory_id.response.ShoppingListResponse.Entry;
+import inventory.example.inventory_id.service.ExpiryAlertService.UserAlerts;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ShoppingListService Tests")
+public class ShoppingListServiceTest {
+
+  @Mock
+  private ItemRepository itemRepository;
+
+  @Mock
+  private ExpiryAlertService expiryAlertService;
+
+  @Mock
+  private ConsumptionForecastService consumptionForecastService;
+
+  @Mock
+  private UserVersionService userVersionService;
+
+  @InjectMocks
+  private ShoppingListService shoppingListService;
+
+  private String testUserId = "testUserId";
+  private Category food;
+  private Category daily;
+  private Item milk;
+  private Item bread;
+  private Item soap;
+
+  @BeforeEach
+  void setUp() {
+    food = new Category("食べ物", testUserId);
+    daily = new Category("日用品", testUserId);
+
+    milk = new Item("牛乳", testUserId, food, 1, 200, false);
+    milk.setId(UUID.randomUUID());
+    milk.setReorderThreshold(3);
+
+    bread = new Item("パン", testUserId, food, 2, 300, false);
+    bread.setId(UUID.randomUUID());
+
+    soap = new Item("石鹸", testUserId, daily, 4, 400, false);
+    soap.setId(UUID.randomUUID());
+  }
+
+  private void stubSources(List<ExpiryAlertDto> alerts) {
+    when(expiryAlertService.getUserAlerts(testUserId)).thenReturn(
+      new UserAlerts(alerts, 1L)
+    );
+    when(itemRepository.findLowStockByUserId(testUserId)).thenReturn(
+      List.of(milk)
+    );
+    when(consumptionForecastService.getDefaultHorizonDays()).thenReturn(7);
+    when(consumptionForecastService.getBuySoonItems(testUserId, 7)).thenReturn(
+      List.of(
+        new StockoutForecastDto(milk.getId(), "牛乳", "食べ物", 1, 1.0, 1.0),
+        new StockoutForecastDto(soap.getId(), "石鹸", "日用品", 4, 1.0, 4.0)
+      )
+    );
+  }
+
+  @Test
+  @DisplayName("買い物リスト - 理由をアイテムごとにまとめ、カテゴリ別に急ぎの順で返す")
+  void getShoppingList_mergesReasonsAndGroupsByCategory() {
+    List<ExpiryAlertDto> alerts = List.of(
+      new ExpiryAlertDto(1L, bread.getId(), "パン", "食べ物", 2, LocalDate.now().plusDays(2), 2),
+      new ExpiryAlertDto(2L, bread.getId(), "パン", "食べ物", 1, LocalDate.now().minusDays(1), -1)
+    );
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.1");
+    stubSources(alerts);
+    when(itemRepository.findAllById(List.of(bread.getId()))).thenReturn(
+      List.of(bread)
+    );
+
+    ShoppingListResponse result = shoppingListService.getShoppingList(testUserId);
+
+    assertThat(result.getCategories()).hasSize(2);
+    assertThat(result.getCategories().get(0).getCategoryName()).isEqualTo("食べ物");
+    assertThat(result.getCategories().get(1).getCategoryName()).isEqualTo("日用品");
+
+    List<Entry> foodItems = result.getCategories().get(0).getItems();
+    assertThat(foodItems).extracting(Entry::getItemName).containsExactly("パン", "牛乳");
+    // 期限切れと期限が近いロットは合算し、期限切れとして扱う
+    assertThat(foodItems.get(0).getReasons()).containsExactly(ShoppingReason.EXPIRED);
+    assertThat(foodItems.get(0).getSuggestedQuantity()).isEqualTo(3);
+    // 在庫不足(発注点まで2個)と在庫切れ予測(7日分で6個)は多い方を勧める
+    assertThat(foodItems.get(1).getReasons()).containsExactlyInAnyOrder(
+      ShoppingReason.LOW_STOCK,
+      ShoppingReason.STOCKOUT_SOON
+    );
+    assertThat(foodItems.get(1).getSuggestedQuantity()).isEqualTo(6);
+    assertThat(foodItems.get(1).getDaysUntilNeeded()).isEqualTo(0.0);
+
+    Entry soapEntry = result.getCategories().get(1).getItems().get(0);
+    assertThat(soapEntry.getReasons()).containsExactly(ShoppingReason.STOCKOUT_SOON);
+    assertThat(soapEntry.getDaysUntilNeeded()).isEqualTo(4.0);
+    assertThat(soapEntry.getSuggestedQuantity()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("買い物リスト - バージョンが変わらない場合はキャッシュを返す")
+  void getShoppingList_returnsCachedList_whenVersionIsUnchanged() {
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.1");
+    stubSources(List.of());
+
+    ShoppingListResponse first = shoppingListService.getShoppingList(testUserId);
+    ShoppingListResponse second = shoppingListService.getShoppingList(testUserId);
+
+    assertThat(second).isSameAs(first);
+    verify(itemRepository, times(1)).findLowStockByUserId(testUserId);
+  }
+
+  @Test
+  @DisplayName("買い物リスト - 書き込みでバージョンが変わると作り直す")
+  void getShoppingList_rebuilds_whenVersionChanges() {
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.1", "0.2");
+    stubSources(List.of());
+
+    ShoppingListResponse first = shoppingListService.getShoppingList(testUserId);
+    ShoppingListResponse second = shoppingListService.getShoppingList(testUserId);
+
+    assertThat(second).isNotSameAs(first);
+    verify(itemRepository, times(2)).findLowStockByUserId(testUserId);
+  }
+
+  @Test
+  @DisplayName("買い物リスト - 有効期限アラートが作り直されると作り直す")
+  void getShoppingList_rebuilds_whenAlertVersionChanges() {
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.1");
+    when(expiryAlertService.getUserAlerts(testUserId)).thenReturn(
+      new UserAlerts(List.of(), 1L),
+      new UserAlerts(List.of(), 2L)
+    );
+    when(itemRepository.findLowStockByUserId(testUserId)).thenReturn(List.of());
+    when(consumptionForecastService.getDefaultHorizonDays()).thenReturn(7);
+    when(consumptionForecastService.getBuySoonItems(testUserId, 7)).thenReturn(
+      List.of()
+    );
+
+    ShoppingListResponse first = shoppingListService.getShoppingList(testUserId);
+    ShoppingListResponse second = shoppingListService.getShoppingList(testUserId);
+
+    assertThat(second).isNotSameAs(first);
+    verify(itemRepository, times(2)).findLowStockByUserId(testUserId);
+  }
+
+  @Test
+  @DisplayName("買い物リスト - キャッシュの有効期限を過ぎると作り直す")
+  void getShoppingList_rebuilds_afterCacheTtl() {
+    ReflectionTestUtils.setField(shoppingListService, "cacheTtl", Duration.ZERO);
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.1");
+    stubSources(List.of());
+
+    shoppingListService.getShoppingList(testUserId);
+    shoppingListService.getShoppingList(testUserId);
+
+    verify(itemRepository, times(2)).findLowStockByUserId(testUserId);
+  }
+
+  @Test
+  @DisplayName("買い物リスト - 件数の上限を超えたユーザーのリストは破棄する")
+  void getShoppingList_boundsCachedUsers() {
+    ReflectionTestUtils.setField(shoppingListService, "cacheMaxEntries", 1);
+    when(userVersionService.getVersion(testUserId)).thenReturn("0.1");
+    when(userVersionService.getVersion("otherUserId")).thenReturn("0.1");
+    stubSources(List.of());
+    when(expiryAlertService.getUserAlerts("otherUserId")).thenReturn(
+      new UserAlerts(List.of(), 1L)
+    );
+    when(itemRepository.findLowStockByUserId("otherUserId")).thenReturn(
+      List.of()
+    );
+    when(consumptionForecastService.getBuySoonItems("otherUserId", 7)).thenReturn(
+      List.of()
+    );
+
+    shoppingListService.getShoppingList(testUserId);
+    shoppingListService.getShoppingList("otherUserId");
+    shoppingListService.getShoppingList(testUserId);
+
+    verify(itemRepository, times(2)).findLowStockByUserId(testUserId);
+  }
+
+  @Test
+  @DisplayName("買い物リスト - バージョンが取得できない場合はキャッシュしない")
+  void getShoppingList_doesNotCache_whenVersionIsUnavailable() {
+    when(userVersionService.getVersion(testUserId)).thenReturn(null);
+    stubSources(List.of());
+
+    shoppingListService.getShoppingList(testUserId);
+    shoppingListService.getShoppingList(testUserId);
+
+    verify(itemRepository, times(2)).findLowStockByUserId(testUserId);
+  }
+}
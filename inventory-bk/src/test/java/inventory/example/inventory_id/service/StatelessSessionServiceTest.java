@@ -0,0 +1,109 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import inventory.example.inventory_id.exception.AuthenticationException;
+import inventory.example.inventory_id.service.FirebaseAuthService.VerifiedIdToken;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StatelessSessionService Tests")
+public class StatelessSessionServiceTest {
+
+  @Mock
+  private FirebaseAuthService firebaseAuthService;
+
+  @Mock
+  private SessionRevocationList revocations;
+
+  private StatelessSessionService statelessSessionService;
+
+  private String sessionCookie = "test-session-cookie";
+  private String testUserId = "testUserId";
+  private Instant expiresAt = Instant.now().plus(Duration.ofDays(7));
+
+  @BeforeEach
+  void setUp() {
+    statelessSessionService = new StatelessSessionService(
+      firebaseAuthService,
+      revocations,
+      100
+    );
+    ReflectionTestUtils.setField(
+      statelessSessionService,
+      "sessionMode",
+      "stateless"
+    );
+  }
+
+  @Test
+  @DisplayName("検証済みのセッションCookieは再検証しない")
+  void getUserId_cachesVerification() throws Exception {
+    when(firebaseAuthService.verifySessionCookie(sessionCookie)).thenReturn(
+      new VerifiedIdToken(testUserId, expiresAt)
+    );
+
+    assertThat(statelessSessionService.getUserId(sessionCookie)).isEqualTo(
+      testUserId
+    );
+    assertThat(statelessSessionService.getUserId(sessionCookie)).isEqualTo(
+      testUserId
+    );
+    verify(firebaseAuthService, times(1)).verifySessionCookie(sessionCookie);
+    verify(revocations, times(2)).isRevoked(sessionCookie);
+  }
+
+  @Test
+  @DisplayName("無効にしたセッションCookieや検証できないCookieはnullを返す")
+  void getUserId_rejectsRevokedAndInvalidCookies() throws Exception {
+    when(revocations.isRevoked("revoked-cookie")).thenReturn(true);
+    when(firebaseAuthService.verifySessionCookie("invalid-cookie")).thenThrow(
+      new AuthenticationException("invalid")
+    );
+
+    assertThat(statelessSessionService.getUserId("revoked-cookie")).isNull();
+    assertThat(statelessSessionService.getUserId("invalid-cookie")).isNull();
+    verify(firebaseAuthService, never()).verifySessionCookie("revoked-cookie");
+  }
+
+  @Test
+  @DisplayName("サインアウトしたセッションCookieを有効期限まで無効にする")
+  void revoke_addsToRevocationList() throws Exception {
+    when(firebaseAuthService.verifySessionCookie(sessionCookie)).thenReturn(
+      new VerifiedIdToken(testUserId, expiresAt)
+    );
+    statelessSessionService.getUserId(sessionCookie);
+
+    statelessSessionService.revoke(sessionCookie);
+    when(revocations.isRevoked(sessionCookie)).thenReturn(true);
+
+    verify(revocations).revoke(sessionCookie, expiresAt);
+    assertThat(statelessSessionService.getUserId(sessionCookie)).isNull();
+  }
+
+  @Test
+  @DisplayName("検証できないセッションCookieは無効化の一覧に追加しない")
+  void revoke_ignoresInvalidCookie() throws Exception {
+    when(firebaseAuthService.verifySessionCookie(anyString())).thenThrow(
+      new AuthenticationException("invalid")
+    );
+
+    statelessSessionService.revoke("invalid-cookie");
+
+    verify(revocations, never()).revoke(anyString(), any());
+  }
+}
@@ -0,0 +1,307 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import inventory.example.inventory_id.dto.CategoryDto;
+import inventory.example.inventory_id.enums.TransactionType;
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.model.Item;
+import inventory.example.inventory_id.model.ItemRecord;
+import inventory.example.inventory_id.repository.CategoryRepository;
+import inventory.example.inventory_id.repository.ItemRecordRepository;
+import inventory.example.inventory_id.repository.ItemRepository;
+import inventory.example.inventory_id.response.SyncResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SyncService Tests")
+public class SyncServiceTest {
+
+  @Mock
+  private CategoryRepository categoryRepository;
+
+  @Mock
+  private ItemRepository itemRepository;
+
+  @Mock
+  private ItemRecordRepository itemRecordRepository;
+
+  @Mock
+  private SystemCategoryRegistry systemCategoryRegistry;
+
+  @Mock
+  private ConsumptionForecastService consumptionForecastService;
+
+  @InjectMocks
+  private SyncService syncService;
+
+  private String testUserId = "testUserId";
+  private String defaultSystemId = "systemId";
+  private Category testCategory;
+  private Item testItem;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(
+      syncService,
+      "transactionTimeout",
+      Duration.ofSeconds(30)
+    );
+    ReflectionTestUtils.setField(
+      syncService,
+      "overlapMargin",
+      Duration.ofSeconds(2)
+    );
+
+    testCategory = new Category("食べ物", defaultSystemId);
+    testCategory.setId(UUID.randomUUID());
+    testCategory.setItems(new ArrayList<>());
+    testCategory.setUpdatedAt(LocalDateTime.now().minusDays(1));
+
+    testItem = new Item("牛乳", testUserId, testCategory, false);
+    testItem.setId(UUID.randomUUID());
+    testCategory.getItems().add(testItem);
+  }
+
+  @Test
+  @DisplayName("差分同期 - トークンなしの場合は全件を返す")
+  void getChanges_fullSync_whenWatermarkIsEmpty() {
+    ItemRecord record = new ItemRecord(
+      testItem,
+      testUserId,
+      10,
+      100,
+      null,
+      TransactionType.IN
+    );
+    record.setId(1L);
+
+    when(systemCategoryRegistry.getAll()).thenReturn(
+      List.of(toSystemCategory(testCategory))
+    );
+    when(categoryRepository.findNotDeleted(testUserId)).thenReturn(List.of());
+    when(itemRepository.countActiveByCategory(testUserId)).thenReturn(
+      List.of(itemCount(testCategory.getId(), 1))
+    );
+    when(itemRepository.findActiveByUserId(testUserId)).thenReturn(
+      List.of(testItem)
+    );
+    when(itemRecordRepository.findUserItemRecords(testUserId)).thenReturn(
+      List.of(record)
+    );
+
+    SyncResponse result = syncService.getChanges(testUserId, null);
+
+    assertThat(result.isFullSync()).isTrue();
+    assertThat(result.getWatermark()).isNotBlank();
+    assertThat(result.getCategories()).hasSize(1);
+    assertThat(result.getCategories().get(0).getItemCount()).isEqualTo(1);
+    assertThat(result.getItems()).hasSize(1);
+    assertThat(result.getRecords()).hasSize(1);
+    assertThat(result.getRecords().get(0).getItemId()).isEqualTo(
+      testItem.getId()
+    );
+    verify(itemRepository, never()).findChangedBetween(any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("差分同期 - 削除済みのデータはトゥームストーンとして返す")
+  void getChanges_delta_returnsTombstones() {
+    LocalDateTime since = LocalDateTime.now().minusHours(1);
+    String watermark = syncService.encodeWatermark(since);
+
+    Item deletedItem = new Item("パン", testUserId, testCategory, true);
+    deletedItem.setId(UUID.randomUUID());
+    ItemRecord deletedRecord = new ItemRecord(
+      testItem,
+      testUserId,
+      5,
+      100,
+      null,
+      TransactionType.IN
+    );
+    deletedRecord.setId(2L);
+    deletedRecord.setDeletedFlag(true);
+
+    when(systemCategoryRegistry.getAll()).thenReturn(
+      List.of(toSystemCategory(testCategory))
+    );
+    when(
+      categoryRepository.findChangedBetween(
+        eq(testUserId),
+        eq(since),
+        any(LocalDateTime.class)
+      )
+    ).thenReturn(List.of());
+    when(
+      itemRepository.findChangedBetween(
+        eq(testUserId),
+        eq(since),
+        any(LocalDateTime.class)
+      )
+    ).thenReturn(List.of(testItem, deletedItem));
+    when(
+      itemRecordRepository.findChangedBetween(
+        eq(testUserId),
+        eq(since),
+        any(LocalDateTime.class)
+      )
+    ).thenReturn(List.of(deletedRecord));
+
+    SyncResponse result = syncService.getChanges(testUserId, watermark);
+
+    assertThat(result.isFullSync()).isFalse();
+    assertThat(result.getItems()).hasSize(1);
+    assertThat(result.getItems().get(0).getId()).isEqualTo(testItem.getId());
+    assertThat(result.getDeleted().getItems()).containsExactly(
+      deletedItem.getId()
+    );
+    assertThat(result.getRecords()).isEmpty();
+    assertThat(result.getDeleted().getRecords()).containsExactly(2L);
+    assertThat(result.getCategories()).isEmpty();
+    assertThat(result.getDeleted().getCategories()).isEmpty();
+    // カテゴリに変更がない場合はアイテム数を集計しない
+    verify(itemRepository, never()).countActiveByCategory(any());
+  }
+
+  @Test
+  @DisplayName("差分同期 - 期間内に更新されたデフォルトカテゴリとユーザーのカテゴリを返す")
+  void getChanges_delta_returnsChangedCategories() {
+    LocalDateTime since = LocalDateTime.now().minusHours(1);
+    String watermark = syncService.encodeWatermark(since);
+
+    Category updatedSystemCategory = new Category("家電", defaultSystemId);
+    updatedSystemCategory.setId(UUID.randomUUID());
+    updatedSystemCategory.setUpdatedAt(since.plusMinutes(10));
+    Category userCategory = new Category("本", testUserId);
+    userCategory.setId(UUID.randomUUID());
+    Category deletedUserCategory = new Category("PC", testUserId);
+    deletedUserCategory.setId(UUID.randomUUID());
+    deletedUserCategory.setDeletedFlag(true);
+
+    when(systemCategoryRegistry.getAll()).thenReturn(
+      List.of(
+        toSystemCategory(testCategory),
+        toSystemCategory(updatedSystemCategory)
+      )
+    );
+    when(
+      categoryRepository.findChangedBetween(
+        eq(testUserId),
+        eq(since),
+        any(LocalDateTime.class)
+      )
+    ).thenReturn(List.of(userCategory, deletedUserCategory));
+    when(itemRepository.countActiveByCategory(testUserId)).thenReturn(
+      List.of(itemCount(userCategory.getId(), 3))
+    );
+    when(
+      itemRepository.findChangedBetween(
+        eq(testUserId),
+        eq(since),
+        any(LocalDateTime.class)
+      )
+    ).thenReturn(List.of());
+    when(
+      itemRecordRepository.findChangedBetween(
+        eq(testUserId),
+        eq(since),
+        any(LocalDateTime.class)
+      )
+    ).thenReturn(List.of());
+
+    SyncResponse result = syncService.getChanges(testUserId, watermark);
+
+    assertThat(result.getCategories())
+      .extracting(CategoryDto::getId)
+      .containsExactly(updatedSystemCategory.getId(), userCategory.getId());
+    assertThat(result.getCategories())
+      .extracting(CategoryDto::getItemCount)
+      .containsExactly(0, 3);
+    assertThat(result.getDeleted().getCategories()).containsExactly(
+      deletedUserCategory.getId()
+    );
+  }
+
+  @Test
+  @DisplayName("差分同期 - ウォーターマークはトランザクションの最大時間と余裕の分だけ過去に戻す")
+  void getChanges_watermarkCoversTransactionTimeout() {
+    when(systemCategoryRegistry.getAll()).thenReturn(List.of());
+    when(categoryRepository.findNotDeleted(testUserId)).thenReturn(List.of());
+    when(itemRepository.findActiveByUserId(testUserId)).thenReturn(List.of());
+    when(itemRecordRepository.findUserItemRecords(testUserId)).thenReturn(
+      List.of()
+    );
+
+    LocalDateTime before = LocalDateTime.now();
+    SyncResponse result = syncService.getChanges(testUserId, null);
+    LocalDateTime after = LocalDateTime.now();
+
+    assertThat(syncService.decodeWatermark(result.getWatermark()))
+      .isAfterOrEqualTo(before.minusSeconds(32))
+      .isBeforeOrEqualTo(after.minusSeconds(32));
+  }
+
+  @Test
+  @DisplayName("差分同期失敗 - 不正なトークン")
+  void getChanges_throwsException_whenWatermarkIsInvalid() {
+    IllegalArgumentException exception = assertThrows(
+      IllegalArgumentException.class,
+      () -> syncService.getChanges(testUserId, "invalid-token")
+    );
+    assertThat(exception.getMessage()).isEqualTo("同期トークンが不正です");
+  }
+
+  @Test
+  @DisplayName("ウォーターマークはエンコード・デコードで同じ日時に戻る")
+  void watermark_roundTrip() {
+    LocalDateTime time = LocalDateTime.of(2025, 1, 2, 3, 4, 5, 6000);
+    String watermark = syncService.encodeWatermark(time);
+    assertThat(syncService.decodeWatermark(watermark)).isEqualTo(time);
+  }
+
+  private SystemCategoryRegistry.SystemCategory toSystemCategory(
+    Category category
+  ) {
+    return new SystemCategoryRegistry.SystemCategory(
+      category.getId(),
+      category.getName(),
+      category.getUpdatedAt()
+    );
+  }
+
+  private ItemRepository.CategoryItemCount itemCount(
+    UUID categoryId,
+    long count
+  ) {
+    return new ItemRepository.CategoryItemCount() {
+      @Override
+      public UUID getCategoryId() {
+        return categoryId;
+      }
+
+      @Override
+      public long getItemCount() {
+        return count;
+      }
+    };
+  }
+}
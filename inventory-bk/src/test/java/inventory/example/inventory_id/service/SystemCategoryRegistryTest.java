@@ -0,0 +1,133 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import inventory.example.inventory_id.model.Category;
+import inventory.example.inventory_id.repository.CategoryRepository;
+import inventory.example.inventory_id.service.SystemCategoryRegistry.SystemCategory;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SystemCategoryRegistry Tests")
+public class SystemCategoryRegistryTest {
+
+  @Mock
+  private CategoryRepository categoryRepository;
+
+  @Mock
+  private UserVersionService userVersionService;
+
+  @InjectMocks
+  private SystemCategoryRegistry systemCategoryRegistry;
+
+  private String defaultSystemId = "systemId";
+  private Category food;
+  private Category books;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(
+      systemCategoryRegistry,
+      "systemUserId",
+      defaultSystemId
+    );
+    food = new Category("食べ物", defaultSystemId);
+    food.setId(UUID.randomUUID());
+    books = new Category("書籍", defaultSystemId);
+    books.setId(UUID.randomUUID());
+  }
+
+  @Test
+  @DisplayName("初回参照時に読み込み、IDと名前で参照できる")
+  void lookup_loadsOnFirstAccess() {
+    when(userVersionService.getGlobalVersion()).thenReturn("1");
+    when(categoryRepository.findNotDeleted(defaultSystemId)).thenReturn(
+      List.of(food, books)
+    );
+
+    assertThat(systemCategoryRegistry.contains(food.getId())).isTrue();
+    assertThat(systemCategoryRegistry.contains(UUID.randomUUID())).isFalse();
+    assertThat(systemCategoryRegistry.findByName("書籍"))
+      .map(SystemCategory::getId)
+      .contains(books.getId());
+    assertThat(systemCategoryRegistry.findById(food.getId()))
+      .map(SystemCategory::getName)
+      .contains("食べ物");
+    assertThat(systemCategoryRegistry.getAll())
+      .extracting(SystemCategory::getName)
+      .containsExactly("書籍", "食べ物");
+
+    // 2回目以降はDBを参照しない
+    verify(categoryRepository, times(1)).findNotDeleted(defaultSystemId);
+  }
+
+  @Test
+  @DisplayName("全体バージョンが変わっていなければ再読み込みしない")
+  void refreshIfChanged_skipsWhenVersionIsSame() {
+    when(userVersionService.getGlobalVersion()).thenReturn("1");
+    when(categoryRepository.findNotDeleted(defaultSystemId)).thenReturn(
+      List.of(food)
+    );
+    systemCategoryRegistry.refresh();
+
+    systemCategoryRegistry.refreshIfChanged();
+
+    verify(categoryRepository, times(1)).findNotDeleted(defaultSystemId);
+  }
+
+  @Test
+  @DisplayName("全体バージョンが変わった場合はスナップショットを差し替える")
+  void refreshIfChanged_replacesSnapshotWhenVersionChanged() {
+    when(userVersionService.getGlobalVersion()).thenReturn("1", "2", "2");
+    when(categoryRepository.findNotDeleted(defaultSystemId)).thenReturn(
+      List.of(food),
+      List.of(food, books)
+    );
+    systemCategoryRegistry.refresh();
+    List<SystemCategory> before = systemCategoryRegistry.getAll();
+
+    systemCategoryRegistry.refreshIfChanged();
+
+    assertThat(systemCategoryRegistry.contains(books.getId())).isTrue();
+    // 以前に取得した一覧は変更されない
+    assertThat(before).hasSize(1);
+  }
+
+  @Test
+  @DisplayName("全体バージョンを取得できない場合は現在の一覧を使い続ける")
+  void refreshIfChanged_keepsSnapshotWhenVersionIsUnavailable() {
+    when(userVersionService.getGlobalVersion()).thenReturn("1", (String) null);
+    when(categoryRepository.findNotDeleted(defaultSystemId)).thenReturn(
+      List.of(food)
+    );
+    systemCategoryRegistry.refresh();
+
+    systemCategoryRegistry.refreshIfChanged();
+
+    assertThat(systemCategoryRegistry.contains(food.getId())).isTrue();
+    verify(categoryRepository, times(1)).findNotDeleted(defaultSystemId);
+  }
+
+  @Test
+  @DisplayName("読み込み前は定期確認でDBを参照しない")
+  void refreshIfChanged_beforeLoad_usesVersionOnly() {
+    when(userVersionService.getGlobalVersion()).thenReturn(null);
+
+    systemCategoryRegistry.refreshIfChanged();
+
+    verify(categoryRepository, never()).findNotDeleted(defaultSystemId);
+  }
+}
@@ -0,0 +1,117 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import inventory.example.inventory_id.util.CircuitBreaker;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenCacheService Tests")
+public class TokenCacheServiceTest {
+
+  private static final Duration SESSION_TIMEOUT = Duration.ofMinutes(5);
+
+  @Mock
+  private RedisTemplate<String, Object> redisTemplate;
+
+  @Mock
+  private ValueOperations<String, Object> valueOperations;
+
+  private TokenCacheService tokenCacheService;
+
+  private String testToken = "test-token";
+  private String testUserId = "testUserId";
+  private String sessionKey = "user_session:test-token";
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    tokenCacheService = new TokenCacheService(100);
+    ReflectionTestUtils.setField(
+      tokenCacheService,
+      "redisTemplate",
+      redisTemplate
+    );
+    ReflectionTestUtils.setField(
+      tokenCacheService,
+      "redisCircuitBreaker",
+      new CircuitBreaker("Redis", 5, Duration.ofSeconds(5))
+    );
+    ReflectionTestUtils.setField(
+      tokenCacheService,
+      "SESSION_TIMEOUT",
+      SESSION_TIMEOUT
+    );
+  }
+
+  @Test
+  @DisplayName("サインアウトはRedisからセッションを削除する")
+  void removeUserCache_deletesSession() {
+    tokenCacheService.removeUserCache(testToken);
+
+    verify(redisTemplate).delete(sessionKey);
+    assertThat(tokenCacheService.getUnsyncedSignOutCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Redisから削除できなかったセッションは、Redisに残っていても使わない")
+  void removeUserCache_revokesLocallyWhenDeleteFails() {
+    when(redisTemplate.delete(sessionKey)).thenThrow(
+      new RedisConnectionFailureException("Redisに接続できません")
+    );
+
+    tokenCacheService.cacheUser(testToken, testUserId);
+    tokenCacheService.removeUserCache(testToken);
+
+    assertThat(tokenCacheService.getUnsyncedSignOutCount()).isEqualTo(1);
+    assertThat(tokenCacheService.getUserIdAndRefresh(testToken)).isNull();
+    assertThat(tokenCacheService.getUserIdFromCache(testToken)).isNull();
+    assertThat(tokenCacheService.isTokenCached(testToken)).isFalse();
+    tokenCacheService.refreshUserCache(testToken);
+    verify(valueOperations, never()).getAndExpire(sessionKey, SESSION_TIMEOUT);
+    verify(redisTemplate, never()).expire(sessionKey, SESSION_TIMEOUT);
+  }
+
+  @Test
+  @DisplayName("Redisの復旧後にサインアウトを再実行し、セッションを削除する")
+  void retryUnsyncedSignOuts_deletesAfterRecovery() {
+    when(redisTemplate.delete(sessionKey))
+      .thenThrow(new RedisConnectionFailureException("Redisに接続できません"))
+      .thenReturn(true);
+
+    tokenCacheService.removeUserCache(testToken);
+    tokenCacheService.retryUnsyncedSignOuts();
+
+    verify(redisTemplate, times(2)).delete(sessionKey);
+    assertThat(tokenCacheService.getUnsyncedSignOutCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("再度サインインしたトークンはサインアウトの再実行の対象から外す")
+  void cacheUser_cancelsUnsyncedSignOut() {
+    when(redisTemplate.delete(sessionKey)).thenThrow(
+      new RedisConnectionFailureException("Redisに接続できません")
+    );
+    tokenCacheService.removeUserCache(testToken);
+
+    tokenCacheService.cacheUser(testToken, testUserId);
+
+    assertThat(tokenCacheService.getUnsyncedSignOutCount()).isZero();
+    verify(valueOperations).set(sessionKey, testUserId, SESSION_TIMEOUT);
+  }
+}
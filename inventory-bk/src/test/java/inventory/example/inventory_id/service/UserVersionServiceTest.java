@@ -0,0 +1,143 @@
+package inventory.example.inventory_id.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserVersionService Tests")
+public class UserVersionServiceTest {
+
+  @Mock
+  private StringRedisTemplate redisTemplate;
+
+  @Mock
+  private ValueOperations<String, String> valueOperations;
+
+  private UserVersionService userVersionService;
+
+  private String testUserId = "testUserId";
+
+  private List<String> versionKeys = List.of(
+    "user_version:epoch",
+    "user_version:global",
+    "user_version:testUserId"
+  );
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    userVersionService = new UserVersionService(redisTemplate);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  @DisplayName("バージョンはエポック・全体バージョン・ユーザーバージョンから作る")
+  void getVersion_includesEpoch() {
+    when(valueOperations.multiGet(versionKeys)).thenReturn(
+      Arrays.asList("a1b2c3d4", "2", "3")
+    );
+
+    assertThat(userVersionService.getVersion(testUserId)).isEqualTo(
+      "a1b2c3d4.2.3"
+    );
+    verify(valueOperations, never()).setIfAbsent(anyString(), anyString());
+  }
+
+  @Test
+  @DisplayName("Redisのデータが失われた場合は新しいエポックを作成し、以前のバージョンと一致しない")
+  void getVersion_createsNewEpochAfterReset() {
+    when(valueOperations.multiGet(versionKeys)).thenReturn(
+      Arrays.asList(null, null, "3")
+    );
+    when(
+      valueOperations.setIfAbsent(eq("user_version:epoch"), anyString())
+    ).thenReturn(true);
+
+    String version = userVersionService.getVersion(testUserId);
+
+    assertThat(version).endsWith(".0.3").isNotEqualTo("0.3");
+    assertThat(version.split("\\.")[0]).hasSize(8);
+  }
+
+  @Test
+  @DisplayName("他のノードが先にエポックを作成した場合はその値を使う")
+  void getVersion_usesEpochCreatedByOtherNode() {
+    when(valueOperations.multiGet(versionKeys)).thenReturn(
+      Arrays.asList(null, "1", "3")
+    );
+    when(
+      valueOperations.setIfAbsent(eq("user_version:epoch"), anyString())
+    ).thenReturn(false);
+    when(valueOperations.get("user_version:epoch")).thenReturn("e5f6a7b8");
+
+    assertThat(userVersionService.getVersion(testUserId)).isEqualTo(
+      "e5f6a7b8.1.3"
+    );
+  }
+
+  @Test
+  @DisplayName("トランザクション内で更新した場合はコミット後にバージョンを更新する")
+  void bump_defersUntilCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    userVersionService.bump(testUserId);
+
+    verify(valueOperations, never()).increment(anyString());
+    for (
+      TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()
+    ) {
+      synchronization.afterCommit();
+    }
+    verify(valueOperations).increment("user_version:testUserId");
+  }
+
+  @Test
+  @DisplayName("ロールバックした場合はバージョンを更新しない")
+  void bump_skipsOnRollback() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    userVersionService.bump(testUserId);
+
+    for (
+      TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()
+    ) {
+      synchronization.afterCompletion(
+        TransactionSynchronization.STATUS_ROLLED_BACK
+      );
+    }
+    verify(valueOperations, never()).increment(anyString());
+  }
+
+  @Test
+  @DisplayName("トランザクション外ではすぐにバージョンを更新する")
+  void bump_outsideTransaction() {
+    userVersionService.bump(testUserId);
+
+    verify(valueOperations).increment("user_version:testUserId");
+  }
+}
@@ -0,0 +1,51 @@
+package inventory.example.inventory_id.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("BloomFilter Tests")
+public class BloomFilterTest {
+
+  private static final int INSERTIONS = 10000;
+
+  @Test
+  @DisplayName("追加した値は必ず含まれると判定する")
+  void mightContain_noFalseNegatives() {
+    BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+    for (int i = 0; i < INSERTIONS; i++) {
+      filter.put("revoked-" + i);
+    }
+
+    for (int i = 0; i < INSERTIONS; i++) {
+      assertThat(filter.mightContain("revoked-" + i)).isTrue();
+    }
+  }
+
+  @Test
+  @DisplayName("想定件数を追加しても偽陽性の割合は指定値の範囲に収まる")
+  void mightContain_falsePositiveRate() {
+    BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+    for (int i = 0; i < INSERTIONS; i++) {
+      filter.put("revoked-" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < INSERTIONS; i++) {
+      if (filter.mightContain("active-" + i)) {
+        falsePositives++;
+      }
+    }
+    // 指定値の3倍までを許容する
+    assertThat((double) falsePositives / INSERTIONS).isLessThan(0.03);
+  }
+
+  @Test
+  @DisplayName("空のフィルターは何も含まない")
+  void mightContain_emptyFilter() {
+    BloomFilter filter = new BloomFilter(0, 0.01);
+
+    assertThat(filter.mightContain("revoked")).isFalse();
+  }
+}
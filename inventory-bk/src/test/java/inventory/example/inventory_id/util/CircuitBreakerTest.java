@@ -0,0 +1,132 @@
+package inventory.example.inventory_id.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import inventory.example.inventory_id.util.CircuitBreaker.State;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("CircuitBreaker Tests")
+public class CircuitBreakerTest {
+
+  private MutableClock clock;
+  private CircuitBreaker circuitBreaker;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    circuitBreaker = new CircuitBreaker(
+      "test",
+      3,
+      Duration.ofSeconds(5),
+      clock
+    );
+  }
+
+  private String fail() {
+    throw new IllegalStateException("unavailable");
+  }
+
+  @Test
+  @DisplayName("連続で失敗すると停止し、停止中は呼び出さずに代替の処理を行う")
+  void execute_opensAfterConsecutiveFailures() {
+    AtomicInteger calls = new AtomicInteger();
+
+    for (int i = 0; i < 5; i++) {
+      String result = circuitBreaker.execute(
+        () -> {
+          calls.incrementAndGet();
+          return fail();
+        },
+        () -> "fallback"
+      );
+      assertThat(result).isEqualTo("fallback");
+    }
+
+    assertThat(calls.get()).isEqualTo(3);
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  @DisplayName("成功すると失敗回数をリセットする")
+  void execute_successResetsFailures() {
+    circuitBreaker.execute(this::fail, () -> "fallback");
+    circuitBreaker.execute(this::fail, () -> "fallback");
+    circuitBreaker.execute(() -> "ok", () -> "fallback");
+    circuitBreaker.execute(this::fail, () -> "fallback");
+    circuitBreaker.execute(this::fail, () -> "fallback");
+
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  @DisplayName("停止時間後は1件だけ試行し、成功すれば再開、失敗すれば再度停止する")
+  void tryAcquirePermission_halfOpenAllowsSingleTrial() {
+    for (int i = 0; i < 3; i++) {
+      circuitBreaker.execute(this::fail, () -> "fallback");
+    }
+
+    clock.now = clock.now.plus(Duration.ofSeconds(5));
+    assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+    assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    circuitBreaker.onFailure();
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+
+    clock.now = clock.now.plus(Duration.ofSeconds(5));
+    assertThat(circuitBreaker.execute(() -> "ok", () -> "fallback")).isEqualTo(
+      "ok"
+    );
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  @DisplayName("閾値が0以下の場合は停止しない")
+  void execute_disabledWithoutThreshold() {
+    CircuitBreaker disabled = new CircuitBreaker(
+      "disabled",
+      0,
+      Duration.ofSeconds(5),
+      clock
+    );
+
+    for (int i = 0; i < 10; i++) {
+      disabled.execute(this::fail, () -> "fallback");
+    }
+
+    assertThat(disabled.tryAcquirePermission()).isTrue();
+    assertThat(disabled.getState()).isEqualTo(State.CLOSED);
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
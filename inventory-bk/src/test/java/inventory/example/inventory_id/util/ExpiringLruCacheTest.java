@@ -0,0 +1,99 @@
+package inventory.example.inventory_id.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("ExpiringLruCache Tests")
+public class ExpiringLruCacheTest {
+
+  private MutableClock clock;
+  private ExpiringLruCache<String, String> cache;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    cache = new ExpiringLruCache<>(2, Duration.ofMinutes(1), clock);
+  }
+
+  @Test
+  @DisplayName("有効期限まで値を返し、期限後は返さない")
+  void get_returnsUntilExpiry() {
+    cache.put("a", "1");
+
+    assertThat(cache.get("a")).isEqualTo("1");
+
+    clock.now = clock.now.plus(Duration.ofMinutes(1));
+    assertThat(cache.get("a")).isNull();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  @DisplayName("件数が上限を超えた場合は参照が古いものから削除する")
+  void put_evictsLeastRecentlyUsed() {
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.get("a");
+    cache.put("c", "3");
+
+    assertThat(cache.get("a")).isEqualTo("1");
+    assertThat(cache.get("b")).isNull();
+    assertThat(cache.get("c")).isEqualTo("3");
+  }
+
+  @Test
+  @DisplayName("保持していない場合のみ読み込む")
+  void getOrLoad_loadsOnce() {
+    AtomicInteger loads = new AtomicInteger();
+
+    cache.getOrLoad("a", key -> key + loads.incrementAndGet());
+    String value = cache.getOrLoad("a", key -> key + loads.incrementAndGet());
+
+    assertThat(value).isEqualTo("a1");
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("読み込み中に削除された場合は読み込んだ値を保持しない")
+  void getOrLoad_discardsValueInvalidatedWhileLoading() {
+    String value = cache.getOrLoad("a", key -> {
+      cache.invalidate("a");
+      return "stale";
+    });
+
+    assertThat(value).isEqualTo("stale");
+    assertThat(cache.get("a")).isNull();
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package inventory.example.inventory_id.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@DisplayName("GroupCommitter Tests")
+public class GroupCommitterTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    GroupCommitterTest.class
+  );
+
+  private static final int THREADS = 64;
+  private static final int WRITES_PER_THREAD = 20;
+  // 1回のコミット(fsync)にかかる時間の想定
+  private static final long COMMIT_MILLIS = 1;
+
+  @Test
+  @DisplayName("最大件数までまとめ、それぞれの書き込みに結果を返す")
+  void submit_returnsEachResult() throws Exception {
+    List<Integer> batchSizes = new ArrayList<>();
+    GroupCommitter<Integer, Integer> committer = new GroupCommitter<>(
+      "test-group-commit",
+      3,
+      Duration.ofSeconds(5),
+      batch -> {
+        batchSizes.add(batch.size());
+        batch.forEach(entry -> entry.complete(entry.getRequest() * 10));
+      }
+    );
+    try {
+      List<CompletableFuture<Integer>> results = new ArrayList<>();
+      for (int i = 1; i <= 3; i++) {
+        results.add(committer.submit(i));
+      }
+
+      assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isEqualTo(10);
+      assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isEqualTo(20);
+      assertThat(results.get(2).get(5, TimeUnit.SECONDS)).isEqualTo(30);
+      assertThat(batchSizes).containsExactly(3);
+    } finally {
+      committer.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("最大待ち時間が経過した時点で、届いている書き込みをまとめる")
+  void submit_flushesAfterMaxDelay() throws Exception {
+    GroupCommitter<Integer, Integer> committer = new GroupCommitter<>(
+      "test-group-commit",
+      100,
+      Duration.ofMillis(10),
+      batch -> batch.forEach(entry -> entry.complete(entry.getRequest()))
+    );
+    try {
+      assertThat(committer.submit(1).get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    } finally {
+      committer.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("ハンドラーが失敗した場合や結果を返さなかった場合は、各書き込みをエラーにする")
+  void submit_failsEntriesWithoutResult() throws Exception {
+    GroupCommitter<Integer, Integer> committer = new GroupCommitter<>(
+      "test-group-commit",
+      1,
+      Duration.ZERO,
+      batch -> {
+        if (batch.get(0).getRequest() == 1) {
+          throw new IllegalStateException("commit failed");
+        }
+      }
+    );
+    try {
+      ExecutionException failed = assertThrows(ExecutionException.class, () ->
+        committer.submit(1).get(5, TimeUnit.SECONDS)
+      );
+      assertThat(failed.getCause()).hasMessage("commit failed");
+      ExecutionException missing = assertThrows(ExecutionException.class, () ->
+        committer.submit(2).get(5, TimeUnit.SECONDS)
+      );
+      assertThat(missing.getCause()).isInstanceOf(IllegalStateException.class);
+    } finally {
+      committer.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("まとめている途中で停止した場合も、届いている書き込みを処理する")
+  void shutdown_handlesBatchBeingCollected() throws Exception {
+    GroupCommitter<Integer, Integer> committer = new GroupCommitter<>(
+      "test-group-commit",
+      10,
+      Duration.ofSeconds(30),
+      batch -> batch.forEach(entry -> entry.complete(entry.getRequest()))
+    );
+    CompletableFuture<Integer> result = committer.submit(1);
+
+    committer.shutdown();
+
+    assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("停止後は書き込みを受け付けない")
+  void submit_rejectsAfterShutdown() {
+    GroupCommitter<Integer, Integer> committer = new GroupCommitter<>(
+      "test-group-commit",
+      1,
+      Duration.ZERO,
+      batch -> batch.forEach(entry -> entry.complete(entry.getRequest()))
+    );
+    committer.shutdown();
+
+    assertThrows(RejectedExecutionException.class, () -> committer.submit(1));
+  }
+
+  /**
+   * コミットが直列化される(H2のファイルへの書き込み)状況を模擬し、
+   * 1件ずつコミットする場合とまとめてコミットする場合の書き込み件数/秒を出力する(参考値)
+   */
+  @Test
+  @DisplayName("まとめてコミットするとコミット回数が書き込み件数より少なくなる")
+  void groupCommit_reducesCommits() throws Exception {
+    ReentrantLock disk = new ReentrantLock();
+    AtomicInteger singleCommits = new AtomicInteger();
+    double singleRate = measure(() -> {
+      commit(disk);
+      singleCommits.incrementAndGet();
+    });
+
+    AtomicInteger groupCommits = new AtomicInteger();
+    GroupCommitter<Integer, Integer> committer = new GroupCommitter<>(
+      "test-group-commit",
+      THREADS,
+      Duration.ofMillis(2),
+      batch -> {
+        commit(disk);
+        groupCommits.incrementAndGet();
+        batch.forEach(entry -> entry.complete(entry.getRequest()));
+      }
+    );
+    double groupRate;
+    try {
+      groupRate = measure(() -> committer.submit(1).get());
+    } finally {
+      committer.shutdown();
+    }
+
+    int writes = THREADS * WRITES_PER_THREAD;
+    logger.info(
+      "1件ずつ: {}回コミット, {} 件/秒 / まとめて: {}回コミット, {} 件/秒 (参考値)",
+      singleCommits.get(),
+      Math.round(singleRate),
+      groupCommits.get(),
+      Math.round(groupRate)
+    );
+    assertThat(singleCommits.get()).isEqualTo(writes);
+    assertThat(groupCommits.get()).isLessThan(writes);
+  }
+
+  private static void commit(ReentrantLock disk) {
+    disk.lock();
+    try {
+      Thread.sleep(COMMIT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      disk.unlock();
+    }
+  }
+
+  private interface Write {
+    void run() throws Exception;
+  }
+
+  private static double measure(Write write) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(
+          executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < WRITES_PER_THREAD; i++) {
+              write.run();
+            }
+            return null;
+          })
+        );
+      }
+      long startedAt = System.nanoTime();
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(120, TimeUnit.SECONDS);
+      }
+      long elapsedNanos = System.nanoTime() - startedAt;
+      return (THREADS * WRITES_PER_THREAD) / (elapsedNanos / 1_000_000_000.0);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
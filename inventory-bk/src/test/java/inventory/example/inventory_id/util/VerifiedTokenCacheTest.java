@@ -0,0 +1,254 @@
+package inventory.example.inventory_id.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@DisplayName("VerifiedTokenCache Tests")
+public class VerifiedTokenCacheTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(
+    VerifiedTokenCacheTest.class
+  );
+
+  private static final int TOKENS = 100;
+  private static final int LOGINS_PER_TOKEN = 20;
+
+  private final Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+  @Test
+  @DisplayName("有効期限までユーザーIDを返し、期限後は返さない")
+  void get_returnsUntilExpiry() {
+    MutableClock clock = new MutableClock(now);
+    VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+    cache.put("token", "user", now.plusSeconds(60));
+
+    assertThat(cache.get("token")).isEqualTo("user");
+    assertThat(cache.get("other")).isNull();
+
+    clock.now = now.plusSeconds(60);
+    assertThat(cache.get("token")).isNull();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  @DisplayName("有効期限を過ぎたトークンは保持しない")
+  void put_ignoresExpiredToken() {
+    VerifiedTokenCache cache = new VerifiedTokenCache(
+      10,
+      new MutableClock(now)
+    );
+    cache.put("token", "user", now);
+
+    assertThat(cache.get("token")).isNull();
+  }
+
+  @Test
+  @DisplayName("上限を超えた場合は参照が古いものから削除する")
+  void put_evictsLeastRecentlyUsed() {
+    VerifiedTokenCache cache = new VerifiedTokenCache(
+      2,
+      new MutableClock(now)
+    );
+    cache.put("first", "user1", now.plusSeconds(60));
+    cache.put("second", "user2", now.plusSeconds(60));
+    cache.get("first");
+    cache.put("third", "user3", now.plusSeconds(60));
+
+    assertThat(cache.get("first")).isEqualTo("user1");
+    assertThat(cache.get("second")).isNull();
+    assertThat(cache.get("third")).isEqualTo("user3");
+  }
+
+  /**
+   * 公開鍵を配信するローカルのサーバーを起動し、RS256の署名を毎回検証する場合と
+   * 検証済みのトークンをキャッシュする場合の検証件数/秒を出力する(参考値)
+   * 同じトークンでの再ログインを想定し、トークンごとに複数回検証する
+   */
+  @Test
+  @DisplayName("検証済みのトークンは署名の検証を省略する")
+  void cachedVerification_skipsSignatureCheck() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    KeyPair keyPair = generator.generateKeyPair();
+    HttpServer keyServer = startKeyServer(keyPair.getPublic());
+    try {
+      String keyUrl =
+        "http://localhost:" + keyServer.getAddress().getPort() + "/keys";
+
+      long fetchStartedAt = System.nanoTime();
+      PublicKey publicKey = fetchPublicKey(keyUrl);
+      long fetchNanos = System.nanoTime() - fetchStartedAt;
+
+      List<String> tokens = new ArrayList<>();
+      for (int i = 0; i < TOKENS; i++) {
+        tokens.add(sign(keyPair, "user" + i));
+      }
+
+      int[] verifications = new int[1];
+      double uncachedRate = measure(tokens, token -> {
+        verifications[0]++;
+        return verify(publicKey, token);
+      });
+      int uncachedVerifications = verifications[0];
+
+      verifications[0] = 0;
+      VerifiedTokenCache cache = new VerifiedTokenCache(TOKENS);
+      double cachedRate = measure(tokens, token -> {
+        String userId = cache.get(token);
+        if (userId == null) {
+          verifications[0]++;
+          userId = verify(publicKey, token);
+          cache.put(token, userId, Instant.now().plusSeconds(3600));
+        }
+        return userId;
+      });
+
+      logger.info(
+        "公開鍵の取得: {}ms / 毎回検証: {} 件/秒 / キャッシュ: {} 件/秒 (参考値)",
+        TimeUnit.NANOSECONDS.toMillis(fetchNanos),
+        Math.round(uncachedRate),
+        Math.round(cachedRate)
+      );
+      assertThat(uncachedVerifications).isEqualTo(TOKENS * LOGINS_PER_TOKEN);
+      assertThat(verifications[0]).isEqualTo(TOKENS);
+    } finally {
+      keyServer.stop(0);
+    }
+  }
+
+  private interface Verifier {
+    String verify(String token) throws Exception;
+  }
+
+  private static double measure(List<String> tokens, Verifier verifier)
+    throws Exception {
+    long startedAt = System.nanoTime();
+    for (int i = 0; i < LOGINS_PER_TOKEN; i++) {
+      for (String token : tokens) {
+        assertThat(verifier.verify(token)).startsWith("user");
+      }
+    }
+    long elapsedNanos = System.nanoTime() - startedAt;
+    return (tokens.size() * LOGINS_PER_TOKEN) / (elapsedNanos / 1_000_000_000.0);
+  }
+
+  private static HttpServer startKeyServer(PublicKey publicKey)
+    throws Exception {
+    byte[] body = Base64.getEncoder().encode(publicKey.getEncoded());
+    HttpServer server = HttpServer.create(new InetSocketAddress(0), 0);
+    server.createContext("/keys", exchange -> {
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+    return server;
+  }
+
+  private static PublicKey fetchPublicKey(String url) throws Exception {
+    HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+    HttpResponse<String> response = client.send(
+      HttpRequest.newBuilder(URI.create(url)).build(),
+      HttpResponse.BodyHandlers.ofString()
+    );
+    return KeyFactory.getInstance("RSA").generatePublic(
+      new X509EncodedKeySpec(Base64.getDecoder().decode(response.body()))
+    );
+  }
+
+  private static String sign(KeyPair keyPair, String userId)
+    throws Exception {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String content =
+      encoder.encodeToString(
+        "{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)
+      ) +
+      "." +
+      encoder.encodeToString(
+        ("{\"sub\":\"" + userId + "\"}").getBytes(StandardCharsets.UTF_8)
+      );
+    Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initSign(keyPair.getPrivate());
+    signature.update(content.getBytes(StandardCharsets.UTF_8));
+    return content + "." + encoder.encodeToString(signature.sign());
+  }
+
+  private static String verify(PublicKey publicKey, String token)
+    throws Exception {
+    int lastDot = token.lastIndexOf('.');
+    Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initVerify(publicKey);
+    signature.update(
+      token.substring(0, lastDot).getBytes(StandardCharsets.UTF_8)
+    );
+    if (
+      !signature.verify(
+        Base64.getUrlDecoder().decode(token.substring(lastDot + 1))
+      )
+    ) {
+      throw new IllegalStateException("署名が正しくありません");
+    }
+    String payload = new String(
+      Base64.getUrlDecoder().decode(token.split("\\.")[1]),
+      StandardCharsets.UTF_8
+    );
+    return payload.substring(
+      payload.indexOf(":\"") + 2,
+      payload.lastIndexOf('"')
+    );
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}